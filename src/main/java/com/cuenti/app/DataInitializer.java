@@ -5,6 +5,7 @@ import com.cuenti.app.repository.*;
 import com.cuenti.app.service.AccountService;
 import com.cuenti.app.service.AssetService;
 import com.cuenti.app.service.GlobalSettingService;
+import com.cuenti.app.service.ReadModelBackfill;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,6 +39,7 @@ public class DataInitializer implements CommandLineRunner {
     private final ScheduledTransactionRepository scheduledTransactionRepository;
     private final GlobalSettingService globalSettingService;
     private final PasswordEncoder passwordEncoder;
+    private final ReadModelBackfill readModelBackfill;
     private final Random random = new Random();
 
     public DataInitializer(UserRepository userRepository,
@@ -51,7 +53,8 @@ public class DataInitializer implements CommandLineRunner {
                            AssetService assetService,
                            ScheduledTransactionRepository scheduledTransactionRepository,
                            GlobalSettingService globalSettingService,
-                           PasswordEncoder passwordEncoder) {
+                           PasswordEncoder passwordEncoder,
+                           ReadModelBackfill readModelBackfill) {
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
         this.payeeRepository = payeeRepository;
@@ -64,6 +67,7 @@ public class DataInitializer implements CommandLineRunner {
         this.scheduledTransactionRepository = scheduledTransactionRepository;
         this.globalSettingService = globalSettingService;
         this.passwordEncoder = passwordEncoder;
+        this.readModelBackfill = readModelBackfill;
     }
 
     @Override
@@ -244,6 +248,9 @@ public class DataInitializer implements CommandLineRunner {
         createScheduledTransaction(demoUser, Transaction.TransactionType.EXPENSE, n26, null, new BigDecimal("39.95"), "Deutsche Telekom", internet, "Internet Bill", ScheduledTransaction.RecurrencePattern.MONTHLY, 1, LocalDateTime.now().plusMonths(1).withDayOfMonth(5).withHour(11).withMinute(0));
         createScheduledTransaction(demoUser, Transaction.TransactionType.EXPENSE, n26, null, new BigDecimal("15.99"), "Netflix", streaming, "Netflix Subscription", ScheduledTransaction.RecurrencePattern.MONTHLY, 1, LocalDateTime.now().minusDays(2).withHour(8).withMinute(0)); // Late one
 
+        // the transactions above bypass the services that keep the read models
+        readModelBackfill.backfillIfEmpty();
+
         log.info("Comprehensive demo data initialization complete!");
     }
 
@@ -5,13 +5,17 @@ import com.cuenti.app.api.dto.DtoMapper;
 import com.cuenti.app.model.Account;
 import com.cuenti.app.model.User;
 import com.cuenti.app.service.AccountService;
+import com.cuenti.app.service.DailyBalanceService;
 import com.cuenti.app.service.SecurityUtil;
 import com.cuenti.app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -21,6 +25,7 @@ public class AccountApiController {
 
     private final AccountService accountService;
     private final UserService userService;
+    private final DailyBalanceService dailyBalanceService;
 
     @GetMapping
     public ResponseEntity<List<AccountDTO>> getAccounts() {
@@ -46,6 +51,36 @@ public class AccountApiController {
         }
     }
 
+    /** Balance at the end of {@code date}, including the start balance. */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<?> getBalanceAsOf(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+
+        Account account;
+        try {
+            account = accountService.findById(id);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+                "accountId", account.getId(),
+                "date", date.toString(),
+                "balance", dailyBalanceService.balanceAsOf(account, date),
+                "currency", account.getCurrency()));
+    }
+
+    /** Regenerates the current user's daily balance checkpoints from their transactions. */
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<?> rebuildDailyBalances() {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        return ResponseEntity.ok(Map.of("rows", dailyBalanceService.rebuild(user)));
+    }
+
     @PostMapping
     public ResponseEntity<AccountDTO> createAccount(@RequestBody AccountDTO dto) {
         String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
@@ -3,13 +3,26 @@ package com.cuenti.app.api;
 import com.cuenti.app.api.dto.AssetDTO;
 import com.cuenti.app.api.dto.DtoMapper;
 import com.cuenti.app.model.Asset;
+import com.cuenti.app.model.User;
+import com.cuenti.app.service.AssetPriceService;
 import com.cuenti.app.service.AssetService;
+import com.cuenti.app.service.PortfolioHistoryService;
 import com.cuenti.app.service.SecurityUtil;
+import com.cuenti.app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -18,6 +31,9 @@ import java.util.stream.Collectors;
 public class AssetApiController {
 
     private final AssetService assetService;
+    private final AssetPriceService assetPriceService;
+    private final PortfolioHistoryService portfolioHistoryService;
+    private final UserService userService;
 
     @GetMapping
     public ResponseEntity<List<AssetDTO>> getAssets(@RequestParam(required = false) String search) {
@@ -102,4 +118,38 @@ public class AssetApiController {
         assetService.updatePrice(asset);
         return ResponseEntity.ok(DtoMapper.toAssetDTO(asset));
     }
+
+    /**
+     * Daily portfolio value per asset and in total, in the user's default currency.
+     * Defaults to the last year.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<?> getPortfolioHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        LocalDate to = end != null ? end : LocalDate.now();
+        LocalDate from = start != null ? start : to.minusYears(1);
+        try {
+            return ResponseEntity.ok(portfolioHistoryService.getSeries(user, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Bulk-loads price history from a {@code date,symbol,price[,currency]} CSV. */
+    @PostMapping("/prices/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importPrices(@RequestParam("file") MultipartFile file) {
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(Map.of("imported", assetPriceService.importCsv(reader, "IMPORT")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read file: " + e.getMessage()));
+        }
+    }
 }
@@ -5,11 +5,13 @@ import com.cuenti.app.api.dto.DtoMapper;
 import com.cuenti.app.model.*;
 import com.cuenti.app.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,6 +25,7 @@ public class DashboardApiController {
     private final AssetService assetService;
     private final ExchangeRateService exchangeRateService;
     private final UserService userService;
+    private final NetWorthService netWorthService;
 
     @GetMapping
     public ResponseEntity<DashboardDTO> getDashboard() {
@@ -34,7 +37,6 @@ public class DashboardApiController {
         List<Account> accounts = allAccounts.stream()
                 .filter(a -> !a.isExcludeFromSummary())
                 .collect(Collectors.toList());
-        List<Transaction> transactions = transactionService.getTransactionsByUser(user);
 
         // Calculate available cash (non-asset accounts)
         BigDecimal availableCash = accounts.stream()
@@ -43,7 +45,7 @@ public class DashboardApiController {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Calculate asset performance
-        List<DashboardDTO.AssetPerformanceDTO> assetPerformance = calculateAssetPerformance(transactions, user);
+        List<DashboardDTO.AssetPerformanceDTO> assetPerformance = calculateAssetPerformance(user);
 
         // Portfolio value from asset performance
         BigDecimal portfolioValue = assetPerformance.stream()
@@ -70,25 +72,36 @@ public class DashboardApiController {
                 .build());
     }
 
-    private List<DashboardDTO.AssetPerformanceDTO> calculateAssetPerformance(List<Transaction> transactions, User user) {
-        Map<Asset, List<Transaction>> assetTransactions = transactions.stream()
-                .filter(t -> t.getAsset() != null && t.getUnits() != null)
-                .filter(t -> t.getToAccount() != null && t.getToAccount().getAccountType() == Account.AccountType.ASSET)
-                .collect(Collectors.groupingBy(Transaction::getAsset));
+    /**
+     * Daily net worth (cash, portfolio, total) from the precomputed snapshots,
+     * optionally reduced to one point per {@code week} or {@code month}.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<?> getHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "day") String resolution) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        LocalDate to = end != null ? end : LocalDate.now();
+        LocalDate from = start != null ? start : to.minusYears(1);
+        try {
+            return ResponseEntity.ok(netWorthService.getHistory(user, from, to,
+                    NetWorthService.Resolution.parse(resolution)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
+    private List<DashboardDTO.AssetPerformanceDTO> calculateAssetPerformance(User user) {
         List<DashboardDTO.AssetPerformanceDTO> result = new ArrayList<>();
 
-        for (Map.Entry<Asset, List<Transaction>> entry : assetTransactions.entrySet()) {
+        for (Map.Entry<Asset, TransactionService.AssetHolding> entry : transactionService.getAssetHoldings(user).entrySet()) {
             Asset asset = entry.getKey();
-            List<Transaction> assetTxs = entry.getValue();
-
-            BigDecimal totalUnits = BigDecimal.ZERO;
-            BigDecimal totalCost = BigDecimal.ZERO;
-
-            for (Transaction t : assetTxs) {
-                totalUnits = totalUnits.add(t.getUnits());
-                totalCost = totalCost.add(t.getAmount());
-            }
+            BigDecimal totalUnits = entry.getValue().units();
+            BigDecimal totalCost = entry.getValue().cost();
 
             BigDecimal currentPrice = asset.getCurrentPrice() != null ? asset.getCurrentPrice() : BigDecimal.ZERO;
             BigDecimal currentValue = totalUnits.multiply(currentPrice);
@@ -2,13 +2,16 @@ package com.cuenti.app.api;
 
 import com.cuenti.app.api.dto.ForecastDTO;
 import com.cuenti.app.model.User;
+import com.cuenti.app.service.CashFlowProjectionService;
 import com.cuenti.app.service.ForecastService;
 import com.cuenti.app.service.SecurityUtil;
 import com.cuenti.app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.Year;
 import java.util.Map;
 
@@ -18,13 +21,16 @@ import java.util.Map;
 public class ForecastApiController {
 
     private final ForecastService forecastService;
+    private final CashFlowProjectionService cashFlowProjectionService;
     private final UserService userService;
 
     private static final int MIN_YEAR = 2000;
     private static final int MAX_YEAR_OFFSET = 50;
 
+    /** Forecast for {@code year}, or for {@code years} consecutive years starting there. */
     @GetMapping
-    public ResponseEntity<?> getForecast(@RequestParam(required = false) Integer year) {
+    public ResponseEntity<?> getForecast(@RequestParam(required = false) Integer year,
+                                         @RequestParam(defaultValue = "1") int years) {
         String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
         if (username == null) return ResponseEntity.status(401).build();
         User user = userService.findByUsername(username);
@@ -36,6 +42,49 @@ public class ForecastApiController {
             return ResponseEntity.badRequest().body(Map.of(
                     "error", "year must be between " + MIN_YEAR + " and " + maxYear));
         }
-        return ResponseEntity.ok(forecastService.getForecast(user, forecastYear));
+        if (years < 1 || forecastYear + years - 1 > maxYear) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "years must be between 1 and " + (maxYear - forecastYear + 1)));
+        }
+        if (years == 1) {
+            return ResponseEntity.ok(forecastService.getForecast(user, forecastYear));
+        }
+        return ResponseEntity.ok(forecastService.getForecast(user,
+                LocalDate.of(forecastYear, 1, 1), LocalDate.of(forecastYear + years - 1, 12, 31)));
+    }
+
+    /** Forecast for an arbitrary date range, one entry per month it touches. */
+    @GetMapping("/range")
+    public ResponseEntity<?> getRangeForecast(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        int maxYear = Year.now().getValue() + MAX_YEAR_OFFSET;
+        if (start.getYear() < MIN_YEAR || end.getYear() > maxYear) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "range must lie between " + MIN_YEAR + " and " + maxYear));
+        }
+        try {
+            return ResponseEntity.ok(forecastService.getForecast(user, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Each account's projected balance for today and the next {@code days - 1} days. */
+    @GetMapping("/cash-flow")
+    public ResponseEntity<?> getCashFlow(@RequestParam(defaultValue = "90") int days) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        try {
+            return ResponseEntity.ok(cashFlowProjectionService.project(user, days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 }
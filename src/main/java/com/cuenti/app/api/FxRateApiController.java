@@ -0,0 +1,56 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.service.FxRateService;
+import com.cuenti.app.service.SecurityUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/fx-rates")
+@RequiredArgsConstructor
+public class FxRateApiController {
+
+    private final FxRateService fxRateService;
+
+    /** Stored rate of the pair on {@code date} (default today); 404 when the pair has no history. */
+    @GetMapping("/{from}/{to}")
+    public ResponseEntity<?> getRate(@PathVariable String from, @PathVariable String to,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+
+        LocalDate day = date != null ? date : LocalDate.now();
+        String base = from.toUpperCase(Locale.ROOT);
+        String quote = to.toUpperCase(Locale.ROOT);
+        return fxRateService.rateOn(base, quote, day)
+                .<ResponseEntity<?>>map(rate -> ResponseEntity.ok(Map.<String, Object>of(
+                        "from", base, "to", quote, "date", day.toString(), "rate", rate)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** Backfills rates from an ECB reference-rate CSV or a {@code date,base,quote,rate} CSV. */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importRates(@RequestParam("file") MultipartFile file) {
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            int imported = fxRateService.importCsv(reader, "IMPORT");
+            return ResponseEntity.ok(Map.of("imported", imported));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read file: " + e.getMessage()));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.cuenti.app.api;
 
+import com.cuenti.app.model.ImportJob;
 import com.cuenti.app.model.User;
 import com.cuenti.app.security.SecurityUtils;
+import com.cuenti.app.service.ImportJobService;
 import com.cuenti.app.service.JsonExportImportService;
 import com.cuenti.app.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -11,10 +13,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/json-export-import")
@@ -22,46 +26,93 @@ import java.time.format.DateTimeFormatter;
 public class JsonExportImportApiController {
 
     private final JsonExportImportService jsonExportImportService;
+    private final ImportJobService importJobService;
     private final UserService userService;
     private final SecurityUtils securityUtils;
 
+    /** Writes the export straight into the response; the document is never held in memory. */
     @GetMapping("/export")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<byte[]> exportUserData() {
-        try {
-            String username = securityUtils.getAuthenticatedUsername().orElseThrow();
-            User user = userService.findByUsername(username);
+    public ResponseEntity<StreamingResponseBody> exportUserData() {
+        String username = securityUtils.getAuthenticatedUsername().orElseThrow();
+        User user = userService.findByUsername(username);
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            jsonExportImportService.exportUserData(user, outputStream);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String filename = String.format("cuenti_export_%s_%s.json", username, timestamp);
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String filename = String.format("cuenti_export_%s_%s.json", username, timestamp);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentDispositionFormData("attachment", filename);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setContentDispositionFormData("attachment", filename);
+        StreamingResponseBody body = outputStream -> {
+            try {
+                jsonExportImportService.exportUserData(user, outputStream);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Export failed", e);
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(outputStream.toByteArray());
+    /**
+     * Queues the upload as a background import job and returns it at once; poll
+     * {@code /jobs/{id}} for its progress.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> importUserData(@RequestParam("file") MultipartFile file) {
+        try {
+            ImportJobService.Progress job = importJobService.submit(currentUser(), ImportJob.Type.JSON,
+                    file.getOriginalFilename(), file.getInputStream());
+            return ResponseEntity.status(202).body(job);
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            return ResponseEntity.badRequest().body("Import failed: " + e.getMessage());
         }
     }
 
-    @PostMapping("/import")
+    @GetMapping("/jobs")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<String> importUserData(@RequestParam("file") MultipartFile file) {
-        try {
-            String username = securityUtils.getAuthenticatedUsername().orElseThrow();
-            User user = userService.findByUsername(username);
+    public List<ImportJobService.Progress> listJobs() {
+        return importJobService.recent(currentUser());
+    }
+
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportJobService.Progress> getJob(@PathVariable Long id) {
+        return ResponseEntity.of(importJobService.find(currentUser(), id));
+    }
 
-            jsonExportImportService.importUserData(user, file.getInputStream());
+    /** Cancels a queued job, or stops a running one after its current chunk. */
+    @PostMapping("/jobs/{id}/cancel")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportJobService.Progress> cancelJob(@PathVariable Long id) {
+        User user = currentUser();
+        if (!importJobService.cancel(user, id)) {
+            return importJobService.find(user, id).isPresent()
+                    ? ResponseEntity.status(409).build()
+                    : ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(importJobService.find(user, id));
+    }
 
-            return ResponseEntity.ok("Data imported successfully");
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Import failed: " + e.getMessage());
+    /** Runs a failed job again from its last committed chunk. */
+    @PostMapping("/jobs/{id}/resume")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportJobService.Progress> resumeJob(@PathVariable Long id) {
+        User user = currentUser();
+        if (!importJobService.resume(user, id)) {
+            return importJobService.find(user, id).isPresent()
+                    ? ResponseEntity.status(409).build()
+                    : ResponseEntity.notFound().build();
         }
+        return ResponseEntity.of(importJobService.find(user, id));
+    }
+
+    private User currentUser() {
+        return userService.findByUsername(securityUtils.getAuthenticatedUsername().orElseThrow());
     }
 }
@@ -24,10 +24,15 @@ import java.util.stream.Collectors;
 public class StatisticsApiController {
 
     private final TransactionService transactionService;
-    private final ExchangeRateService exchangeRateService;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final FxRateService fxRateService;
     private final UserService userService;
     private final AccountService accountService;
 
+    /**
+     * Income/expense summary answered from the monthly aggregate; only the partial
+     * months at the edges of the range are read from the transactions table.
+     */
     @GetMapping
     public ResponseEntity<StatisticsResponse> getStatistics(
             @RequestParam(required = false) String start,
@@ -37,42 +42,13 @@ public class StatisticsApiController {
         if (username == null) return ResponseEntity.status(401).build();
         User user = userService.findByUsername(username);
 
-        List<Transaction> transactions = transactionService.getTransactionsByUser(user);
-
         LocalDateTime startDate = parseStartDate(start, LocalDateTime.now().minusMonths(12));
         LocalDateTime endDate = parseEndDate(end, LocalDateTime.now());
 
-        List<Transaction> filtered = transactions.stream()
-                .filter(t -> !t.getTransactionDate().isBefore(startDate) && !t.getTransactionDate().isAfter(endDate))
-                .collect(Collectors.toList());
-
-        // Filter by specific account if requested
-        if (accountId != null) {
-            filtered = filtered.stream()
-                    .filter(t -> {
-                        if (t.getFromAccount() != null && t.getFromAccount().getId().equals(accountId)) return true;
-                        if (t.getToAccount() != null && t.getToAccount().getId().equals(accountId)) return true;
-                        return false;
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        // Filter out excluded accounts (only when not filtering by specific account)
-        List<Account> accounts = accountService.getAccountsByUser(user);
-        if (accountId == null) {
-            Set<Long> excludedAccountIds = accounts.stream()
-                    .filter(Account::isExcludeFromReports)
-                    .map(Account::getId)
-                    .collect(Collectors.toSet());
-
-            filtered = filtered.stream()
-                    .filter(t -> {
-                        if (t.getFromAccount() != null && excludedAccountIds.contains(t.getFromAccount().getId())) return false;
-                        if (t.getToAccount() != null && excludedAccountIds.contains(t.getToAccount().getId())) return false;
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-        }
+        // Only buckets of the requested account, or of all accounts not excluded from reports
+        Map<Long, Account> accounts = accountService.getAccountsByUser(user).stream()
+                .filter(a -> accountId != null ? a.getId().equals(accountId) : !a.isExcludeFromReports())
+                .collect(Collectors.toMap(Account::getId, a -> a));
 
         BigDecimal totalIncome = BigDecimal.ZERO;
         BigDecimal totalExpense = BigDecimal.ZERO;
@@ -81,26 +57,28 @@ public class StatisticsApiController {
         Map<String, BigDecimal> monthlyIncome = new TreeMap<>();
         Map<String, BigDecimal> monthlyExpense = new TreeMap<>();
 
-        for (Transaction t : filtered) {
-            String currency = getCurrency(t, user);
-            BigDecimal converted = exchangeRateService.convert(t.getAmount(), currency, user.getDefaultCurrency());
+        for (MonthlyTotalsService.Bucket b : monthlyTotalsService.getBuckets(user, startDate, endDate)) {
+            Account account = accounts.get(b.accountId());
+            if (account == null) continue;
+            BigDecimal converted = fxRateService.convert(b.total(), account.getCurrency(), user.getDefaultCurrency(),
+                    b.month().atEndOfMonth());
 
-            String monthKey = t.getTransactionDate().getYear() + "-" +
-                    String.format("%02d", t.getTransactionDate().getMonthValue());
+            String monthKey = b.month().toString();
+            String categoryName = b.category() != null ? b.category().getFullName() : "Uncategorized";
 
-            String categoryName = t.getCategory() != null ? t.getCategory().getFullName() : "Uncategorized";
-
-            if (t.getType() == Transaction.TransactionType.INCOME) {
+            if (b.type() == Transaction.TransactionType.INCOME) {
                 totalIncome = totalIncome.add(converted);
                 incomeByCategory.merge(categoryName, converted, BigDecimal::add);
                 monthlyIncome.merge(monthKey, converted, BigDecimal::add);
-            } else if (t.getType() == Transaction.TransactionType.EXPENSE) {
+            } else if (b.type() == Transaction.TransactionType.EXPENSE) {
                 totalExpense = totalExpense.add(converted);
                 expenseByCategory.merge(categoryName, converted, BigDecimal::add);
                 monthlyExpense.merge(monthKey, converted, BigDecimal::add);
             }
         }
 
+        long transactionCount = transactionService.countForStatistics(user, accountId, startDate, endDate);
+
         return ResponseEntity.ok(StatisticsResponse.builder()
                 .totalIncome(totalIncome)
                 .totalExpense(totalExpense)
@@ -110,10 +88,19 @@ public class StatisticsApiController {
                 .expenseByCategory(expenseByCategory)
                 .monthlyIncome(monthlyIncome)
                 .monthlyExpense(monthlyExpense)
-                .transactionCount(filtered.size())
+                .transactionCount((int) transactionCount)
                 .build());
     }
 
+    /** Regenerates the caller's monthly aggregate from scratch. */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild() {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+        return ResponseEntity.ok(Map.of("rows", monthlyTotalsService.rebuild(user)));
+    }
+
     /**
      * Parses a date string accepting both "yyyy-MM-dd" (LocalDate) and ISO LocalDateTime formats.
      * For a start date, time defaults to 00:00:00.
@@ -148,12 +135,6 @@ public class StatisticsApiController {
         }
     }
 
-    private String getCurrency(Transaction t, User user) {
-        if (t.getFromAccount() != null) return t.getFromAccount().getCurrency();
-        if (t.getToAccount() != null) return t.getToAccount().getCurrency();
-        return user.getDefaultCurrency();
-    }
-
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
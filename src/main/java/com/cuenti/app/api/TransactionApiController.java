@@ -2,22 +2,28 @@ package com.cuenti.app.api;
 
 import com.cuenti.app.api.dto.DtoMapper;
 import com.cuenti.app.api.dto.PagedResponse;
+import com.cuenti.app.api.dto.TransactionCursor;
 import com.cuenti.app.api.dto.TransactionDTO;
 import com.cuenti.app.api.dto.TransactionSplitDTO;
 import com.cuenti.app.model.*;
 import com.cuenti.app.service.*;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +39,8 @@ public class TransactionApiController {
     private final CategoryService categoryService;
     private final AssetService assetService;
     private final UserService userService;
+    private final TransactionExportService transactionExportService;
+    private final TransactionBatchService transactionBatchService;
 
     private static final Set<String> SORT_WHITELIST = Set.of("transactionDate", "amount", "payee");
 
@@ -48,7 +56,9 @@ public class TransactionApiController {
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean count) {
         String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
         if (username == null) return ResponseEntity.status(401).build();
         User user = userService.findByUsername(username);
@@ -74,14 +84,32 @@ public class TransactionApiController {
         boolean paged = page != null || size != null;
         int effectivePage = page != null ? Math.max(page, 0) : 0;
         int effectiveSize = size != null ? Math.min(Math.max(size, 1), 200) : 50;
+        LocalDateTime from = start != null ? start.atStartOfDay() : null;
+        LocalDateTime to = end != null ? end.atTime(java.time.LocalTime.MAX) : null;
+
+        // Keyset mode: "cursor" present (empty for the first page) switches from offset paging
+        if (cursor != null) {
+            if (!"transactionDate".equals(sortField)) {
+                return ResponseEntity.badRequest().body(Map.of(
+                        "error", "cursor pagination only supports sort=transactionDate"));
+            }
+            TransactionCursor key;
+            try {
+                key = cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "invalid cursor"));
+            }
+            return ResponseEntity.ok(seekPage(user, accountId, type, categoryId, from, to,
+                    emptyToNull(payee), emptyToNull(tag), emptyToNull(search),
+                    key, sortDirection == Sort.Direction.DESC, effectiveSize, count));
+        }
+
         Pageable pageable = paged
                 ? PageRequest.of(effectivePage, effectiveSize, sortSpec)
                 : Pageable.unpaged(sortSpec);
 
         Page<Transaction> result = transactionService.search(user, accountId, type, categoryId,
-                start != null ? start.atStartOfDay() : null,
-                end != null ? end.atTime(java.time.LocalTime.MAX) : null,
-                emptyToNull(payee), emptyToNull(tag), emptyToNull(search), pageable);
+                from, to, emptyToNull(payee), emptyToNull(tag), emptyToNull(search), pageable);
 
         List<TransactionDTO> dtos = result.getContent().stream()
                 .map(DtoMapper::toTransactionDTO)
@@ -98,10 +126,88 @@ public class TransactionApiController {
                 .build());
     }
 
+    /**
+     * One keyset page. Fetches one row beyond the page to learn whether another page
+     * exists in the walking direction; a backward walk runs the opposite-order query
+     * and flips the rows back into display order.
+     */
+    private PagedResponse<TransactionDTO> seekPage(User user, Long accountId, Transaction.TransactionType type,
+                                                   Long categoryId, LocalDateTime from, LocalDateTime to,
+                                                   String payee, String tag, String search,
+                                                   TransactionCursor key, boolean newestFirst,
+                                                   int size, boolean count) {
+        boolean backward = key != null && key.backward();
+        List<Transaction> rows = new ArrayList<>(transactionService.seek(user, accountId, type, categoryId,
+                from, to, payee, tag, search,
+                key != null ? key.date() : null,
+                key != null ? key.sortOrder() : null,
+                key != null ? key.id() : null,
+                newestFirst != backward, size + 1));
+        boolean more = rows.size() > size;
+        if (more) rows = new ArrayList<>(rows.subList(0, size));
+        if (backward) Collections.reverse(rows);
+
+        String next = null;
+        String prev = null;
+        if (!rows.isEmpty()) {
+            if (backward || more) next = TransactionCursor.of(rows.get(rows.size() - 1), false).encode();
+            if (backward ? more : key != null) prev = TransactionCursor.of(rows.get(0), true).encode();
+        }
+
+        PagedResponse.PagedResponseBuilder<TransactionDTO> response = PagedResponse.<TransactionDTO>builder()
+                .content(rows.stream().map(DtoMapper::toTransactionDTO).collect(Collectors.toList()))
+                .size(size)
+                .nextCursor(next)
+                .prevCursor(prev);
+        if (count) {
+            long total = transactionService.countSearch(user, accountId, type, categoryId,
+                    from, to, payee, tag, search);
+            response.totalElements(total).totalPages((int) ((total + size - 1) / size));
+        }
+        return response.build();
+    }
+
     private static String emptyToNull(String s) {
         return (s == null || s.isBlank()) ? null : s;
     }
 
+    /**
+     * Streams the caller's transactions (oldest first) as NDJSON - one TransactionDTO
+     * per line - or CSV, straight from a database cursor to the response body.
+     */
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            HttpServletResponse response) throws IOException {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) {
+            response.sendError(401);
+            return;
+        }
+        TransactionExportService.Format exportFormat;
+        switch (format.toLowerCase()) {
+            case "ndjson" -> exportFormat = TransactionExportService.Format.NDJSON;
+            case "csv" -> exportFormat = TransactionExportService.Format.CSV;
+            default -> {
+                response.sendError(400, "format must be ndjson or csv");
+                return;
+            }
+        }
+        User user = userService.findByUsername(username);
+
+        boolean csv = exportFormat == TransactionExportService.Format.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"transactions." + (csv ? "csv" : "ndjson") + "\"");
+        transactionExportService.export(user, accountId,
+                start != null ? start.atStartOfDay() : null,
+                end != null ? end.atTime(java.time.LocalTime.MAX) : null,
+                exportFormat, response.getOutputStream());
+    }
+
     @PostMapping
     public ResponseEntity<?> createTransaction(@RequestBody TransactionDTO dto) {
         String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
@@ -117,6 +223,27 @@ public class TransactionApiController {
         return ResponseEntity.ok(DtoMapper.toTransactionDTO(saved));
     }
 
+    /**
+     * Creates many transactions in one request and one database transaction. Either
+     * all rows are stored or - when any row is invalid or references another user's
+     * data - none are.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransactions(@RequestBody List<TransactionDTO> dtos) {
+        String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
+        if (username == null) return ResponseEntity.status(401).build();
+        User user = userService.findByUsername(username);
+
+        try {
+            List<Long> ids = transactionBatchService.createBatch(user, dtos);
+            return ResponseEntity.ok(Map.of("created", ids.size(), "ids", ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateTransaction(@PathVariable Long id, @RequestBody TransactionDTO dto) {
         String username = SecurityUtil.getAuthenticatedUsername().orElse(null);
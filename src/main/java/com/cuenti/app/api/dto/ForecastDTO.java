@@ -3,6 +3,7 @@ package com.cuenti.app.api.dto;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Data
@@ -10,7 +11,9 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 public class ForecastDTO {
-    private int year;
+    private int year; // first year of the range
+    private LocalDate start;
+    private LocalDate end;
     private List<MonthForecast> months;
     private BigDecimal totalIncome;
     private BigDecimal totalExpense;
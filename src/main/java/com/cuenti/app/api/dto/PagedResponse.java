@@ -1,17 +1,26 @@
 package com.cuenti.app.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
 
+/**
+ * One page of results. Offset pages carry {@code page}/{@code totalPages};
+ * keyset pages carry {@code nextCursor}/{@code prevCursor} and include the
+ * totals only when the client asked for a count. Absent values are omitted.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagedResponse<T> {
     private List<T> content;
-    private int page;
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
+    private String nextCursor;
+    private String prevCursor;
 }
@@ -0,0 +1,41 @@
+package com.cuenti.app.api.dto;
+
+import com.cuenti.app.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for GET /api/transactions: the (transactionDate, sortOrder, id)
+ * key of a boundary row and whether to walk forward (next page) or backward
+ * (previous page) from it. Clients must treat the encoded form as a black box.
+ */
+public record TransactionCursor(LocalDateTime date, int sortOrder, long id, boolean backward) {
+
+    public static TransactionCursor of(Transaction t, boolean backward) {
+        return new TransactionCursor(t.getTransactionDate(),
+                t.getSortOrder() != null ? t.getSortOrder() : 0, t.getId(), backward);
+    }
+
+    public String encode() {
+        String raw = (backward ? "p" : "n") + "|" + date + "|" + sortOrder + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode()} */
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4 || !(parts[0].equals("n") || parts[0].equals("p"))) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new TransactionCursor(LocalDateTime.parse(parts[1]),
+                    Integer.parseInt(parts[2]), Long.parseLong(parts[3]), parts[0].equals("p"));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
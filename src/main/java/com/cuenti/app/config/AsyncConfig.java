@@ -15,8 +15,9 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class AsyncConfig {
 
     /**
-     * Single-thread executor for asset price fetching: the Yahoo client
-     * sleeps between requests, which must never block the shared pool.
+     * Single-thread executor for navigation-triggered price refreshes: the
+     * caller returns at once, and PriceRefreshService fans the fetches out
+     * onto virtual threads from here.
      */
     @org.springframework.context.annotation.Bean(name = "priceExecutor")
     public java.util.concurrent.Executor priceExecutor() {
@@ -29,4 +30,37 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Exchange-rate fetches for ExchangeRateService: stale rates are refreshed
+     * here in the background while callers keep getting the cached value.
+     */
+    @org.springframework.context.annotation.Bean(name = "fxExecutor")
+    public java.util.concurrent.Executor fxExecutor() {
+        org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor executor =
+                new org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("fx-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Background file imports (ImportJobService): at most two run at a time, each
+     * holding a database connection only while it commits a chunk. Jobs beyond the
+     * queue are rejected and marked failed, to be resumed later.
+     */
+    @org.springframework.context.annotation.Bean(name = "importExecutor")
+    public java.util.concurrent.Executor importExecutor() {
+        org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor executor =
+                new org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("import-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -14,7 +14,7 @@ import java.util.List;
  * Each account belongs to a user and has a balance and transaction history.
  */
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = @Index(name = "idx_accounts_user", columnList = "user_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -51,7 +51,12 @@ public class Account {
     @Builder.Default
     private BigDecimal startBalance = BigDecimal.ZERO;
 
-    @Column(nullable = false, precision = 15, scale = 2)
+    /**
+     * Current balance. Written on insert only; afterwards it changes exclusively through
+     * the atomic update queries in {@code AccountRepository}, so saving a stale account
+     * instance can never overwrite a concurrent balance change.
+     */
+    @Column(nullable = false, precision = 15, scale = 2, updatable = false)
     @Builder.Default
     private BigDecimal balance = BigDecimal.ZERO;
 
@@ -0,0 +1,49 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Net balance change of one account on one day, kept in step with the transactions
+ * table by {@code DailyBalanceService}. The balance at the end of a day is the
+ * account's start balance plus the sum of all rows up to and including that day,
+ * so a running balance can start from this table instead of replaying the full
+ * transaction history. References are plain ids without foreign keys, so the table
+ * can be dropped and rebuilt at any time.
+ */
+@Entity
+@Table(name = "account_daily_balance",
+        uniqueConstraints = @UniqueConstraint(name = "uk_account_daily_balance",
+                columnNames = {"account_id", "balance_date"}),
+        indexes = @Index(name = "idx_account_daily_balance_user_date", columnList = "user_id, balance_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDailyBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(name = "net_change", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal netChange = BigDecimal.ZERO;
+}
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  * Asset entity for managing stocks, ETFs, and crypto.
  */
 @Entity
-@Table(name = "assets")
+@Table(name = "assets", indexes = @Index(name = "idx_assets_symbol", columnList = "symbol"))
 @Getter
 @Setter
 @NoArgsConstructor
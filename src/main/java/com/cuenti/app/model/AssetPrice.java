@@ -0,0 +1,46 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily closing price of a symbol, shared by every user holding it. Appended by
+ * each price refresh (the day's last fetched price wins) and by bulk CSV loads,
+ * so portfolio values can be charted over time.
+ */
+@Entity
+@Table(name = "asset_prices",
+        uniqueConstraints = @UniqueConstraint(name = "uk_asset_prices_symbol_date",
+                columnNames = {"symbol", "price_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetPrice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String symbol;
+
+    @Column(name = "price_date", nullable = false)
+    private LocalDate priceDate;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal price;
+
+    private String currency;
+
+    @Column(length = 20)
+    private String source;
+}
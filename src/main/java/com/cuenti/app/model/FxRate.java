@@ -0,0 +1,48 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily exchange rate: one unit of {@code baseCurrency} costs {@code rate} units of
+ * {@code quoteCurrency} on {@code rateDate}. Filled by bulk imports (CSV or ECB
+ * reference-rate files) and by every live rate fetched from Yahoo, so reports can
+ * convert past amounts at the rate of their own date.
+ */
+@Entity
+@Table(name = "fx_rates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_fx_rates_pair_date",
+                columnNames = {"base_currency", "quote_currency", "rate_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FxRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "base_currency", nullable = false, length = 3)
+    private String baseCurrency;
+
+    @Column(name = "quote_currency", nullable = false, length = 3)
+    private String quoteCurrency;
+
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate rateDate;
+
+    @Column(nullable = false, precision = 19, scale = 10)
+    private BigDecimal rate;
+
+    @Column(length = 20)
+    private String source;
+}
@@ -0,0 +1,111 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file import running in the background. The uploaded file is kept in the
+ * spool directory until the job completes or is cancelled, so a failed job can be
+ * resumed from its last committed chunk. The user is stored by id without a
+ * foreign key, like the audit log, so old jobs never block deleting data.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_jobs_user", columnList = "user_id, created_at"),
+        @Index(name = "idx_import_jobs_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJob {
+
+    public enum Type {
+        JSON,
+        XHB,
+        TRADE_REPUBLIC
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == CANCELLED;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.QUEUED;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    /** Spooled copy of the upload, deleted once the job completes or is cancelled. */
+    @Column(name = "spool_path", nullable = false, length = 500)
+    private String spoolPath;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    /** Bytes of the file read when the last chunk was committed. */
+    @Column(name = "bytes_read", nullable = false)
+    private long bytesRead;
+
+    /** Transactions committed so far; a resumed run skips that many. */
+    @Column(name = "committed_rows", nullable = false)
+    private int committedRows;
+
+    /** Ids of the committed reference data, as JSON; null until it is committed. */
+    @Column(name = "reference_ids", columnDefinition = "TEXT")
+    private String referenceIds;
+
+    /** Target accounts of a Trade Republic import. */
+    @Column(name = "cash_account_id")
+    private Long cashAccountId;
+
+    @Column(name = "asset_account_id")
+    private Long assetAccountId;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
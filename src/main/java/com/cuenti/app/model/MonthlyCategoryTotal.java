@@ -0,0 +1,55 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Pre-aggregated income/expense total per user, account, category and month,
+ * kept in step with the transactions table by {@code MonthlyTotalsService}.
+ * Amounts are in the account's currency. References are plain ids without
+ * foreign keys, so the table can be dropped and rebuilt at any time.
+ */
+@Entity
+@Table(name = "monthly_category_totals",
+        uniqueConstraints = @UniqueConstraint(name = "uk_monthly_total_key",
+                columnNames = {"user_id", "account_id", "category_id", "period", "type"}),
+        indexes = @Index(name = "idx_monthly_total_user_period", columnList = "user_id, period"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyCategoryTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    /** {@code MonthlyTotalsService.UNCATEGORIZED} (0) rather than null, so the unique key holds. */
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    /** Calendar month encoded as {@code yyyy * 100 + mm}, e.g. 202603. */
+    @Column(nullable = false)
+    private Integer period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Transaction.TransactionType type;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal total = BigDecimal.ZERO;
+}
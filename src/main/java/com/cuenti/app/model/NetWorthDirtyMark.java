@@ -0,0 +1,38 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * A change to a user's balances from {@code fromDay} on whose net worth snapshots
+ * {@code NetWorthService} has not recomputed yet. Written in the same transaction
+ * as the change and deleted once the snapshots are up to date, so a restart
+ * does not lose pending recomputations. Rows are only ever inserted, so
+ * concurrent writers never conflict.
+ */
+@Entity
+@Table(name = "net_worth_dirty",
+        indexes = @Index(name = "idx_net_worth_dirty_user", columnList = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NetWorthDirtyMark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "from_day", nullable = false)
+    private LocalDate fromDay;
+}
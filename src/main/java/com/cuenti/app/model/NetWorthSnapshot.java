@@ -0,0 +1,52 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A user's net worth at the end of one day, in their default currency at the
+ * time it was computed, kept up to date by {@code NetWorthService}. Cash is the
+ * balance of the non-asset accounts, portfolio the value of the held assets.
+ * References are plain ids without foreign keys, so the table can be dropped and
+ * rebuilt at any time.
+ */
+@Entity
+@Table(name = "net_worth_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_net_worth_snapshots_user_date",
+                columnNames = {"user_id", "snapshot_date"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NetWorthSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal cash;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal portfolio;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+}
@@ -0,0 +1,60 @@
+package com.cuenti.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Double-entry view of a transaction: one row per account the transaction
+ * references, carrying the signed balance change on that account (zero when the
+ * account is referenced but not affected). Lets account- and user-scoped queries
+ * use a single indexed column instead of {@code from_account OR to_account}.
+ * Kept in step with the transactions table by {@code PostingService}; references
+ * are plain ids without foreign keys, so the table can be dropped and rebuilt at
+ * any time.
+ */
+@Entity
+@Table(name = "postings", indexes = {
+        @Index(name = "idx_postings_account_date", columnList = "account_id, transaction_date"),
+        @Index(name = "idx_postings_user_date", columnList = "user_id, transaction_date"),
+        @Index(name = "idx_postings_transaction", columnList = "transaction_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Posting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "transaction_date", nullable = false, columnDefinition = "TIMESTAMP")
+    private LocalDateTime transactionDate;
+
+    @Column(name = "sort_order", nullable = false)
+    private Integer sortOrder;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Transaction.TransactionType type;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+}
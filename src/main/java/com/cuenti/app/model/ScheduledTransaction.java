@@ -10,7 +10,12 @@ import java.time.LocalDateTime;
  * Entity for scheduled recurring transactions.
  */
 @Entity
-@Table(name = "scheduled_transactions")
+@Table(name = "scheduled_transactions", indexes = {
+        @Index(name = "idx_scheduled_transactions_user_enabled_next", columnList = "user_id, enabled, next_occurrence"),
+        @Index(name = "idx_scheduled_transactions_next", columnList = "next_occurrence"),
+        @Index(name = "idx_scheduled_transactions_category", columnList = "category_id"),
+        @Index(name = "idx_scheduled_transactions_asset", columnList = "asset_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
  * Can be an expense, income, or transfer.
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_from_account_date", columnList = "from_account_id, transaction_date, sort_order"),
+        @Index(name = "idx_transactions_to_account_date", columnList = "to_account_id, transaction_date, sort_order"),
+        @Index(name = "idx_transactions_category", columnList = "category_id"),
+        @Index(name = "idx_transactions_asset", columnList = "asset_id"),
+        @Index(name = "idx_transactions_number", columnList = "number")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -89,6 +95,30 @@ public class Transaction {
         split.setTransaction(null);
     }
 
+    /**
+     * Signed balance change per account: expenses debit the source account, income
+     * credits the target account, transfers do both. Accounts the type does not
+     * use are ignored; a transfer missing either side has no effect.
+     */
+    public java.util.Map<Account, BigDecimal> balanceEffects() {
+        java.util.Map<Account, BigDecimal> effects = new java.util.LinkedHashMap<>();
+        switch (type) {
+            case EXPENSE -> {
+                if (fromAccount != null) effects.put(fromAccount, amount.negate());
+            }
+            case INCOME -> {
+                if (toAccount != null) effects.put(toAccount, amount);
+            }
+            case TRANSFER -> {
+                if (fromAccount != null && toAccount != null) {
+                    effects.merge(fromAccount, amount.negate(), BigDecimal::add);
+                    effects.merge(toAccount, amount, BigDecimal::add);
+                }
+            }
+        }
+        return effects;
+    }
+
     public enum TransactionType {
         EXPENSE,
         INCOME,
@@ -6,7 +6,7 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "transaction_splits")
+@Table(name = "transaction_splits", indexes = @Index(name = "idx_transaction_splits_transaction", columnList = "transaction_id"))
 @Getter
 @Setter
 @NoArgsConstructor
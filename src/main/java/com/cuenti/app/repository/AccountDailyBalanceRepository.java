@@ -0,0 +1,51 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.AccountDailyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AccountDailyBalanceRepository extends JpaRepository<AccountDailyBalance, Long> {
+
+    /** Adds {@code delta} to an existing day row; returns 0 when the row does not exist yet. */
+    @Modifying
+    @Query("UPDATE AccountDailyBalance d SET d.netChange = d.netChange + :delta " +
+           "WHERE d.accountId = :accountId AND d.balanceDate = :day")
+    int addToDay(@Param("accountId") Long accountId,
+                 @Param("day") LocalDate day,
+                 @Param("delta") BigDecimal delta);
+
+    /** Sum of all net changes of one account strictly before {@code day}. */
+    @Query("SELECT COALESCE(SUM(d.netChange), 0) FROM AccountDailyBalance d " +
+           "WHERE d.accountId = :accountId AND d.balanceDate < :day")
+    BigDecimal sumForAccountBefore(@Param("accountId") Long accountId, @Param("day") LocalDate day);
+
+    /** Sum of all net changes of a user's accounts strictly before {@code day}. */
+    @Query("SELECT COALESCE(SUM(d.netChange), 0) FROM AccountDailyBalance d " +
+           "WHERE d.userId = :userId AND d.balanceDate < :day")
+    BigDecimal sumForUserBefore(@Param("userId") Long userId, @Param("day") LocalDate day);
+
+    /** (accountId, balanceDate, netChange) of a user's accounts within [start, end], oldest first. */
+    @Query("SELECT d.accountId, d.balanceDate, d.netChange FROM AccountDailyBalance d WHERE d.userId = :userId " +
+           "AND d.balanceDate >= :start AND d.balanceDate <= :end ORDER BY d.balanceDate")
+    List<Object[]> findChangesBetween(@Param("userId") Long userId,
+                                         @Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+
+    /** First day with a balance change of any of the user's accounts, or null when there is none. */
+    @Query("SELECT MIN(d.balanceDate) FROM AccountDailyBalance d WHERE d.userId = :userId")
+    LocalDate findFirstDay(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM AccountDailyBalance d WHERE d.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM AccountDailyBalance d WHERE d.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
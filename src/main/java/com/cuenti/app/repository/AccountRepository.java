@@ -3,8 +3,12 @@ package com.cuenti.app.repository;
 import com.cuenti.app.model.Account;
 import com.cuenti.app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,4 +44,39 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      * @return true if the account number exists, false otherwise
      */
     boolean existsByAccountNumber(String accountNumber);
+
+    /**
+     * Atomically add a delta to an account balance. The database applies the change
+     * under the row lock, so concurrent writers cannot lose each other's updates.
+     *
+     * @param id the account id
+     * @param delta the signed amount to add
+     * @return the number of updated rows (0 if the account does not exist)
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta WHERE a.id = :id")
+    int addToBalance(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /**
+     * Atomically replace the start balance and shift the balance by the difference.
+     *
+     * @param id the account id
+     * @param startBalance the new start balance
+     * @return the number of updated rows (0 if the account does not exist)
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + (:startBalance - a.startBalance), "
+            + "a.startBalance = :startBalance WHERE a.id = :id")
+    int changeStartBalance(@Param("id") Long id, @Param("startBalance") BigDecimal startBalance);
+
+    /**
+     * Overwrite an account balance.
+     *
+     * @param id the account id
+     * @param balance the new balance
+     * @return the number of updated rows (0 if the account does not exist)
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance WHERE a.id = :id")
+    int setBalance(@Param("id") Long id, @Param("balance") BigDecimal balance);
 }
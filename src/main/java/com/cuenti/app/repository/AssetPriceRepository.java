@@ -0,0 +1,33 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.AssetPrice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface AssetPriceRepository extends JpaRepository<AssetPrice, Long> {
+
+    /** Overwrites the price of an existing symbol/day row; returns 0 when the row does not exist yet. */
+    @Modifying
+    @Query("UPDATE AssetPrice p SET p.price = :price, p.currency = :currency, p.source = :source " +
+           "WHERE p.symbol = :symbol AND p.priceDate = :day")
+    int updatePrice(@Param("symbol") String symbol,
+                    @Param("day") LocalDate day,
+                    @Param("price") BigDecimal price,
+                    @Param("currency") String currency,
+                    @Param("source") String source);
+
+    /** Every price of the symbols up to {@code until}, oldest first. */
+    @Query("SELECT p FROM AssetPrice p WHERE p.symbol IN :symbols AND p.priceDate <= :until ORDER BY p.priceDate")
+    List<AssetPrice> findSeries(@Param("symbols") Collection<String> symbols, @Param("until") LocalDate until);
+
+    /** Existing (symbol, priceDate) keys of the symbols. */
+    @Query("SELECT p.symbol, p.priceDate FROM AssetPrice p WHERE p.symbol IN :symbols")
+    List<Object[]> findKeys(@Param("symbols") Collection<String> symbols);
+}
@@ -3,8 +3,13 @@ package com.cuenti.app.repository;
 import com.cuenti.app.model.Asset;
 import com.cuenti.app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +19,21 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
     List<Asset> findByUserAndSymbolContainingIgnoreCaseOrUserAndNameContainingIgnoreCase(
         User user1, String symbol, User user2, String name);
     Optional<Asset> findByIdAndUser(Long id, User user);
+
+    /** Distinct symbols, across all users, without a price or last priced before {@code cutoff}. */
+    @Query("SELECT DISTINCT a.symbol FROM Asset a " +
+           "WHERE a.currentPrice IS NULL OR a.lastUpdate IS NULL OR a.lastUpdate < :cutoff")
+    List<String> findStaleSymbols(@Param("cutoff") LocalDateTime cutoff);
+
+    /** Distinct symbols of one user without a price or last priced before {@code cutoff}. */
+    @Query("SELECT DISTINCT a.symbol FROM Asset a WHERE a.user = :user " +
+           "AND (a.currentPrice IS NULL OR a.lastUpdate IS NULL OR a.lastUpdate < :cutoff)")
+    List<String> findStaleSymbolsByUser(@Param("user") User user, @Param("cutoff") LocalDateTime cutoff);
+
+    /** Sets the price of every asset with this symbol, whichever user holds it. */
+    @Modifying
+    @Query("UPDATE Asset a SET a.currentPrice = :price, a.currency = :currency, a.lastUpdate = :updatedAt " +
+           "WHERE a.symbol = :symbol")
+    int updatePriceBySymbol(@Param("symbol") String symbol, @Param("price") BigDecimal price,
+                            @Param("currency") String currency, @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -0,0 +1,23 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface FxRateRepository extends JpaRepository<FxRate, Long> {
+
+    /** Overwrites the rate of an existing pair/day row; returns 0 when the row does not exist yet. */
+    @Modifying
+    @Query("UPDATE FxRate r SET r.rate = :rate, r.source = :source " +
+           "WHERE r.baseCurrency = :base AND r.quoteCurrency = :quote AND r.rateDate = :day")
+    int updateRate(@Param("base") String base,
+                   @Param("quote") String quote,
+                   @Param("day") LocalDate day,
+                   @Param("rate") BigDecimal rate,
+                   @Param("source") String source);
+}
@@ -0,0 +1,92 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.ImportJob;
+import com.cuenti.app.model.ImportJob.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Import jobs. State changes are conditional updates on the current status, so a
+ * job is only ever run by one thread and finished once.
+ */
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    Optional<ImportJob> findByIdAndUserId(Long id, Long userId);
+
+    List<ImportJob> findTop20ByUserIdOrderByCreatedAtDesc(Long userId);
+
+    @Query("SELECT j.id FROM ImportJob j WHERE j.status = :status ORDER BY j.id")
+    List<Long> findIdsByStatus(@Param("status") Status status);
+
+    /** Takes a queued job; returns 0 when another thread already did. */
+    default int claim(Long id, LocalDateTime now) {
+        return transition(id, List.of(Status.QUEUED), Status.RUNNING, now);
+    }
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :to, j.startedAt = :now, j.attempts = j.attempts + 1 " +
+           "WHERE j.id = :id AND j.status IN :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") Collection<Status> from,
+                   @Param("to") Status to,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.committedRows = :rows, j.bytesRead = :bytesRead WHERE j.id = :id")
+    int checkpoint(@Param("id") Long id, @Param("rows") int rows, @Param("bytesRead") long bytesRead);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.referenceIds = :ids WHERE j.id = :id")
+    int saveReferenceIds(@Param("id") Long id, @Param("ids") String ids);
+
+    /** Ends a running job with {@code status}. */
+    default int finish(Long id, Status status, String error, LocalDateTime now) {
+        return finish(id, List.of(Status.RUNNING), status, error, now);
+    }
+
+    /** Cancels a job that is not running: queued, or failed and waiting to be resumed. */
+    default int cancelPending(Long id, Long userId, LocalDateTime now) {
+        return findByIdAndUserId(id, userId).isPresent()
+                ? finish(id, List.of(Status.QUEUED, Status.FAILED), Status.CANCELLED, null, now)
+                : 0;
+    }
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :to, j.error = :error, j.finishedAt = :now " +
+           "WHERE j.id = :id AND j.status IN :from")
+    int finish(@Param("id") Long id,
+               @Param("from") Collection<Status> from,
+               @Param("to") Status to,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    /** Asks a running job to stop after its current chunk. */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.cancelRequested = true " +
+           "WHERE j.id = :id AND j.userId = :userId AND j.status = :running")
+    int requestCancel(@Param("id") Long id, @Param("userId") Long userId, @Param("running") Status running);
+
+    @Query("SELECT j.cancelRequested FROM ImportJob j WHERE j.id = :id")
+    boolean isCancelRequested(@Param("id") Long id);
+
+    /** Queues a failed job again; it resumes from its checkpoint. */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :queued, j.error = null, j.finishedAt = null, j.cancelRequested = false " +
+           "WHERE j.id = :id AND j.userId = :userId AND j.status = :failed")
+    int requeue(@Param("id") Long id, @Param("userId") Long userId,
+                @Param("failed") Status failed, @Param("queued") Status queued);
+
+    /** Queues the jobs a previous instance left running (called at startup). */
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :queued WHERE j.status = :running")
+    int requeueInterrupted(@Param("running") Status running, @Param("queued") Status queued);
+}
@@ -0,0 +1,68 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.MonthlyCategoryTotal;
+import com.cuenti.app.model.Transaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface MonthlyCategoryTotalRepository extends JpaRepository<MonthlyCategoryTotal, Long> {
+
+    /** Adds {@code delta} to one row in place; returns 0 when the row does not exist yet. */
+    @Modifying
+    @Query("UPDATE MonthlyCategoryTotal m SET m.total = m.total + :delta " +
+           "WHERE m.userId = :userId AND m.accountId = :accountId AND m.categoryId = :categoryId " +
+           "AND m.period = :period AND m.type = :type")
+    int addToTotal(@Param("userId") Long userId,
+                   @Param("accountId") Long accountId,
+                   @Param("categoryId") Long categoryId,
+                   @Param("period") Integer period,
+                   @Param("type") Transaction.TransactionType type,
+                   @Param("delta") BigDecimal delta);
+
+    /**
+     * Adds a category's totals to the user's uncategorized (category 0) rows of the
+     * same account, month and type. Rows without such a counterpart are left to
+     * {@link #insertAsUncategorized}.
+     */
+    @Modifying
+    @Query(value = "UPDATE monthly_category_totals u SET total = u.total + (" +
+                   "SELECT m.total FROM monthly_category_totals m WHERE m.user_id = u.user_id " +
+                   "AND m.account_id = u.account_id AND m.period = u.period AND m.type = u.type " +
+                   "AND m.category_id = :categoryId) " +
+                   "WHERE u.user_id = :userId AND u.category_id = 0 AND EXISTS (" +
+                   "SELECT 1 FROM monthly_category_totals m WHERE m.user_id = u.user_id " +
+                   "AND m.account_id = u.account_id AND m.period = u.period AND m.type = u.type " +
+                   "AND m.category_id = :categoryId)",
+           nativeQuery = true)
+    int addToUncategorized(@Param("userId") Long userId, @Param("categoryId") Long categoryId);
+
+    /** Copies a category's totals that have no uncategorized counterpart yet as category 0 rows. */
+    @Modifying
+    @Query(value = "INSERT INTO monthly_category_totals (user_id, account_id, category_id, period, type, total) " +
+                   "SELECT m.user_id, m.account_id, 0, m.period, m.type, m.total FROM monthly_category_totals m " +
+                   "WHERE m.user_id = :userId AND m.category_id = :categoryId AND NOT EXISTS (" +
+                   "SELECT 1 FROM monthly_category_totals u WHERE u.user_id = m.user_id " +
+                   "AND u.account_id = m.account_id AND u.period = m.period AND u.type = m.type " +
+                   "AND u.category_id = 0)",
+           nativeQuery = true)
+    int insertAsUncategorized(@Param("userId") Long userId, @Param("categoryId") Long categoryId);
+
+    @Modifying
+    @Query("DELETE FROM MonthlyCategoryTotal m WHERE m.userId = :userId AND m.categoryId = :categoryId")
+    int deleteByUserIdAndCategoryId(@Param("userId") Long userId, @Param("categoryId") Long categoryId);
+
+    List<MonthlyCategoryTotal> findByUserIdAndPeriodBetween(Long userId, Integer fromPeriod, Integer toPeriod);
+
+    @Modifying
+    @Query("DELETE FROM MonthlyCategoryTotal m WHERE m.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM MonthlyCategoryTotal m WHERE m.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,36 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.NetWorthSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface NetWorthSnapshotRepository extends JpaRepository<NetWorthSnapshot, Long> {
+
+    /** Snapshots of one user within [start, end], oldest first. */
+    @Query("SELECT s FROM NetWorthSnapshot s WHERE s.userId = :userId " +
+           "AND s.snapshotDate >= :start AND s.snapshotDate <= :end ORDER BY s.snapshotDate")
+    List<NetWorthSnapshot> findRange(@Param("userId") Long userId,
+                                     @Param("start") LocalDate start,
+                                     @Param("end") LocalDate end);
+
+    /** Latest snapshot day of one user, or null when there is none. */
+    @Query("SELECT MAX(s.snapshotDate) FROM NetWorthSnapshot s WHERE s.userId = :userId")
+    LocalDate findLastDay(@Param("userId") Long userId);
+
+    /** Snapshots of the user computed in another currency than {@code currency}. */
+    @Query("SELECT COUNT(s) FROM NetWorthSnapshot s WHERE s.userId = :userId AND s.currency <> :currency")
+    long countInOtherCurrency(@Param("userId") Long userId, @Param("currency") String currency);
+
+    @Modifying
+    @Query("DELETE FROM NetWorthSnapshot s WHERE s.userId = :userId AND s.snapshotDate >= :from")
+    int deleteFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM NetWorthSnapshot s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
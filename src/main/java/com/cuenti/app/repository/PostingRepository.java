@@ -0,0 +1,24 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.Posting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface PostingRepository extends JpaRepository<Posting, Long> {
+
+    @Modifying
+    @Query("DELETE FROM Posting p WHERE p.transactionId = :transactionId")
+    int deleteByTransactionId(@Param("transactionId") Long transactionId);
+
+    @Modifying
+    @Query("DELETE FROM Posting p WHERE p.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /** Removes the postings of every transaction touching the account, including the other side of transfers. */
+    @Modifying
+    @Query("DELETE FROM Posting p WHERE p.transactionId IN " +
+           "(SELECT q.transactionId FROM Posting q WHERE q.accountId = :accountId)")
+    int deleteByTransactionsOfAccount(@Param("accountId") Long accountId);
+}
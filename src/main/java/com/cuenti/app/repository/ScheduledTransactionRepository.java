@@ -8,12 +8,34 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ScheduledTransactionRepository extends JpaRepository<ScheduledTransaction, Long> {
     List<ScheduledTransaction> findByUser(User user);
 
+    /** Enabled schedules of {@code user} whose next occurrence is before {@code before}. */
+    @Query("SELECT COUNT(st) FROM ScheduledTransaction st " +
+           "WHERE st.user = :user AND st.enabled = true AND st.nextOccurrence < :before")
+    long countDueBefore(@Param("user") User user, @Param("before") LocalDateTime before);
+
+    /** (id, user id) of every enabled schedule due at {@code now}, across users, grouped by user. */
+    @Query("SELECT st.id, st.user.id FROM ScheduledTransaction st " +
+           "WHERE st.enabled = true AND st.nextOccurrence <= :now ORDER BY st.user.id, st.nextOccurrence")
+    List<Object[]> findDue(@Param("now") LocalDateTime now);
+
+    /**
+     * Moves a schedule on from exactly {@code current}; returns 0 when that occurrence
+     * was already posted or skipped by someone else.
+     */
+    @Modifying
+    @Query("UPDATE ScheduledTransaction st SET st.nextOccurrence = :next " +
+           "WHERE st.id = :id AND st.nextOccurrence = :current")
+    int advanceOccurrence(@Param("id") Long id,
+                          @Param("current") LocalDateTime current,
+                          @Param("next") LocalDateTime next);
+
     /**
      * Count scheduled transactions that reference a specific asset.
      */
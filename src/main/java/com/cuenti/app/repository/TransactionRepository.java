@@ -3,16 +3,29 @@ package com.cuenti.app.repository;
 import com.cuenti.app.model.Account;
 import com.cuenti.app.model.Transaction;
 import com.cuenti.app.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Repository for Transaction entity.
@@ -20,110 +33,362 @@ import java.util.Optional;
  */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    
+
+    /** Joins shared by the REST search queries; all to-one, so rows are never duplicated. */
+    String SEARCH_FROM = "FROM Transaction t " +
+           "LEFT JOIN t.fromAccount fa " +
+           "LEFT JOIN t.toAccount ta " +
+           "LEFT JOIN t.category c ";
+
     /**
-     * Find all transactions for a specific account (both incoming and outgoing).
-     * Uses JOIN FETCH to avoid LazyInitializationException in the UI.
+     * Filter shared by the REST search queries; see {@link #searchByUser} about the casts.
+     * Ownership, account and period are matched on the postings, so the transactions
+     * table is entered through its primary key rather than scanned.
      */
-    @Query("SELECT DISTINCT t FROM Transaction t " +
+    String SEARCH_WHERE = "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.userId = :userId " +
+           "               AND (:accountId IS NULL OR p.accountId = :accountId) " +
+           "               AND (CAST(:from AS timestamp) IS NULL OR p.transactionDate >= :from) " +
+           "               AND (CAST(:to AS timestamp) IS NULL OR p.transactionDate <= :to)) " +
+           "AND (:type IS NULL OR t.type = :type) " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (CAST(:payee AS string) IS NULL OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:payee AS string), '%'))) " +
+           "AND (CAST(:tag AS string) IS NULL OR LOWER(t.tags) LIKE LOWER(CONCAT('%', CAST(:tag AS string), '%'))) " +
+           "AND (CAST(:search AS string) IS NULL " +
+           "     OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
+           "     OR LOWER(t.memo) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
+           "     OR LOWER(t.number) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')))";
+    
+    /** Fetch joins for the list queries that feed the UI (avoids LazyInitializationException). */
+    String LIST_FETCH = "SELECT t FROM Transaction t " +
            "LEFT JOIN FETCH t.fromAccount " +
            "LEFT JOIN FETCH t.toAccount " +
            "LEFT JOIN FETCH t.category c " +
            "LEFT JOIN FETCH c.parent " +
-           "LEFT JOIN FETCH t.asset " +
-           "WHERE t.fromAccount = :account OR t.toAccount = :account " +
+           "LEFT JOIN FETCH t.asset ";
+
+    /**
+     * Find all transactions for a specific account (both incoming and outgoing).
+     * Selected through the account's postings, so no OR over the two account columns.
+     */
+    default List<Transaction> findByAccount(Account account) {
+        return findByAccountId(account.getId());
+    }
+
+    @Query(LIST_FETCH +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p WHERE p.accountId = :accountId) " +
            "ORDER BY t.transactionDate DESC, t.sortOrder DESC")
-    List<Transaction> findByAccount(@Param("account") Account account);
+    List<Transaction> findByAccountId(@Param("accountId") Long accountId);
 
     /**
-     * Find all transactions for a specific user.
-     * Uses JOIN FETCH to avoid LazyInitializationException in the UI.
+     * Date, amount and memo of the account's transactions in [from, before), for
+     * statement imports to deduplicate against without loading the entities.
+     * Rows: transactionDate, amount, memo.
      */
-    @Query("SELECT DISTINCT t FROM Transaction t " +
-           "LEFT JOIN FETCH t.fromAccount " +
-           "LEFT JOIN FETCH t.toAccount " +
-           "LEFT JOIN FETCH t.category c " +
-           "LEFT JOIN FETCH c.parent " +
-           "LEFT JOIN FETCH t.asset " +
-           "WHERE (t.fromAccount.user = :user OR t.toAccount.user = :user) " +
+    @Query("SELECT t.transactionDate, t.amount, t.memo FROM Transaction t " +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.accountId = :accountId " +
+           "               AND p.transactionDate >= :from AND p.transactionDate < :before)")
+    List<Object[]> findFingerprints(@Param("accountId") Long accountId,
+                                    @Param("from") java.time.LocalDateTime from,
+                                    @Param("before") java.time.LocalDateTime before);
+
+    /** Find all transactions for a specific user. */
+    default List<Transaction> findByUser(User user) {
+        return findByUserId(user.getId());
+    }
+
+    @Query(LIST_FETCH +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p WHERE p.userId = :userId) " +
            "ORDER BY t.transactionDate DESC, t.sortOrder DESC")
-    List<Transaction> findByUser(@Param("user") User user);
+    List<Transaction> findByUserId(@Param("userId") Long userId);
+
+    /** Highest sort order among the user's transactions, 0 when there are none. */
+    @Query("SELECT COALESCE(MAX(t.sortOrder), 0) FROM Transaction t " +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p WHERE p.userId = :userId)")
+    int maxSortOrder(@Param("userId") Long userId);
 
     /** Expense totals per category in a period (budget tracking). */
+    default List<Object[]> sumExpensesByCategory(User user,
+                                                 java.time.LocalDateTime from,
+                                                 java.time.LocalDateTime to,
+                                                 Transaction.TransactionType expenseType) {
+        return sumExpensesByCategory(user.getId(), from, to, expenseType);
+    }
+
+    /** Postings pick the user's transactions of the type and period; amounts come from the transaction. */
     @Query("SELECT t.category.id, SUM(t.amount) FROM Transaction t " +
-           "WHERE (t.fromAccount.user = :user OR t.toAccount.user = :user) " +
-           "AND t.type = :expenseType " +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.userId = :userId AND p.type = :expenseType " +
+           "               AND p.transactionDate >= :from AND p.transactionDate <= :to) " +
            "AND t.category IS NOT NULL " +
-           "AND t.transactionDate >= :from AND t.transactionDate <= :to " +
            "GROUP BY t.category.id")
-    List<Object[]> sumExpensesByCategory(@Param("user") User user,
+    List<Object[]> sumExpensesByCategory(@Param("userId") Long userId,
                                          @Param("from") java.time.LocalDateTime from,
                                          @Param("to") java.time.LocalDateTime to,
                                          @Param("expenseType") Transaction.TransactionType expenseType);
 
     /**
-     * Filtered window for the transaction grid: account/type/date pushed to
-     * the database so the UI no longer loads the full history.
+     * Monthly totals of unsplit transactions of {@code type}, booked against the
+     * source account (expenses). Rows: accountId, categoryId, year, month, sum.
+     */
+    @Query("SELECT a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate), SUM(t.amount) " +
+           "FROM Transaction t JOIN t.fromAccount a LEFT JOIN t.category c " +
+           "WHERE a.user = :user AND t.type = :type AND t.splits IS EMPTY " +
+           "GROUP BY a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate)")
+    List<Object[]> monthlyTotalsByFromAccount(@Param("user") User user,
+                                              @Param("type") Transaction.TransactionType type);
+
+    /** Same as {@link #monthlyTotalsByFromAccount} but booked against the target account (income). */
+    @Query("SELECT a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate), SUM(t.amount) " +
+           "FROM Transaction t JOIN t.toAccount a LEFT JOIN t.category c " +
+           "WHERE a.user = :user AND t.type = :type AND t.splits IS EMPTY " +
+           "GROUP BY a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate)")
+    List<Object[]> monthlyTotalsByToAccount(@Param("user") User user,
+                                            @Param("type") Transaction.TransactionType type);
+
+    /** Monthly totals of split lines, categorised per split, booked against the source account. */
+    @Query("SELECT a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate), SUM(s.amount) " +
+           "FROM TransactionSplit s JOIN s.transaction t JOIN t.fromAccount a LEFT JOIN s.category c " +
+           "WHERE a.user = :user AND t.type = :type " +
+           "GROUP BY a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate)")
+    List<Object[]> monthlySplitTotalsByFromAccount(@Param("user") User user,
+                                                   @Param("type") Transaction.TransactionType type);
+
+    /** Monthly totals of split lines, categorised per split, booked against the target account. */
+    @Query("SELECT a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate), SUM(s.amount) " +
+           "FROM TransactionSplit s JOIN s.transaction t JOIN t.toAccount a LEFT JOIN s.category c " +
+           "WHERE a.user = :user AND t.type = :type " +
+           "GROUP BY a.id, c.id, YEAR(t.transactionDate), MONTH(t.transactionDate)")
+    List<Object[]> monthlySplitTotalsByToAccount(@Param("user") User user,
+                                                 @Param("type") Transaction.TransactionType type);
+
+    /**
+     * Holdings per asset: units and cost summed over the asset purchases booked into
+     * the user's accounts of {@code assetType}. Rows: assetId, SUM(units), SUM(amount).
+     */
+    @Query("SELECT t.asset.id, SUM(t.units), SUM(t.amount) " +
+           "FROM Transaction t JOIN t.toAccount a " +
+           "WHERE a.user = :user AND a.accountType = :assetType " +
+           "AND t.asset IS NOT NULL AND t.units IS NOT NULL " +
+           "GROUP BY t.asset.id")
+    List<Object[]> sumAssetHoldings(@Param("user") User user,
+                                    @Param("assetType") Account.AccountType assetType);
+
+    /**
+     * Unit movements behind {@link #sumAssetHoldings}, oldest first, for replaying
+     * holdings over time. Rows: assetId, transactionDate, units.
+     */
+    @Query("SELECT t.asset.id, t.transactionDate, t.units " +
+           "FROM Transaction t JOIN t.toAccount a " +
+           "WHERE a.user = :user AND a.accountType = :assetType " +
+           "AND t.asset IS NOT NULL AND t.units IS NOT NULL AND t.transactionDate < :before " +
+           "ORDER BY t.transactionDate")
+    List<Object[]> findAssetUnitMovements(@Param("user") User user,
+                                          @Param("assetType") Account.AccountType assetType,
+                                          @Param("before") java.time.LocalDateTime before);
+
+    /**
+     * Transactions in the half-open interval [from, before) - used for the partial
+     * months at the edges of a statistics range that the monthly aggregate can't cover.
      */
-    @Query("SELECT DISTINCT t FROM Transaction t " +
+    default List<Transaction> findInPeriod(User user, java.time.LocalDateTime from, java.time.LocalDateTime before) {
+        return findInPeriod(user.getId(), from, before);
+    }
+
+    @Query("SELECT t FROM Transaction t " +
+           "LEFT JOIN FETCH t.fromAccount " +
+           "LEFT JOIN FETCH t.toAccount " +
+           "LEFT JOIN FETCH t.category c " +
+           "LEFT JOIN FETCH c.parent " +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.userId = :userId " +
+           "               AND p.transactionDate >= :from AND p.transactionDate < :before)")
+    List<Transaction> findInPeriod(@Param("userId") Long userId,
+                                   @Param("from") java.time.LocalDateTime from,
+                                   @Param("before") java.time.LocalDateTime before);
+
+    /** Number of transactions (all types) touching the user's accounts in [from, to], excluding report-hidden accounts. */
+    default long countReportable(User user, java.time.LocalDateTime from, java.time.LocalDateTime to) {
+        return countReportable(user.getId(), from, to);
+    }
+
+    @Query("SELECT COUNT(t) FROM Transaction t " +
+           "LEFT JOIN t.fromAccount fa " +
+           "LEFT JOIN t.toAccount ta " +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.userId = :userId " +
+           "               AND p.transactionDate >= :from AND p.transactionDate <= :to) " +
+           "AND (fa IS NULL OR fa.excludeFromReports = false) " +
+           "AND (ta IS NULL OR ta.excludeFromReports = false)")
+    long countReportable(@Param("userId") Long userId,
+                         @Param("from") java.time.LocalDateTime from,
+                         @Param("to") java.time.LocalDateTime to);
+
+    /** Number of transactions (all types) touching one of the user's accounts in [from, to]. */
+    default long countForAccount(User user, Long accountId, java.time.LocalDateTime from, java.time.LocalDateTime to) {
+        return countForAccount(user.getId(), accountId, from, to);
+    }
+
+    @Query("SELECT COUNT(DISTINCT p.transactionId) FROM Posting p " +
+           "WHERE p.userId = :userId AND p.accountId = :accountId " +
+           "AND p.transactionDate >= :from AND p.transactionDate <= :to")
+    long countForAccount(@Param("userId") Long userId,
+                         @Param("accountId") Long accountId,
+                         @Param("from") java.time.LocalDateTime from,
+                         @Param("to") java.time.LocalDateTime to);
+
+    /** Transactions loaded per query by {@link #streamForExport}; matches the id cursor's fetch size. */
+    int EXPORT_CHUNK_SIZE = 500;
+
+    /**
+     * Forward-only cursor over the user's transactions, oldest first, for streaming
+     * exports. The ids arrive from the JDBC driver in fetch-size chunks instead of one
+     * materialised list, and each chunk is loaded in one query together with its
+     * splits, so the eager {@code splits} collection never costs a select per row.
+     * Must be consumed inside a transaction and closed.
+     * The read models (postings, checkpoints) are rebuilt from this query, so it
+     * must keep reading the transactions table itself rather than the postings.
+     */
+    default Stream<Transaction> streamForExport(User user, Long accountId,
+                                                java.time.LocalDateTime from, java.time.LocalDateTime to) {
+        Stream<Long> ids = streamIdsForExport(user, accountId, from, to);
+        Iterator<Long> cursor = ids.iterator();
+        Iterator<List<Transaction>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public List<Transaction> next() {
+                List<Long> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+                while (chunk.size() < EXPORT_CHUNK_SIZE && cursor.hasNext()) {
+                    chunk.add(cursor.next());
+                }
+                Map<Long, Transaction> loaded = new HashMap<>();
+                for (Transaction t : findForExport(chunk)) {
+                    loaded.put(t.getId(), t);
+                }
+                // back into the cursor's order
+                return chunk.stream().map(loaded::get).filter(Objects::nonNull).toList();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(ids::close);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id FROM Transaction t " +
+           "LEFT JOIN t.fromAccount fa " +
+           "LEFT JOIN t.toAccount ta " +
+           "WHERE (fa.user = :user OR ta.user = :user) " +
+           "AND (:accountId IS NULL OR fa.id = :accountId OR ta.id = :accountId) " +
+           "AND (CAST(:from AS timestamp) IS NULL OR t.transactionDate >= :from) " +
+           "AND (CAST(:to AS timestamp) IS NULL OR t.transactionDate <= :to) " +
+           "ORDER BY t.transactionDate, t.sortOrder, t.id")
+    Stream<Long> streamIdsForExport(@Param("user") User user,
+                                    @Param("accountId") Long accountId,
+                                    @Param("from") java.time.LocalDateTime from,
+                                    @Param("to") java.time.LocalDateTime to);
+
+    /** One chunk of {@link #streamForExport}, with everything the exports and rebuilds read. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT t FROM Transaction t " +
            "LEFT JOIN FETCH t.fromAccount " +
            "LEFT JOIN FETCH t.toAccount " +
            "LEFT JOIN FETCH t.category c " +
            "LEFT JOIN FETCH c.parent " +
            "LEFT JOIN FETCH t.asset " +
-           "WHERE (t.fromAccount.user = :user OR t.toAccount.user = :user) " +
-           "AND (:account IS NULL OR t.fromAccount = :account OR t.toAccount = :account) " +
-           "AND (:type IS NULL OR t.type = :type) " +
-           "AND t.transactionDate >= :from AND t.transactionDate <= :to " +
+           "LEFT JOIN FETCH t.splits s " +
+           "LEFT JOIN FETCH s.category sc " +
+           "LEFT JOIN FETCH sc.parent " +
+           "WHERE t.id IN :ids")
+    List<Transaction> findForExport(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Filtered window for the transaction grid: account/type/date pushed to
+     * the database so the UI no longer loads the full history. The all-accounts
+     * and single-account cases run as separate queries so each can use its
+     * postings index instead of an {@code :account IS NULL OR ...} predicate.
+     */
+    default List<Transaction> findFiltered(User user, Account account, Transaction.TransactionType type,
+                                           java.time.LocalDateTime from, java.time.LocalDateTime to) {
+        return account == null
+                ? findFilteredForUser(user.getId(), type, from, to)
+                : findFilteredForAccount(user.getId(), account.getId(), type, from, to);
+    }
+
+    @Query(LIST_FETCH +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.userId = :userId " +
+           "               AND p.transactionDate >= :from AND p.transactionDate <= :to " +
+           "               AND (:type IS NULL OR p.type = :type)) " +
            "ORDER BY t.transactionDate DESC, t.sortOrder DESC")
-    List<Transaction> findFiltered(@Param("user") User user,
-                                   @Param("account") Account account,
-                                   @Param("type") Transaction.TransactionType type,
-                                   @Param("from") java.time.LocalDateTime from,
-                                   @Param("to") java.time.LocalDateTime to);
+    List<Transaction> findFilteredForUser(@Param("userId") Long userId,
+                                          @Param("type") Transaction.TransactionType type,
+                                          @Param("from") java.time.LocalDateTime from,
+                                          @Param("to") java.time.LocalDateTime to);
+
+    @Query(LIST_FETCH +
+           "WHERE t.id IN (SELECT p.transactionId FROM Posting p " +
+           "               WHERE p.accountId = :accountId AND p.userId = :userId " +
+           "               AND p.transactionDate >= :from AND p.transactionDate <= :to " +
+           "               AND (:type IS NULL OR p.type = :type)) " +
+           "ORDER BY t.transactionDate DESC, t.sortOrder DESC")
+    List<Transaction> findFilteredForAccount(@Param("userId") Long userId,
+                                             @Param("accountId") Long accountId,
+                                             @Param("type") Transaction.TransactionType type,
+                                             @Param("from") java.time.LocalDateTime from,
+                                             @Param("to") java.time.LocalDateTime to);
 
     /**
-     * Running balance over the full user history computed by the database
-     * (window function); only rows inside the filter window are returned.
-     * Transfers are balance-neutral in the all-accounts view.
+     * Running balance inside {@code [windowStart, to]} computed by the database
+     * (window function over the postings), relative to the balance at
+     * {@code windowStart}; the caller adds that opening balance from the daily
+     * checkpoints. Only rows from {@code from} on are returned ({@code windowStart}
+     * is the start of {@code from}'s day). A transaction's postings are summed first,
+     * so transfers are balance-neutral in the all-accounts view.
      */
     @Query(value = "SELECT w.id, w.bal FROM (" +
-            "  SELECT t.id AS id, t.transaction_date AS td, t.type AS ttype, " +
-            "         SUM(CASE t.type WHEN 'INCOME' THEN t.amount WHEN 'EXPENSE' THEN -t.amount ELSE 0 END) " +
-            "           OVER (ORDER BY t.transaction_date, t.sort_order, t.id) AS bal " +
-            "  FROM transactions t " +
-            "  LEFT JOIN accounts fa ON fa.id = t.from_account_id " +
-            "  LEFT JOIN accounts ta ON ta.id = t.to_account_id " +
-            "  WHERE fa.user_id = :userId OR ta.user_id = :userId" +
+            "  SELECT g.id AS id, g.td AS td, g.ttype AS ttype, " +
+            "         SUM(g.amount) OVER (ORDER BY g.td, g.so, g.id) AS bal " +
+            "  FROM (" +
+            "    SELECT p.transaction_id AS id, p.transaction_date AS td, p.sort_order AS so, " +
+            "           p.type AS ttype, SUM(p.amount) AS amount " +
+            "    FROM postings p " +
+            "    WHERE p.user_id = :userId " +
+            "      AND p.transaction_date >= :windowStart AND p.transaction_date <= :to " +
+            "    GROUP BY p.transaction_id, p.transaction_date, p.sort_order, p.type" +
+            "  ) g" +
             ") w " +
-            "WHERE w.td >= :from AND w.td <= :to " +
+            "WHERE w.td >= :from " +
             "AND (:type IS NULL OR w.ttype = :type)",
             nativeQuery = true)
     List<Object[]> runningBalancesForUser(@Param("userId") Long userId,
+                                          @Param("windowStart") java.time.LocalDateTime windowStart,
                                           @Param("from") java.time.LocalDateTime from,
                                           @Param("to") java.time.LocalDateTime to,
                                           @Param("type") String type);
 
     /**
-     * Running balance for one account with per-account transfer semantics.
+     * Running balance for one account, relative to the account's balance at
+     * {@code windowStart} (see {@link #runningBalancesForUser}). The account's
+     * postings already carry its signed side of each transfer.
      */
     @Query(value = "SELECT w.id, w.bal FROM (" +
-            "  SELECT t.id AS id, t.transaction_date AS td, t.type AS ttype, " +
-            "         SUM(CASE " +
-            "               WHEN t.type = 'INCOME'  AND t.to_account_id   = :accountId THEN t.amount " +
-            "               WHEN t.type = 'EXPENSE' AND t.from_account_id = :accountId THEN -t.amount " +
-            "               WHEN t.type = 'TRANSFER' THEN " +
-            "                    (CASE WHEN t.to_account_id   = :accountId THEN t.amount ELSE 0 END) " +
-            "                  + (CASE WHEN t.from_account_id = :accountId THEN -t.amount ELSE 0 END) " +
-            "               ELSE 0 END) " +
-            "           OVER (ORDER BY t.transaction_date, t.sort_order, t.id) AS bal " +
-            "  FROM transactions t " +
-            "  WHERE t.from_account_id = :accountId OR t.to_account_id = :accountId" +
+            "  SELECT p.transaction_id AS id, p.transaction_date AS td, p.type AS ttype, " +
+            "         SUM(p.amount) OVER (ORDER BY p.transaction_date, p.sort_order, p.transaction_id) AS bal " +
+            "  FROM postings p " +
+            "  WHERE p.account_id = :accountId " +
+            "    AND p.transaction_date >= :windowStart AND p.transaction_date <= :to" +
             ") w " +
-            "WHERE w.td >= :from AND w.td <= :to " +
+            "WHERE w.td >= :from " +
             "AND (:type IS NULL OR w.ttype = :type)",
             nativeQuery = true)
     List<Object[]> runningBalancesForAccount(@Param("accountId") Long accountId,
+                                             @Param("windowStart") java.time.LocalDateTime windowStart,
                                              @Param("from") java.time.LocalDateTime from,
                                              @Param("to") java.time.LocalDateTime to,
                                              @Param("type") String type);
@@ -134,6 +399,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     Optional<Transaction> findByNumber(String number);
 
+    /** Which of {@code numbers} some transaction already carries; one query for a whole statement. */
+    @Query("SELECT DISTINCT t.number FROM Transaction t WHERE t.number IN :numbers")
+    List<String> findExistingNumbers(@Param("numbers") Collection<String> numbers);
+
     /**
      * Count transactions that reference a specific asset.
      */
@@ -160,39 +429,9 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      * they were dropped once and broke every transactions request in production
      * on Postgres while all tests stayed green.
      */
-    @Query(value = "SELECT DISTINCT t FROM Transaction t " +
-           "LEFT JOIN t.fromAccount fa " +
-           "LEFT JOIN t.toAccount ta " +
-           "LEFT JOIN t.category c " +
-           "WHERE (fa.user = :user OR ta.user = :user) " +
-           "AND (:accountId IS NULL OR fa.id = :accountId OR ta.id = :accountId) " +
-           "AND (:type IS NULL OR t.type = :type) " +
-           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
-           "AND (CAST(:from AS timestamp) IS NULL OR t.transactionDate >= :from) " +
-           "AND (CAST(:to AS timestamp) IS NULL OR t.transactionDate <= :to) " +
-           "AND (CAST(:payee AS string) IS NULL OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:payee AS string), '%'))) " +
-           "AND (CAST(:tag AS string) IS NULL OR LOWER(t.tags) LIKE LOWER(CONCAT('%', CAST(:tag AS string), '%'))) " +
-           "AND (CAST(:search AS string) IS NULL " +
-           "     OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
-           "     OR LOWER(t.memo) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
-           "     OR LOWER(t.number) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')))",
-           countQuery = "SELECT COUNT(DISTINCT t) FROM Transaction t " +
-           "LEFT JOIN t.fromAccount fa " +
-           "LEFT JOIN t.toAccount ta " +
-           "LEFT JOIN t.category c " +
-           "WHERE (fa.user = :user OR ta.user = :user) " +
-           "AND (:accountId IS NULL OR fa.id = :accountId OR ta.id = :accountId) " +
-           "AND (:type IS NULL OR t.type = :type) " +
-           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
-           "AND (CAST(:from AS timestamp) IS NULL OR t.transactionDate >= :from) " +
-           "AND (CAST(:to AS timestamp) IS NULL OR t.transactionDate <= :to) " +
-           "AND (CAST(:payee AS string) IS NULL OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:payee AS string), '%'))) " +
-           "AND (CAST(:tag AS string) IS NULL OR LOWER(t.tags) LIKE LOWER(CONCAT('%', CAST(:tag AS string), '%'))) " +
-           "AND (CAST(:search AS string) IS NULL " +
-           "     OR LOWER(t.payee) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
-           "     OR LOWER(t.memo) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')) " +
-           "     OR LOWER(t.number) LIKE LOWER(CONCAT('%', CAST(:search AS string), '%')))")
-    Page<Transaction> searchByUser(@Param("user") User user,
+    @Query(value = "SELECT DISTINCT t " + SEARCH_FROM + SEARCH_WHERE,
+           countQuery = "SELECT COUNT(DISTINCT t) " + SEARCH_FROM + SEARCH_WHERE)
+    Page<Transaction> searchByUser(@Param("userId") Long userId,
                                    @Param("accountId") Long accountId,
                                    @Param("type") Transaction.TransactionType type,
                                    @Param("categoryId") Long categoryId,
@@ -202,4 +441,66 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                    @Param("tag") String tag,
                                    @Param("search") String search,
                                    Pageable pageable);
+
+    /** Row count for the {@link #searchByUser} filter, used when a keyset client asks for totals. */
+    @Query("SELECT COUNT(t) " + SEARCH_FROM + SEARCH_WHERE)
+    long countSearch(@Param("userId") Long userId,
+                     @Param("accountId") Long accountId,
+                     @Param("type") Transaction.TransactionType type,
+                     @Param("categoryId") Long categoryId,
+                     @Param("from") java.time.LocalDateTime from,
+                     @Param("to") java.time.LocalDateTime to,
+                     @Param("payee") String payee,
+                     @Param("tag") String tag,
+                     @Param("search") String search);
+
+    /**
+     * Keyset ("seek") variant of {@link #searchByUser}: rows strictly after the
+     * (transactionDate, sortOrder, id) key in descending order, or the first rows
+     * when the key is null. No OFFSET and no COUNT, so every page costs the same
+     * however deep into the history it is. sortOrder is NOT NULL and compared
+     * bare, so Postgres can follow the (transaction_date, sort_order, id) index
+     * order; there is no DISTINCT because all joins are to-one. Pass an unsorted
+     * {@link Pageable} to limit the page size.
+     */
+    @Query("SELECT t " + SEARCH_FROM + SEARCH_WHERE +
+           "AND (CAST(:keyDate AS timestamp) IS NULL " +
+           "     OR t.transactionDate < :keyDate " +
+           "     OR (t.transactionDate = :keyDate AND (t.sortOrder < :keySort " +
+           "         OR (t.sortOrder = :keySort AND t.id < :keyId)))) " +
+           "ORDER BY t.transactionDate DESC, t.sortOrder DESC, t.id DESC")
+    List<Transaction> seekByUserDesc(@Param("userId") Long userId,
+                                     @Param("accountId") Long accountId,
+                                     @Param("type") Transaction.TransactionType type,
+                                     @Param("categoryId") Long categoryId,
+                                     @Param("from") java.time.LocalDateTime from,
+                                     @Param("to") java.time.LocalDateTime to,
+                                     @Param("payee") String payee,
+                                     @Param("tag") String tag,
+                                     @Param("search") String search,
+                                     @Param("keyDate") java.time.LocalDateTime keyDate,
+                                     @Param("keySort") Integer keySort,
+                                     @Param("keyId") Long keyId,
+                                     Pageable limit);
+
+    /** Ascending mirror of {@link #seekByUserDesc}: rows strictly after the key in ascending order. */
+    @Query("SELECT t " + SEARCH_FROM + SEARCH_WHERE +
+           "AND (CAST(:keyDate AS timestamp) IS NULL " +
+           "     OR t.transactionDate > :keyDate " +
+           "     OR (t.transactionDate = :keyDate AND (t.sortOrder > :keySort " +
+           "         OR (t.sortOrder = :keySort AND t.id > :keyId)))) " +
+           "ORDER BY t.transactionDate ASC, t.sortOrder ASC, t.id ASC")
+    List<Transaction> seekByUserAsc(@Param("userId") Long userId,
+                                    @Param("accountId") Long accountId,
+                                    @Param("type") Transaction.TransactionType type,
+                                    @Param("categoryId") Long categoryId,
+                                    @Param("from") java.time.LocalDateTime from,
+                                    @Param("to") java.time.LocalDateTime to,
+                                    @Param("payee") String payee,
+                                    @Param("tag") String tag,
+                                    @Param("search") String search,
+                                    @Param("keyDate") java.time.LocalDateTime keyDate,
+                                    @Param("keySort") Integer keySort,
+                                    @Param("keyId") Long keyId,
+                                    Pageable limit);
 }
@@ -9,7 +9,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -23,6 +26,10 @@ public class AccountService {
     private final UserService userService;
     private final SecurityUtils securityUtils;
     private final AuditService auditService;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final DailyBalanceService dailyBalanceService;
+    private final PostingService postingService;
+    private final NetWorthService netWorthService;
     private final Random random = new Random();
 
     @Transactional
@@ -58,6 +65,8 @@ public class AccountService {
 
         boolean created = account.getId() == null;
         Account saved = accountRepository.save(account);
+        // start balance, currency, type or summary flag may have changed
+        netWorthService.markDirty(user.getId(), LocalDate.MIN);
         auditService.log(user, created ? "CREATE" : "UPDATE", "Account", saved.getId(), saved.getAccountName());
         return saved;
     }
@@ -73,6 +82,10 @@ public class AccountService {
             throw new SecurityException("Cannot delete account belonging to another user");
         }
         accountRepository.delete(account);
+        monthlyTotalsService.deleteForAccount(account.getId());
+        dailyBalanceService.deleteForAccount(account.getId());
+        postingService.deleteForAccount(account.getId());
+        netWorthService.markDirty(currentUser.getId(), LocalDate.MIN);
         auditService.log(currentUser, "DELETE", "Account", account.getId(), account.getAccountName());
     }
 
@@ -157,8 +170,32 @@ public class AccountService {
             throw new SecurityException("Cannot modify account belonging to another user");
         }
 
+        accountRepository.setBalance(account.getId(), newBalance);
         account.setBalance(newBalance);
-        return accountRepository.save(account);
+        return account;
+    }
+
+    /**
+     * Applies net balance changes as atomic {@code balance = balance + delta} updates.
+     * Rows are updated in ascending id order, so concurrent writers touching the same
+     * accounts (e.g. two opposite transfers) lock them in the same order and cannot
+     * deadlock. Zero deltas are written too: the row lock they take serializes
+     * writers of per-account read models that are updated afterwards in the same
+     * transaction. The given instances are updated in memory to match.
+     * Caller is responsible for security validation.
+     */
+    @Transactional
+    public void applyBalanceDeltas(Map<Account, BigDecimal> deltas) {
+        deltas.entrySet().stream()
+                .sorted(Comparator.comparing(e -> e.getKey().getId()))
+                .forEach(e -> {
+                    Account account = e.getKey();
+                    if (accountRepository.addToBalance(account.getId(), e.getValue()) == 0) {
+                        throw new IllegalArgumentException("Account not found: " + account.getId());
+                    }
+                    BigDecimal balance = account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO;
+                    account.setBalance(balance.add(e.getValue()));
+                });
     }
 
     @Transactional
@@ -177,6 +214,8 @@ public class AccountService {
         BigDecimal oldStart = persisted.getStartBalance() != null ? persisted.getStartBalance() : BigDecimal.ZERO;
         BigDecimal delta = newStartBalance.subtract(oldStart);
 
+        // The database shifts the balance itself; the balance column is not written on save.
+        accountRepository.changeStartBalance(account.getId(), newStartBalance);
         account.setStartBalance(newStartBalance);
         account.setBalance(account.getBalance().add(delta));
     }
@@ -0,0 +1,135 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.AssetPrice;
+import com.cuenti.app.repository.AssetPriceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Price history per symbol and day (asset_prices). Every fetched price is
+ * recorded as the price of its day; older history can be bulk-loaded from CSV.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssetPriceService {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_PRICE =
+            "INSERT INTO asset_prices (symbol, price_date, price, currency, source) VALUES (?, ?, ?, ?, ?)";
+
+    private final AssetPriceRepository assetPriceRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Records {@code price} as the price of {@code symbol} on {@code day}, replacing an earlier one of that day. */
+    @Transactional
+    public void record(String symbol, LocalDate day, BigDecimal price, String currency, String source) {
+        if (assetPriceRepository.updatePrice(symbol, day, price, currency, source) == 0) {
+            assetPriceRepository.save(AssetPrice.builder()
+                    .symbol(symbol)
+                    .priceDate(day)
+                    .price(price)
+                    .currency(currency)
+                    .source(source)
+                    .build());
+        }
+    }
+
+    /**
+     * Loads prices from CSV ({@code date,symbol,price[,currency]}, header line
+     * optional) and returns the number of rows written. Rows of a symbol/day that
+     * is already stored replace it; new rows are batch-inserted.
+     */
+    @Transactional
+    public int importCsv(Reader reader, String source) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        Map<String, AssetPrice> rows = new LinkedHashMap<>();
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            String[] cells = line.split(",", -1);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cells[i].trim().replace("\"", "");
+            }
+            if (lineNo == 1 && cells[0].equalsIgnoreCase("date")) continue;
+            if (cells.length < 3 || cells[1].isEmpty()) {
+                throw new IllegalArgumentException("Line " + lineNo + ": expected date,symbol,price[,currency]");
+            }
+            AssetPrice price = AssetPrice.builder()
+                    .priceDate(parseDate(cells[0], lineNo))
+                    .symbol(cells[1])
+                    .price(parsePrice(cells[2], lineNo))
+                    .currency(cells.length > 3 && !cells[3].isEmpty() ? cells[3] : null)
+                    .source(source)
+                    .build();
+            rows.put(price.getSymbol() + "|" + price.getPriceDate(), price); // last row of a day wins
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> symbols = new HashSet<>();
+        rows.values().forEach(p -> symbols.add(p.getSymbol()));
+        Set<String> existing = new HashSet<>();
+        for (Object[] key : assetPriceRepository.findKeys(symbols)) {
+            existing.add(key[0] + "|" + key[1]);
+        }
+
+        List<AssetPrice> inserts = new ArrayList<>();
+        for (Map.Entry<String, AssetPrice> e : rows.entrySet()) {
+            AssetPrice p = e.getValue();
+            if (existing.contains(e.getKey())) {
+                assetPriceRepository.updatePrice(p.getSymbol(), p.getPriceDate(), p.getPrice(), p.getCurrency(), source);
+            } else {
+                inserts.add(p);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRICE, inserts, JDBC_BATCH_SIZE, (ps, p) -> {
+            ps.setString(1, p.getSymbol());
+            ps.setObject(2, p.getPriceDate());
+            ps.setBigDecimal(3, p.getPrice());
+            ps.setString(4, p.getCurrency());
+            ps.setString(5, p.getSource());
+        });
+        log.info("Imported {} asset prices ({} new) for {} symbols", rows.size(), inserts.size(), symbols.size());
+        return rows.size();
+    }
+
+    private static LocalDate parseDate(String value, int lineNo) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Line " + lineNo + ": invalid date '" + value + "'");
+        }
+    }
+
+    private static BigDecimal parsePrice(String value, int lineNo) {
+        try {
+            BigDecimal price = new BigDecimal(value);
+            if (price.signum() > 0) {
+                return price;
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Line " + lineNo + ": invalid price '" + value + "'");
+    }
+}
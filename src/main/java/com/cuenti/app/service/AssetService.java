@@ -5,20 +5,12 @@ import com.cuenti.app.model.User;
 import com.cuenti.app.repository.AssetRepository;
 import com.cuenti.app.repository.TransactionRepository;
 import com.cuenti.app.repository.ScheduledTransactionRepository;
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -37,8 +29,9 @@ public class AssetService {
     private final TransactionRepository transactionRepository;
     private final ScheduledTransactionRepository scheduledTransactionRepository;
     private final UserService userService;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MarketDataProvider marketDataProvider;
+    private final PriceRefreshService priceRefreshService;
+    private final AssetPriceService assetPriceService;
 
     public List<Asset> getAllAssets() {
         String username = SecurityUtil.getAuthenticatedUsername()
@@ -93,25 +86,13 @@ public class AssetService {
         assetRepository.delete(toDelete);
     }
 
-    private HttpHeaders browserHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-        return headers;
-    }
-
-    private void applyPriceResponse(Asset asset, String response) {
-        JsonNode root = objectMapper.readTree(response);
-        JsonNode resultArr = root.path("chart").path("result");
-        if (resultArr.isArray() && !resultArr.isEmpty()) {
-            JsonNode meta = resultArr.get(0).path("meta");
-            if (!meta.isMissingNode()) {
-                asset.setCurrentPrice(BigDecimal.valueOf(meta.path("regularMarketPrice").asDouble()));
-                asset.setCurrency(meta.path("currency").asText());
-                asset.setLastUpdate(LocalDateTime.now());
-                assetRepository.save(asset);
-                log.info("Updated price for {} after retry", asset.getSymbol());
-            }
-        }
+    private void applyQuote(Asset asset, MarketDataProvider.Quote quote) {
+        asset.setCurrentPrice(quote.price());
+        asset.setCurrency(quote.currency());
+        asset.setLastUpdate(LocalDateTime.now());
+        assetRepository.save(asset);
+        assetPriceService.record(asset.getSymbol(), asset.getLastUpdate().toLocalDate(), quote.price(), quote.currency(), "REFRESH");
+        log.info("Updated price for {}: {} {}", asset.getSymbol(), quote.price(), quote.currency());
     }
 
     /** Prices younger than this are not refetched. */
@@ -124,47 +105,11 @@ public class AssetService {
             log.debug("Skipping fresh price for {}", asset.getSymbol());
             return;
         }
-        String url = String.format("https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d", asset.getSymbol());
-        
         try {
-            // Use a real browser User-Agent to avoid 429/403 errors
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> responseEntity = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            String response = responseEntity.getBody();
-
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode resultArr = root.path("chart").path("result");
-            if (resultArr.isArray() && !resultArr.isEmpty()) {
-                JsonNode result = resultArr.get(0);
-                if (result.has("meta")) {
-                    JsonNode meta = result.path("meta");
-                    double price = meta.path("regularMarketPrice").asDouble();
-                    String currency = meta.path("currency").asText();
-                    
-                    asset.setCurrentPrice(BigDecimal.valueOf(price));
-                    asset.setCurrency(currency);
-                    asset.setLastUpdate(LocalDateTime.now());
-                    assetRepository.save(asset);
-                    log.info("Updated price for {}: {} {}", asset.getSymbol(), price, currency);
-                }
-            }
-        } catch (HttpClientErrorException.TooManyRequests e) {
-            // back off with jitter and retry once; give up until the next cycle otherwise
-            long delayMs = 3000 + java.util.concurrent.ThreadLocalRandom.current().nextLong(3000);
-            log.warn("Rate limited (429) for {}. Backing off {} ms.", asset.getSymbol(), delayMs);
-            try {
-                Thread.sleep(delayMs);
-                ResponseEntity<String> retry = restTemplate.exchange(url, HttpMethod.GET,
-                        new HttpEntity<>(browserHeaders()), String.class);
-                applyPriceResponse(asset, retry.getBody());
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-            } catch (Exception retryEx) {
-                log.warn("Retry after 429 failed for {}: {}", asset.getSymbol(), retryEx.getMessage());
-            }
+            marketDataProvider.quote(asset.getSymbol()).ifPresent(quote -> applyQuote(asset, quote));
+        } catch (MarketDataProvider.RateLimitedException e) {
+            // never wait inside the caller's transaction: the price stays stale until the next refresh cycle
+            log.warn("Rate limited (429) for {}; price left for the next refresh", asset.getSymbol());
         } catch (Exception e) {
             log.error("Error fetching price for asset: " + asset.getSymbol(), e);
         }
@@ -181,7 +126,6 @@ public class AssetService {
      * scheduled job keeps prices fresh in between.
      */
     @Async("priceExecutor")
-    @Transactional
     public void updateUserAssetPricesThrottled(User user) {
         if (!markPriceUpdateDue(user.getId(), Instant.now())) {
             log.debug("Skipping asset price update for user {} (throttled)", user.getUsername());
@@ -204,31 +148,19 @@ public class AssetService {
     }
 
     /**
-     * Update all assets for a specific user.
+     * Update the stale assets of a specific user.
      * This is called when a user logs in.
      */
-    @Transactional
     public void updateUserAssetPrices(User user) {
         log.info("Updating asset prices for user: {}", user.getUsername());
-        List<Asset> assets = assetRepository.findByUser(user);
-        for (Asset asset : assets) {
-            updatePrice(asset);
-            try {
-                // Add a small delay between requests to be nice to the API
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("Asset price update interrupted for user: {}", user.getUsername());
-                break;
-            }
-        }
+        List<String> symbols = assetRepository.findStaleSymbolsByUser(user, LocalDateTime.now().minus(PRICE_FRESHNESS));
+        priceRefreshService.refresh(symbols);
         log.info("Completed asset price update for user: {}", user.getUsername());
     }
 
     /**
      * Update asset prices for the currently authenticated user.
      */
-    @Transactional
     public void updateCurrentUserAssetPrices() {
         String username = SecurityUtil.getAuthenticatedUsername()
             .orElseThrow(() -> new RuntimeException("User not authenticated"));
@@ -237,24 +169,12 @@ public class AssetService {
     }
 
     /**
-     * Automatically update all asset prices every hour with a small delay between requests.
-     * Updates assets for all users.
+     * Automatically update all stale asset prices every hour. Each symbol is
+     * fetched once, however many users hold it; see {@link PriceRefreshService}.
      */
     @Scheduled(fixedRate = 3600000)
-    @Transactional
     public void updateAllPrices() {
         log.info("Starting scheduled asset price update...");
-        // Get all assets across all users for scheduled updates
-        List<Asset> assets = assetRepository.findAll();
-        for (Asset asset : assets) {
-            updatePrice(asset);
-            try {
-                // Add a small delay between requests to be nice to the API
-                Thread.sleep(2000); 
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
+        priceRefreshService.refresh(assetRepository.findStaleSymbols(LocalDateTime.now().minus(PRICE_FRESHNESS)));
     }
 }
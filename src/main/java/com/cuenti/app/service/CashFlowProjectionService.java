@@ -0,0 +1,134 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.ScheduledTransaction;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Projects every account's balance day by day from its current balance and the
+ * user's enabled schedules, transfers included, each booked like the transaction
+ * it would post (in the account's own currency, no conversion).
+ *
+ * <p>The schedules' {@link Recurrence} iterators are merged through a priority
+ * queue ordered by their next date, so all occurrences are applied in one sorted
+ * sweep without materialising any schedule's full list. Overdue occurrences that
+ * were not posted yet are applied on the first day.
+ */
+@Service
+@RequiredArgsConstructor
+public class CashFlowProjectionService {
+
+    /** Longest projection served in one call. */
+    public static final int MAX_DAYS = 3660;
+
+    /** One account's balance at the end of each projected day. */
+    public record AccountProjection(Long accountId, String accountName, String currency,
+                                    List<BigDecimal> balances, LocalDate firstNegativeDay) {
+    }
+
+    public record CashFlowProjection(List<LocalDate> dates, List<AccountProjection> accounts) {
+    }
+
+    /** A schedule's occurrence stream, positioned on its next date. */
+    private static final class Cursor {
+        final ScheduledTransaction schedule;
+        final Iterator<LocalDate> occurrences;
+        LocalDate date;
+
+        Cursor(ScheduledTransaction schedule, Iterator<LocalDate> occurrences) {
+            this.schedule = schedule;
+            this.occurrences = occurrences;
+            this.date = occurrences.next();
+        }
+    }
+
+    private final ScheduledTransactionService scheduledService;
+    private final AccountService accountService;
+
+    /** Balances for today and the following {@code days - 1} days. */
+    @Transactional(readOnly = true)
+    public CashFlowProjection project(User user, int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate end = today.plusDays(days - 1);
+
+        List<Account> accounts = accountService.getAccountsByUser(user);
+        Map<Long, Integer> columnOf = new HashMap<>();
+        BigDecimal[] balance = new BigDecimal[accounts.size()];
+        LocalDate[] firstNegative = new LocalDate[accounts.size()];
+        List<List<BigDecimal>> balances = new ArrayList<>(accounts.size());
+        for (int c = 0; c < accounts.size(); c++) {
+            Account a = accounts.get(c);
+            columnOf.put(a.getId(), c);
+            balance[c] = a.getBalance() != null ? a.getBalance() : BigDecimal.ZERO;
+            balances.add(new ArrayList<>(days));
+        }
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparing((Cursor c) -> c.date));
+        for (ScheduledTransaction st : scheduledService.getByUser(user)) {
+            if (!st.isEnabled() || st.getNextOccurrence() == null || st.getAmount() == null) continue;
+            LocalDate from = st.getNextOccurrence().toLocalDate();
+            Iterator<LocalDate> occurrences = Recurrence.occurrences(st, from.isBefore(today) ? from : today, end);
+            if (occurrences.hasNext()) {
+                queue.add(new Cursor(st, occurrences));
+            }
+        }
+
+        List<LocalDate> dates = new ArrayList<>(days);
+        for (LocalDate day = today; !day.isAfter(end); day = day.plusDays(1)) {
+            while (!queue.isEmpty() && !queue.peek().date.isAfter(day)) {
+                Cursor next = queue.poll();
+                apply(next.schedule, columnOf, balance);
+                if (next.occurrences.hasNext()) {
+                    next.date = next.occurrences.next();
+                    queue.add(next);
+                }
+            }
+            for (int c = 0; c < balance.length; c++) {
+                balances.get(c).add(balance[c]);
+                if (firstNegative[c] == null && balance[c].signum() < 0) {
+                    firstNegative[c] = day;
+                }
+            }
+            dates.add(day);
+        }
+
+        List<AccountProjection> result = new ArrayList<>(accounts.size());
+        for (int c = 0; c < accounts.size(); c++) {
+            Account a = accounts.get(c);
+            result.add(new AccountProjection(a.getId(), a.getAccountName(), a.getCurrency(),
+                    balances.get(c), firstNegative[c]));
+        }
+        return new CashFlowProjection(dates, result);
+    }
+
+    private static void apply(ScheduledTransaction st, Map<Long, Integer> columnOf, BigDecimal[] balance) {
+        Integer from = st.getFromAccount() != null ? columnOf.get(st.getFromAccount().getId()) : null;
+        Integer to = st.getToAccount() != null ? columnOf.get(st.getToAccount().getId()) : null;
+        BigDecimal amount = st.getAmount();
+        if (st.getType() == Transaction.TransactionType.EXPENSE) {
+            if (from != null) balance[from] = balance[from].subtract(amount);
+        } else if (st.getType() == Transaction.TransactionType.INCOME) {
+            if (to != null) balance[to] = balance[to].add(amount);
+        } else if (st.getFromAccount() != null && st.getToAccount() != null) {
+            if (from != null) balance[from] = balance[from].subtract(amount);
+            if (to != null) balance[to] = balance[to].add(amount);
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class CategoryService {
     private final PayeeRepository payeeRepository;
     private final UserService userService;
     private final SecurityUtils securityUtils;
+    private final MonthlyTotalsService monthlyTotalsService;
 
     public List<Category> getAllCategories() {
         String username = securityUtils.getAuthenticatedUsername().orElseThrow();
@@ -89,5 +90,8 @@ public class CategoryService {
 
         // Now safe to delete the category
         categoryRepository.delete(category);
+
+        // Its monthly totals now belong to "uncategorized"
+        monthlyTotalsService.moveToUncategorized(currentUser.getId(), category.getId());
     }
 }
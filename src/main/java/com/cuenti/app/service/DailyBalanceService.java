@@ -0,0 +1,129 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.AccountDailyBalance;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountDailyBalanceRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@link AccountDailyBalance} checkpoints and answers balance
+ * questions from them.
+ *
+ * <p>Each row holds one account's net change on one day. Writers call
+ * {@link #applyDeltas} after the account balances were updated in the same
+ * transaction: that update holds the account rows' locks, so concurrent writers
+ * reach the day rows of an account one at a time and the update-or-insert below
+ * cannot race. Every change also marks the user's net worth history dirty from
+ * the earliest day it touched.
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyBalanceService {
+
+    private final AccountDailyBalanceRepository dailyBalanceRepository;
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final NetWorthService netWorthService;
+
+    /** One account on one calendar day. */
+    public record Key(Long accountId, LocalDate day) {
+    }
+
+    /** Adds a transaction's effect ({@code sign = 1}) or its reversal ({@code sign = -1}) to {@code deltas}. */
+    public static void addEffect(Map<Key, BigDecimal> deltas, Transaction t, int sign) {
+        LocalDate day = t.getTransactionDate().toLocalDate();
+        t.balanceEffects().forEach((account, amount) ->
+                deltas.merge(new Key(account.getId(), day), sign < 0 ? amount.negate() : amount, BigDecimal::add));
+    }
+
+    /** Books per-day net changes of {@code user}'s accounts. */
+    @Transactional
+    public void applyDeltas(User user, Map<Key, BigDecimal> deltas) {
+        deltas.keySet().stream()
+                .map(Key::day)
+                .min(LocalDate::compareTo)
+                .ifPresent(day -> netWorthService.markDirty(user.getId(), day));
+        deltas.forEach((key, delta) -> {
+            if (delta.signum() == 0) return;
+            if (dailyBalanceRepository.addToDay(key.accountId(), key.day(), delta) == 0) {
+                dailyBalanceRepository.save(AccountDailyBalance.builder()
+                        .userId(user.getId())
+                        .accountId(key.accountId())
+                        .balanceDate(key.day())
+                        .netChange(delta)
+                        .build());
+            }
+        });
+    }
+
+    /**
+     * Balance movement of one account before {@code day}, excluding its start balance.
+     * This is the checkpoint a running balance starting on {@code day} builds on.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal changeBefore(Account account, LocalDate day) {
+        return dailyBalanceRepository.sumForAccountBefore(account.getId(), day);
+    }
+
+    /** Like {@link #changeBefore(Account, LocalDate)} summed over all of a user's accounts. */
+    @Transactional(readOnly = true)
+    public BigDecimal changeBefore(User user, LocalDate day) {
+        return dailyBalanceRepository.sumForUserBefore(user.getId(), day);
+    }
+
+    /** The account's balance at the end of {@code day}, including its start balance. */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceAsOf(Account account, LocalDate day) {
+        BigDecimal start = account.getStartBalance() != null ? account.getStartBalance() : BigDecimal.ZERO;
+        return start.add(changeBefore(account, day.plusDays(1)));
+    }
+
+    /** Drops and regenerates the checkpoints of one user from the transactions table. */
+    @Transactional
+    public int rebuild(User user) {
+        dailyBalanceRepository.deleteByUserId(user.getId());
+
+        Map<Key, BigDecimal> deltas = new HashMap<>();
+        try (Stream<Transaction> rows = transactionRepository.streamForExport(user, null, null, null)) {
+            rows.forEach(t -> {
+                addEffect(deltas, t, 1);
+                entityManager.detach(t);
+            });
+        }
+
+        List<AccountDailyBalance> entities = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> entities.add(AccountDailyBalance.builder()
+                .userId(user.getId())
+                .accountId(key.accountId())
+                .balanceDate(key.day())
+                .netChange(delta)
+                .build()));
+        dailyBalanceRepository.saveAll(entities);
+        netWorthService.markDirty(user.getId(), LocalDate.MIN);
+        return entities.size();
+    }
+
+    @Transactional
+    public void deleteForAccount(Long accountId) {
+        dailyBalanceRepository.deleteByAccountId(accountId);
+    }
+
+    @Transactional
+    public void deleteForUser(Long userId) {
+        dailyBalanceRepository.deleteByUserId(userId);
+    }
+}
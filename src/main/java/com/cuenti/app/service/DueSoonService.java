@@ -0,0 +1,96 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.ScheduledTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-user count of enabled schedules due within {@link #WINDOW} (the nav badge).
+ *
+ * <p>Counts come from one COUNT query on the (user_id, enabled, next_occurrence)
+ * index and are cached per user. Saving, deleting, posting or skipping a schedule
+ * invalidates the user's entry once the transaction commits and pushes the new
+ * count to the listeners registered for that user (open UIs). Entries also expire
+ * after {@link #TTL}, as schedules move into the window while time passes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DueSoonService {
+
+    static final Duration WINDOW = Duration.ofDays(7);
+    static final Duration TTL = Duration.ofMinutes(5);
+
+    private record Entry(long count, LocalDateTime expiresAt) {
+    }
+
+    private final ScheduledTransactionRepository repository;
+
+    private final Map<Long, Entry> counts = new ConcurrentHashMap<>();
+    private final Map<Long, Set<LongConsumer>> listeners = new ConcurrentHashMap<>();
+
+    public long count(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        Entry entry = counts.get(user.getId());
+        if (entry == null || !now.isBefore(entry.expiresAt())) {
+            entry = new Entry(repository.countDueBefore(user, now.plus(WINDOW)), now.plus(TTL));
+            counts.put(user.getId(), entry);
+        }
+        return entry.count();
+    }
+
+    /**
+     * Calls {@code listener} with the user's new count after each change. The
+     * listener runs on the committing thread; returns the action that removes it.
+     */
+    public Runnable addListener(User user, LongConsumer listener) {
+        listeners.computeIfAbsent(user.getId(), k -> ConcurrentHashMap.newKeySet()).add(listener);
+        return () -> listeners.computeIfPresent(user.getId(), (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /** Drops the user's cached count after commit and notifies the user's listeners. */
+    public void invalidate(User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(user);
+                }
+            });
+        } else {
+            refresh(user);
+        }
+    }
+
+    private void refresh(User user) {
+        counts.remove(user.getId());
+        Set<LongConsumer> registered = listeners.get(user.getId());
+        if (registered == null || registered.isEmpty()) {
+            return;
+        }
+        long count;
+        try {
+            count = count(user);
+        } catch (RuntimeException e) {
+            log.warn("Could not recount due schedules for user {}: {}", user.getId(), e.getMessage());
+            return;
+        }
+        for (LongConsumer listener : registered) {
+            listener.accept(count);
+        }
+    }
+}
@@ -1,29 +1,93 @@
 package com.cuenti.app.service;
 
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Exchange rates from the {@link MarketDataProvider} behind a shared in-memory cache.
+ *
+ * <p>A rate is served from the cache while younger than the TTL. Up to
+ * {@code max-stale} past the TTL the cached rate is still served, and a refresh runs
+ * on the {@code fxExecutor} in the background (stale-while-revalidate). Only a cold
+ * pair makes the caller wait, and concurrent callers for the same pair share one
+ * fetch. A pair that could not be fetched is not retried before {@code failure-backoff}.
+ * Every fetched rate is published as a {@link RateFetchedEvent}.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ExchangeRateService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, BigDecimal> rateCache = new HashMap<>();
+    /** A fetched rate and when it was fetched. */
+    record CachedRate(BigDecimal rate, Instant fetchedAt) {
+    }
+
+    /** A live rate was fetched: one {@code from} costs {@code rate} {@code to} on {@code date}. */
+    public record RateFetchedEvent(String from, String to, BigDecimal rate, LocalDate date) {
+    }
+
+    private final MarketDataProvider marketDataProvider;
+    private final Map<String, CachedRate> rateCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Instant> failedUntil = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration ttl;
+    private final Duration maxStale;
+    private final Duration failureBackoff;
+    private final Clock clock;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    @Autowired
+    public ExchangeRateService(MarketDataProvider marketDataProvider,
+                               @Qualifier("fxExecutor") Executor executor,
+                               MeterRegistry meterRegistry,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${cuenti.fx.cache-ttl:PT1H}") Duration ttl,
+                               @Value("${cuenti.fx.max-stale:P1D}") Duration maxStale,
+                               @Value("${cuenti.fx.failure-backoff:PT5M}") Duration failureBackoff) {
+        this(marketDataProvider, executor, meterRegistry, eventPublisher, ttl, maxStale, failureBackoff, Clock.systemUTC());
+    }
+
+    ExchangeRateService(MarketDataProvider marketDataProvider, Executor executor, MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                        Duration ttl, Duration maxStale, Duration failureBackoff, Clock clock) {
+        this.marketDataProvider = marketDataProvider;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.ttl = ttl;
+        this.maxStale = maxStale;
+        this.failureBackoff = failureBackoff;
+        this.clock = clock;
+
+        this.hits = meterRegistry.counter("cuenti.fx.cache.requests", "result", "hit");
+        this.staleHits = meterRegistry.counter("cuenti.fx.cache.requests", "result", "stale");
+        this.misses = meterRegistry.counter("cuenti.fx.cache.requests", "result", "miss");
+        Gauge.builder("cuenti.fx.cache.size", rateCache, Map::size).register(meterRegistry);
+    }
 
     public BigDecimal getExchangeRate(String from, String to) {
         if (from.equals(to)) {
@@ -31,49 +95,102 @@ public class ExchangeRateService {
         }
 
         String pair = from + to;
-        if (rateCache.containsKey(pair)) {
-            return rateCache.get(pair);
+        CachedRate cached = rateCache.get(pair);
+        if (cached != null) {
+            Duration age = Duration.between(cached.fetchedAt(), clock.instant());
+            if (age.compareTo(ttl) <= 0) {
+                hits.increment();
+                return cached.rate();
+            }
+            if (age.compareTo(ttl.plus(maxStale)) <= 0) {
+                staleHits.increment();
+                refresh(from, to);
+                return cached.rate();
+            }
         }
 
-        BigDecimal rate = fetchRate(from, to);
+        misses.increment();
+        BigDecimal rate = refresh(from, to).join();
         if (rate != null) {
-            rateCache.put(pair, rate);
             return rate;
         }
-
-        // Try inverse if direct failed
-        BigDecimal inverseRate = fetchRate(to, from);
-        if (inverseRate != null && inverseRate.compareTo(BigDecimal.ZERO) != 0) {
-            rate = BigDecimal.ONE.divide(inverseRate, 10, RoundingMode.HALF_UP);
-            rateCache.put(pair, rate);
-            return rate;
+        if (cached != null) {
+            // too old to serve normally, but closer to the truth than 1.0
+            return cached.rate();
         }
-
         log.warn("Could not find exchange rate for {} to {}. Using 1.0", from, to);
         return BigDecimal.ONE;
     }
 
-    private BigDecimal fetchRate(String from, String to) {
-        String symbol = from + to + "=X";
-        String url = String.format("https://query1.finance.yahoo.com/v8/finance/chart/%s?interval=1d&range=1d", symbol);
+    /**
+     * Starts a fetch for the pair on the fx executor, or returns the one already
+     * running. Completes with null when the pair could not be fetched or is
+     * backing off after a failure.
+     */
+    private CompletableFuture<BigDecimal> refresh(String from, String to) {
+        String pair = from + to;
+        Instant retryAt = failedUntil.get(pair);
+        if (retryAt != null && clock.instant().isBefore(retryAt)) {
+            return CompletableFuture.completedFuture(null);
+        }
 
+        CompletableFuture<BigDecimal> created = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> running = inFlight.putIfAbsent(pair, created);
+        if (running != null) {
+            return running;
+        }
+        Runnable task = () -> {
+            try {
+                created.complete(load(from, to));
+            } catch (RuntimeException e) {
+                log.error("Error refreshing exchange rate {}: {}", pair, e.getMessage());
+                created.complete(null);
+            } finally {
+                inFlight.remove(pair, created);
+            }
+        };
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> responseEntity = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            JsonNode root = objectMapper.readTree(responseEntity.getBody());
-            JsonNode result = root.path("chart").path("result").get(0);
-            
-            if (result != null && result.has("meta")) {
-                double price = result.path("meta").path("regularMarketPrice").asDouble();
-                return BigDecimal.valueOf(price);
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+        return created;
+    }
+
+    /** Fetches the pair (falling back to the inverse quote) and updates the cache. */
+    private BigDecimal load(String from, String to) {
+        String pair = from + to;
+        long started = System.nanoTime();
+        BigDecimal rate = fetchRate(from, to);
+        if (rate == null) {
+            // Try inverse if direct failed
+            BigDecimal inverseRate = fetchRate(to, from);
+            if (inverseRate != null && inverseRate.compareTo(BigDecimal.ZERO) != 0) {
+                rate = BigDecimal.ONE.divide(inverseRate, 10, RoundingMode.HALF_UP);
             }
-        } catch (Exception e) {
-            log.error("Error fetching exchange rate for {}: {}", symbol, e.getMessage());
         }
-        return null;
+        meterRegistry.timer("cuenti.fx.fetch", "outcome", rate != null ? "success" : "failure")
+                .record(Duration.ofNanos(System.nanoTime() - started));
+
+        if (rate != null) {
+            rateCache.put(pair, new CachedRate(rate, clock.instant()));
+            failedUntil.remove(pair);
+            eventPublisher.publishEvent(new RateFetchedEvent(from, to, rate, LocalDate.now(clock)));
+        } else {
+            failedUntil.put(pair, clock.instant().plus(failureBackoff));
+        }
+        return rate;
+    }
+
+    BigDecimal fetchRate(String from, String to) {
+        try {
+            return marketDataProvider.fxRate(from, to)
+                    .filter(rate -> rate.signum() > 0)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Error fetching exchange rate {}{}: {}", from, to, e.getMessage());
+            return null;
+        }
     }
 
     public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
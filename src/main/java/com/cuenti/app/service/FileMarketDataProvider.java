@@ -0,0 +1,133 @@
+package com.cuenti.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Quotes and exchange rates read from CSV files in {@code cuenti.market-data.dir},
+ * with no network access:
+ * <ul>
+ *   <li>{@code quotes.csv}: {@code symbol,price,currency}</li>
+ *   <li>{@code fx.csv}: {@code from,to,rate}</li>
+ * </ul>
+ * Lines starting with {@code #} are comments. A file is re-read when its
+ * modification time changes, so prices can be updated while the app runs.
+ * Missing files or directory simply mean no data.
+ */
+@Component
+@ConditionalOnProperty(name = "cuenti.market-data.provider", havingValue = "file")
+@Slf4j
+public class FileMarketDataProvider implements MarketDataProvider {
+
+    private final CsvTable quotes;
+    private final CsvTable rates;
+
+    public FileMarketDataProvider(@Value("${cuenti.market-data.dir:}") String dir) {
+        Path base = Path.of(dir.isBlank() ? "." : dir);
+        this.quotes = new CsvTable(base.resolve("quotes.csv"));
+        this.rates = new CsvTable(base.resolve("fx.csv"));
+    }
+
+    @Override
+    public Optional<Quote> quote(String symbol) {
+        String[] row = quotes.rows().get(symbol.toUpperCase(Locale.ROOT));
+        if (row == null || row.length < 3) {
+            return Optional.empty();
+        }
+        return Optional.of(new Quote(symbol, new BigDecimal(row[1]), row[2]));
+    }
+
+    /** Everything is local, so any number of symbols is one lookup. */
+    @Override
+    public int maxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Optional<BigDecimal> fxRate(String from, String to) {
+        Map<String, String[]> rows = rates.rows();
+        String[] direct = rows.get((from + "," + to).toUpperCase(Locale.ROOT));
+        if (direct != null) {
+            return Optional.of(new BigDecimal(direct[2]));
+        }
+        String[] inverse = rows.get((to + "," + from).toUpperCase(Locale.ROOT));
+        if (inverse != null) {
+            return Optional.of(BigDecimal.ONE.divide(new BigDecimal(inverse[2]), 10, RoundingMode.HALF_UP));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * One CSV file keyed by its leading columns (one for quotes, two for rates),
+     * reloaded when the file changes.
+     */
+    private static final class CsvTable {
+        private final Path file;
+        private volatile FileTime loadedAt;
+        private volatile Map<String, String[]> rows = Map.of();
+
+        CsvTable(Path file) {
+            this.file = file;
+        }
+
+        Map<String, String[]> rows() {
+            try {
+                if (!Files.isRegularFile(file)) {
+                    return Map.of();
+                }
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (!modified.equals(loadedAt)) {
+                    synchronized (this) {
+                        if (!modified.equals(loadedAt)) {
+                            rows = parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+                            loadedAt = modified;
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not read market data file {}: {}", file, e.getMessage());
+            }
+            return rows;
+        }
+
+        private Map<String, String[]> parse(List<String> lines) {
+            int keyColumns = file.getFileName().toString().startsWith("fx") ? 2 : 1;
+            Map<String, String[]> parsed = new HashMap<>();
+            for (String line : lines) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cells = line.split(",");
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = cells[i].trim();
+                }
+                if (cells.length <= keyColumns || !isNumber(cells[keyColumns])) continue; // header or malformed
+                String key = String.join(",", List.of(cells).subList(0, keyColumns)).toUpperCase(Locale.ROOT);
+                parsed.put(key, cells);
+            }
+            return parsed;
+        }
+
+        private static boolean isNumber(String s) {
+            try {
+                new BigDecimal(s);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
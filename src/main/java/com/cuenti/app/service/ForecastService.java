@@ -11,18 +11,21 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
- * Projects scheduled transactions across a calendar year: per-month income
- * and expense in the user's default currency. Transfers are ignored, as are
- * schedules on accounts excluded from reports.
+ * Projects scheduled transactions across a calendar year or any date range:
+ * per-month income and expense in the user's default currency. Transfers are
+ * ignored, as are schedules on accounts excluded from reports. Occurrences come
+ * from {@link Recurrence}, which starts at the range instead of walking every
+ * occurrence before it.
  */
 @Service
 @RequiredArgsConstructor
@@ -30,77 +33,80 @@ public class ForecastService {
 
     private final ScheduledTransactionService scheduledService;
     private final AccountService accountService;
-    private final ExchangeRateService exchangeRateService;
+    private final FxRateService fxRateService;
 
     @Transactional(readOnly = true)
     public ForecastDTO getForecast(User user, int year) {
+        return getForecast(user, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    /** Forecast for [start, end], with one entry per calendar month the range touches. */
+    @Transactional(readOnly = true)
+    public ForecastDTO getForecast(User user, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
         Set<Long> reportableAccountIds = accountService.getAccountsByUser(user).stream()
                 .filter(a -> !a.isExcludeFromReports())
                 .map(Account::getId)
                 .collect(Collectors.toSet());
 
-        Map<String, BigDecimal> monthlyIncomes = new TreeMap<>();
-        Map<String, BigDecimal> monthlyExpenses = new TreeMap<>();
+        YearMonth firstMonth = YearMonth.from(start);
+        int monthCount = (int) firstMonth.until(YearMonth.from(end), ChronoUnit.MONTHS) + 1;
+        BigDecimal[] monthlyIncomes = new BigDecimal[monthCount];
+        BigDecimal[] monthlyExpenses = new BigDecimal[monthCount];
+        Arrays.fill(monthlyIncomes, BigDecimal.ZERO);
+        Arrays.fill(monthlyExpenses, BigDecimal.ZERO);
         BigDecimal totalIncome = BigDecimal.ZERO;
         BigDecimal totalExpense = BigDecimal.ZERO;
+        int firstMonthIndex = start.getYear() * 12 + start.getMonthValue() - 1;
 
         for (ScheduledTransaction st : scheduledService.getByUser(user)) {
             if (!st.isEnabled()) continue;
 
             Account fromAccount = st.getFromAccount();
             Account toAccount = st.getToAccount();
+            boolean income = st.getType() == Transaction.TransactionType.INCOME;
 
-            if (st.getType() == Transaction.TransactionType.INCOME) {
+            if (income) {
                 if (toAccount == null || !reportableAccountIds.contains(toAccount.getId())) continue;
             } else if (st.getType() == Transaction.TransactionType.EXPENSE) {
                 if (fromAccount == null || !reportableAccountIds.contains(fromAccount.getId())) continue;
             } else {
                 continue; // transfers ignored, matching the web view
             }
-
-            LocalDateTime occurrence = st.getNextOccurrence();
-            LocalDate occurrenceDate = occurrence.toLocalDate();
-
-            while (occurrenceDate.getYear() < year) {
-                occurrence = ScheduledTransactionService.advanceOccurrence(occurrence, st);
-                occurrenceDate = occurrence.toLocalDate();
-            }
-
-            while (occurrenceDate.getYear() == year) {
-                String monthKey = String.format("%d-%02d", occurrenceDate.getYear(), occurrenceDate.getMonthValue());
-
-                if (st.getType() == Transaction.TransactionType.INCOME) {
-                    String currency = toAccount != null ? toAccount.getCurrency() : user.getDefaultCurrency();
-                    BigDecimal converted = exchangeRateService.convert(st.getAmount(), currency, user.getDefaultCurrency());
-                    monthlyIncomes.merge(monthKey, converted, BigDecimal::add);
+            String currency = income ? toAccount.getCurrency() : fromAccount.getCurrency();
+
+            Iterator<LocalDate> occurrences = Recurrence.occurrences(st, start, end);
+            while (occurrences.hasNext()) {
+                LocalDate occurrenceDate = occurrences.next();
+                int month = occurrenceDate.getYear() * 12 + occurrenceDate.getMonthValue() - 1 - firstMonthIndex;
+                BigDecimal converted = fxRateService.convert(st.getAmount(), currency, user.getDefaultCurrency(), occurrenceDate);
+                if (income) {
+                    monthlyIncomes[month] = monthlyIncomes[month].add(converted);
                     totalIncome = totalIncome.add(converted);
                 } else {
-                    String currency = fromAccount != null ? fromAccount.getCurrency() : user.getDefaultCurrency();
-                    BigDecimal converted = exchangeRateService.convert(st.getAmount(), currency, user.getDefaultCurrency());
-                    monthlyExpenses.merge(monthKey, converted, BigDecimal::add);
+                    monthlyExpenses[month] = monthlyExpenses[month].add(converted);
                     totalExpense = totalExpense.add(converted);
                 }
-
-                occurrence = ScheduledTransactionService.advanceOccurrence(occurrence, st);
-                occurrenceDate = occurrence.toLocalDate();
             }
         }
 
-        List<ForecastDTO.MonthForecast> months = new ArrayList<>(12);
-        for (int m = 1; m <= 12; m++) {
-            String key = String.format("%d-%02d", year, m);
-            BigDecimal income = monthlyIncomes.getOrDefault(key, BigDecimal.ZERO);
-            BigDecimal expense = monthlyExpenses.getOrDefault(key, BigDecimal.ZERO);
+        List<ForecastDTO.MonthForecast> months = new ArrayList<>(monthCount);
+        for (int m = 0; m < monthCount; m++) {
+            YearMonth month = firstMonth.plusMonths(m);
             months.add(ForecastDTO.MonthForecast.builder()
-                    .month(key)
-                    .income(income)
-                    .expense(expense)
-                    .net(income.subtract(expense))
+                    .month(String.format("%d-%02d", month.getYear(), month.getMonthValue()))
+                    .income(monthlyIncomes[m])
+                    .expense(monthlyExpenses[m])
+                    .net(monthlyIncomes[m].subtract(monthlyExpenses[m]))
                     .build());
         }
 
         return ForecastDTO.builder()
-                .year(year)
+                .year(start.getYear())
+                .start(start)
+                .end(end)
                 .months(months)
                 .totalIncome(totalIncome)
                 .totalExpense(totalExpense)
@@ -0,0 +1,288 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.FxRate;
+import com.cuenti.app.repository.FxRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Historical exchange rates for reports. All rates of the fx_rates table are held
+ * in memory as one date-sorted map per currency pair, so converting an amount at
+ * its own date is a map lookup: the rate of the latest day on or before that date.
+ *
+ * <p>Pairs are looked up directly, inverted, or crossed through EUR (the base of
+ * the ECB reference rates). Only a pair with no history at all falls back to the
+ * live {@link ExchangeRateService}; its fetched rate is recorded here, so the
+ * next lookup for that pair stays in memory as well.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FxRateService {
+
+    /** Base currency of ECB reference-rate files. */
+    static final String PIVOT = "EUR";
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_RATE =
+            "INSERT INTO fx_rates (base_currency, quote_currency, rate_date, rate, source) VALUES (?, ?, ?, ?, ?)";
+
+    private final FxRateRepository fxRateRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** pair ("USDEUR") → rate per day. */
+    private final Map<String, NavigableMap<LocalDate, BigDecimal>> index = new ConcurrentHashMap<>();
+
+    @Value("${cuenti.fx.backfill-files:}")
+    private String backfillFiles;
+
+    /** {@code amount} in {@code from} converted to {@code to} at the rate of {@code date}. */
+    public BigDecimal convert(BigDecimal amount, String from, String to, LocalDate date) {
+        if (amount == null || from == null || to == null || from.equals(to)) {
+            return amount;
+        }
+        BigDecimal rate = rateOn(from, to, date).orElseGet(() -> exchangeRateService.getExchangeRate(from, to));
+        return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Rate of the latest day on or before {@code date} (or of the earliest known day
+     * when {@code date} predates the history). In-memory only; empty when the pair
+     * cannot be derived from the stored rates.
+     */
+    public Optional<BigDecimal> rateOn(String from, String to, LocalDate date) {
+        if (from.equals(to)) {
+            return Optional.of(BigDecimal.ONE);
+        }
+        BigDecimal direct = lookup(from, to, date);
+        if (direct != null) {
+            return Optional.of(direct);
+        }
+        BigDecimal inverse = lookup(to, from, date);
+        if (inverse != null && inverse.signum() != 0) {
+            return Optional.of(BigDecimal.ONE.divide(inverse, 10, RoundingMode.HALF_UP));
+        }
+        if (!from.equals(PIVOT) && !to.equals(PIVOT)) {
+            Optional<BigDecimal> pivotToFrom = rateOn(PIVOT, from, date);
+            Optional<BigDecimal> pivotToTo = rateOn(PIVOT, to, date);
+            if (pivotToFrom.isPresent() && pivotToTo.isPresent() && pivotToFrom.get().signum() != 0) {
+                return Optional.of(pivotToTo.get().divide(pivotToFrom.get(), 10, RoundingMode.HALF_UP));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private BigDecimal lookup(String base, String quote, LocalDate date) {
+        NavigableMap<LocalDate, BigDecimal> series = index.get(base + quote);
+        if (series == null || series.isEmpty()) {
+            return null;
+        }
+        Map.Entry<LocalDate, BigDecimal> entry = series.floorEntry(date);
+        return entry != null ? entry.getValue() : series.firstEntry().getValue();
+    }
+
+    /**
+     * Stores rates, replacing existing rows of the same pair and day, and adds them
+     * to the in-memory index. Rows identical to the stored rate are skipped; when the
+     * input lists a pair and day more than once, its last row wins.
+     */
+    @Transactional
+    public int store(Collection<FxRate> rates) {
+        Map<String, FxRate> latest = new LinkedHashMap<>();
+        for (FxRate r : rates) {
+            latest.put(r.getBaseCurrency() + r.getQuoteCurrency() + r.getRateDate(), r);
+        }
+        List<FxRate> inserts = new ArrayList<>();
+        int updated = 0;
+        for (FxRate r : latest.values()) {
+            NavigableMap<LocalDate, BigDecimal> series = index.get(r.getBaseCurrency() + r.getQuoteCurrency());
+            BigDecimal known = series != null ? series.get(r.getRateDate()) : null;
+            if (known == null) {
+                inserts.add(r);
+            } else if (known.compareTo(r.getRate()) != 0) {
+                fxRateRepository.updateRate(r.getBaseCurrency(), r.getQuoteCurrency(), r.getRateDate(),
+                        r.getRate(), r.getSource());
+                updated++;
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_RATE, inserts, JDBC_BATCH_SIZE, (ps, r) -> {
+            ps.setString(1, r.getBaseCurrency());
+            ps.setString(2, r.getQuoteCurrency());
+            ps.setObject(3, r.getRateDate());
+            ps.setBigDecimal(4, r.getRate());
+            ps.setString(5, r.getSource());
+        });
+        latest.values().forEach(this::addToIndex);
+        return inserts.size() + updated;
+    }
+
+    private void addToIndex(FxRate r) {
+        index.computeIfAbsent(r.getBaseCurrency() + r.getQuoteCurrency(), k -> new ConcurrentSkipListMap<>())
+                .put(r.getRateDate(), r.getRate());
+    }
+
+    /** Records every live rate as the rate of its day. */
+    @EventListener
+    @Transactional
+    public void onRateFetched(ExchangeRateService.RateFetchedEvent event) {
+        try {
+            store(List.of(FxRate.builder()
+                    .baseCurrency(event.from())
+                    .quoteCurrency(event.to())
+                    .rateDate(event.date())
+                    .rate(event.rate())
+                    .source("YAHOO")
+                    .build()));
+        } catch (RuntimeException e) {
+            log.warn("Could not record rate {}{} for {}: {}", event.from(), event.to(), event.date(), e.getMessage());
+        }
+    }
+
+    /**
+     * Imports a rate file and returns the number of rows written. Two layouts are
+     * understood, each with a header line:
+     * <ul>
+     *   <li>ECB reference rates ({@code Date,USD,JPY,...}): one row per day, one
+     *       column per currency, rates per 1 EUR; {@code N/A} and empty cells are skipped.</li>
+     *   <li>Long format ({@code date,base,quote,rate}): one row per pair and day.</li>
+     * </ul>
+     */
+    @Transactional
+    public int importCsv(Reader reader, String source) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        String header = in.readLine();
+        while (header != null && header.isBlank()) {
+            header = in.readLine();
+        }
+        if (header == null) {
+            return 0;
+        }
+        String[] columns = split(header);
+        boolean ecb = columns.length > 1 && !columns[1].equalsIgnoreCase("base") && isCurrencyCode(columns[1]);
+
+        List<FxRate> rates = new ArrayList<>();
+        String line;
+        int lineNo = 1;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            String[] cells = split(line);
+            LocalDate date = parseDate(cells[0], lineNo);
+            if (ecb) {
+                for (int i = 1; i < cells.length && i < columns.length; i++) {
+                    if (!isCurrencyCode(columns[i]) || cells[i].isEmpty() || cells[i].equalsIgnoreCase("N/A")) continue;
+                    rates.add(rate(PIVOT, columns[i], date, cells[i], source, lineNo));
+                }
+            } else {
+                if (cells.length < 4) {
+                    throw new IllegalArgumentException("Line " + lineNo + ": expected date,base,quote,rate");
+                }
+                rates.add(rate(cells[1], cells[2], date, cells[3], source, lineNo));
+            }
+        }
+        return store(rates);
+    }
+
+    /** Imports a local rate file; see {@link #importCsv}. */
+    @Transactional
+    public int importFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(reader, "FILE");
+        }
+    }
+
+    private static FxRate rate(String base, String quote, LocalDate date, String value, String source, int lineNo) {
+        if (!isCurrencyCode(base) || !isCurrencyCode(quote)) {
+            throw new IllegalArgumentException("Line " + lineNo + ": invalid currency pair " + base + "/" + quote);
+        }
+        BigDecimal rate;
+        try {
+            rate = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNo + ": invalid rate '" + value + "'");
+        }
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Line " + lineNo + ": rate must be positive");
+        }
+        return FxRate.builder()
+                .baseCurrency(base.toUpperCase(Locale.ROOT))
+                .quoteCurrency(quote.toUpperCase(Locale.ROOT))
+                .rateDate(date)
+                .rate(rate)
+                .source(source)
+                .build();
+    }
+
+    private static LocalDate parseDate(String value, int lineNo) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Line " + lineNo + ": invalid date '" + value + "'");
+        }
+    }
+
+    private static String[] split(String line) {
+        String[] cells = line.split(",", -1);
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = cells[i].trim().replace("\"", "");
+        }
+        return cells;
+    }
+
+    private static boolean isCurrencyCode(String s) {
+        return s.length() == 3 && s.chars().allMatch(Character::isLetter);
+    }
+
+    /**
+     * Loads the stored rates into memory, then imports the files listed in
+     * {@code cuenti.fx.backfill-files} (comma-separated paths), if any.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional
+    public void loadIndex() {
+        index.clear();
+        fxRateRepository.findAll().forEach(this::addToIndex);
+        log.info("Loaded exchange rates for {} currency pairs", index.size());
+
+        if (backfillFiles == null || backfillFiles.isBlank()) return;
+        for (String file : backfillFiles.split(",")) {
+            if (file.isBlank()) continue;
+            try {
+                int rows = importFile(Path.of(file.trim()));
+                log.info("Imported {} exchange rates from {}", rows, file.trim());
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Could not import exchange rates from {}: {}", file.trim(), e.getMessage());
+            }
+        }
+    }
+}
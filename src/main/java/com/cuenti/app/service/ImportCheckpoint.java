@@ -0,0 +1,67 @@
+package com.cuenti.app.service;
+
+import java.util.Map;
+
+/**
+ * Progress hooks of an import running as an {@link ImportJobService} job.
+ *
+ * <p>A job runs without a surrounding transaction: the importer commits its
+ * reference data (accounts, categories, ...) in one transaction and the
+ * transactions chunk by chunk, reporting each commit here from inside the
+ * committing transaction, so the job's checkpoint always matches what is in the
+ * database. After a failure the job is run again with the same file: the
+ * importer reuses the committed reference data and skips the committed rows.
+ *
+ * <p>Synchronous imports use {@link #NONE} and run in the caller's transaction.
+ */
+public interface ImportCheckpoint {
+
+    ImportCheckpoint NONE = new ImportCheckpoint() {
+        @Override
+        public int committedRows() {
+            return 0;
+        }
+
+        @Override
+        public Map<String, Long> referenceIds() {
+            return null;
+        }
+
+        @Override
+        public void referencesCommitted(Map<String, Long> ids) {
+        }
+
+        @Override
+        public void chunkCommitted(int rows) {
+        }
+
+        @Override
+        public void checkCancelled() {
+        }
+    };
+
+    /** Rows committed by earlier runs of this import; the importer skips that many. */
+    int committedRows();
+
+    /**
+     * Ids of the reference data committed by an earlier run, by the importer's own
+     * keys; null when the reference data still has to be imported.
+     */
+    Map<String, Long> referenceIds();
+
+    /** Records the ids of the reference data; called inside the transaction saving it. */
+    void referencesCommitted(Map<String, Long> ids);
+
+    /**
+     * Records the total rows committed so far; called inside the chunk's
+     * transaction, or after it when the importer commits row by row.
+     */
+    void chunkCommitted(int rows);
+
+    /**
+     * Called between chunks.
+     *
+     * @throws java.util.concurrent.CancellationException when the job was cancelled
+     */
+    void checkCancelled();
+}
@@ -0,0 +1,429 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.ImportJob;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.repository.ImportJobRepository;
+import com.cuenti.app.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs file imports (JSON backups, HomeBank files, Trade Republic statements) in
+ * the background instead of on the request thread.
+ *
+ * <p>{@link #submit} spools the upload to {@code cuenti.import.spool-dir}, records
+ * an {@link ImportJob} and hands it to the {@code importExecutor} once that record
+ * is committed. A job calls its importer without a surrounding transaction: the
+ * reference data and every chunk of transactions commit separately, each together
+ * with the job's checkpoint (see {@link ImportCheckpoint}), so no connection is
+ * held between chunks. Progress is pushed to the listeners registered for the
+ * job's user after each commit, and a cancel request stops the job after its
+ * current chunk; rows committed until then are kept.
+ *
+ * <p>A failed job keeps its file and can be {@link #resume resumed}: it runs again
+ * from its last committed chunk. Jobs interrupted by a shutdown are resumed at
+ * startup.
+ */
+@Service
+@Slf4j
+public class ImportJobService {
+
+    /** State of a job as shown to its user. */
+    public record Progress(Long id, ImportJob.Type type, ImportJob.Status status, String fileName,
+                           int rows, long bytesRead, long fileSize, String error) {
+
+        static Progress of(ImportJob job) {
+            return new Progress(job.getId(), job.getType(), job.getStatus(), job.getFileName(),
+                    job.getCommittedRows(), job.getBytesRead(), job.getFileSize(), job.getError());
+        }
+
+        /** Share of the file imported, from 0 to 1. */
+        public double fraction() {
+            if (status == ImportJob.Status.COMPLETED) return 1;
+            return fileSize > 0 ? Math.min(1, (double) bytesRead / fileSize) : 0;
+        }
+    }
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ImportJobRepository repository;
+    private final JsonExportImportService jsonImportService;
+    private final XhbImportService xhbImportService;
+    private final TradeRepublicImportService tradeRepublicImportService;
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final Path spoolDir;
+
+    private final Map<Long, Set<Consumer<Progress>>> listeners = new ConcurrentHashMap<>();
+
+    public ImportJobService(ImportJobRepository repository,
+                            JsonExportImportService jsonImportService,
+                            XhbImportService xhbImportService,
+                            TradeRepublicImportService tradeRepublicImportService,
+                            AccountRepository accountRepository,
+                            UserRepository userRepository,
+                            UserService userService,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("importExecutor") Executor executor,
+                            @Value("${cuenti.import.spool-dir:${java.io.tmpdir}/cuenti-imports}") String spoolDir) {
+        this.repository = repository;
+        this.jsonImportService = jsonImportService;
+        this.xhbImportService = xhbImportService;
+        this.tradeRepublicImportService = tradeRepublicImportService;
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.spoolDir = Path.of(spoolDir);
+    }
+
+    /** Queues a JSON or HomeBank import of {@code in} for {@code user}. */
+    public Progress submit(User user, ImportJob.Type type, String fileName, InputStream in) throws IOException {
+        if (type == ImportJob.Type.TRADE_REPUBLIC) {
+            throw new IllegalArgumentException("Trade Republic imports need their target accounts");
+        }
+        return submit(user, type, fileName, in, null, null);
+    }
+
+    /** Queues a Trade Republic import into the user's cash and asset accounts. */
+    public Progress submitTradeRepublic(User user, String fileName, InputStream in,
+                                        Long cashAccountId, Long assetAccountId) throws IOException {
+        ownedAccount(user, cashAccountId);
+        ownedAccount(user, assetAccountId);
+        return submit(user, ImportJob.Type.TRADE_REPUBLIC, fileName, in, cashAccountId, assetAccountId);
+    }
+
+    private Progress submit(User user, ImportJob.Type type, String fileName, InputStream in,
+                            Long cashAccountId, Long assetAccountId) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path file = Files.createTempFile(spoolDir, "import-", ".upload");
+        long size;
+        try {
+            size = Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ImportJob job = repository.save(ImportJob.builder()
+                .userId(user.getId())
+                .type(type)
+                .fileName(fileName)
+                .spoolPath(file.toString())
+                .fileSize(size)
+                .cashAccountId(cashAccountId)
+                .assetAccountId(assetAccountId)
+                .build());
+        log.info("Queued {} import job {} for user {} ({} bytes)", type, job.getId(), user.getUsername(), size);
+        afterCommit(() -> start(job.getId()));
+        return Progress.of(job);
+    }
+
+    public Optional<Progress> find(User user, Long jobId) {
+        return repository.findByIdAndUserId(jobId, user.getId()).map(Progress::of);
+    }
+
+    /** The user's latest jobs, newest first. */
+    public List<Progress> recent(User user) {
+        return repository.findTop20ByUserIdOrderByCreatedAtDesc(user.getId()).stream().map(Progress::of).toList();
+    }
+
+    /**
+     * Cancels a queued or failed job at once and asks a running one to stop after
+     * its current chunk.
+     *
+     * @return false when the user has no such job or it already ended
+     */
+    public boolean cancel(User user, Long jobId) {
+        ImportJob job = repository.findByIdAndUserId(jobId, user.getId()).orElse(null);
+        if (job == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (transactionTemplate.execute(status -> repository.cancelPending(jobId, user.getId(), now)) > 0) {
+            job.setStatus(ImportJob.Status.CANCELLED);
+            job.setFinishedAt(now);
+            deleteSpool(job);
+            publish(job);
+            return true;
+        }
+        return transactionTemplate.execute(status ->
+                repository.requestCancel(jobId, user.getId(), ImportJob.Status.RUNNING)) > 0;
+    }
+
+    /**
+     * Queues a failed job again; it resumes after its last committed chunk.
+     *
+     * @return false when the user has no failed job with that id
+     */
+    public boolean resume(User user, Long jobId) {
+        if (transactionTemplate.execute(status -> repository.requeue(jobId, user.getId(),
+                ImportJob.Status.FAILED, ImportJob.Status.QUEUED)) == 0) {
+            return false;
+        }
+        afterCommit(() -> start(jobId));
+        return true;
+    }
+
+    /** Resumes the jobs a previous run of the application left queued or running. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        int interrupted = transactionTemplate.execute(status ->
+                repository.requeueInterrupted(ImportJob.Status.RUNNING, ImportJob.Status.QUEUED));
+        List<Long> queued = repository.findIdsByStatus(ImportJob.Status.QUEUED);
+        if (!queued.isEmpty()) {
+            log.info("Resuming {} import jobs ({} were running)", queued.size(), interrupted);
+            queued.forEach(this::start);
+        }
+    }
+
+    /**
+     * Calls {@code listener} whenever one of the user's jobs makes progress or
+     * ends. The listener runs on the job's thread; returns the action that removes it.
+     */
+    public Runnable addListener(User user, Consumer<Progress> listener) {
+        listeners.computeIfAbsent(user.getId(), k -> ConcurrentHashMap.newKeySet()).add(listener);
+        return () -> listeners.computeIfPresent(user.getId(), (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void start(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Import job {} rejected, too many imports in progress", jobId);
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> repository.finish(jobId,
+                    List.of(ImportJob.Status.QUEUED), ImportJob.Status.FAILED,
+                    "Too many imports in progress, resume the job later", now));
+            repository.findById(jobId).ifPresent(this::publish);
+        }
+    }
+
+    /**
+     * Runs a queued job on the calling thread, as the executor does. Does nothing
+     * when the job is not queued (another thread took it, or it was cancelled).
+     */
+    public void run(Long jobId) {
+        ImportJob job = repository.findById(jobId).orElse(null);
+        if (job == null || transactionTemplate.execute(status -> repository.claim(jobId, LocalDateTime.now())) == 0) {
+            return;
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        publish(job);
+
+        SecurityContext previous = SecurityContextHolder.getContext();
+        try {
+            User user = userRepository.findById(job.getUserId()).orElse(null);
+            if (user == null) {
+                // nobody left to resume it
+                end(job, ImportJob.Status.FAILED, "User " + job.getUserId() + " no longer exists");
+                deleteSpool(job);
+                return;
+            }
+            SecurityContextHolder.setContext(contextFor(user));
+            try (CountingInputStream in = new CountingInputStream(Files.newInputStream(Path.of(job.getSpoolPath())))) {
+                JobCheckpoint checkpoint = new JobCheckpoint(job, in);
+                switch (job.getType()) {
+                    case JSON -> jsonImportService.importUserData(user, in, checkpoint);
+                    case XHB -> xhbImportService.importXhb(in, user, checkpoint);
+                    case TRADE_REPUBLIC -> tradeRepublicImportService.importCsv(in,
+                            ownedAccount(user, job.getCashAccountId()), ownedAccount(user, job.getAssetAccountId()),
+                            checkpoint);
+                }
+            }
+            job.setBytesRead(job.getFileSize());
+            end(job, ImportJob.Status.COMPLETED, null);
+        } catch (CancellationException e) {
+            log.info("Import job {} cancelled after {} rows", jobId, job.getCommittedRows());
+            end(job, ImportJob.Status.CANCELLED, null);
+        } catch (Exception e) {
+            log.error("Import job {} failed after {} rows", jobId, job.getCommittedRows(), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            end(job, ImportJob.Status.FAILED, message.length() > MAX_ERROR_LENGTH
+                    ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private void end(ImportJob job, ImportJob.Status status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(s -> repository.finish(job.getId(), status, error, now));
+        job.setStatus(status);
+        job.setError(error);
+        job.setFinishedAt(now);
+        if (status.isFinished()) {
+            deleteSpool(job);
+        }
+        publish(job);
+    }
+
+    /** The importers' services read the acting user from the security context. */
+    private SecurityContext contextFor(User user) {
+        UserDetails details = userService.loadUserByUsername(user.getUsername());
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(details, null,
+                details.getAuthorities()));
+        return context;
+    }
+
+    private Account ownedAccount(User user, Long accountId) {
+        return accountRepository.findById(accountId == null ? -1L : accountId)
+                .filter(account -> account.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+    }
+
+    private void deleteSpool(ImportJob job) {
+        try {
+            Files.deleteIfExists(Path.of(job.getSpoolPath()));
+        } catch (IOException e) {
+            log.warn("Could not delete spooled import {}: {}", job.getSpoolPath(), e.getMessage());
+        }
+    }
+
+    /** Notifies the user's listeners once the current transaction, if any, has committed. */
+    private void publish(ImportJob job) {
+        Progress progress = Progress.of(job);
+        afterCommit(() -> {
+            Set<Consumer<Progress>> registered = listeners.get(job.getUserId());
+            if (registered == null) return;
+            for (Consumer<Progress> listener : registered) {
+                listener.accept(progress);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** Reports each commit of the running job to its row and its listeners. */
+    private final class JobCheckpoint implements ImportCheckpoint {
+
+        private final ImportJob job;
+        private final CountingInputStream in;
+        private final int resumeFrom;
+
+        JobCheckpoint(ImportJob job, CountingInputStream in) {
+            this.job = job;
+            this.in = in;
+            this.resumeFrom = job.getCommittedRows();
+        }
+
+        @Override
+        public int committedRows() {
+            return resumeFrom;
+        }
+
+        @Override
+        public Map<String, Long> referenceIds() {
+            return job.getReferenceIds() == null ? null
+                    : objectMapper.readValue(job.getReferenceIds(), new TypeReference<Map<String, Long>>() { });
+        }
+
+        @Override
+        public void referencesCommitted(Map<String, Long> ids) {
+            String json = objectMapper.writeValueAsString(ids);
+            transactionTemplate.executeWithoutResult(status -> repository.saveReferenceIds(job.getId(), json));
+            job.setReferenceIds(json);
+        }
+
+        @Override
+        public void chunkCommitted(int rows) {
+            long bytesRead = in.count;
+            transactionTemplate.executeWithoutResult(status -> repository.checkpoint(job.getId(), rows, bytesRead));
+            job.setCommittedRows(rows);
+            job.setBytesRead(bytesRead);
+            publish(job);
+        }
+
+        @Override
+        public void checkCancelled() {
+            if (repository.isCancelRequested(job.getId())) {
+                throw new CancellationException("Import job " + job.getId() + " cancelled");
+            }
+        }
+    }
+
+    /** Counts the bytes the importer has read from the spooled file. */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
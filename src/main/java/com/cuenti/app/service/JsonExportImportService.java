@@ -2,19 +2,26 @@ package com.cuenti.app.service;
 
 import com.cuenti.app.model.*;
 import com.cuenti.app.repository.*;
-import com.cuenti.app.security.SecurityUtils;
+import jakarta.persistence.EntityManager;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
 import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.SerializationFeature;
 import tools.jackson.databind.cfg.DateTimeFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,16 +29,20 @@ import java.util.stream.Collectors;
 public class JsonExportImportService {
 
     private final AccountService accountService;
-    private final TransactionService transactionService;
     private final CategoryService categoryService;
     private final PayeeService payeeService;
     private final TagService tagService;
     private final AssetService assetService;
     private final ScheduledTransactionService scheduledTransactionService;
-    private final UserService userService;
     private final CurrencyRepository currencyRepository;
     private final TransactionRepository transactionRepository;
-    private final SecurityUtils securityUtils;
+    private final EntityManager entityManager;
+    private final TransactionBatchService transactionBatchService;
+    private final PlatformTransactionManager transactionManager;
+
+    /** Transactions written per JDBC batch when importing. */
+    @Value("${cuenti.import.batch-size:1000}")
+    private int importBatchSize;
 
     private final ObjectMapper objectMapper = new ObjectMapper().rebuild()
             .enable(SerializationFeature.INDENT_OUTPUT)
@@ -39,7 +50,9 @@ public class JsonExportImportService {
             .build();
 
     /**
-     * Export all user data to JSON format
+     * Export all user data to JSON format. Everything except the transactions is
+     * small and built in memory; the transactions array is streamed row by row from
+     * a database cursor so memory use doesn't grow with the size of the history.
      */
     @Transactional(readOnly = true)
     public void exportUserData(User user, OutputStream outputStream) throws Exception {
@@ -52,11 +65,6 @@ public class JsonExportImportService {
                 .map(this::convertAccountToDTO)
                 .collect(Collectors.toList());
 
-        // Export transactions
-        export.transactions = transactionService.getTransactionsByUser(user).stream()
-                .map(this::convertTransactionToDTO)
-                .collect(Collectors.toList());
-
         // Export categories
         export.categories = categoryService.getAllCategories().stream()
                 .map(this::convertCategoryToDTO)
@@ -87,26 +95,231 @@ public class JsonExportImportService {
         export.username = user.getUsername();
         export.version = "1.0";
 
-        objectMapper.writeValue(outputStream, export);
-        log.info("Export completed successfully");
+        long count = 0;
+        try (JsonGenerator gen = objectMapper.createGenerator(outputStream)) {
+            gen.writeStartObject();
+            writeProperty(gen, "version", export.version);
+            writeProperty(gen, "username", export.username);
+            writeProperty(gen, "exportDate", export.exportDate);
+            // reference data ahead of the transactions, so imports can stream them
+            writeProperty(gen, "categories", export.categories);
+            writeProperty(gen, "payees", export.payees);
+            writeProperty(gen, "tags", export.tags);
+            writeProperty(gen, "assets", export.assets);
+            writeProperty(gen, "accounts", export.accounts);
+
+            // Export transactions
+            gen.writeName("transactions");
+            gen.writeStartArray();
+            try (Stream<Transaction> rows = transactionRepository.streamForExport(user, null, null, null)) {
+                for (Transaction t : (Iterable<Transaction>) rows::iterator) {
+                    gen.writePOJO(convertTransactionToDTO(t));
+                    entityManager.detach(t);
+                    count++;
+                }
+            }
+            gen.writeEndArray();
+
+            writeProperty(gen, "scheduledTransactions", export.scheduledTransactions);
+            gen.writeEndObject();
+        }
+        log.info("Export completed successfully ({} transactions)", count);
+    }
+
+    private static void writeProperty(JsonGenerator gen, String name, Object value) {
+        gen.writeName(name);
+        gen.writePOJO(value);
     }
 
     /**
-     * Import user data from JSON format
+     * Import user data from JSON format.
+     *
+     * <p>The file is read token by token. The reference sections (tags, categories,
+     * payees, assets, accounts) are small and saved first; when they precede the
+     * transactions, as in current exports, the transactions array is then streamed
+     * element by element into a {@link TransactionBatchService.Writer}, written in
+     * JDBC batches of {@code cuenti.import.batch-size}. Account balances and daily
+     * checkpoints are updated once at the end, with one audit entry for the whole
+     * import. Older exports list the transactions before the categories; when any
+     * reference section follows the transactions, they are buffered until the end
+     * of the file.
      */
     @Transactional
     public void importUserData(User user, InputStream inputStream) throws Exception {
+        importUserData(user, inputStream, ImportCheckpoint.NONE);
+    }
+
+    /**
+     * As {@link #importUserData(User, InputStream)}, for a background job: called
+     * without a transaction, it commits the reference data, each chunk of
+     * transactions and finally the scheduled transactions separately, reporting to
+     * {@code checkpoint}, and resumes where an earlier run of the job stopped.
+     */
+    public void importUserData(User user, InputStream inputStream, ImportCheckpoint checkpoint) throws Exception {
         log.info("Importing data for user: {}", user.getUsername());
 
-        UserDataExport data = objectMapper.readValue(inputStream, UserDataExport.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        UserDataExport data = new UserDataExport();
+        ImportMaps maps = null;
+        TransactionBatchService.Writer writer = transactionBatchService.openWriter(user, importBatchSize, checkpoint);
+        int[] sortOrder = {transactionRepository.maxSortOrder(user.getId()) + 1};
+
+        try (JsonParser p = objectMapper.createParser(inputStream)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "accounts" -> data.accounts = readList(p, AccountDTO.class);
+                    case "categories" -> data.categories = readList(p, CategoryDTO.class);
+                    case "payees" -> data.payees = readList(p, PayeeDTO.class);
+                    case "tags" -> data.tags = readList(p, String.class);
+                    case "assets" -> data.assets = readList(p, AssetDTO.class);
+                    case "scheduledTransactions" -> data.scheduledTransactions = readList(p, ScheduledTransactionDTO.class);
+                    case "transactions" -> {
+                        if (maps == null && referencesRead(data)) {
+                            maps = references(transactionTemplate, user, data, checkpoint);
+                        }
+                        if (maps != null) {
+                            streamTransactions(p, maps, writer, sortOrder);
+                        } else {
+                            data.transactions = readList(p, TransactionDTO.class);
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        }
+
+        if (maps == null) {
+            maps = references(transactionTemplate, user, data, checkpoint);
+        }
+        if (data.transactions != null) {
+            for (TransactionDTO dto : data.transactions) {
+                writer.add(toTransaction(dto, maps, sortOrder[0]++));
+            }
+        }
+        ImportMaps references = maps;
+        int imported = transactionTemplate.execute(status -> {
+            int rows = writer.finish("IMPORT_JSON");
+            importScheduled(user, data, references);
+            return rows;
+        });
+        log.info("Import completed successfully ({} transactions)", imported);
+    }
+
+    /**
+     * Whether every reference section preceded the transactions. Otherwise rows
+     * streamed now would miss the accounts (or categories, ...) still to come,
+     * so the transactions are buffered until the end of the file.
+     */
+    private static boolean referencesRead(UserDataExport data) {
+        return data.tags != null && data.categories != null && data.payees != null
+                && data.assets != null && data.accounts != null;
+    }
+
+    private void importScheduled(User user, UserDataExport data, ImportMaps maps) {
+        // Import scheduled transactions
+        if (data.scheduledTransactions != null) {
+            for (ScheduledTransactionDTO dto : data.scheduledTransactions) {
+                ScheduledTransaction st = ScheduledTransaction.builder()
+                        .user(user)
+                        .type(Transaction.TransactionType.valueOf(dto.type))
+                        .amount(dto.amount)
+                        .nextOccurrence(dto.nextOccurrence)
+                        .memo(dto.memo)
+                        .tags(dto.tags)
+                        .payee(dto.payee)
+                        .paymentMethod(dto.paymentMethod != null ? Transaction.PaymentMethod.valueOf(dto.paymentMethod) : Transaction.PaymentMethod.NONE)
+                        .recurrencePattern(ScheduledTransaction.RecurrencePattern.valueOf(dto.recurrencePattern))
+                        .recurrenceValue(dto.recurrenceValue)
+                        .enabled(dto.enabled)
+                        .build();
+
+                if (dto.fromAccountId != null && maps.accounts.containsKey(dto.fromAccountId)) {
+                    st.setFromAccount(maps.accounts.get(dto.fromAccountId));
+                }
+
+                if (dto.toAccountId != null && maps.accounts.containsKey(dto.toAccountId)) {
+                    st.setToAccount(maps.accounts.get(dto.toAccountId));
+                }
+
+                if (dto.categoryId != null && maps.categories.containsKey(dto.categoryId)) {
+                    st.setCategory(maps.categories.get(dto.categoryId));
+                }
+
+                scheduledTransactionService.save(st);
+            }
+        }
+    }
+
+    /** Imported entities by their id in the file. */
+    private static final class ImportMaps {
+        final Map<String, Category> categories = new HashMap<>();
+        final Map<String, Payee> payees = new HashMap<>();
+        final Map<String, Account> accounts = new HashMap<>();
+        final Map<String, Asset> assets = new HashMap<>();
+
+        /** Database ids of the entities the transactions refer to, keyed "kind:file id". */
+        Map<String, Long> ids() {
+            Map<String, Long> ids = new HashMap<>();
+            categories.forEach((key, c) -> ids.put("category:" + key, c.getId()));
+            accounts.forEach((key, a) -> ids.put("account:" + key, a.getId()));
+            assets.forEach((key, a) -> ids.put("asset:" + key, a.getId()));
+            return ids;
+        }
+    }
 
-        // Maps to track imported entities by their old IDs
-        Map<String, Category> categoryMap = new HashMap<>();
-        Map<String, Payee> payeeMap = new HashMap<>();
-        Map<String, Account> accountMap = new HashMap<>();
-        Map<String, Asset> assetMap = new HashMap<>();
+    /**
+     * Imports the reference data in its own transaction, or, when an earlier run of
+     * the job already did, loads the entities it created.
+     */
+    private ImportMaps references(TransactionTemplate transactionTemplate, User user, UserDataExport data,
+                                  ImportCheckpoint checkpoint) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Long> ids = checkpoint.referenceIds();
+            if (ids == null) {
+                ImportMaps maps = importReferences(user, data);
+                checkpoint.referencesCommitted(maps.ids());
+                return maps;
+            }
+            ImportMaps maps = new ImportMaps();
+            ids.forEach((key, id) -> {
+                String fileId = key.substring(key.indexOf(':') + 1);
+                if (key.startsWith("category:")) {
+                    maps.categories.put(fileId, entityManager.find(Category.class, id));
+                } else if (key.startsWith("account:")) {
+                    maps.accounts.put(fileId, entityManager.find(Account.class, id));
+                } else if (key.startsWith("asset:")) {
+                    maps.assets.put(fileId, entityManager.find(Asset.class, id));
+                }
+            });
+            return maps;
+        });
+    }
+
+    private <T> List<T> readList(JsonParser p, Class<T> type) {
+        return objectMapper.readValue(p, objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+    }
 
-        int importedTransactionsSortOrder = getMaxSortOrder() + 1;
+    /** Reads the transactions array one element at a time, handing each row to the writer. */
+    private void streamTransactions(JsonParser p, ImportMaps maps, TransactionBatchService.Writer writer,
+                                    int[] sortOrder) {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            TransactionDTO dto = objectMapper.readValue(p, TransactionDTO.class);
+            writer.add(toTransaction(dto, maps, sortOrder[0]++));
+        }
+    }
+
+    /** Saves tags, categories, payees, assets and accounts, in that order. */
+    private ImportMaps importReferences(User user, UserDataExport data) {
+        ImportMaps maps = new ImportMaps();
 
         // 1. Import tags
         if (data.tags != null) {
@@ -131,17 +344,17 @@ public class JsonExportImportService {
                     CategoryDTO dto = entry.getValue();
 
                     // If parent is null/empty or parent already created, we can create this category
-                    if (dto.parentId == null || dto.parentId.isEmpty() || categoryMap.containsKey(dto.parentId)) {
+                    if (dto.parentId == null || dto.parentId.isEmpty() || maps.categories.containsKey(dto.parentId)) {
                         Category cat = Category.builder()
                                 .name(dto.name)
                                 .type(Category.CategoryType.valueOf(dto.type))
                                 .build();
 
                         if (dto.parentId != null && !dto.parentId.isEmpty()) {
-                            cat.setParent(categoryMap.get(dto.parentId));
+                            cat.setParent(maps.categories.get(dto.parentId));
                         }
 
-                        categoryMap.put(dto.id, saveCategoryWithDisambiguation(cat));
+                        maps.categories.put(dto.id, saveCategoryWithDisambiguation(cat));
                         it.remove();
                         progress = true;
                     }
@@ -155,7 +368,7 @@ public class JsonExportImportService {
                             .name(dto.name)
                             .type(Category.CategoryType.valueOf(dto.type))
                             .build();
-                    categoryMap.put(dto.id, saveCategoryWithDisambiguation(cat));
+                    maps.categories.put(dto.id, saveCategoryWithDisambiguation(cat));
                 }
             }
         }
@@ -167,11 +380,11 @@ public class JsonExportImportService {
                         .name(dto.name)
                         .build();
 
-                if (dto.defaultCategoryId != null && categoryMap.containsKey(dto.defaultCategoryId)) {
-                    payee.setDefaultCategory(categoryMap.get(dto.defaultCategoryId));
+                if (dto.defaultCategoryId != null && maps.categories.containsKey(dto.defaultCategoryId)) {
+                    payee.setDefaultCategory(maps.categories.get(dto.defaultCategoryId));
                 }
 
-                payeeMap.put(dto.id, payeeService.savePayee(payee));
+                maps.payees.put(dto.id, payeeService.savePayee(payee));
             }
         }
 
@@ -196,7 +409,7 @@ public class JsonExportImportService {
                     asset = assetService.saveAsset(asset);
                 }
 
-                assetMap.put(dto.id, asset);
+                maps.assets.put(dto.id, asset);
             }
         }
 
@@ -218,94 +431,45 @@ public class JsonExportImportService {
                         .excludeFromReports(dto.excludeFromReports)
                         .build();
 
-                accountMap.put(dto.id, accountService.saveAccount(account));
+                maps.accounts.put(dto.id, accountService.saveAccountForUser(account, user));
             }
         }
+        return maps;
+    }
 
-        // 6. Import transactions
-        if (data.transactions != null) {
-            for (TransactionDTO dto : data.transactions) {
-                Transaction transaction = new Transaction();
-                transaction.setType(Transaction.TransactionType.valueOf(dto.type));
-                transaction.setAmount(dto.amount);
-                transaction.setTransactionDate(dto.transactionDate);
-                transaction.setMemo(dto.memo);
-                transaction.setTags(dto.tags);
-                transaction.setPayee(dto.payee);
-                transaction.setNumber(dto.number);
-                transaction.setStatus(Transaction.TransactionStatus.valueOf(dto.status));
-                transaction.setSortOrder(importedTransactionsSortOrder++);
-
-                if (dto.fromAccountId != null && accountMap.containsKey(dto.fromAccountId)) {
-                    transaction.setFromAccount(accountMap.get(dto.fromAccountId));
-                }
-
-                if (dto.toAccountId != null && accountMap.containsKey(dto.toAccountId)) {
-                    transaction.setToAccount(accountMap.get(dto.toAccountId));
-                }
-
-                if (dto.categoryId != null && categoryMap.containsKey(dto.categoryId)) {
-                    transaction.setCategory(categoryMap.get(dto.categoryId));
-                }
-
-                if (dto.assetId != null && assetMap.containsKey(dto.assetId)) {
-                    transaction.setAsset(assetMap.get(dto.assetId));
-                    transaction.setUnits(dto.units);
-                }
-
-                if (dto.paymentMethod != null) {
-                    transaction.setPaymentMethod(Transaction.PaymentMethod.valueOf(dto.paymentMethod));
-                }
-
-                transactionService.saveTransaction(transaction);
-            }
+    private static Transaction toTransaction(TransactionDTO dto, ImportMaps maps, int sortOrder) {
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TransactionType.valueOf(dto.type));
+        transaction.setAmount(dto.amount);
+        transaction.setTransactionDate(dto.transactionDate);
+        transaction.setMemo(dto.memo);
+        transaction.setTags(dto.tags);
+        transaction.setPayee(dto.payee);
+        transaction.setNumber(dto.number);
+        transaction.setStatus(Transaction.TransactionStatus.valueOf(dto.status));
+        transaction.setSortOrder(sortOrder);
+
+        if (dto.fromAccountId != null && maps.accounts.containsKey(dto.fromAccountId)) {
+            transaction.setFromAccount(maps.accounts.get(dto.fromAccountId));
         }
 
-        // 8. Import scheduled transactions
-        if (data.scheduledTransactions != null) {
-            for (ScheduledTransactionDTO dto : data.scheduledTransactions) {
-                ScheduledTransaction st = ScheduledTransaction.builder()
-                        .user(user)
-                        .type(Transaction.TransactionType.valueOf(dto.type))
-                        .amount(dto.amount)
-                        .nextOccurrence(dto.nextOccurrence)
-                        .memo(dto.memo)
-                        .tags(dto.tags)
-                        .payee(dto.payee)
-                        .paymentMethod(dto.paymentMethod != null ? Transaction.PaymentMethod.valueOf(dto.paymentMethod) : Transaction.PaymentMethod.NONE)
-                        .recurrencePattern(ScheduledTransaction.RecurrencePattern.valueOf(dto.recurrencePattern))
-                        .recurrenceValue(dto.recurrenceValue)
-                        .enabled(dto.enabled)
-                        .build();
-
-                if (dto.fromAccountId != null && accountMap.containsKey(dto.fromAccountId)) {
-                    st.setFromAccount(accountMap.get(dto.fromAccountId));
-                }
-
-                if (dto.toAccountId != null && accountMap.containsKey(dto.toAccountId)) {
-                    st.setToAccount(accountMap.get(dto.toAccountId));
-                }
-
-                if (dto.categoryId != null && categoryMap.containsKey(dto.categoryId)) {
-                    st.setCategory(categoryMap.get(dto.categoryId));
-                }
+        if (dto.toAccountId != null && maps.accounts.containsKey(dto.toAccountId)) {
+            transaction.setToAccount(maps.accounts.get(dto.toAccountId));
+        }
 
-                scheduledTransactionService.save(st);
-            }
+        if (dto.categoryId != null && maps.categories.containsKey(dto.categoryId)) {
+            transaction.setCategory(maps.categories.get(dto.categoryId));
         }
 
-        log.info("Import completed successfully");
-    }
+        if (dto.assetId != null && maps.assets.containsKey(dto.assetId)) {
+            transaction.setAsset(maps.assets.get(dto.assetId));
+            transaction.setUnits(dto.units);
+        }
 
-    private int getMaxSortOrder() {
-        String username = securityUtils.getAuthenticatedUsername()
-                .orElseThrow(() -> new SecurityException("User not authenticated"));
-        User currentUser = userService.findByUsername(username);
-        List<Transaction> userTransactions = transactionRepository.findByUser(currentUser);
-        return userTransactions.stream()
-                .mapToInt(Transaction::getSortOrder)
-                .max()
-                .orElse(0);
+        if (dto.paymentMethod != null) {
+            transaction.setPaymentMethod(Transaction.PaymentMethod.valueOf(dto.paymentMethod));
+        }
+        return transaction;
     }
 
     private void ensureTagExists(String tagName) {
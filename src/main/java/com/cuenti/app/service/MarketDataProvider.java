@@ -0,0 +1,55 @@
+package com.cuenti.app.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Source of security quotes and exchange rates. AssetService and
+ * ExchangeRateService only talk to this interface; which implementation is
+ * active is chosen by {@code cuenti.market-data.provider}:
+ * <ul>
+ *   <li>{@code yahoo} (default): {@link YahooMarketDataProvider}, live over HTTP.</li>
+ *   <li>{@code file}: {@link FileMarketDataProvider}, CSV files in a local
+ *       directory, for air-gapped installs, tests and benchmarks.</li>
+ * </ul>
+ */
+public interface MarketDataProvider {
+
+    /** Last price of a security, in its trading currency. */
+    record Quote(String symbol, BigDecimal price, String currency) {
+    }
+
+    /** Thrown when the provider rejects requests for now (HTTP 429). Callers should back off. */
+    class RateLimitedException extends RuntimeException {
+        public RateLimitedException(String message) {
+            super(message);
+        }
+    }
+
+    /** Latest quote for {@code symbol}, empty when the provider does not know it. */
+    Optional<Quote> quote(String symbol);
+
+    /**
+     * Latest quotes for several symbols, keyed by symbol; unknown symbols are
+     * left out. Providers that can answer many symbols in one upstream request
+     * override this; the default asks for one symbol at a time.
+     */
+    default Map<String, Quote> quotes(Collection<String> symbols) {
+        Map<String, Quote> result = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            quote(symbol).ifPresent(q -> result.put(symbol, q));
+        }
+        return result;
+    }
+
+    /** How many symbols one {@link #quotes} call should carry; 1 when the provider has no batch request. */
+    default int maxBatchSize() {
+        return 1;
+    }
+
+    /** How many {@code to} one {@code from} costs, empty when the pair is unknown. */
+    Optional<BigDecimal> fxRate(String from, String to);
+}
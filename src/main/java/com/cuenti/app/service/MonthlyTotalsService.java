@@ -0,0 +1,219 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Category;
+import com.cuenti.app.model.MonthlyCategoryTotal;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.TransactionSplit;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.CategoryRepository;
+import com.cuenti.app.repository.MonthlyCategoryTotalRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@link MonthlyCategoryTotal} aggregate and answers statistics
+ * queries from it.
+ *
+ * <p>Incoming amounts are booked against the target account, expenses against the
+ * source account; split transactions contribute one amount per split category.
+ * Transfers are balance-neutral for statistics and are not aggregated.
+ * {@link #applyDeltas} runs inside the caller's write transaction, so the aggregate
+ * commits or rolls back together with the transaction change. Rows are changed
+ * with an atomic {@code total = total + delta} update, never read and written back.
+ */
+@Service
+@RequiredArgsConstructor
+public class MonthlyTotalsService {
+
+    private final MonthlyCategoryTotalRepository totalRepository;
+    private final TransactionRepository transactionRepository;
+    private final CategoryRepository categoryRepository;
+
+    /** Category id of the uncategorized rows; a real value keeps the unique key null-free. */
+    public static final long UNCATEGORIZED = 0L;
+
+    /** One income or expense amount for a month, in the currency of its account. */
+    public record Bucket(Long accountId, Category category, YearMonth month,
+                         Transaction.TransactionType type, BigDecimal total) {
+    }
+
+    /** One aggregate row: account, category ({@link #UNCATEGORIZED} if none), month and type. */
+    public record Key(Long accountId, Long categoryId, int period, Transaction.TransactionType type) {
+    }
+
+    /** Adds a transaction's contribution ({@code sign = 1}) or its reversal ({@code sign = -1}) to {@code totals}. */
+    public static void addContributions(Map<Key, BigDecimal> totals, Transaction t, int sign) {
+        for (Bucket b : contributions(t)) {
+            Long categoryId = b.category() != null ? b.category().getId() : UNCATEGORIZED;
+            totals.merge(new Key(b.accountId(), categoryId, toPeriod(b.month()), b.type()),
+                    sign < 0 ? b.total().negate() : b.total(), BigDecimal::add);
+        }
+    }
+
+    /**
+     * Books net changes of {@code userId}'s aggregate rows. Like
+     * {@link DailyBalanceService#applyDeltas}, writers call this after the account
+     * balances were updated in the same transaction: the rows are keyed by account,
+     * so the account row locks make the update-or-insert below safe.
+     */
+    @Transactional
+    public void applyDeltas(Long userId, Map<Key, BigDecimal> totals) {
+        totals.forEach((key, delta) -> {
+            if (delta.signum() == 0) return;
+            if (totalRepository.addToTotal(userId, key.accountId(), key.categoryId(), key.period(), key.type(),
+                    delta) == 0) {
+                totalRepository.save(MonthlyCategoryTotal.builder()
+                        .userId(userId)
+                        .accountId(key.accountId())
+                        .categoryId(key.categoryId())
+                        .period(key.period())
+                        .type(key.type())
+                        .total(delta)
+                        .build());
+            }
+        });
+    }
+
+    /** Drops and regenerates all aggregate rows of one user from the transactions table. */
+    @Transactional
+    public int rebuild(User user) {
+        totalRepository.deleteByUserId(user.getId());
+
+        Map<Key, BigDecimal> totals = new HashMap<>();
+        Transaction.TransactionType expense = Transaction.TransactionType.EXPENSE;
+        Transaction.TransactionType income = Transaction.TransactionType.INCOME;
+        merge(totals, expense, transactionRepository.monthlyTotalsByFromAccount(user, expense));
+        merge(totals, expense, transactionRepository.monthlySplitTotalsByFromAccount(user, expense));
+        merge(totals, income, transactionRepository.monthlyTotalsByToAccount(user, income));
+        merge(totals, income, transactionRepository.monthlySplitTotalsByToAccount(user, income));
+
+        List<MonthlyCategoryTotal> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> rows.add(MonthlyCategoryTotal.builder()
+                .userId(user.getId())
+                .accountId(key.accountId())
+                .categoryId(key.categoryId())
+                .period(key.period())
+                .type(key.type())
+                .total(total)
+                .build()));
+        totalRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * A deleted category's totals become {@link #UNCATEGORIZED}, summed into the rows
+     * already there, as its transactions did; no other row is touched.
+     */
+    @Transactional
+    public void moveToUncategorized(Long userId, Long categoryId) {
+        totalRepository.addToUncategorized(userId, categoryId);
+        totalRepository.insertAsUncategorized(userId, categoryId);
+        totalRepository.deleteByUserIdAndCategoryId(userId, categoryId);
+    }
+
+    @Transactional
+    public void deleteForAccount(Long accountId) {
+        totalRepository.deleteByAccountId(accountId);
+    }
+
+    @Transactional
+    public void deleteForUser(Long userId) {
+        totalRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Income and expense buckets for {@code [from, to]}. Whole months inside the range
+     * come from the aggregate; the partial months at either edge are summed from the
+     * few raw transactions they contain.
+     */
+    @Transactional(readOnly = true)
+    public List<Bucket> getBuckets(User user, LocalDateTime from, LocalDateTime to) {
+        List<Bucket> result = new ArrayList<>();
+        if (to.isBefore(from)) return result;
+
+        YearMonth firstFull = from.equals(YearMonth.from(from).atDay(1).atStartOfDay())
+                ? YearMonth.from(from) : YearMonth.from(from).plusMonths(1);
+        YearMonth lastFull = !to.isBefore(YearMonth.from(to).atEndOfMonth().atTime(23, 59, 59))
+                ? YearMonth.from(to) : YearMonth.from(to).minusMonths(1);
+
+        if (firstFull.isAfter(lastFull)) {
+            addRaw(result, transactionRepository.findFiltered(user, null, null, from, to));
+            return result;
+        }
+
+        LocalDateTime fullStart = firstFull.atDay(1).atStartOfDay();
+        LocalDateTime fullEnd = lastFull.plusMonths(1).atDay(1).atStartOfDay();
+        if (from.isBefore(fullStart)) {
+            addRaw(result, transactionRepository.findInPeriod(user, from, fullStart));
+        }
+        if (!to.isBefore(fullEnd)) {
+            addRaw(result, transactionRepository.findFiltered(user, null, null, fullEnd, to));
+        }
+
+        Map<Long, Category> categories = categoryRepository.findByUser(user).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        for (MonthlyCategoryTotal row : totalRepository.findByUserIdAndPeriodBetween(
+                user.getId(), toPeriod(firstFull), toPeriod(lastFull))) {
+            Category category = row.getCategoryId() != UNCATEGORIZED ? categories.get(row.getCategoryId()) : null;
+            result.add(new Bucket(row.getAccountId(), category,
+                    YearMonth.of(row.getPeriod() / 100, row.getPeriod() % 100),
+                    row.getType(), row.getTotal()));
+        }
+        return result;
+    }
+
+    private void addRaw(List<Bucket> result, List<Transaction> transactions) {
+        for (Transaction t : transactions) {
+            result.addAll(contributions(t));
+        }
+    }
+
+    /** The per-category amounts a transaction adds to the aggregate (empty for transfers). */
+    static List<Bucket> contributions(Transaction t) {
+        List<Bucket> result = new ArrayList<>();
+        Account account = bookingAccount(t);
+        if (account == null || account.getId() == null || t.getAmount() == null) return result;
+
+        YearMonth month = YearMonth.from(t.getTransactionDate());
+        if (t.getSplits() != null && !t.getSplits().isEmpty()) {
+            for (TransactionSplit split : t.getSplits()) {
+                result.add(new Bucket(account.getId(), split.getCategory(), month, t.getType(), split.getAmount()));
+            }
+        } else {
+            result.add(new Bucket(account.getId(), t.getCategory(), month, t.getType(), t.getAmount()));
+        }
+        return result;
+    }
+
+    private static Account bookingAccount(Transaction t) {
+        if (t.getType() == Transaction.TransactionType.INCOME) return t.getToAccount();
+        if (t.getType() == Transaction.TransactionType.EXPENSE) return t.getFromAccount();
+        return null;
+    }
+
+    private static void merge(Map<Key, BigDecimal> totals, Transaction.TransactionType type, List<Object[]> sums) {
+        for (Object[] r : sums) {
+            Long accountId = ((Number) r[0]).longValue();
+            Long categoryId = r[1] != null ? ((Number) r[1]).longValue() : UNCATEGORIZED;
+            int period = ((Number) r[2]).intValue() * 100 + ((Number) r[3]).intValue();
+            totals.merge(new Key(accountId, categoryId, period, type), (BigDecimal) r[4], BigDecimal::add);
+        }
+    }
+
+    static int toPeriod(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -0,0 +1,328 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.NetWorthSnapshot;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountDailyBalanceRepository;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.repository.NetWorthSnapshotRepository;
+import com.cuenti.app.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the per-user daily {@link NetWorthSnapshot} series and serves it,
+ * downsampled, to the dashboard charts.
+ *
+ * <p>Writers never compute snapshots themselves: {@link DailyBalanceService}
+ * marks the user dirty from the earliest day a change touched, once that change
+ * committed, and {@link #processDirty} recomputes only the days from there up to
+ * today on the scheduler thread. The mark is also stored with the change
+ * ({@link com.cuenti.app.model.NetWorthDirtyMark}) and reloaded at startup, so a
+ * restart before the job ran does not leave older snapshots stale. Cash comes from the account_daily_balance
+ * checkpoints and the portfolio from {@link PortfolioHistoryService}, so neither
+ * the job nor the endpoint reads the transactions table. An hourly run extends
+ * every series to today and picks up new prices; snapshots computed in a
+ * previous default currency are rebuilt as a whole.
+ */
+@Service
+@Slf4j
+public class NetWorthService {
+
+    /** Days replayed per portfolio series request during a rebuild. */
+    static final int CHUNK_DAYS = 366;
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_SNAPSHOT = "INSERT INTO net_worth_snapshots "
+            + "(user_id, snapshot_date, currency, cash, portfolio, total) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DIRTY = "INSERT INTO net_worth_dirty (user_id, from_day) VALUES (?, ?)";
+    /** Stored in place of {@link LocalDate#MIN}, which no date column holds; any day before the history works. */
+    private static final LocalDate FIRST_STORED_DAY = LocalDate.of(1, 1, 1);
+
+    public enum Resolution {
+        DAY, WEEK, MONTH;
+
+        public static Resolution parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown resolution '" + value + "': expected day, week or month");
+            }
+        }
+    }
+
+    /** Net worth at the end of {@code date}; for weeks and months the last day of the period. */
+    public record Point(LocalDate date, BigDecimal cash, BigDecimal portfolio, BigDecimal total) {
+    }
+
+    public record NetWorthHistory(String currency, Resolution resolution, List<Point> points) {
+    }
+
+    private final NetWorthSnapshotRepository snapshotRepository;
+    private final AccountDailyBalanceRepository dailyBalanceRepository;
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+    private final PortfolioHistoryService portfolioHistoryService;
+    private final FxRateService fxRateService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Earliest day to recompute per user id; {@link LocalDate#MIN} means the whole history. */
+    private final Map<Long, LocalDate> dirty = new ConcurrentHashMap<>();
+
+    public NetWorthService(NetWorthSnapshotRepository snapshotRepository,
+                           AccountDailyBalanceRepository dailyBalanceRepository,
+                           AccountRepository accountRepository,
+                           UserRepository userRepository,
+                           PortfolioHistoryService portfolioHistoryService,
+                           FxRateService fxRateService,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.accountRepository = accountRepository;
+        this.userRepository = userRepository;
+        this.portfolioHistoryService = portfolioHistoryService;
+        this.fxRateService = fxRateService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Schedules the snapshots of a user from {@code from} on for recomputation.
+     * Inside a transaction the mark is also stored with the change, and set in
+     * memory only once it committed, so the job never recomputes from data it
+     * cannot see yet.
+     */
+    public void markDirty(Long userId, LocalDate from) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                jdbcTemplate.update(INSERT_DIRTY, userId, stored(from));
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirty.merge(userId, from, NetWorthService::earlier);
+                }
+            });
+        } else {
+            dirty.merge(userId, from, NetWorthService::earlier);
+        }
+    }
+
+    /** Recomputes the snapshots of every user marked dirty. */
+    @Scheduled(fixedDelayString = "${cuenti.net-worth.refresh-delay:PT1M}",
+            initialDelayString = "${cuenti.net-worth.refresh-delay:PT1M}")
+    public void processDirty() {
+        for (Long userId : List.copyOf(dirty.keySet())) {
+            LocalDate from = dirty.remove(userId);
+            if (from == null) continue;
+            // stored marks covered by this run; later ones stay for the next run
+            Long lastMark = jdbcTemplate.queryForObject(
+                    "SELECT MAX(id) FROM net_worth_dirty WHERE user_id = ?", Long.class, userId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.findById(userId).ifPresent(user -> refresh(user, from));
+                    if (lastMark != null) {
+                        jdbcTemplate.update("DELETE FROM net_worth_dirty WHERE user_id = ? AND id <= ? AND from_day >= ?",
+                                userId, lastMark, stored(from));
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Could not update net worth history of user {}: {}", userId, e.getMessage());
+                dirty.merge(userId, from, NetWorthService::earlier);
+            }
+        }
+    }
+
+    /** Extends every user's series to today and revalues its last day with the latest prices and rates. */
+    @Scheduled(cron = "${cuenti.net-worth.snapshot-cron:0 5 * * * *}")
+    public void extendAll() {
+        markAllFromLastSnapshot();
+        processDirty();
+    }
+
+    /**
+     * Catches up on the days (or, on a fresh table, the whole history) missed while
+     * the app was down, and on the stored marks of changes not recomputed before it
+     * stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markAllFromLastSnapshot() {
+        jdbcTemplate.query("SELECT user_id, MIN(from_day) FROM net_worth_dirty GROUP BY user_id", rs -> {
+            dirty.merge(rs.getLong(1), rs.getObject(2, LocalDate.class), NetWorthService::earlier);
+        });
+        for (User user : userRepository.findAll()) {
+            LocalDate last = snapshotRepository.findLastDay(user.getId());
+            dirty.merge(user.getId(), last != null ? last : LocalDate.MIN, NetWorthService::earlier);
+        }
+    }
+
+    /**
+     * Replaces the user's snapshots from {@code from} up to today and returns the
+     * number of days written. A {@code from} before the user's first balance
+     * change, or snapshots in another currency, rebuild the whole series.
+     */
+    @Transactional
+    public int refresh(User user, LocalDate from) {
+        Long userId = user.getId();
+        String currency = user.getDefaultCurrency();
+        LocalDate today = LocalDate.now();
+        LocalDate first = dailyBalanceRepository.findFirstDay(userId);
+        if (first == null || first.isAfter(today)) first = today;
+
+        if (from.isBefore(first) || snapshotRepository.countInOtherCurrency(userId, currency) > 0) {
+            snapshotRepository.deleteByUserId(userId);
+            from = first;
+        } else if (from.isAfter(today)) {
+            return 0; // future-dated change; its day is reached by the hourly run
+        } else {
+            snapshotRepository.deleteFrom(userId, from);
+        }
+
+        List<Account> accounts = accountRepository.findByUser(user).stream()
+                .filter(a -> !a.isExcludeFromSummary())
+                .toList();
+        Map<Long, Account> byId = new HashMap<>();
+        // balances summed per currency, so each day converts once per currency instead of once per account
+        Map<String, BigDecimal> cash = new HashMap<>();
+        Map<String, BigDecimal> assetAccounts = new HashMap<>();
+        for (Account a : accounts) {
+            byId.put(a.getId(), a);
+            BigDecimal start = a.getStartBalance() != null ? a.getStartBalance() : BigDecimal.ZERO;
+            BigDecimal balance = start.add(dailyBalanceRepository.sumForAccountBefore(a.getId(), from));
+            bucketOf(a, cash, assetAccounts).merge(a.getCurrency(), balance, BigDecimal::add);
+        }
+
+        int written = 0;
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(today); chunkStart = chunkStart.plusDays(CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunkStart.plusDays(CHUNK_DAYS - 1);
+            if (chunkEnd.isAfter(today)) chunkEnd = today;
+
+            PortfolioHistoryService.PortfolioSeries portfolio =
+                    portfolioHistoryService.getSeries(user, chunkStart, chunkEnd);
+            boolean holdsAssets = !portfolio.assets().isEmpty();
+            List<Object[]> changes = dailyBalanceRepository.findChangesBetween(userId, chunkStart, chunkEnd);
+
+            List<NetWorthSnapshot> snapshots = new ArrayList<>(portfolio.dates().size());
+            int ci = 0;
+            for (int i = 0; i < portfolio.dates().size(); i++) {
+                LocalDate day = portfolio.dates().get(i);
+                while (ci < changes.size() && !((LocalDate) changes.get(ci)[1]).isAfter(day)) {
+                    Object[] c = changes.get(ci++);
+                    Account a = byId.get((Long) c[0]);
+                    if (a == null) continue; // excluded from the summary
+                    bucketOf(a, cash, assetAccounts).merge(a.getCurrency(), (BigDecimal) c[2], BigDecimal::add);
+                }
+                BigDecimal cashValue = convert(cash, currency, day);
+                // no holdings with units: value asset accounts by their balance, as the dashboard does
+                BigDecimal portfolioValue = holdsAssets
+                        ? portfolio.total().get(i)
+                        : convert(assetAccounts, currency, day);
+                snapshots.add(NetWorthSnapshot.builder()
+                        .userId(userId)
+                        .snapshotDate(day)
+                        .currency(currency)
+                        .cash(cashValue)
+                        .portfolio(portfolioValue)
+                        .total(cashValue.add(portfolioValue))
+                        .build());
+            }
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, snapshots, JDBC_BATCH_SIZE, (ps, s) -> {
+                ps.setLong(1, s.getUserId());
+                ps.setObject(2, s.getSnapshotDate());
+                ps.setString(3, s.getCurrency());
+                ps.setBigDecimal(4, s.getCash());
+                ps.setBigDecimal(5, s.getPortfolio());
+                ps.setBigDecimal(6, s.getTotal());
+            });
+            written += snapshots.size();
+        }
+        log.debug("Wrote {} net worth snapshots for user {} from {}", written, user.getUsername(), from);
+        return written;
+    }
+
+    /** The stored series within [start, end], reduced to one point per week or month when asked to. */
+    @Transactional(readOnly = true)
+    public NetWorthHistory getHistory(User user, LocalDate start, LocalDate end, Resolution resolution) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        List<Point> points = new ArrayList<>();
+        for (NetWorthSnapshot s : snapshotRepository.findRange(user.getId(), start, end)) {
+            points.add(new Point(s.getSnapshotDate(), s.getCash(), s.getPortfolio(), s.getTotal()));
+        }
+        return new NetWorthHistory(user.getDefaultCurrency(), resolution, downsample(points, resolution));
+    }
+
+    /** Keeps the last point of every week (ending Sunday) or month; net worth is a level, not a flow. */
+    static List<Point> downsample(List<Point> daily, Resolution resolution) {
+        if (resolution == Resolution.DAY) {
+            return daily;
+        }
+        List<Point> result = new ArrayList<>();
+        for (int i = 0; i < daily.size(); i++) {
+            if (i == daily.size() - 1
+                    || !periodEnd(daily.get(i).date(), resolution).equals(periodEnd(daily.get(i + 1).date(), resolution))) {
+                result.add(daily.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static LocalDate periodEnd(LocalDate day, Resolution resolution) {
+        return resolution == Resolution.WEEK
+                ? day.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY))
+                : day.with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    @Transactional
+    public void deleteForUser(Long userId) {
+        snapshotRepository.deleteByUserId(userId);
+        jdbcTemplate.update("DELETE FROM net_worth_dirty WHERE user_id = ?", userId);
+        dirty.remove(userId);
+    }
+
+    private static Map<String, BigDecimal> bucketOf(Account a, Map<String, BigDecimal> cash,
+                                                    Map<String, BigDecimal> assetAccounts) {
+        return a.getAccountType() == Account.AccountType.ASSET ? assetAccounts : cash;
+    }
+
+    private BigDecimal convert(Map<String, BigDecimal> byCurrency, String target, LocalDate day) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> e : byCurrency.entrySet()) {
+            if (e.getValue().signum() == 0) continue;
+            String from = e.getKey() != null ? e.getKey() : target;
+            sum = sum.add(fxRateService.convert(e.getValue(), from, target, day));
+        }
+        return sum.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static LocalDate stored(LocalDate day) {
+        return day.isBefore(FIRST_STORED_DAY) ? FIRST_STORED_DAY : day;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,158 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Asset;
+import com.cuenti.app.model.AssetPrice;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AssetPriceRepository;
+import com.cuenti.app.repository.AssetRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily portfolio value per asset and in total, in the user's default currency.
+ *
+ * <p>Built in one sweep: the unit movements of the user's asset accounts and the
+ * price history of their symbols are each loaded once, sorted by date, and
+ * replayed day by day while the units held and the last known price of every
+ * asset are carried forward. A day before a symbol's first stored price uses that
+ * first price; a symbol without any history uses the asset's current price.
+ */
+@Service
+@RequiredArgsConstructor
+public class PortfolioHistoryService {
+
+    /** Longest range served in one call. */
+    static final long MAX_DAYS = 20 * 366;
+
+    /** Daily values of one asset, aligned with {@link PortfolioSeries#dates()}. */
+    public record AssetSeries(Long assetId, String symbol, String name, List<BigDecimal> values) {
+    }
+
+    public record PortfolioSeries(String currency, List<LocalDate> dates, List<BigDecimal> total,
+                                  List<AssetSeries> assets) {
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final AssetRepository assetRepository;
+    private final AssetPriceRepository assetPriceRepository;
+    private final FxRateService fxRateService;
+
+    @Transactional(readOnly = true)
+    public PortfolioSeries getSeries(User user, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        if (days > MAX_DAYS) {
+            throw new IllegalArgumentException("Range too long: at most " + MAX_DAYS + " days");
+        }
+        String target = user.getDefaultCurrency();
+
+        List<Object[]> movements = transactionRepository.findAssetUnitMovements(
+                user, Account.AccountType.ASSET, end.plusDays(1).atStartOfDay());
+
+        // one column per asset, in order of first movement
+        Map<Long, Integer> columnOf = new LinkedHashMap<>();
+        for (Object[] m : movements) {
+            columnOf.putIfAbsent((Long) m[0], columnOf.size());
+        }
+        int n = columnOf.size();
+        Asset[] assets = new Asset[n];
+        for (Asset a : assetRepository.findAllById(columnOf.keySet())) {
+            assets[columnOf.get(a.getId())] = a;
+        }
+
+        Map<String, List<Integer>> columnsOfSymbol = new HashMap<>();
+        for (int c = 0; c < n; c++) {
+            if (assets[c] != null) {
+                columnsOfSymbol.computeIfAbsent(assets[c].getSymbol(), s -> new ArrayList<>()).add(c);
+            }
+        }
+        List<AssetPrice> prices = columnsOfSymbol.isEmpty()
+                ? List.of()
+                : assetPriceRepository.findSeries(columnsOfSymbol.keySet(), end);
+
+        BigDecimal[] units = new BigDecimal[n];
+        BigDecimal[] price = new BigDecimal[n];
+        String[] currency = new String[n];
+        for (int c = 0; c < n; c++) {
+            units[c] = BigDecimal.ZERO;
+            if (assets[c] != null) {
+                price[c] = assets[c].getCurrentPrice();
+                currency[c] = assets[c].getCurrency();
+            }
+        }
+        // the first stored price also stands for the days before it
+        boolean[] seeded = new boolean[n];
+        for (AssetPrice p : prices) {
+            for (int c : columnsOfSymbol.get(p.getSymbol())) {
+                if (!seeded[c]) {
+                    seeded[c] = true;
+                    price[c] = p.getPrice();
+                    if (p.getCurrency() != null) currency[c] = p.getCurrency();
+                }
+            }
+        }
+
+        List<LocalDate> dates = new ArrayList<>((int) days);
+        List<BigDecimal> total = new ArrayList<>((int) days);
+        List<List<BigDecimal>> values = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            values.add(new ArrayList<>((int) days));
+        }
+
+        int mi = 0;
+        int pi = 0;
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+            while (mi < movements.size() && ((LocalDateTime) movements.get(mi)[1]).isBefore(dayEnd)) {
+                Object[] m = movements.get(mi++);
+                int c = columnOf.get((Long) m[0]);
+                units[c] = units[c].add((BigDecimal) m[2]);
+            }
+            while (pi < prices.size() && !prices.get(pi).getPriceDate().isAfter(day)) {
+                AssetPrice p = prices.get(pi++);
+                for (int c : columnsOfSymbol.get(p.getSymbol())) {
+                    price[c] = p.getPrice();
+                    if (p.getCurrency() != null) currency[c] = p.getCurrency();
+                }
+            }
+
+            BigDecimal dayTotal = BigDecimal.ZERO;
+            for (int c = 0; c < n; c++) {
+                BigDecimal value = BigDecimal.ZERO;
+                if (units[c].signum() != 0 && price[c] != null) {
+                    String from = currency[c] != null ? currency[c] : target;
+                    value = fxRateService.convert(units[c].multiply(price[c]), from, target, day)
+                            .setScale(2, RoundingMode.HALF_UP);
+                }
+                values.get(c).add(value);
+                dayTotal = dayTotal.add(value);
+            }
+            dates.add(day);
+            total.add(dayTotal);
+        }
+
+        List<AssetSeries> series = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            Asset a = assets[c];
+            if (a == null) continue;
+            series.add(new AssetSeries(a.getId(), a.getSymbol(), a.getName(), values.get(c)));
+        }
+        return new PortfolioSeries(target, dates, total, series);
+    }
+}
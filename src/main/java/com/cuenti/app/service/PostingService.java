@@ -0,0 +1,137 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Posting;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.PostingRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@link Posting} read model. Postings are written with JDBC batch
+ * inserts inside the caller's transaction, so they commit or roll back together
+ * with the transaction change they describe.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostingService {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_POSTING =
+            "INSERT INTO postings (transaction_id, user_id, account_id, transaction_date, sort_order, type, amount) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final PostingRepository postingRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    /** Writes the postings of saved transactions (ids assigned) belonging to {@code userId}. */
+    @Transactional
+    public void post(Long userId, Collection<Transaction> transactions) {
+        List<Posting> rows = new ArrayList<>();
+        for (Transaction t : transactions) {
+            rows.addAll(postingsFor(userId, t));
+        }
+        insert(rows);
+    }
+
+    /** Replaces the postings of an updated transaction. */
+    @Transactional
+    public void repost(Long userId, Transaction transaction) {
+        postingRepository.deleteByTransactionId(transaction.getId());
+        post(userId, List.of(transaction));
+    }
+
+    @Transactional
+    public void unpost(Long transactionId) {
+        postingRepository.deleteByTransactionId(transactionId);
+    }
+
+    /**
+     * One posting per referenced account; the amount is the transaction's balance
+     * effect on that account, or zero when the type does not move that account.
+     */
+    static List<Posting> postingsFor(Long userId, Transaction t) {
+        Map<Account, BigDecimal> effects = t.balanceEffects();
+        Map<Account, BigDecimal> amounts = new LinkedHashMap<>();
+        if (t.getFromAccount() != null) amounts.put(t.getFromAccount(), BigDecimal.ZERO);
+        if (t.getToAccount() != null) amounts.put(t.getToAccount(), BigDecimal.ZERO);
+        amounts.putAll(effects);
+
+        List<Posting> postings = new ArrayList<>(amounts.size());
+        amounts.forEach((account, amount) -> postings.add(Posting.builder()
+                .transactionId(t.getId())
+                .userId(userId)
+                .accountId(account.getId())
+                .transactionDate(t.getTransactionDate())
+                .sortOrder(t.getSortOrder() != null ? t.getSortOrder() : 0)
+                .type(t.getType())
+                .amount(amount)
+                .build()));
+        return postings;
+    }
+
+    private void insert(List<Posting> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_POSTING, rows, JDBC_BATCH_SIZE, (ps, p) -> {
+            ps.setLong(1, p.getTransactionId());
+            ps.setLong(2, p.getUserId());
+            ps.setLong(3, p.getAccountId());
+            ps.setObject(4, p.getTransactionDate());
+            ps.setInt(5, p.getSortOrder());
+            ps.setString(6, p.getType().name());
+            ps.setBigDecimal(7, p.getAmount());
+        });
+    }
+
+    /**
+     * Drops and regenerates the postings of one user from the transactions table.
+     * Rows are inserted every {@value #JDBC_BATCH_SIZE} postings while the history
+     * streams past, so memory does not grow with it.
+     */
+    @Transactional
+    public int rebuild(User user) {
+        postingRepository.deleteByUserId(user.getId());
+
+        List<Posting> rows = new ArrayList<>(JDBC_BATCH_SIZE + 2);
+        int[] written = {0};
+        try (Stream<Transaction> transactions = transactionRepository.streamForExport(user, null, null, null)) {
+            transactions.forEach(t -> {
+                rows.addAll(postingsFor(user.getId(), t));
+                entityManager.detach(t);
+                if (rows.size() >= JDBC_BATCH_SIZE) {
+                    insert(rows);
+                    written[0] += rows.size();
+                    rows.clear();
+                }
+            });
+        }
+        insert(rows);
+        return written[0] + rows.size();
+    }
+
+    /** Drops the postings of every transaction touching the account, including the other side of transfers. */
+    @Transactional
+    public void deleteForAccount(Long accountId) {
+        postingRepository.deleteByTransactionsOfAccount(accountId);
+    }
+
+    @Transactional
+    public void deleteForUser(Long userId) {
+        postingRepository.deleteByUserId(userId);
+    }
+}
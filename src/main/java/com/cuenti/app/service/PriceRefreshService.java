@@ -0,0 +1,205 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.repository.AssetRepository;
+import com.cuenti.app.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refreshes asset prices by symbol. Each symbol is fetched once per cycle no
+ * matter how many users hold it. Symbols are grouped into batches of the
+ * provider's {@link MarketDataProvider#maxBatchSize()}, one upstream request
+ * each, and batches run on virtual threads with at most
+ * {@code cuenti.prices.max-concurrency} requests in flight and
+ * {@code cuenti.prices.requests-per-second} on average. The prices of a batch
+ * are written in one short transaction, one UPDATE per symbol covering every
+ * asset with that symbol, so no database transaction spans network calls.
+ *
+ * <p>When the provider answers 429, the whole batch and the rest of the cycle
+ * are skipped; those symbols stay stale and are picked up by the next cycle.
+ */
+@Service
+@Slf4j
+public class PriceRefreshService {
+
+    /** Outcome of one refresh cycle. */
+    public record RefreshResult(int symbols, int batches, int updated, int missing, int failed, int skipped,
+                                Duration took) {
+    }
+
+    private final MarketDataProvider marketDataProvider;
+    private final AssetRepository assetRepository;
+    private final AssetPriceService assetPriceService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrency;
+    private final TokenBucket limiter;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter updatedCounter;
+    private final Counter missingCounter;
+    private final Counter failedCounter;
+    private final Counter skippedCounter;
+
+    public PriceRefreshService(MarketDataProvider marketDataProvider,
+                               AssetRepository assetRepository,
+                               AssetPriceService assetPriceService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${cuenti.prices.max-concurrency:4}") int maxConcurrency,
+                               @Value("${cuenti.prices.requests-per-second:2}") double requestsPerSecond) {
+        this.marketDataProvider = marketDataProvider;
+        this.assetRepository = assetRepository;
+        this.assetPriceService = assetPriceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrency = maxConcurrency;
+        this.limiter = new TokenBucket(requestsPerSecond, maxConcurrency);
+
+        this.updatedCounter = meterRegistry.counter("cuenti.prices.refresh.symbols", "outcome", "updated");
+        this.missingCounter = meterRegistry.counter("cuenti.prices.refresh.symbols", "outcome", "missing");
+        this.failedCounter = meterRegistry.counter("cuenti.prices.refresh.symbols", "outcome", "failed");
+        this.skippedCounter = meterRegistry.counter("cuenti.prices.refresh.symbols", "outcome", "skipped");
+        Gauge.builder("cuenti.prices.refresh.pending", pending, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /** Fetches each distinct symbol once and writes the prices back. Blocks until the cycle is done. */
+    public RefreshResult refresh(Collection<String> symbols) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String s : symbols) {
+            if (s != null && !s.isBlank()) distinct.add(s.trim());
+        }
+        if (distinct.isEmpty()) {
+            return new RefreshResult(0, 0, 0, 0, 0, 0, Duration.ZERO);
+        }
+
+        List<List<String>> batches = partition(distinct, marketDataProvider.maxBatchSize());
+        long started = System.nanoTime();
+        AtomicInteger updated = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        AtomicBoolean rateLimited = new AtomicBoolean();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        int total = distinct.size();
+        int progressStep = Math.max(1, batches.size() / 10);
+        pending.addAndGet(total);
+        log.info("Refreshing prices for {} symbols in {} batches", total, batches.size());
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<String> batch : batches) {
+                pool.submit(() -> {
+                    try {
+                        permits.acquire();
+                        try {
+                            if (rateLimited.get()) {
+                                skip(batch, skipped);
+                                return;
+                            }
+                            limiter.acquire();
+                            refreshBatch(batch, updated, missing);
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (MarketDataProvider.RateLimitedException e) {
+                        if (rateLimited.compareAndSet(false, true)) {
+                            log.warn("Rate limited: {}; skipping the rest of this cycle", e.getMessage());
+                        }
+                        skip(batch, skipped);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        skip(batch, skipped);
+                    } catch (RuntimeException e) {
+                        log.error("Error refreshing prices for {}: {}", batch, e.getMessage());
+                        failed.addAndGet(batch.size());
+                        failedCounter.increment(batch.size());
+                    } finally {
+                        pending.addAndGet(-batch.size());
+                        int n = done.incrementAndGet();
+                        if (n % progressStep == 0 && n < batches.size()) {
+                            log.info("Price refresh progress: {}/{} batches", n, batches.size());
+                        }
+                    }
+                });
+            }
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - started);
+        meterRegistry.timer("cuenti.prices.refresh.cycle").record(took);
+        RefreshResult result = new RefreshResult(total, batches.size(), updated.get(), missing.get(), failed.get(),
+                skipped.get(), took);
+        log.info("Price refresh done in {} ms: {}", took.toMillis(), result);
+        return result;
+    }
+
+    private void refreshBatch(List<String> batch, AtomicInteger updated, AtomicInteger missing) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, MarketDataProvider.Quote> quotes = marketDataProvider.quotes(batch);
+        sample.stop(meterRegistry.timer("cuenti.prices.fetch"));
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> quotes.forEach((symbol, q) -> {
+            int rows = assetRepository.updatePriceBySymbol(symbol, q.price(), q.currency(), now);
+            log.debug("Updated price for {}: {} {} ({} assets)", symbol, q.price(), q.currency(), rows);
+        }));
+        recordHistory(quotes, now.toLocalDate());
+        updated.addAndGet(quotes.size());
+        updatedCounter.increment(quotes.size());
+        missing.addAndGet(batch.size() - quotes.size());
+        missingCounter.increment(batch.size() - quotes.size());
+    }
+
+    /** Appends the batch to the price history; kept apart so a history hiccup never loses the current prices. */
+    private void recordHistory(Map<String, MarketDataProvider.Quote> quotes, LocalDate day) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> quotes.forEach((symbol, q) ->
+                    assetPriceService.record(symbol, day, q.price(), q.currency(), "REFRESH")));
+        } catch (RuntimeException e) {
+            log.warn("Could not record price history for {}: {}", quotes.keySet(), e.getMessage());
+        }
+    }
+
+    private void skip(List<String> batch, AtomicInteger skipped) {
+        skipped.addAndGet(batch.size());
+        skippedCounter.increment(batch.size());
+    }
+
+    private static List<List<String>> partition(Collection<String> symbols, int size) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String symbol : symbols) {
+            current.add(symbol);
+            if (current.size() >= size) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+}
@@ -19,6 +19,11 @@ public class ProfileCleanupService {
     private final CategoryRepository categoryRepository;
     private final UserService userService;
     private final SecurityUtils securityUtils;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final DailyBalanceService dailyBalanceService;
+    private final PostingService postingService;
+    private final NetWorthService netWorthService;
+    private final DueSoonService dueSoonService;
 
     @Transactional
     public void cleanupUserData(User user) {
@@ -33,7 +38,12 @@ public class ProfileCleanupService {
 
         // 1. Delete user-specific transaction data
         transactionRepository.findByUser(user).forEach(transactionRepository::delete);
+        monthlyTotalsService.deleteForUser(user.getId());
+        dailyBalanceService.deleteForUser(user.getId());
+        postingService.deleteForUser(user.getId());
+        netWorthService.deleteForUser(user.getId());
         scheduledTransactionRepository.findByUser(user).forEach(scheduledTransactionRepository::delete);
+        dueSoonService.invalidate(user);
         
         // 2. Delete user-specific accounts
         accountRepository.findByUser(user).forEach(accountRepository::delete);
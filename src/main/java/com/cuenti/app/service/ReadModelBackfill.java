@@ -0,0 +1,84 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountDailyBalanceRepository;
+import com.cuenti.app.repository.MonthlyCategoryTotalRepository;
+import com.cuenti.app.repository.PostingRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import com.cuenti.app.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Fills the read models derived from the transactions (postings, daily balance
+ * checkpoints, monthly category totals) whose table is empty: on the first start
+ * after a table was introduced, or after the demo data was seeded directly through
+ * the repositories. Runs once all beans exist but before the web server starts, so
+ * no request sees a half-built model. The models are rebuilt one after the other,
+ * each user in a transaction of its own.
+ */
+@Service
+@Slf4j
+public class ReadModelBackfill implements SmartInitializingSingleton {
+
+    private final TransactionRepository transactionRepository;
+    private final PostingRepository postingRepository;
+    private final AccountDailyBalanceRepository dailyBalanceRepository;
+    private final MonthlyCategoryTotalRepository totalRepository;
+    private final UserRepository userRepository;
+    private final PostingService postingService;
+    private final DailyBalanceService dailyBalanceService;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReadModelBackfill(TransactionRepository transactionRepository,
+                             PostingRepository postingRepository,
+                             AccountDailyBalanceRepository dailyBalanceRepository,
+                             MonthlyCategoryTotalRepository totalRepository,
+                             UserRepository userRepository,
+                             PostingService postingService,
+                             DailyBalanceService dailyBalanceService,
+                             MonthlyTotalsService monthlyTotalsService,
+                             PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.postingRepository = postingRepository;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.totalRepository = totalRepository;
+        this.userRepository = userRepository;
+        this.postingService = postingService;
+        this.dailyBalanceService = dailyBalanceService;
+        this.monthlyTotalsService = monthlyTotalsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillIfEmpty();
+    }
+
+    public void backfillIfEmpty() {
+        if (transactionRepository.count() == 0) {
+            return;
+        }
+        backfill("postings", postingRepository, postingService::rebuild);
+        backfill("daily balance", dailyBalanceRepository, dailyBalanceService::rebuild);
+        backfill("monthly totals", totalRepository, monthlyTotalsService::rebuild);
+    }
+
+    private void backfill(String model, CrudRepository<?, ?> table, ToIntFunction<User> rebuild) {
+        if (table.count() > 0) {
+            return;
+        }
+        log.info("The {} table is empty - rebuilding from transactions", model);
+        for (User user : userRepository.findAll()) {
+            Integer rows = transactionTemplate.execute(status -> rebuild.applyAsInt(user));
+            log.info("Rebuilt {} {} rows for user {}", rows, model, user.getUsername());
+        }
+    }
+}
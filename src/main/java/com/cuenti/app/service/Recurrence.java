@@ -0,0 +1,223 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.ScheduledTransaction;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Occurrence dates of a {@link ScheduledTransaction} within a date range.
+ *
+ * <p>The sequence is exactly the one repeated
+ * {@link ScheduledTransactionService#advanceOccurrence} calls produce from the
+ * schedule's next occurrence, including the month-end clamping that sticks once a
+ * shorter month was passed (Jan 31, Feb 28, Mar 28, ...). Instead of walking every
+ * occurrence before the range, the fixed-interval patterns jump straight to the
+ * first occurrence in it; the iterator then keeps its position as an epoch day or
+ * a month index and only creates a {@link LocalDate} for each date it returns.
+ * Times of day are not part of the result.
+ */
+public final class Recurrence {
+
+    private Recurrence() {
+    }
+
+    /** Lazily yields the occurrences of {@code scheduled} within [from, to], in order. */
+    public static Iterator<LocalDate> occurrences(ScheduledTransaction scheduled, LocalDate from, LocalDate to) {
+        if (scheduled.getNextOccurrence() == null || to.isBefore(from)) {
+            return Collections.emptyIterator();
+        }
+        LocalDate start = scheduled.getNextOccurrence().toLocalDate();
+        if (start.isAfter(to)) {
+            return Collections.emptyIterator();
+        }
+        int value = (scheduled.getRecurrenceValue() != null && scheduled.getRecurrenceValue() > 0)
+                ? scheduled.getRecurrenceValue() : 1;
+
+        return switch (scheduled.getRecurrencePattern()) {
+            case DAILY -> new Arithmetic(start.toEpochDay(), value, from, to);
+            case WEEKLY -> new Arithmetic(start.toEpochDay(), 7L * value, from, to);
+            case BI_WEEKLY -> new Arithmetic(start.toEpochDay(), 14, from, to);
+            case MONTHLY -> new Monthly(start, value, false, from, to);
+            case MONTHLY_LAST_DAY -> new Monthly(start, 1, true, from, to);
+            case YEARLY -> new Monthly(start, 12 * value, false, from, to);
+            // the first step moves to the next such day, later steps a week each
+            case EVERY_FRIDAY -> new Headed(start, from, to, new Arithmetic(
+                    start.with(TemporalAdjusters.next(DayOfWeek.FRIDAY)).toEpochDay(), 7, from, to));
+            case EVERY_SATURDAY -> new Headed(start, from, to, new Arithmetic(
+                    start.with(TemporalAdjusters.next(DayOfWeek.SATURDAY)).toEpochDay(), 7, from, to));
+            case EVERY_WEEKDAY -> new Headed(start, from, to,
+                    new Weekdays(Math.max(from.toEpochDay(), start.toEpochDay() + 1), to.toEpochDay()));
+        };
+    }
+
+    /** first, first + step, first + 2 * step, ... in epoch days. */
+    private static final class Arithmetic implements Iterator<LocalDate> {
+        private final long step;
+        private final long end;
+        private long next;
+
+        Arithmetic(long first, long step, LocalDate from, LocalDate to) {
+            this.step = step;
+            this.end = to.toEpochDay();
+            long lower = from.toEpochDay();
+            this.next = first >= lower ? first : first + Math.ceilDiv(lower - first, step) * step;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next <= end;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (next > end) throw new NoSuchElementException();
+            LocalDate date = LocalDate.ofEpochDay(next);
+            next += step;
+            return date;
+        }
+    }
+
+    /**
+     * Every {@code months} months from {@code start}. The day of month is clamped
+     * to each month's length and never grows back, as with chained
+     * {@code plusMonths}; with {@code lastDay} every date after the first is the
+     * month's last day.
+     */
+    private static final class Monthly implements Iterator<LocalDate> {
+        private final int months;
+        private final boolean lastDay;
+        private final LocalDate to;
+        private int monthIndex; // year * 12 + month - 1
+        private int day;
+        private LocalDate next;
+
+        Monthly(LocalDate start, int months, boolean lastDay, LocalDate from, LocalDate to) {
+            this.months = months;
+            this.lastDay = lastDay;
+            this.to = to;
+            this.monthIndex = monthIndex(start);
+            this.day = start.getDayOfMonth();
+
+            int behind = monthIndex(from) - monthIndex;
+            if (behind > 0) {
+                advance(Math.ceilDiv(behind, months));
+            }
+            LocalDate date = current();
+            while (date.isBefore(from)) { // at most once: same month as from, earlier day
+                advance(1);
+                date = current();
+            }
+            this.next = date.isAfter(to) ? null : date;
+        }
+
+        private void advance(long steps) {
+            if (lastDay) {
+                monthIndex += (int) (steps * months);
+                day = lengthOf(monthIndex);
+                return;
+            }
+            // clamping can only lower the day, and never below 28: step one by one while it still can
+            long done = 0;
+            while (done < steps && day > 28) {
+                monthIndex += months;
+                day = Math.min(day, lengthOf(monthIndex));
+                done++;
+            }
+            monthIndex += (int) ((steps - done) * months);
+        }
+
+        private LocalDate current() {
+            return LocalDate.of(monthIndex / 12, monthIndex % 12 + 1, day);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (next == null) throw new NoSuchElementException();
+            LocalDate date = next;
+            advance(1);
+            LocalDate following = current();
+            next = following.isAfter(to) ? null : following;
+            return date;
+        }
+
+        private static int monthIndex(LocalDate date) {
+            return date.getYear() * 12 + date.getMonthValue() - 1;
+        }
+
+        private static int lengthOf(int monthIndex) {
+            int month = monthIndex % 12 + 1;
+            return switch (month) {
+                case 2 -> Year.isLeap(monthIndex / 12) ? 29 : 28;
+                case 4, 6, 9, 11 -> 30;
+                default -> 31;
+            };
+        }
+    }
+
+    /** Monday to Friday within [first, last], in epoch days. */
+    private static final class Weekdays implements Iterator<LocalDate> {
+        private final long last;
+        private long next;
+
+        Weekdays(long first, long last) {
+            this.last = last;
+            this.next = skipWeekend(first);
+        }
+
+        /** Epoch day 0 (1970-01-01) was a Thursday, so (day + 3) mod 7 is 0 for Monday. */
+        private static long skipWeekend(long day) {
+            int dow = (int) Math.floorMod(day + 3, 7);
+            return dow == 5 ? day + 2 : dow == 6 ? day + 1 : day;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next <= last;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (next > last) throw new NoSuchElementException();
+            LocalDate date = LocalDate.ofEpochDay(next);
+            next = skipWeekend(next + 1);
+            return date;
+        }
+    }
+
+    /** The schedule's own next occurrence, when in range, followed by the occurrences after it. */
+    private static final class Headed implements Iterator<LocalDate> {
+        private LocalDate head;
+        private final Iterator<LocalDate> rest;
+
+        Headed(LocalDate start, LocalDate from, LocalDate to, Iterator<LocalDate> rest) {
+            this.head = start.isBefore(from) || start.isAfter(to) ? null : start;
+            this.rest = rest;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return head != null || rest.hasNext();
+        }
+
+        @Override
+        public LocalDate next() {
+            if (head != null) {
+                LocalDate date = head;
+                head = null;
+                return date;
+            }
+            return rest.next();
+        }
+    }
+}
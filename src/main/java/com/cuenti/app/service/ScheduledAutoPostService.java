@@ -0,0 +1,143 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.api.dto.TransactionDTO;
+import com.cuenti.app.model.ScheduledTransaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.ScheduledTransactionRepository;
+import com.cuenti.app.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts due scheduled transactions in the background, without a web session. Off
+ * unless {@code cuenti.scheduled.auto-post.enabled} is set.
+ *
+ * <p>One query on {@code next_occurrence} finds the due schedules of all users. Each
+ * user's occurrences, including the ones missed while the application was down,
+ * are posted through {@link TransactionBatchService} in one transaction per user.
+ * An occurrence is claimed by moving the schedule on from exactly that date in the
+ * same transaction, so an overlapping run or a manual post at the same moment can
+ * never book it twice; a failing user is logged and retried by the next run.
+ */
+@Service
+@Slf4j
+public class ScheduledAutoPostService {
+
+    /** Most occurrences of one schedule caught up in one run; the rest follow next run. */
+    static final int MAX_CATCH_UP = 1000;
+
+    private final ScheduledTransactionRepository scheduledRepository;
+    private final UserRepository userRepository;
+    private final TransactionBatchService batchService;
+    private final DueSoonService dueSoonService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public ScheduledAutoPostService(ScheduledTransactionRepository scheduledRepository,
+                                    UserRepository userRepository,
+                                    TransactionBatchService batchService,
+                                    DueSoonService dueSoonService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${cuenti.scheduled.auto-post.enabled:false}") boolean enabled) {
+        this.scheduledRepository = scheduledRepository;
+        this.userRepository = userRepository;
+        this.batchService = batchService;
+        this.dueSoonService = dueSoonService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @Scheduled(cron = "${cuenti.scheduled.auto-post.cron:0 0 * * * *}")
+    public void postDueNow() {
+        if (enabled) {
+            postDue(LocalDateTime.now());
+        }
+    }
+
+    /** Posts every occurrence due at {@code now}; returns how many transactions were created. */
+    public int postDue(LocalDateTime now) {
+        Map<Long, List<Long>> dueByUser = new LinkedHashMap<>();
+        for (Object[] row : scheduledRepository.findDue(now)) {
+            dueByUser.computeIfAbsent((Long) row[1], k -> new ArrayList<>()).add((Long) row[0]);
+        }
+
+        int posted = 0;
+        for (Map.Entry<Long, List<Long>> due : dueByUser.entrySet()) {
+            try {
+                Integer count = transactionTemplate.execute(status -> postForUser(due.getKey(), due.getValue(), now));
+                posted += count != null ? count : 0;
+            } catch (RuntimeException e) {
+                log.error("Auto-posting failed for user {}: {}", due.getKey(), e.getMessage());
+            }
+        }
+        if (posted > 0) {
+            log.info("Auto-posted {} scheduled transactions for {} users", posted, dueByUser.size());
+        }
+        return posted;
+    }
+
+    private int postForUser(Long userId, List<Long> scheduleIds, LocalDateTime now) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return 0;
+        }
+
+        List<TransactionDTO> rows = new ArrayList<>();
+        for (ScheduledTransaction st : scheduledRepository.findAllById(scheduleIds)) {
+            LocalDateTime current = st.getNextOccurrence();
+            // changed since the lookup
+            if (!st.isEnabled() || current == null || current.isAfter(now)) continue;
+
+            List<TransactionDTO> occurrences = new ArrayList<>();
+            LocalDateTime next = current;
+            while (!next.isAfter(now) && occurrences.size() < MAX_CATCH_UP
+                    && rows.size() + occurrences.size() < TransactionBatchService.MAX_BATCH_SIZE) {
+                occurrences.add(toRow(st, next));
+                next = ScheduledTransactionService.advanceOccurrence(next, st);
+            }
+            if (occurrences.isEmpty()) {
+                break; // batch is full
+            }
+            if (scheduledRepository.advanceOccurrence(st.getId(), current, next) == 0) {
+                continue; // posted or skipped elsewhere in the meantime
+            }
+            st.setNextOccurrence(next);
+            rows.addAll(occurrences);
+        }
+
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        batchService.createBatch(user, rows);
+        dueSoonService.invalidate(user);
+        return rows.size();
+    }
+
+    private static TransactionDTO toRow(ScheduledTransaction st, LocalDateTime date) {
+        return TransactionDTO.builder()
+                .type(st.getType())
+                .fromAccountId(st.getFromAccount() != null ? st.getFromAccount().getId() : null)
+                .toAccountId(st.getToAccount() != null ? st.getToAccount().getId() : null)
+                .amount(st.getAmount())
+                .transactionDate(date)
+                .payee(st.getPayee())
+                .categoryId(st.getCategory() != null ? st.getCategory().getId() : null)
+                .memo(st.getMemo())
+                .tags(st.getTags())
+                .number(st.getNumber())
+                .paymentMethod(st.getPaymentMethod())
+                .assetId(st.getAsset() != null ? st.getAsset().getId() : null)
+                .units(st.getUnits())
+                .build();
+    }
+}
@@ -26,6 +26,7 @@ public class ScheduledTransactionService {
 
     private final SecurityUtils securityUtils;
     private final AuditService auditService;
+    private final DueSoonService dueSoonService;
 
     public List<ScheduledTransaction> getByUser(User user) {
         return repository.findByUser(user);
@@ -51,6 +52,7 @@ public class ScheduledTransactionService {
         ScheduledTransaction saved = repository.save(scheduledTransaction);
         auditService.log(currentUser, created ? "CREATE" : "UPDATE", "ScheduledTransaction",
                 saved.getId(), saved.getPayee());
+        dueSoonService.invalidate(currentUser);
         return saved;
     }
 
@@ -64,6 +66,7 @@ public class ScheduledTransactionService {
             repository.delete(scheduledTransaction);
             auditService.log(currentUser, "DELETE", "ScheduledTransaction",
                     scheduledTransaction.getId(), scheduledTransaction.getPayee());
+            dueSoonService.invalidate(currentUser);
         } else {
             throw new SecurityException("Cannot delete scheduled transaction belonging to another user");
         }
@@ -149,18 +152,14 @@ public class ScheduledTransactionService {
         return next;
     }
 
+    /** Claims the current occurrence, so a concurrent post, skip or auto-post of it fails instead of repeating it. */
     private void updateToNextOccurrence(ScheduledTransaction scheduled) {
-        scheduled.setNextOccurrence(advanceOccurrence(scheduled.getNextOccurrence(), scheduled));
-        repository.save(scheduled);
-    }
-
-    /** Enabled schedules due within the next 7 days (nav badge). */
-    @org.springframework.transaction.annotation.Transactional(readOnly = true)
-    public long countDueSoon(com.cuenti.app.model.User user) {
-        return getByUser(user).stream()
-                .filter(com.cuenti.app.model.ScheduledTransaction::isEnabled)
-                .filter(st -> st.getNextOccurrence() != null
-                        && st.getNextOccurrence().isBefore(java.time.LocalDateTime.now().plusDays(7)))
-                .count();
+        LocalDateTime current = scheduled.getNextOccurrence();
+        LocalDateTime next = advanceOccurrence(current, scheduled);
+        if (repository.advanceOccurrence(scheduled.getId(), current, next) == 0) {
+            throw new IllegalStateException("Occurrence " + current + " was already posted or skipped");
+        }
+        scheduled.setNextOccurrence(next);
+        dueSoonService.invalidate(scheduled.getUser());
     }
 }
@@ -38,8 +38,26 @@ public class TradeRepublicImportService {
             .appendPattern("dd MMM yyyy")
             .toFormatter(Locale.ITALIAN);
 
+    /** Rows saved between two reports to the {@link ImportCheckpoint}. */
+    private static final int CHECKPOINT_ROWS = 100;
+
+    /** Transaction ids looked up per query, to keep the IN list bounded. */
+    private static final int NUMBER_QUERY_SIZE = 1000;
+
     @Transactional
     public void importCsv(InputStream inputStream, Account cashAccount, Account assetAccount) throws Exception {
+        importCsv(inputStream, cashAccount, assetAccount, ImportCheckpoint.NONE);
+    }
+
+    /**
+     * As {@link #importCsv(InputStream, Account, Account)}, for a background job:
+     * called without a transaction, each row is committed by
+     * {@link TransactionService#saveTransaction}. Progress is reported every
+     * {@value #CHECKPOINT_ROWS} rows. A resumed job simply runs again, since rows
+     * committed by the earlier run are found by the duplicate check.
+     */
+    public void importCsv(InputStream inputStream, Account cashAccount, Account assetAccount,
+                          ImportCheckpoint checkpoint) throws Exception {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
             String header = reader.readLine();
             if (header == null || header.trim().isEmpty()) {
@@ -49,6 +67,7 @@ public class TradeRepublicImportService {
             boolean isTransactionExport = header.contains("\"datetime\"") || header.contains("datetime");
             Map<String, Integer> headerMap = isTransactionExport ? buildHeaderMap(parseCsvLine(header)) : Collections.emptyMap();
 
+            List<Transaction> rows = new ArrayList<>();
             String line;
             int rowNumber = 0;
             while ((line = reader.readLine()) != null) {
@@ -57,24 +76,149 @@ public class TradeRepublicImportService {
                 }
 
                 try {
+                    Transaction transaction;
                     if (isTransactionExport) {
                         List<String> columns = parseCsvLine(line);
-                        parseAndProcessTransactionExportRow(columns, headerMap, cashAccount, assetAccount, rowNumber++);
+                        transaction = parseTransactionExportRow(columns, headerMap, cashAccount, assetAccount, rowNumber++);
                     } else {
                         String[] columns = line.split(";");
                         if (columns.length < 5) {
                             continue;
                         }
-                        parseAndProcessLegacyRow(columns, cashAccount, assetAccount, rowNumber++);
+                        transaction = parseLegacyRow(columns, cashAccount, assetAccount, rowNumber++);
+                    }
+                    if (transaction != null) {
+                        rows.add(transaction);
                     }
                 } catch (Exception e) {
                     log.error("Error parsing row: " + line, e);
                 }
             }
+
+            saveNewRows(rows, cashAccount, assetAccount, checkpoint);
         }
     }
 
-    private void parseAndProcessLegacyRow(String[] columns, Account cashAccount, Account assetAccount, int rowNumber) {
+    /**
+     * Saves the rows that are not booked yet. Rows with a Trade Republic transaction id
+     * are matched on that id, against those of the statement's ids that are already
+     * booked, loaded up front; the others on their {@link Fingerprint}, against the
+     * fingerprints of each account's existing transactions in the statement's date
+     * range, loaded once per account. The fingerprints are counted, so a statement
+     * with two identical rows against one booked copy still imports the second.
+     */
+    private void saveNewRows(List<Transaction> rows, Account cashAccount, Account assetAccount,
+                             ImportCheckpoint checkpoint) {
+        Map<Fingerprint, Integer> cashBooked = loadFingerprints(cashAccount, rows, false);
+        Map<Fingerprint, Integer> assetBooked = loadFingerprints(assetAccount, rows, true);
+        Set<String> bookedNumbers = loadNumbers(rows);
+
+        int done = 0;
+        for (Transaction transaction : rows) {
+            if (done > 0 && done % CHECKPOINT_ROWS == 0) {
+                checkpoint.chunkCommitted(done);
+                checkpoint.checkCancelled();
+            }
+            done++;
+            if (transaction.getNumber() != null) {
+                if (bookedNumbers.contains(transaction.getNumber())) {
+                    log.debug("Skipping duplicate transaction_id: {}", transaction.getNumber());
+                    continue;
+                }
+            } else {
+                Map<Fingerprint, Integer> booked = isAssetTrade(transaction) ? assetBooked : cashBooked;
+                if (consume(booked, Fingerprint.of(transaction))) {
+                    log.debug("Skipping duplicate transaction: {} on {} for €{}", transaction.getMemo(),
+                            transaction.getTransactionDate(), transaction.getAmount());
+                    continue;
+                }
+            }
+
+            try {
+                ensurePayeeExists(transaction.getPayee());
+                transactionService.saveTransaction(transaction);
+                if (transaction.getNumber() != null) {
+                    bookedNumbers.add(transaction.getNumber()); // a repeated id later in the statement
+                }
+            } catch (Exception e) {
+                log.error("Error importing row: " + transaction.getMemo(), e);
+            }
+        }
+        checkpoint.chunkCommitted(done);
+    }
+
+    /** The transaction ids of the rows that are already booked. */
+    private Set<String> loadNumbers(List<Transaction> rows) {
+        List<String> numbers = rows.stream().map(Transaction::getNumber).filter(Objects::nonNull).distinct().toList();
+        Set<String> booked = new HashSet<>();
+        for (int i = 0; i < numbers.size(); i += NUMBER_QUERY_SIZE) {
+            booked.addAll(transactionRepository.findExistingNumbers(
+                    numbers.subList(i, Math.min(i + NUMBER_QUERY_SIZE, numbers.size()))));
+        }
+        return booked;
+    }
+
+    /** Fingerprints of the account's transactions over the date range of the rows matched against it. */
+    private Map<Fingerprint, Integer> loadFingerprints(Account account, List<Transaction> rows, boolean assetTrades) {
+        LocalDate from = null;
+        LocalDate to = null;
+        for (Transaction transaction : rows) {
+            if (transaction.getNumber() == null && isAssetTrade(transaction) == assetTrades) {
+                LocalDate date = transaction.getTransactionDate().toLocalDate();
+                if (from == null || date.isBefore(from)) from = date;
+                if (to == null || date.isAfter(to)) to = date;
+            }
+        }
+
+        Map<Fingerprint, Integer> booked = new HashMap<>();
+        if (from == null) {
+            return booked;
+        }
+        for (Object[] row : transactionRepository.findFingerprints(account.getId(),
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            booked.merge(Fingerprint.of((LocalDateTime) row[0], (BigDecimal) row[1], (String) row[2]), 1, Integer::sum);
+        }
+        return booked;
+    }
+
+    /** Removes one occurrence of {@code fingerprint}; false when none is left. */
+    private static boolean consume(Map<Fingerprint, Integer> booked, Fingerprint fingerprint) {
+        Integer count = booked.get(fingerprint);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            booked.remove(fingerprint);
+        } else {
+            booked.put(fingerprint, count - 1);
+        }
+        return true;
+    }
+
+    /** Asset trades are booked as transfers into the asset account, everything else on the cash account. */
+    private static boolean isAssetTrade(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.TRANSFER;
+    }
+
+    /**
+     * Content hash of a statement row: booking day, amount and description. Amounts
+     * are compared without trailing zeros and descriptions case- and
+     * whitespace-insensitively, so the same row matches however it was stored.
+     */
+    record Fingerprint(LocalDate date, BigDecimal amount, String description) {
+
+        static Fingerprint of(Transaction transaction) {
+            return of(transaction.getTransactionDate(), transaction.getAmount(), transaction.getMemo());
+        }
+
+        static Fingerprint of(LocalDateTime date, BigDecimal amount, String description) {
+            String normalized = description == null ? ""
+                    : description.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            return new Fingerprint(date.toLocalDate(), amount.stripTrailingZeros(), normalized);
+        }
+    }
+
+    private Transaction parseLegacyRow(String[] columns, Account cashAccount, Account assetAccount, int rowNumber) {
         String dateStr = columns[0].trim();
         String typeStr = columns[1].trim();
         String originalDescription = columns[2].trim();
@@ -95,25 +239,13 @@ public class TradeRepublicImportService {
             amount = parseAmount(outgoingStr);
             csvType = Transaction.TransactionType.EXPENSE;
         } else {
-            return;
+            return null;
         }
 
         boolean isAssetTrade = typeStr.equalsIgnoreCase("Commercio") ||
                                 originalDescription.startsWith("Buy trade") ||
                                 originalDescription.startsWith("Savings plan execution");
 
-        // Deduplication: Skip if transaction already exists to prevent double balance impact
-        Account contextAccount = isAssetTrade ? assetAccount : cashAccount;
-        List<Transaction> existing = transactionRepository.findByAccount(contextAccount).stream()
-                .filter(t -> t.getTransactionDate().toLocalDate().equals(date))
-                .filter(t -> t.getAmount().compareTo(amount) == 0)
-                .toList();
-
-        if (!existing.isEmpty()) {
-            log.debug("Skipping duplicate transaction: {} on {} for €{}", originalDescription, date, amount);
-            return;  // Skip duplicate - don't process again!
-        }
-
         // Create new transaction
         Transaction transaction = new Transaction();
         transaction.setTransactionDate(transactionDateTime);
@@ -151,12 +283,10 @@ public class TradeRepublicImportService {
                 transaction.setToAccount(null);
             }
         }
-        
-        ensurePayeeExists(transaction.getPayee());
-        transactionService.saveTransaction(transaction);
+        return transaction;
     }
 
-    private void parseAndProcessTransactionExportRow(List<String> columns,
+    private Transaction parseTransactionExportRow(List<String> columns,
                                                      Map<String, Integer> headerMap,
                                                      Account cashAccount,
                                                      Account assetAccount,
@@ -174,7 +304,7 @@ public class TradeRepublicImportService {
         BigDecimal tax = parsePlainAmount(getColumn(columns, headerMap, "tax"));
         BigDecimal netAmount = amount.add(fee).add(tax);
         if (netAmount.compareTo(BigDecimal.ZERO) == 0) {
-            return;
+            return null;
         }
 
         LocalDateTime transactionDateTime = parseTransactionDateTime(
@@ -186,25 +316,7 @@ public class TradeRepublicImportService {
                 || description.startsWith("Buy trade")
                 || description.startsWith("Savings plan execution");
 
-        // Deduplication: prefer transaction_id if present, fall back to date+amount
         BigDecimal absoluteAmount = netAmount.abs();
-        if (!transactionId.isEmpty()) {
-            if (transactionRepository.findByNumber(transactionId).isPresent()) {
-                log.debug("Skipping duplicate transaction_id: {}", transactionId);
-                return;
-            }
-        } else {
-            Account contextAccount = isAssetTrade ? assetAccount : cashAccount;
-            List<Transaction> existing = transactionRepository.findByAccount(contextAccount).stream()
-                    .filter(t -> t.getTransactionDate().toLocalDate().equals(transactionDateTime.toLocalDate()))
-                    .filter(t -> t.getAmount().compareTo(absoluteAmount) == 0)
-                    .toList();
-            if (!existing.isEmpty()) {
-                log.debug("Skipping duplicate transaction: {} on {} for €{}", description, transactionDateTime, absoluteAmount);
-                return;
-            }
-        }
-
         Transaction transaction = new Transaction();
         transaction.setMemo(description);
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
@@ -235,9 +347,7 @@ public class TradeRepublicImportService {
                 transaction.setToAccount(null);
             }
         }
-
-        ensurePayeeExists(transaction.getPayee());
-        transactionService.saveTransaction(transaction);
+        return transaction;
     }
 
     private void ensurePayeeExists(String name) {
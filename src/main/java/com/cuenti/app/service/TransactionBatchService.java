@@ -0,0 +1,391 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.api.dto.TransactionDTO;
+import com.cuenti.app.api.dto.TransactionSplitDTO;
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Asset;
+import com.cuenti.app.model.Category;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.TransactionSplit;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.repository.AssetRepository;
+import com.cuenti.app.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of transactions for feed-syncing API clients.
+ *
+ * <p>Compared to calling {@link TransactionService#saveTransaction} per row, the user's
+ * accounts, categories and assets are loaded once and every row is checked against
+ * those maps; rows are written with JDBC batch inserts (transaction ids are IDENTITY
+ * columns, which keeps Hibernate from batching inserts itself); balances receive one
+ * net delta per account (and each account-day checkpoint one update) and the audit
+ * log one summary entry. Everything runs in a single transaction - one invalid row
+ * rejects the whole batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (type, from_account_id, to_account_id, amount, transaction_date, status, "
+            + "payee, category_id, memo, tags, number, payment_method, asset_id, units, sort_order) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SPLIT =
+            "INSERT INTO transaction_splits (transaction_id, category_id, amount, memo) VALUES (?, ?, ?, ?)";
+
+    private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final CategoryRepository categoryRepository;
+    private final AssetRepository assetRepository;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final DailyBalanceService dailyBalanceService;
+    private final PostingService postingService;
+    private final AuditService auditService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Validates and inserts all rows for {@code user}.
+     *
+     * @return the generated transaction ids, in request order
+     * @throws IllegalArgumentException when a row is malformed
+     * @throws SecurityException when a row references another user's account, category or asset
+     */
+    @Transactional
+    public List<Long> createBatch(User user, List<TransactionDTO> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transaction");
+        }
+        if (rows.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must not contain more than " + MAX_BATCH_SIZE + " transactions");
+        }
+
+        Map<Long, Account> accounts = accountRepository.findByUser(user).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        Map<Long, Category> categories = categoryRepository.findByUser(user).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        Map<Long, Asset> assets = assetRepository.findByUser(user).stream()
+                .collect(Collectors.toMap(Asset::getId, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            transactions.add(toTransaction(i, rows.get(i), accounts, categories, assets));
+        }
+
+        Map<Account, BigDecimal> deltas = new LinkedHashMap<>();
+        Map<DailyBalanceService.Key, BigDecimal> days = new HashMap<>();
+        Map<MonthlyTotalsService.Key, BigDecimal> months = new HashMap<>();
+        insert(user, transactions, deltas, days, months);
+        accountService.applyBalanceDeltas(deltas);
+        dailyBalanceService.applyDeltas(user, days);
+        monthlyTotalsService.applyDeltas(user.getId(), months);
+
+        auditService.log(user, "BATCH_CREATE", "Transaction", null,
+                transactions.size() + " transactions, ids " + transactions.getFirst().getId()
+                        + ".." + transactions.getLast().getId() + ", " + deltas.size() + " accounts");
+
+        return transactions.stream().map(Transaction::getId).toList();
+    }
+
+    /**
+     * Starts a streamed insert for imports too large to hold in memory. Must be used
+     * within the caller's transaction; see {@link Writer}.
+     */
+    public Writer openWriter(User user) {
+        return openWriter(user, Writer.DEFAULT_CHUNK_SIZE);
+    }
+
+    /** As {@link #openWriter(User)}, writing {@code chunkSize} rows at a time. */
+    public Writer openWriter(User user, int chunkSize) {
+        return openWriter(user, chunkSize, ImportCheckpoint.NONE);
+    }
+
+    /**
+     * As {@link #openWriter(User, int)}; unless {@code checkpoint} is
+     * {@link ImportCheckpoint#NONE}, each chunk is committed on its own and reported
+     * to the checkpoint, for imports running as background jobs.
+     */
+    public Writer openWriter(User user, int chunkSize, ImportCheckpoint checkpoint) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        return new Writer(user, chunkSize, checkpoint);
+    }
+
+    /**
+     * Inserts already resolved transactions chunk by chunk, the same way
+     * {@link #createBatch} does, but collects the balance and checkpoint deltas
+     * until {@link #finish}, so each account is updated once per import. The rows
+     * are not checked: the caller created or owns every referenced entity.
+     *
+     * <p>With an {@link ImportCheckpoint}, every chunk runs in its own transaction
+     * together with its balance deltas and the checkpoint update, so a failure
+     * loses at most the chunk in progress; the first
+     * {@link ImportCheckpoint#committedRows()} rows added are skipped, as an earlier
+     * run already wrote them.
+     */
+    public final class Writer {
+
+        public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+        private final User user;
+        private final int chunkSize;
+        private final ImportCheckpoint checkpoint;
+        private final TransactionTemplate chunkTransaction;
+        private final List<Transaction> pending;
+        private final Map<Account, BigDecimal> deltas = new LinkedHashMap<>();
+        private final Map<DailyBalanceService.Key, BigDecimal> days = new HashMap<>();
+        private final Map<MonthlyTotalsService.Key, BigDecimal> months = new HashMap<>();
+        private final Set<Long> accountIds = new HashSet<>();
+        /** Rows committed by earlier attempts of a resumed import. */
+        private final int carriedOver;
+        private int toSkip;
+        private Long firstId;
+        private Long lastId;
+        /** Rows written by this run. */
+        private int written;
+
+        private Writer(User user, int chunkSize, ImportCheckpoint checkpoint) {
+            this.user = user;
+            this.chunkSize = chunkSize;
+            this.checkpoint = checkpoint;
+            this.chunkTransaction = checkpoint == ImportCheckpoint.NONE ? null : new TransactionTemplate(transactionManager);
+            this.pending = new ArrayList<>(chunkSize);
+            this.carriedOver = checkpoint.committedRows();
+            this.toSkip = carriedOver;
+        }
+
+        public void add(Transaction transaction) {
+            if (toSkip > 0) {
+                toSkip--;
+                return;
+            }
+            pending.add(transaction);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) return;
+            if (chunkTransaction == null) {
+                write();
+                return;
+            }
+            chunkTransaction.executeWithoutResult(status -> {
+                write();
+                applyDeltas();
+                checkpoint.chunkCommitted(carriedOver + written);
+            });
+            checkpoint.checkCancelled();
+        }
+
+        private void write() {
+            insert(user, pending, deltas, days, months);
+            if (firstId == null) firstId = pending.getFirst().getId();
+            lastId = pending.getLast().getId();
+            written += pending.size();
+            pending.clear();
+        }
+
+        private void applyDeltas() {
+            deltas.keySet().forEach(account -> accountIds.add(account.getId()));
+            accountService.applyBalanceDeltas(deltas);
+            dailyBalanceService.applyDeltas(user, days);
+            monthlyTotalsService.applyDeltas(user.getId(), months);
+            deltas.clear();
+            days.clear();
+            months.clear();
+        }
+
+        /**
+         * Writes the last chunk, applies the collected deltas and returns the number
+         * of rows, including those committed by earlier attempts. A resumed import is
+         * audited even when its earlier attempts had already written every row.
+         */
+        public int finish(String auditAction) {
+            flush();
+            if (firstId != null || carriedOver > 0) {
+                applyDeltas();
+                auditService.log(user, auditAction, "Transaction", null, written + " transactions"
+                        + (firstId != null ? ", ids " + firstId + ".." + lastId : "")
+                        + ", " + accountIds.size() + " accounts"
+                        + (carriedOver > 0 ? ", resumed after " + carriedOver + " rows committed by earlier attempts" : ""));
+            }
+            return carriedOver + written;
+        }
+    }
+
+    /**
+     * Inserts rows, splits and postings, and adds their effects to the delta maps.
+     * The callers apply the monthly totals after the balance deltas, whose account
+     * row locks keep concurrent aggregate writes apart.
+     */
+    private void insert(User user, List<Transaction> transactions, Map<Account, BigDecimal> deltas,
+                        Map<DailyBalanceService.Key, BigDecimal> days,
+                        Map<MonthlyTotalsService.Key, BigDecimal> months) {
+        // Pending entity changes must reach the database before the JDBC inserts.
+        entityManager.flush();
+        insertTransactions(transactions);
+        insertSplits(transactions);
+        postingService.post(user.getId(), transactions);
+        for (Transaction t : transactions) {
+            t.balanceEffects().forEach((account, amount) -> deltas.merge(account, amount, BigDecimal::add));
+            DailyBalanceService.addEffect(days, t, 1);
+            MonthlyTotalsService.addContributions(months, t, 1);
+        }
+    }
+
+    private Transaction toTransaction(int index, TransactionDTO dto, Map<Long, Account> accounts,
+                                      Map<Long, Category> categories, Map<Long, Asset> assets) {
+        String row = "Row " + index + ": ";
+        if (dto.getType() == null) throw new IllegalArgumentException(row + "type is required");
+        if (dto.getAmount() == null) throw new IllegalArgumentException(row + "amount is required");
+        if (dto.getAmount().compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException(row + "Amount cannot be negative");
+        }
+
+        Account from = owned(row, "fromAccountId", dto.getFromAccountId(), accounts);
+        Account to = owned(row, "toAccountId", dto.getToAccountId(), accounts);
+        switch (dto.getType()) {
+            case EXPENSE -> { if (from == null) throw new IllegalArgumentException(row + "fromAccountId is required"); }
+            case INCOME -> { if (to == null) throw new IllegalArgumentException(row + "toAccountId is required"); }
+            case TRANSFER -> {
+                if (from == null || to == null) {
+                    throw new IllegalArgumentException(row + "fromAccountId and toAccountId are required");
+                }
+            }
+        }
+
+        Transaction t = Transaction.builder()
+                .type(dto.getType())
+                .fromAccount(from)
+                .toAccount(to)
+                .amount(dto.getAmount())
+                .transactionDate(dto.getTransactionDate() != null ? dto.getTransactionDate() : LocalDateTime.now())
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .payee(dto.getPayee())
+                .category(owned(row, "categoryId", dto.getCategoryId(), categories))
+                .memo(dto.getMemo())
+                .tags(dto.getTags())
+                .number(dto.getNumber())
+                .paymentMethod(dto.getPaymentMethod() != null ? dto.getPaymentMethod() : Transaction.PaymentMethod.NONE)
+                .asset(owned(row, "assetId", dto.getAssetId(), assets))
+                .units(dto.getUnits())
+                .sortOrder(dto.getSortOrder() != null ? dto.getSortOrder() : 0)
+                .build();
+
+        if (dto.getSplits() != null && !dto.getSplits().isEmpty()) {
+            BigDecimal sum = BigDecimal.ZERO;
+            for (TransactionSplitDTO s : dto.getSplits()) {
+                if (s.getAmount() == null) throw new IllegalArgumentException(row + "Each split must have an amount");
+                Category category = owned(row, "split categoryId", s.getCategoryId(), categories);
+                if (category == null) throw new IllegalArgumentException(row + "Each split must have a categoryId");
+                t.addSplit(TransactionSplit.builder().amount(s.getAmount()).memo(s.getMemo()).category(category).build());
+                sum = sum.add(s.getAmount());
+            }
+            if (sum.compareTo(dto.getAmount()) != 0) {
+                throw new IllegalArgumentException(row + "Split amounts must sum to the transaction amount");
+            }
+        }
+        return t;
+    }
+
+    /** Resolves an id against the user's own entities; unknown ids are treated as foreign. */
+    private static <T> T owned(String row, String field, Long id, Map<Long, T> mine) {
+        if (id == null) return null;
+        T entity = mine.get(id);
+        if (entity == null) throw new SecurityException(row + field + " " + id + " does not belong to the user");
+        return entity;
+    }
+
+    private void insertTransactions(List<Transaction> transactions) {
+        for (int start = 0; start < transactions.size(); start += JDBC_BATCH_SIZE) {
+            List<Transaction> chunk = transactions.subList(start, Math.min(start + JDBC_BATCH_SIZE, transactions.size()));
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_TRANSACTION, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bindTransaction(ps, chunk.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keys);
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keyList.get(i).values().iterator().next()).longValue());
+            }
+        }
+    }
+
+    private static void bindTransaction(PreparedStatement ps, Transaction t) throws SQLException {
+        ps.setString(1, t.getType().name());
+        setId(ps, 2, t.getFromAccount() != null ? t.getFromAccount().getId() : null);
+        setId(ps, 3, t.getToAccount() != null ? t.getToAccount().getId() : null);
+        ps.setBigDecimal(4, t.getAmount());
+        ps.setObject(5, t.getTransactionDate());
+        ps.setString(6, t.getStatus().name());
+        ps.setString(7, t.getPayee());
+        setId(ps, 8, t.getCategory() != null ? t.getCategory().getId() : null);
+        ps.setString(9, t.getMemo());
+        ps.setString(10, t.getTags());
+        ps.setString(11, t.getNumber());
+        ps.setString(12, t.getPaymentMethod().name());
+        setId(ps, 13, t.getAsset() != null ? t.getAsset().getId() : null);
+        ps.setBigDecimal(14, t.getUnits());
+        ps.setInt(15, t.getSortOrder());
+    }
+
+    private static void setId(PreparedStatement ps, int index, Long id) throws SQLException {
+        if (id != null) ps.setLong(index, id);
+        else ps.setNull(index, Types.BIGINT);
+    }
+
+    private void insertSplits(List<Transaction> transactions) {
+        List<TransactionSplit> splits = transactions.stream()
+                .flatMap(t -> t.getSplits().stream())
+                .toList();
+        if (splits.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SPLIT, splits, JDBC_BATCH_SIZE, (ps, s) -> {
+            ps.setLong(1, s.getTransaction().getId());
+            ps.setLong(2, s.getCategory().getId());
+            ps.setBigDecimal(3, s.getAmount());
+            ps.setString(4, s.getMemo());
+        });
+    }
+}
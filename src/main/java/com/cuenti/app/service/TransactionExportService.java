@@ -0,0 +1,103 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.api.dto.DtoMapper;
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's transactions to an output stream as NDJSON or CSV.
+ *
+ * <p>Rows are read through a database cursor and written one at a time; each entity
+ * is detached once written so the persistence context - and with it the heap - stays
+ * flat regardless of how long the history is.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String CSV_HEADER =
+            "id,date,type,status,from_account,to_account,amount,currency,payee,category,tags,memo,number\n";
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /** Writes all matching transactions, oldest first, and returns how many were written. */
+    @Transactional(readOnly = true)
+    public long export(User user, Long accountId, LocalDateTime from, LocalDateTime to,
+                       Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) writer.write(CSV_HEADER);
+
+        long count = 0;
+        try (Stream<Transaction> rows = transactionRepository.streamForExport(user, accountId, from, to)) {
+            for (Transaction t : (Iterable<Transaction>) rows::iterator) {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, t);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(DtoMapper.toTransactionDTO(t)));
+                    writer.write('\n');
+                }
+                entityManager.detach(t);
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvRow(Writer w, Transaction t) throws IOException {
+        Account booking = t.getType() == Transaction.TransactionType.INCOME ? t.getToAccount() : t.getFromAccount();
+        w.write(String.valueOf(t.getId()));
+        w.write(',');
+        w.write(t.getTransactionDate() != null ? t.getTransactionDate().toString() : "");
+        w.write(',');
+        w.write(t.getType() != null ? t.getType().name() : "");
+        w.write(',');
+        w.write(t.getStatus() != null ? t.getStatus().name() : "");
+        w.write(',');
+        w.write(csv(t.getFromAccount() != null ? t.getFromAccount().getAccountName() : null));
+        w.write(',');
+        w.write(csv(t.getToAccount() != null ? t.getToAccount().getAccountName() : null));
+        w.write(',');
+        w.write(t.getAmount() != null ? t.getAmount().toPlainString() : "");
+        w.write(',');
+        w.write(csv(booking != null ? booking.getCurrency() : null));
+        w.write(',');
+        w.write(csv(t.getPayee()));
+        w.write(',');
+        w.write(csv(t.getCategory() != null ? t.getCategory().getFullName() : null));
+        w.write(',');
+        w.write(csv(t.getTags()));
+        w.write(',');
+        w.write(csv(t.getMemo()));
+        w.write(',');
+        w.write(csv(t.getNumber()));
+        w.write('\n');
+    }
+
+    static String csv(String value) {
+        if (value == null) return "";
+        String escaped = value.replace("\"", "\"\"");
+        return (escaped.contains(",") || escaped.contains("\"") || escaped.contains("\n") || escaped.contains("\r"))
+                ? "\"" + escaped + "\"" : escaped;
+    }
+}
@@ -1,8 +1,10 @@
 package com.cuenti.app.service;
 
 import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Asset;
 import com.cuenti.app.model.Transaction;
 import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AssetRepository;
 import com.cuenti.app.repository.TransactionRepository;
 import com.cuenti.app.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
@@ -12,7 +14,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for transaction management and money transfers.
@@ -22,10 +27,14 @@ import java.util.List;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final AssetRepository assetRepository;
     private final AccountService accountService;
     private final UserService userService;
     private final SecurityUtils securityUtils;
     private final AuditService auditService;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final DailyBalanceService dailyBalanceService;
+    private final PostingService postingService;
 
     /**
      * Create or update a transaction and update account balances.
@@ -41,6 +50,7 @@ public class TransactionService {
 
         // If updating, verify user owns the existing transaction
         boolean created = transaction.getId() == null;
+        BalanceChange change = new BalanceChange();
         if (!created) {
             Transaction existing = transactionRepository.findById(transaction.getId())
                     .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
@@ -48,10 +58,10 @@ public class TransactionService {
             if (!existingUser.getId().equals(currentUser.getId())) {
                 throw new SecurityException("Cannot modify transaction belonging to another user");
             }
-            reverseBalanceEffect(existing);
+            change.add(existing, -1);
         }
 
-        return finishSave(transaction, currentUser, created);
+        return finishSave(transaction, currentUser, created, change);
     }
 
     /**
@@ -81,7 +91,8 @@ public class TransactionService {
         }
 
         // Reverse using the OLD amount/type/accounts before the mutator changes anything.
-        reverseBalanceEffect(existing);
+        BalanceChange change = new BalanceChange();
+        change.add(existing, -1);
 
         mutator.accept(existing);
 
@@ -89,7 +100,7 @@ public class TransactionService {
         validateAmountNotNegative(existing);
         checkAccountOwnership(existing, currentUser);
 
-        return finishSave(existing, currentUser, false);
+        return finishSave(existing, currentUser, false, change);
     }
 
     private void validateAmountNotNegative(Transaction transaction) {
@@ -112,10 +123,11 @@ public class TransactionService {
 
     /**
      * Shared tail of create/update: reload accounts as managed entities, apply the
-     * (new) balance effect, persist, and audit-log. Assumes any balance reversal for
-     * an update has already happened.
+     * (new) balance effect together with any reversal already collected in
+     * {@code change}, persist, book into the monthly totals and postings, and audit-log.
      */
-    private Transaction finishSave(Transaction transaction, User currentUser, boolean created) {
+    private Transaction finishSave(Transaction transaction, User currentUser, boolean created,
+                                   BalanceChange change) {
         // Reload accounts from repository to ensure we work with managed entities
         // This prevents double balance updates when the same account is referenced by different instances
         if (transaction.getFromAccount() != null && transaction.getFromAccount().getId() != null) {
@@ -125,10 +137,21 @@ public class TransactionService {
             transaction.setToAccount(accountService.getAccountById(transaction.getToAccount().getId()));
         }
 
-        applyBalanceEffect(transaction);
+        // Old and new effect go to the database as one net delta per account, so an
+        // update locks each account row once and in a consistent order - and before
+        // the day and monthly total rows of those accounts are touched.
+        change.add(transaction, 1);
+        accountService.applyBalanceDeltas(change.accounts);
+        dailyBalanceService.applyDeltas(currentUser, change.days);
+        monthlyTotalsService.applyDeltas(currentUser.getId(), change.months);
 
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
         Transaction saved = transactionRepository.save(transaction);
+        if (created) {
+            postingService.post(currentUser.getId(), List.of(saved));
+        } else {
+            postingService.repost(currentUser.getId(), saved);
+        }
         auditService.log(currentUser, created ? "CREATE" : "UPDATE", "Transaction", saved.getId(),
                 auditDetails(saved));
         return saved;
@@ -149,71 +172,21 @@ public class TransactionService {
         throw new IllegalStateException("Transaction has no associated account");
     }
 
-    private void applyBalanceEffect(Transaction t) {
-        BigDecimal amount = t.getAmount();
-        switch (t.getType()) {
-            case EXPENSE:
-                Account expenseAcc = t.getFromAccount();
-                if (expenseAcc != null) {
-                    BigDecimal balance = expenseAcc.getBalance() != null ? expenseAcc.getBalance() : BigDecimal.ZERO;
-                    expenseAcc.setBalance(balance.subtract(amount));
-                    accountService.saveAccount(expenseAcc);
-                }
-                break;
-            case INCOME:
-                Account incomeAcc = t.getToAccount();
-                if (incomeAcc != null) {
-                    BigDecimal balance = incomeAcc.getBalance() != null ? incomeAcc.getBalance() : BigDecimal.ZERO;
-                    incomeAcc.setBalance(balance.add(amount));
-                    accountService.saveAccount(incomeAcc);
-                }
-                break;
-            case TRANSFER:
-                Account fromAcc = t.getFromAccount();
-                Account toAcc = t.getToAccount();
-                if (fromAcc != null && toAcc != null) {
-                    BigDecimal fromBalance = fromAcc.getBalance() != null ? fromAcc.getBalance() : BigDecimal.ZERO;
-                    BigDecimal toBalance = toAcc.getBalance() != null ? toAcc.getBalance() : BigDecimal.ZERO;
-                    fromAcc.setBalance(fromBalance.subtract(amount));
-                    toAcc.setBalance(toBalance.add(amount));
-                    accountService.saveAccount(fromAcc);
-                    accountService.saveAccount(toAcc);
-                }
-                break;
-        }
-    }
+    /**
+     * Balance changes of one write, collected per account, per account-day and per
+     * monthly total row and applied together in {@link #finishSave}.
+     */
+    private static final class BalanceChange {
+        final Map<Account, BigDecimal> accounts = new HashMap<>();
+        final Map<DailyBalanceService.Key, BigDecimal> days = new HashMap<>();
+        final Map<MonthlyTotalsService.Key, BigDecimal> months = new HashMap<>();
 
-    private void reverseBalanceEffect(Transaction t) {
-        BigDecimal amount = t.getAmount();
-        switch (t.getType()) {
-            case EXPENSE:
-                Account eAcc = t.getFromAccount();
-                if (eAcc != null) {
-                    BigDecimal balance = eAcc.getBalance() != null ? eAcc.getBalance() : BigDecimal.ZERO;
-                    eAcc.setBalance(balance.add(amount));
-                    accountService.saveAccount(eAcc);
-                }
-                break;
-            case INCOME:
-                Account iAcc = t.getToAccount();
-                if (iAcc != null) {
-                    BigDecimal balance = iAcc.getBalance() != null ? iAcc.getBalance() : BigDecimal.ZERO;
-                    iAcc.setBalance(balance.subtract(amount));
-                    accountService.saveAccount(iAcc);
-                }
-                break;
-            case TRANSFER:
-                Account fAcc = t.getFromAccount();
-                Account tAcc = t.getToAccount();
-                if (fAcc != null && tAcc != null) {
-                    BigDecimal fromBalance = fAcc.getBalance() != null ? fAcc.getBalance() : BigDecimal.ZERO;
-                    BigDecimal toBalance = tAcc.getBalance() != null ? tAcc.getBalance() : BigDecimal.ZERO;
-                    fAcc.setBalance(fromBalance.add(amount));
-                    tAcc.setBalance(toBalance.subtract(amount));
-                    accountService.saveAccount(fAcc);
-                    accountService.saveAccount(tAcc);
-                }
-                break;
+        /** Adds a transaction's effect ({@code sign = 1}) or its reversal ({@code sign = -1}). */
+        void add(Transaction t, int sign) {
+            t.balanceEffects().forEach((account, amount) ->
+                    accounts.merge(account, sign < 0 ? amount.negate() : amount, BigDecimal::add));
+            DailyBalanceService.addEffect(days, t, sign);
+            MonthlyTotalsService.addContributions(months, t, sign);
         }
     }
 
@@ -231,21 +204,57 @@ public class TransactionService {
         return transactionRepository.findFiltered(user, account, type, from, to);
     }
 
-    /** id → running balance for the filter window, computed via SQL window function. */
+    /**
+     * id → running balance for the filter window, excluding start balances. The
+     * balance before the window's first day comes from the daily checkpoints; the
+     * database then only runs the window function over the window's own rows.
+     */
     public java.util.Map<Long, BigDecimal> getRunningBalances(User user, Account account,
             Transaction.TransactionType type, java.time.LocalDateTime from, java.time.LocalDateTime to) {
-        List<Object[]> rows = account == null
-                ? transactionRepository.runningBalancesForUser(user.getId(), from, to,
-                        type != null ? type.name() : null)
-                : transactionRepository.runningBalancesForAccount(account.getId(), from, to,
-                        type != null ? type.name() : null);
+        java.time.LocalDate firstDay = from.toLocalDate();
+        java.time.LocalDateTime windowStart = firstDay.atStartOfDay();
+        String typeName = type != null ? type.name() : null;
+        BigDecimal opening;
+        List<Object[]> rows;
+        if (account == null) {
+            opening = dailyBalanceService.changeBefore(user, firstDay);
+            rows = transactionRepository.runningBalancesForUser(user.getId(), windowStart, from, to, typeName);
+        } else {
+            opening = dailyBalanceService.changeBefore(account, firstDay);
+            rows = transactionRepository.runningBalancesForAccount(account.getId(), windowStart, from, to, typeName);
+        }
         java.util.Map<Long, BigDecimal> result = new java.util.HashMap<>();
         for (Object[] row : rows) {
-            result.put(((Number) row[0]).longValue(), (BigDecimal) row[1]);
+            result.put(((Number) row[0]).longValue(), opening.add((BigDecimal) row[1]));
         }
         return result;
     }
 
+    /** Units held and cost paid for one asset. */
+    public record AssetHolding(BigDecimal units, BigDecimal cost) {
+    }
+
+    /**
+     * Holdings per asset, summed by the database over the purchases booked into the
+     * user's ASSET accounts - one row per asset instead of the whole history.
+     */
+    @Transactional(readOnly = true)
+    public Map<Asset, AssetHolding> getAssetHoldings(User user) {
+        List<Object[]> rows = transactionRepository.sumAssetHoldings(user, Account.AccountType.ASSET);
+        Map<Long, Asset> assets = new HashMap<>();
+        assetRepository.findAllById(rows.stream().map(row -> (Long) row[0]).toList())
+                .forEach(asset -> assets.put(asset.getId(), asset));
+
+        Map<Asset, AssetHolding> holdings = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Asset asset = assets.get((Long) row[0]);
+            if (asset != null) {
+                holdings.put(asset, new AssetHolding((BigDecimal) row[1], (BigDecimal) row[2]));
+            }
+        }
+        return holdings;
+    }
+
     /**
      * Get all transactions for a specific user.
      */
@@ -254,15 +263,55 @@ public class TransactionService {
         return transactionRepository.findByUser(user);
     }
 
+    /**
+     * Number of transactions of any type in [from, to], either touching {@code accountId}
+     * or - when it is null - touching no account that is excluded from reports.
+     */
+    @Transactional(readOnly = true)
+    public long countForStatistics(User user, Long accountId,
+                                   java.time.LocalDateTime from, java.time.LocalDateTime to) {
+        return accountId != null
+                ? transactionRepository.countForAccount(user, accountId, from, to)
+                : transactionRepository.countReportable(user, from, to);
+    }
+
     /** Paged, filtered search backing the REST API's GET /api/transactions. */
     @Transactional(readOnly = true)
     public Page<Transaction> search(User user, Long accountId, Transaction.TransactionType type,
                                     Long categoryId, java.time.LocalDateTime from, java.time.LocalDateTime to,
                                     String payee, String tag, String search, Pageable pageable) {
-        return transactionRepository.searchByUser(user, accountId, type, categoryId,
+        return transactionRepository.searchByUser(user.getId(), accountId, type, categoryId,
                 from, to, payee, tag, search, pageable);
     }
 
+    /**
+     * Keyset page for the REST API: up to {@code limit} transactions strictly after the
+     * (keyDate, keySort, keyId) key, walking newest-first when {@code descending}.
+     * A null key starts at the first row.
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> seek(User user, Long accountId, Transaction.TransactionType type,
+                                  Long categoryId, java.time.LocalDateTime from, java.time.LocalDateTime to,
+                                  String payee, String tag, String search,
+                                  java.time.LocalDateTime keyDate, Integer keySort, Long keyId,
+                                  boolean descending, int limit) {
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, limit);
+        return descending
+                ? transactionRepository.seekByUserDesc(user.getId(), accountId, type, categoryId, from, to,
+                        payee, tag, search, keyDate, keySort, keyId, pageable)
+                : transactionRepository.seekByUserAsc(user.getId(), accountId, type, categoryId, from, to,
+                        payee, tag, search, keyDate, keySort, keyId, pageable);
+    }
+
+    /** Total rows matching the {@link #search} filter. */
+    @Transactional(readOnly = true)
+    public long countSearch(User user, Long accountId, Transaction.TransactionType type,
+                            Long categoryId, java.time.LocalDateTime from, java.time.LocalDateTime to,
+                            String payee, String tag, String search) {
+        return transactionRepository.countSearch(user.getId(), accountId, type, categoryId,
+                from, to, payee, tag, search);
+    }
+
     @Transactional
     public void deleteTransaction(Transaction transaction) {
         String username = securityUtils.getAuthenticatedUsername()
@@ -276,7 +325,12 @@ public class TransactionService {
                 throw new SecurityException("Cannot delete transaction belonging to another user");
             }
 
-            reverseBalanceEffect(t);
+            BalanceChange change = new BalanceChange();
+            change.add(t, -1);
+            accountService.applyBalanceDeltas(change.accounts);
+            dailyBalanceService.applyDeltas(currentUser, change.days);
+            monthlyTotalsService.applyDeltas(currentUser.getId(), change.months);
+            postingService.unpost(t.getId());
             transactionRepository.delete(t);
             auditService.log(currentUser, "DELETE", "Transaction", t.getId(), auditDetails(t));
         });
@@ -16,6 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,6 +34,10 @@ public class UserService implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final CurrencyRepository currencyRepository;
     private final AssetRepository assetRepository;
+    private final MonthlyTotalsService monthlyTotalsService;
+    private final DailyBalanceService dailyBalanceService;
+    private final PostingService postingService;
+    private final NetWorthService netWorthService;
 
     /**
      * Load user by username for Spring Security authentication.
@@ -300,6 +305,7 @@ public class UserService implements UserDetailsService {
         evictSessionUser();
         user.setDefaultCurrency(currencyCode);
         userRepository.save(user);
+        netWorthService.markDirty(user.getId(), LocalDate.MIN);
     }
 
     /**
@@ -369,6 +375,10 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
         log.info("Deleting user: {} (ID: {})", user.getUsername(), userId);
+        monthlyTotalsService.deleteForUser(userId);
+        dailyBalanceService.deleteForUser(userId);
+        postingService.deleteForUser(userId);
+        netWorthService.deleteForUser(userId);
         userRepository.delete(user);
         log.info("User deleted successfully: {}", user.getUsername());
     }
@@ -380,6 +390,10 @@ public class UserService implements UserDetailsService {
     @Transactional
     public void deleteUser(User user) {
         log.info("Deleting user: {} (ID: {})", user.getUsername(), user.getId());
+        monthlyTotalsService.deleteForUser(user.getId());
+        dailyBalanceService.deleteForUser(user.getId());
+        postingService.deleteForUser(user.getId());
+        netWorthService.deleteForUser(user.getId());
         userRepository.delete(user);
         log.info("User deleted successfully: {}", user.getUsername());
     }
@@ -34,7 +34,7 @@ public class VehicleReportService {
     private static final Pattern FULL_TANK_PATTERN = Pattern.compile("\\b(full)\\b", Pattern.CASE_INSENSITIVE);
 
     private final TransactionService transactionService;
-    private final ExchangeRateService exchangeRateService;
+    private final FxRateService fxRateService;
 
     @Getter
     @Setter
@@ -95,7 +95,7 @@ public class VehicleReportService {
         BigDecimal totalCost = BigDecimal.ZERO;
         BigDecimal totalLiters = BigDecimal.ZERO;
         for (FuelEntry e : entries) {
-            totalCost = totalCost.add(exchangeRateService.convert(e.getAmount(), e.getCurrency(), user.getDefaultCurrency()));
+            totalCost = totalCost.add(fxRateService.convert(e.getAmount(), e.getCurrency(), user.getDefaultCurrency(), e.getDate()));
             if (e.getLiters() != null) totalLiters = totalLiters.add(e.getLiters());
         }
 
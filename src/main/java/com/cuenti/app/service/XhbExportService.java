@@ -2,98 +2,103 @@ package com.cuenti.app.service;
 
 import com.cuenti.app.model.*;
 import com.cuenti.app.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.ByteArrayOutputStream;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's data as a HomeBank (.xhb) file.
+ *
+ * <p>The document is written element by element through an {@link XMLStreamWriter}
+ * straight to the output stream. Transactions are read through a database cursor
+ * and detached once written, so neither a DOM nor the serialized file nor the
+ * transaction history is ever held in memory.
+ */
 @Service
 @RequiredArgsConstructor
 public class XhbExportService {
 
+    /** HomeBank stores dates as day numbers, day 1 being 0001-01-01. */
+    private static final LocalDate DAY_ONE = LocalDate.of(1, 1, 1);
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final CategoryRepository categoryRepository;
     private final PayeeRepository payeeRepository;
     private final CurrencyRepository currencyRepository;
     private final ScheduledTransactionRepository scheduledRepository;
-
-    public byte[] exportXhb(User user) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.newDocument();
-
-        Element root = doc.createElement("homebank");
-        root.setAttribute("v", "1.6");
-        doc.appendChild(root);
+    private final EntityManager entityManager;
+
+    /** Writes the export to {@code out} and returns the number of operations written. */
+    @Transactional(readOnly = true)
+    public long exportXhb(User user, OutputStream out) throws IOException, XMLStreamException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(buffered, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        xml.writeStartElement("homebank");
+        xml.writeAttribute("v", "1.6");
 
         // 1. Properties
-        Element props = doc.createElement("properties");
-        props.setAttribute("title", user.getUsername());
-        props.setAttribute("curr", "1");
-        root.appendChild(props);
+        element(xml, "properties");
+        xml.writeAttribute("title", user.getUsername());
+        xml.writeAttribute("curr", "1");
 
         // 2. Currencies (Mapping to keys)
         Map<String, String> curToKey = new HashMap<>();
-        List<Currency> currencies = currencyRepository.findAll();
+        List<Currency> currencies = currencyRepository.findByUser(user);
         for (int i = 0; i < currencies.size(); i++) {
             Currency c = currencies.get(i);
             String key = String.valueOf(i + 1);
             curToKey.put(c.getCode(), key);
-            
-            Element cur = doc.createElement("cur");
-            cur.setAttribute("key", key);
-            cur.setAttribute("iso", c.getCode());
-            cur.setAttribute("name", c.getName());
-            cur.setAttribute("symb", c.getSymbol());
-            cur.setAttribute("dchar", c.getDecimalChar());
-            cur.setAttribute("gchar", c.getGroupingChar());
-            cur.setAttribute("frac", String.valueOf(c.getFracDigits()));
-            root.appendChild(cur);
+
+            element(xml, "cur");
+            attribute(xml, "key", key);
+            attribute(xml, "iso", c.getCode());
+            attribute(xml, "name", c.getName());
+            attribute(xml, "symb", c.getSymbol());
+            attribute(xml, "dchar", c.getDecimalChar());
+            attribute(xml, "gchar", c.getGroupingChar());
+            attribute(xml, "frac", String.valueOf(c.getFracDigits()));
         }
 
         // 3. Categories
-        Map<Long, String> catToKey = new HashMap<>();
-        List<Category> categories = categoryRepository.findAll();
-        for (Category c : categories) {
-            String key = String.valueOf(c.getId());
-            catToKey.put(c.getId(), key);
-            Element cat = doc.createElement("cat");
-            cat.setAttribute("key", key);
-            cat.setAttribute("name", c.getName());
-            cat.setAttribute("flags", c.getType() == Category.CategoryType.INCOME ? "2" : "0");
+        for (Category c : categoryRepository.findByUser(user)) {
+            element(xml, "cat");
+            attribute(xml, "key", String.valueOf(c.getId()));
+            attribute(xml, "name", c.getName());
+            attribute(xml, "flags", c.getType() == Category.CategoryType.INCOME ? "2" : "0");
             if (c.getParent() != null) {
-                cat.setAttribute("parent", String.valueOf(c.getParent().getId()));
+                attribute(xml, "parent", String.valueOf(c.getParent().getId()));
             }
-            root.appendChild(cat);
         }
 
         // 4. Payees
         Map<String, String> payeeToKey = new HashMap<>();
-        List<Payee> payees = payeeRepository.findAll();
+        List<Payee> payees = payeeRepository.findByUser(user);
         for (int i = 0; i < payees.size(); i++) {
             Payee p = payees.get(i);
             String key = String.valueOf(i + 1);
             payeeToKey.put(p.getName(), key);
-            Element pay = doc.createElement("pay");
-            pay.setAttribute("key", key);
-            pay.setAttribute("name", p.getName());
-            root.appendChild(pay);
+            element(xml, "pay");
+            attribute(xml, "key", key);
+            attribute(xml, "name", p.getName());
         }
 
         // 5. Accounts
@@ -103,105 +108,111 @@ public class XhbExportService {
             Account acc = accounts.get(i);
             String key = String.valueOf(i + 1);
             accToKey.put(acc.getId(), key);
-            Element account = doc.createElement("account");
-            account.setAttribute("key", key);
-            account.setAttribute("name", acc.getAccountName());
-            account.setAttribute("bankname", acc.getInstitution() != null ? acc.getInstitution() : "");
-            account.setAttribute("initial", acc.getStartBalance().toString());
-            account.setAttribute("curr", curToKey.getOrDefault(acc.getCurrency(), "1"));
-            
+
             String type = "1"; // Bank
             if (acc.getAccountType() == Account.AccountType.CASH) type = "2";
             else if (acc.getAccountType() == Account.AccountType.ASSET) type = "3";
-            account.setAttribute("type", type);
-            
-            root.appendChild(account);
+
+            element(xml, "account");
+            attribute(xml, "key", key);
+            attribute(xml, "name", acc.getAccountName());
+            attribute(xml, "bankname", acc.getInstitution());
+            attribute(xml, "initial", acc.getStartBalance().toString());
+            attribute(xml, "curr", curToKey.getOrDefault(acc.getCurrency(), "1"));
+            attribute(xml, "type", type);
         }
 
-        // 6. Transactions (<ope>)
-        List<Transaction> transactions = transactionRepository.findByUser(user);
-        LocalDate homebankEpoch = LocalDate.of(1, 1, 1);
-        for (Transaction t : transactions) {
-            Element ope = doc.createElement("ope");
-            long days = ChronoUnit.DAYS.between(homebankEpoch, t.getTransactionDate().toLocalDate()) + 1;
-            ope.setAttribute("date", String.valueOf(days));
-            
-            BigDecimal amount = t.getAmount();
-            if (t.getType() == Transaction.TransactionType.EXPENSE) {
-                amount = amount.negate();
-            }
-            
-            Account mainAcc = (t.getType() == Transaction.TransactionType.INCOME) ? t.getToAccount() : t.getFromAccount();
-            if (mainAcc == null) continue;
-
-            ope.setAttribute("amount", amount.toString());
-            ope.setAttribute("account", accToKey.get(mainAcc.getId()));
-            
-            if (t.getType() == Transaction.TransactionType.TRANSFER && t.getToAccount() != null) {
-                ope.setAttribute("dst_account", accToKey.get(t.getToAccount().getId()));
-            }
-            
-            if (t.getPayee() != null) {
-                ope.setAttribute("payee", payeeToKey.get(t.getPayee()));
+        // 6. Transactions (<ope>), through a cursor
+        long count = 0;
+        try (Stream<Transaction> rows = transactionRepository.streamForExport(user, null, null, null)) {
+            for (Transaction t : (Iterable<Transaction>) rows::iterator) {
+                Account mainAcc = (t.getType() == Transaction.TransactionType.INCOME) ? t.getToAccount() : t.getFromAccount();
+                if (mainAcc != null) {
+                    writeOperation(xml, t, mainAcc, accToKey, payeeToKey);
+                    count++;
+                }
+                entityManager.detach(t);
             }
-            
-            if (t.getCategory() != null) {
-                ope.setAttribute("category", catToKey.get(t.getCategory().getId()));
-            }
-            
-            ope.setAttribute("wording", t.getMemo() != null ? t.getMemo() : "");
-            ope.setAttribute("tags", t.getTags() != null ? t.getTags() : "");
-            
-            root.appendChild(ope);
         }
 
         // 7. Schedulers (<fav>)
-        List<ScheduledTransaction> scheduled = scheduledRepository.findByUser(user);
-        for (ScheduledTransaction st : scheduled) {
-            Element fav = doc.createElement("fav");
-            
+        for (ScheduledTransaction st : scheduledRepository.findByUser(user)) {
             BigDecimal amount = st.getAmount();
             if (st.getType() == Transaction.TransactionType.EXPENSE) {
                 amount = amount.negate();
             }
-            fav.setAttribute("amount", amount.toString());
-            
+
+            String unit = switch (st.getRecurrencePattern()) {
+                case DAILY -> "1";
+                case YEARLY -> "3";
+                default -> "2"; // Monthly
+            };
+
+            element(xml, "fav");
+            attribute(xml, "amount", amount.toString());
             Account mainAcc = (st.getType() == Transaction.TransactionType.INCOME) ? st.getToAccount() : st.getFromAccount();
             if (mainAcc != null) {
-                fav.setAttribute("account", accToKey.get(mainAcc.getId()));
+                attribute(xml, "account", accToKey.get(mainAcc.getId()));
             }
             if (st.getType() == Transaction.TransactionType.TRANSFER && st.getToAccount() != null) {
-                fav.setAttribute("dst_account", accToKey.get(st.getToAccount().getId()));
+                attribute(xml, "dst_account", accToKey.get(st.getToAccount().getId()));
             }
+            attribute(xml, "nextdate", String.valueOf(toDayNumber(st.getNextOccurrence())));
+            attribute(xml, "unit", unit);
+            attribute(xml, "every", String.valueOf(st.getRecurrenceValue()));
+            if (st.getPayee() != null) attribute(xml, "payee", payeeToKey.get(st.getPayee()));
+            if (st.getCategory() != null) attribute(xml, "category", String.valueOf(st.getCategory().getId()));
+            attribute(xml, "wording", st.getMemo());
+            attribute(xml, "tags", st.getTags());
+        }
 
-            long days = ChronoUnit.DAYS.between(homebankEpoch, st.getNextOccurrence().toLocalDate()) + 1;
-            fav.setAttribute("nextdate", String.valueOf(days));
-            
-            String unit = "2"; // Monthly default
-            switch (st.getRecurrencePattern()) {
-                case DAILY: unit = "1"; break;
-                case YEARLY: unit = "3"; break;
-            }
-            fav.setAttribute("unit", unit);
-            fav.setAttribute("every", String.valueOf(st.getRecurrenceValue()));
-            
-            if (st.getPayee() != null) fav.setAttribute("payee", payeeToKey.get(st.getPayee()));
-            if (st.getCategory() != null) fav.setAttribute("category", catToKey.get(st.getCategory().getId()));
-            fav.setAttribute("wording", st.getMemo() != null ? st.getMemo() : "");
-            fav.setAttribute("tags", st.getTags() != null ? st.getTags() : "");
-            
-            root.appendChild(fav);
+        xml.writeCharacters("\n");
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+        buffered.flush();
+        return count;
+    }
+
+    private static void writeOperation(XMLStreamWriter xml, Transaction t, Account mainAcc,
+                                       Map<Long, String> accToKey, Map<String, String> payeeToKey)
+            throws XMLStreamException {
+        BigDecimal amount = t.getAmount();
+        if (t.getType() == Transaction.TransactionType.EXPENSE) {
+            amount = amount.negate();
+        }
+
+        element(xml, "ope");
+        attribute(xml, "date", String.valueOf(toDayNumber(t.getTransactionDate())));
+        attribute(xml, "amount", amount.toString());
+        attribute(xml, "account", accToKey.get(mainAcc.getId()));
+        if (t.getType() == Transaction.TransactionType.TRANSFER && t.getToAccount() != null) {
+            attribute(xml, "dst_account", accToKey.get(t.getToAccount().getId()));
         }
+        if (t.getPayee() != null) {
+            attribute(xml, "payee", payeeToKey.get(t.getPayee()));
+        }
+        if (t.getCategory() != null) {
+            attribute(xml, "category", String.valueOf(t.getCategory().getId()));
+        }
+        attribute(xml, "wording", t.getMemo());
+        attribute(xml, "tags", t.getTags());
+    }
 
-        // Transform to XML bytes
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Transformer transformer = tf.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+    /** Starts an empty element on its own, indented line. */
+    private static void element(XMLStreamWriter xml, String name) throws XMLStreamException {
+        xml.writeCharacters("\n  ");
+        xml.writeEmptyElement(name);
+    }
+
+    /** Writes null values as empty attributes, as the DOM export did. */
+    private static void attribute(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        xml.writeAttribute(name, value != null ? value : "");
+    }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        transformer.transform(new DOMSource(doc), new StreamResult(out));
-        return out.toByteArray();
+    private static long toDayNumber(LocalDateTime date) {
+        return ChronoUnit.DAYS.between(DAY_ONE, date.toLocalDate()) + 1;
     }
 }
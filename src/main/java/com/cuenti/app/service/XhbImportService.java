@@ -2,338 +2,443 @@ package com.cuenti.app.service;
 
 import com.cuenti.app.model.*;
 import com.cuenti.app.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Imports a HomeBank (.xhb) file for an explicitly given user.
+ *
+ * <p>The file is read with StAX, one element at a time. HomeBank writes the
+ * reference data (currencies, groups, accounts, payees, categories, tags and
+ * scheduled entries) before the operations, so those few elements are buffered
+ * and saved once the first {@code <ope>} arrives. Operations are then turned into
+ * transactions as they stream past and written through a
+ * {@link TransactionBatchService.Writer} in JDBC batches of
+ * {@code cuenti.import.batch-size}; account balances are applied once at the end.
+ * Memory use does not grow with the number of operations. Run as an
+ * {@link ImportJobService} job, every batch is committed on its own instead.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class XhbImportService {
 
+    /** HomeBank stores dates as day numbers, day 1 being 0001-01-01. */
+    private static final LocalDate DAY_ONE = LocalDate.of(1, 1, 1);
+
     private final AccountService accountService;
-    private final TransactionService transactionService;
-    private final CategoryService categoryService;
-    private final PayeeService payeeService;
-    private final TagService tagService;
+    private final TransactionBatchService batchService;
+    private final CategoryRepository categoryRepository;
+    private final PayeeRepository payeeRepository;
+    private final TagRepository tagRepository;
     private final CurrencyRepository currencyRepository;
-    private final ScheduledTransactionService scheduledService;
-    private final UserService userService;
+    private final ScheduledTransactionRepository scheduledRepository;
+    private final DueSoonService dueSoonService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cuenti.import.batch-size:1000}")
+    private int importBatchSize;
+
+    /** The user's entities, by HomeBank key. */
+    private static final class References {
+        final Map<String, String> currencies = new HashMap<>();
+        final Map<String, String> groups = new HashMap<>();
+        final Map<String, Category> categories = new HashMap<>();
+        final Map<String, String> payees = new HashMap<>();
+        final Map<String, Account> accounts = new HashMap<>();
+        final Set<String> tags = new HashSet<>(); // lower case
+
+        /** Database ids of the saved categories and accounts, keyed "kind:HomeBank key". */
+        Map<String, Long> ids() {
+            Map<String, Long> ids = new HashMap<>();
+            categories.forEach((key, c) -> ids.put("category:" + key, c.getId()));
+            accounts.forEach((key, a) -> ids.put("account:" + key, a.getId()));
+            return ids;
+        }
+    }
 
     @Transactional
     public void importXhb(InputStream inputStream, User user) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(inputStream);
-
-        // Map Homebank keys to our entities
-        Map<String, String> currencyMap = new HashMap<>();
-        Map<String, String> groupMap = new HashMap<>();
-        Map<String, Category> categoryMap = new HashMap<>();
-        Map<String, Payee> payeeMap = new HashMap<>();
-        Map<String, Account> accountMap = new HashMap<>();
-
-        // 1. Import Currencies
-        NodeList curList = doc.getElementsByTagName("cur");
-        for (int i = 0; i < curList.getLength(); i++) {
-            Element el = (Element) curList.item(i);
-            String key = el.getAttribute("key");
-            String iso = el.getAttribute("iso");
-            currencyMap.put(key, iso);
-            
-            if (iso != null && !iso.isEmpty() && !iso.equals("BTC")) {
-                if (!currencyRepository.findByUserAndCode(user, iso).isPresent()) {
-                    Currency c = new Currency();
-                    c.setUser(user);
-                    c.setCode(iso);
-                    c.setName(el.getAttribute("name"));
-                    c.setSymbol(el.getAttribute("symb"));
-                    c.setDecimalChar(el.getAttribute("dchar").isEmpty() ? "," : el.getAttribute("dchar"));
-                    c.setGroupingChar(el.getAttribute("gchar").isEmpty() ? "." : el.getAttribute("gchar"));
-                    try {
-                        c.setFracDigits(Integer.parseInt(el.getAttribute("frac").isEmpty() ? "2" : el.getAttribute("frac")));
-                    } catch (NumberFormatException e) {
-                        c.setFracDigits(2);
+        importXhb(inputStream, user, ImportCheckpoint.NONE);
+    }
+
+    /**
+     * As {@link #importXhb(InputStream, User)}, for a background job: called without
+     * a transaction, it commits the reference data, each chunk of operations and
+     * finally the scheduled entries separately, reporting to {@code checkpoint}, and
+     * resumes where an earlier run of the job stopped.
+     */
+    public void importXhb(InputStream inputStream, User user, ImportCheckpoint checkpoint) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Map<String, List<Map<String, String>>> buffered = new HashMap<>();
+        List<Map<String, String>> favs = new ArrayList<>();
+        References refs = null;
+        TransactionBatchService.Writer writer = batchService.openWriter(user, importBatchSize, checkpoint);
+        int transactionSortOrder = 0;
+
+        XMLStreamReader reader = newReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+                String name = reader.getLocalName();
+                switch (name) {
+                    case "cur", "grp", "cat", "tag", "pay", "account" -> {
+                        if (refs != null) {
+                            throw new IllegalArgumentException("Unexpected <" + name + "> after the operations");
+                        }
+                        buffered.computeIfAbsent(name, k -> new ArrayList<>()).add(attributes(reader));
+                    }
+                    case "fav" -> favs.add(attributes(reader));
+                    case "ope" -> {
+                        if (refs == null) refs = references(transactionTemplate, buffered, user, checkpoint);
+                        Transaction t = toTransaction(attributes(reader), refs, user, transactionSortOrder);
+                        if (t != null) {
+                            writer.add(t);
+                            transactionSortOrder++;
+                        }
                     }
-                    currencyRepository.save(c);
+                    default -> { }
                 }
             }
+        } finally {
+            reader.close();
+        }
+        if (refs == null) refs = references(transactionTemplate, buffered, user, checkpoint);
+
+        References references = refs;
+        List<ScheduledTransaction> scheduled = new ArrayList<>(favs.size());
+        int imported = transactionTemplate.execute(status -> {
+            int rows = writer.finish("IMPORT_XHB");
+            for (Map<String, String> el : favs) {
+                scheduled.add(toScheduled(el, references, user));
+            }
+            scheduledRepository.saveAll(scheduled);
+            dueSoonService.invalidate(user);
+            return rows;
+        });
+        log.info("Imported {} transactions, {} accounts and {} schedules from XHB for user {}",
+                imported, refs.accounts.size(), scheduled.size(), user.getUsername());
+    }
+
+    /**
+     * Saves the reference data in its own transaction, or, when an earlier run of
+     * the job already did, maps the keys to the entities it created.
+     */
+    private References references(TransactionTemplate transactionTemplate,
+                                  Map<String, List<Map<String, String>>> buffered, User user,
+                                  ImportCheckpoint checkpoint) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Long> ids = checkpoint.referenceIds();
+            if (ids == null) {
+                References refs = resolve(buffered, user);
+                checkpoint.referencesCommitted(refs.ids());
+                return refs;
+            }
+            return restore(buffered, user, ids);
+        });
+    }
+
+    /** The {@link References} of a resumed import, without saving anything again. */
+    private References restore(Map<String, List<Map<String, String>>> buffered, User user, Map<String, Long> ids) {
+        References refs = new References();
+        for (Map<String, String> el : elements(buffered, "cur")) {
+            refs.currencies.put(attr(el, "key"), attr(el, "iso"));
+        }
+        for (Map<String, String> el : elements(buffered, "grp")) {
+            refs.groups.put(attr(el, "key"), attr(el, "name"));
+        }
+        for (Map<String, String> el : elements(buffered, "pay")) {
+            refs.payees.put(attr(el, "key"), attr(el, "name"));
+        }
+        for (Tag tag : tagRepository.findByUser(user)) {
+            refs.tags.add(tag.getName().toLowerCase(Locale.ROOT));
+        }
+        ids.forEach((key, id) -> {
+            String xhbKey = key.substring(key.indexOf(':') + 1);
+            if (key.startsWith("category:")) {
+                refs.categories.put(xhbKey, entityManager.find(Category.class, id));
+            } else if (key.startsWith("account:")) {
+                refs.accounts.put(xhbKey, entityManager.find(Account.class, id));
+            }
+        });
+        return refs;
+    }
+
+    private static XMLStreamReader newReader(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(in);
+    }
+
+    private static Map<String, String> attributes(XMLStreamReader reader) {
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
         }
+        return attributes;
+    }
+
+    /** Like DOM's getAttribute: missing attributes read as "". */
+    private static String attr(Map<String, String> el, String name) {
+        return el.getOrDefault(name, "");
+    }
 
-        // 2. Import Groups
-        NodeList grpList = doc.getElementsByTagName("grp");
-        for (int i = 0; i < grpList.getLength(); i++) {
-            Element el = (Element) grpList.item(i);
-            groupMap.put(el.getAttribute("key"), el.getAttribute("name"));
+    private static List<Map<String, String>> elements(Map<String, List<Map<String, String>>> buffered, String name) {
+        return buffered.getOrDefault(name, List.of());
+    }
+
+    /** Saves the buffered reference data and maps HomeBank keys to the saved entities. */
+    private References resolve(Map<String, List<Map<String, String>>> buffered, User user) {
+        References refs = new References();
+
+        // 1. Currencies
+        for (Map<String, String> el : elements(buffered, "cur")) {
+            String iso = attr(el, "iso");
+            refs.currencies.put(attr(el, "key"), iso);
+
+            if (!iso.isEmpty() && !iso.equals("BTC") && currencyRepository.findByUserAndCode(user, iso).isEmpty()) {
+                Currency c = new Currency();
+                c.setUser(user);
+                c.setCode(iso);
+                c.setName(attr(el, "name"));
+                c.setSymbol(attr(el, "symb"));
+                c.setDecimalChar(attr(el, "dchar").isEmpty() ? "," : attr(el, "dchar"));
+                c.setGroupingChar(attr(el, "gchar").isEmpty() ? "." : attr(el, "gchar"));
+                try {
+                    c.setFracDigits(Integer.parseInt(attr(el, "frac").isEmpty() ? "2" : attr(el, "frac")));
+                } catch (NumberFormatException e) {
+                    c.setFracDigits(2);
+                }
+                currencyRepository.save(c);
+            }
         }
 
-        // 3. Import Categories (Hierarchy)
-        NodeList catList = doc.getElementsByTagName("cat");
+        // 2. Groups
+        for (Map<String, String> el : elements(buffered, "grp")) {
+            refs.groups.put(attr(el, "key"), attr(el, "name"));
+        }
 
-        // Build a DTO map first: key -> (name, parentKey, type)
+        // 3. Categories, parents first
         class CatDTO { String key; String name; String parent; Category.CategoryType type; }
-        java.util.Map<String, CatDTO> remaining = new java.util.LinkedHashMap<>();
-        for (int i = 0; i < catList.getLength(); i++) {
-            Element el = (Element) catList.item(i);
-            String key = el.getAttribute("key");
+        Map<String, CatDTO> remaining = new LinkedHashMap<>();
+        for (Map<String, String> el : elements(buffered, "cat")) {
             int flags = 0;
-            try { String flagsStr = el.getAttribute("flags"); flags = flagsStr.isEmpty() ? 0 : Integer.parseInt(flagsStr); } catch (NumberFormatException e) {}
+            try { flags = attr(el, "flags").isEmpty() ? 0 : Integer.parseInt(attr(el, "flags")); } catch (NumberFormatException e) {}
             CatDTO dto = new CatDTO();
-            dto.key = key;
-            dto.name = el.getAttribute("name");
-            dto.parent = el.getAttribute("parent");
+            dto.key = attr(el, "key");
+            dto.name = attr(el, "name");
+            dto.parent = attr(el, "parent");
             dto.type = (flags & 2) != 0 ? Category.CategoryType.INCOME : Category.CategoryType.EXPENSE;
-            remaining.put(key, dto);
+            remaining.put(dto.key, dto);
         }
 
-        // Parent-first creation loop
         boolean progress = true;
         while (!remaining.isEmpty() && progress) {
             progress = false;
-            java.util.Iterator<java.util.Map.Entry<String, CatDTO>> it = remaining.entrySet().iterator();
+            Iterator<Map.Entry<String, CatDTO>> it = remaining.entrySet().iterator();
             while (it.hasNext()) {
-                java.util.Map.Entry<String, CatDTO> entry = it.next();
-                CatDTO dto = entry.getValue();
-                if (dto.parent == null || dto.parent.isEmpty() || categoryMap.containsKey(dto.parent)) {
+                CatDTO dto = it.next().getValue();
+                if (dto.parent.isEmpty() || refs.categories.containsKey(dto.parent)) {
                     Category cat = Category.builder().name(dto.name).type(dto.type).build();
-                    if (dto.parent != null && !dto.parent.isEmpty()) {
-                        cat.setParent(categoryMap.get(dto.parent));
-                    }
-                    try {
-                        categoryMap.put(dto.key, categoryService.saveCategory(cat));
-                    } catch (IllegalArgumentException ex) {
-                        // try to disambiguate name and retry
-                        String base = cat.getName();
-                        String suffix = " (import)";
-                        String newName = base + suffix;
-                        int attempt = 1;
-                        boolean saved = false;
-                        while (attempt < 10 && !saved) {
-                            try {
-                                cat.setName(newName);
-                                categoryMap.put(dto.key, categoryService.saveCategory(cat));
-                                saved = true;
-                            } catch (IllegalArgumentException ex2) {
-                                attempt++;
-                                newName = base + suffix.replace(")", " " + attempt + ")");
-                            }
-                        }
-                        if (!saved) throw ex;
+                    if (!dto.parent.isEmpty()) {
+                        cat.setParent(refs.categories.get(dto.parent));
                     }
+                    refs.categories.put(dto.key, saveCategory(cat, user));
                     it.remove();
                     progress = true;
                 }
             }
         }
-
         // Fallback: create any remaining categories without parents to avoid blocking the import
-        if (!remaining.isEmpty()) {
-            for (CatDTO dto : remaining.values()) {
-                Category cat = Category.builder().name(dto.name).type(dto.type).build();
-                try {
-                    categoryMap.put(dto.key, categoryService.saveCategory(cat));
-                } catch (IllegalArgumentException ex) {
-                    String base = cat.getName();
-                    String suffix = " (import)";
-                    String newName = base + suffix;
-                    int attempt = 1;
-                    boolean saved = false;
-                    while (attempt < 10 && !saved) {
-                        try {
-                            cat.setName(newName);
-                            categoryMap.put(dto.key, categoryService.saveCategory(cat));
-                            saved = true;
-                        } catch (IllegalArgumentException ex2) {
-                            attempt++;
-                            newName = base + suffix.replace(")", " " + attempt + ")");
-                        }
-                    }
-                    if (!saved) throw ex;
-                }
-            }
-            remaining.clear();
+        for (CatDTO dto : remaining.values()) {
+            refs.categories.put(dto.key, saveCategory(Category.builder().name(dto.name).type(dto.type).build(), user));
         }
 
-        // 4. Import Tags from Tag Definitions
-        NodeList tagDefList = doc.getElementsByTagName("tag");
-        for (int i = 0; i < tagDefList.getLength(); i++) {
-            Element el = (Element) tagDefList.item(i);
-            ensureTagExists(el.getAttribute("name"));
+        // 4. Tags
+        for (Tag tag : tagRepository.findByUser(user)) {
+            refs.tags.add(tag.getName().toLowerCase(Locale.ROOT));
+        }
+        for (Map<String, String> el : elements(buffered, "tag")) {
+            ensureTagExists(attr(el, "name"), refs, user);
         }
 
-        // 5. Import Payees
-        NodeList payList = doc.getElementsByTagName("pay");
-        for (int i = 0; i < payList.getLength(); i++) {
-            Element el = (Element) payList.item(i);
-            String key = el.getAttribute("key");
-            Payee p = Payee.builder()
-                    .name(el.getAttribute("name"))
-                    .build();
-            payeeMap.put(key, payeeService.savePayee(p));
+        // 5. Payees
+        for (Map<String, String> el : elements(buffered, "pay")) {
+            Payee p = payeeRepository.save(Payee.builder().user(user).name(attr(el, "name")).build());
+            refs.payees.put(attr(el, "key"), p.getName());
         }
 
-        // 6. Import Accounts
-        NodeList accList = doc.getElementsByTagName("account");
-        for (int i = 0; i < accList.getLength(); i++) {
-            Element el = (Element) accList.item(i);
-            String key = el.getAttribute("key");
-            String typeStr = el.getAttribute("type");
-            
+        // 6. Accounts
+        for (Map<String, String> el : elements(buffered, "account")) {
+            String key = attr(el, "key");
+            String typeStr = attr(el, "type");
+
             Account.AccountType type = Account.AccountType.BANK;
             if ("2".equals(typeStr)) type = Account.AccountType.CASH;
             else if ("3".equals(typeStr)) type = Account.AccountType.ASSET;
 
+            BigDecimal initial = new BigDecimal(attr(el, "initial").isEmpty() ? "0" : attr(el, "initial"));
             Account acc = Account.builder()
                     .user(user)
-                    .accountName(el.getAttribute("name"))
+                    .accountName(attr(el, "name"))
                     .accountNumber("HB-" + key)
-                    .institution(el.getAttribute("bankname"))
+                    .institution(attr(el, "bankname"))
                     .accountType(type)
-                    .accountGroup(groupMap.get(el.getAttribute("grp")))
-                    .currency(currencyMap.getOrDefault(el.getAttribute("curr"), "EUR"))
-                    .startBalance(new BigDecimal(el.getAttribute("initial").isEmpty() ? "0" : el.getAttribute("initial")))
-                    .balance(new BigDecimal(el.getAttribute("initial").isEmpty() ? "0" : el.getAttribute("initial")))
+                    .accountGroup(refs.groups.get(attr(el, "grp")))
+                    .currency(refs.currencies.getOrDefault(attr(el, "curr"), "EUR"))
+                    .startBalance(initial)
+                    .balance(initial)
                     .build();
-            
-            accountMap.put(key, accountService.saveAccount(acc));
+
+            refs.accounts.put(key, accountService.saveAccountForUser(acc, user));
         }
+        return refs;
+    }
 
-        // 7. Import Operations (Transactions)
-        NodeList opeList = doc.getElementsByTagName("ope");
-        int transactionSortOrder = 0;
-        for (int i = 0; i < opeList.getLength(); i++) {
-            Element el = (Element) opeList.item(i);
-            
-            BigDecimal rawAmount = new BigDecimal(el.getAttribute("amount"));
-            Account account = accountMap.get(el.getAttribute("account"));
-            Account dstAccount = accountMap.get(el.getAttribute("dst_account"));
-            
-            // FIX: Skip duplicate transfers. Homebank pairs transfers. 
-            // We ONLY process the negative side (the source) to avoid doubling history and balances.
-            if (dstAccount != null && rawAmount.compareTo(BigDecimal.ZERO) > 0) {
-                continue; 
+    /** Saves a category, renaming it "(import)", "(import 2)", ... when the name is taken. */
+    private Category saveCategory(Category cat, User user) {
+        cat.setUser(user);
+        String base = cat.getName();
+        String suffix = " (import)";
+        String name = base;
+        for (int attempt = 1; attempt < 10; attempt++) {
+            if (categoryRepository.findByUserAndParentAndName(user, cat.getParent(), name).isEmpty()) {
+                cat.setName(name);
+                return categoryRepository.save(cat);
             }
+            name = attempt == 1 ? base + suffix : base + suffix.replace(")", " " + attempt + ")");
+        }
+        throw new IllegalArgumentException("Category with same name already exists in this hierarchy");
+    }
 
-            BigDecimal amount = rawAmount.abs();
-            long days = Long.parseLong(el.getAttribute("date"));
-            LocalDateTime date = LocalDate.of(1, 1, 1).plusDays(days - 1).atStartOfDay();
-            
-            Transaction.TransactionType type;
-            Account fromAcc = null;
-            Account toAcc = null;
+    /** One operation as a transaction; null for the incoming side of a transfer. */
+    private Transaction toTransaction(Map<String, String> el, References refs, User user, int sortOrder) {
+        BigDecimal rawAmount = new BigDecimal(attr(el, "amount"));
+        Account account = refs.accounts.get(attr(el, "account"));
+        Account dstAccount = refs.accounts.get(attr(el, "dst_account"));
 
-            if (dstAccount != null) {
-                type = Transaction.TransactionType.TRANSFER;
-                fromAcc = account;
-                toAcc = dstAccount;
-            } else if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
-                type = Transaction.TransactionType.EXPENSE;
-                fromAcc = account;
-            } else {
-                type = Transaction.TransactionType.INCOME;
-                toAcc = account;
-            }
+        // HomeBank stores both sides of a transfer. We only take the negative side
+        // (the source) to avoid doubling history and balances.
+        if (dstAccount != null && rawAmount.compareTo(BigDecimal.ZERO) > 0) {
+            return null;
+        }
 
-            String rawTags = el.getAttribute("tags");
-            String tags = convertSpaceTagsToComma(rawTags);
-            importTagsFromString(tags);
-
-            Transaction t = Transaction.builder()
-                    .type(type)
-                    .amount(amount)
-                    .transactionDate(date)
-                    .fromAccount(fromAcc)
-                    .toAccount(toAcc)
-                    .payee(el.hasAttribute("payee") ? (payeeMap.get(el.getAttribute("payee")) != null ? payeeMap.get(el.getAttribute("payee")).getName() : null) : null)
-                    .category(categoryMap.get(el.getAttribute("category")))
-                    .memo(el.getAttribute("wording"))
-                    .tags(tags)
-                    .sortOrder(transactionSortOrder++)
-                    .status(Transaction.TransactionStatus.COMPLETED)
-                    .build();
+        Transaction.TransactionType type;
+        Account fromAcc = null;
+        Account toAcc = null;
 
-            transactionService.saveTransaction(t);
+        if (dstAccount != null) {
+            type = Transaction.TransactionType.TRANSFER;
+            fromAcc = account;
+            toAcc = dstAccount;
+        } else if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
+            type = Transaction.TransactionType.EXPENSE;
+            fromAcc = account;
+        } else {
+            type = Transaction.TransactionType.INCOME;
+            toAcc = account;
         }
 
-        // 8. Import Schedulers (<fav> tags)
-        NodeList favList = doc.getElementsByTagName("fav");
-        for (int i = 0; i < favList.getLength(); i++) {
-            Element el = (Element) favList.item(i);
-            
-            BigDecimal rawAmount = new BigDecimal(el.getAttribute("amount"));
-            long days = Long.parseLong(el.getAttribute("nextdate"));
-            LocalDateTime nextDate = LocalDate.of(1, 1, 1).plusDays(days - 1).atStartOfDay();
-            
-            Account account = accountMap.get(el.getAttribute("account"));
-            Account dstAccount = accountMap.get(el.getAttribute("dst_account"));
-            
-            Transaction.TransactionType type;
-            Account fromAcc = null;
-            Account toAcc = null;
-
-            if (dstAccount != null) {
-                type = Transaction.TransactionType.TRANSFER;
-                if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
-                    fromAcc = account;
-                    toAcc = dstAccount;
-                } else {
-                    fromAcc = dstAccount;
-                    toAcc = account;
-                }
-            } else if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
-                type = Transaction.TransactionType.EXPENSE;
+        String tags = convertSpaceTagsToComma(attr(el, "tags"));
+        importTagsFromString(tags, refs, user);
+
+        return Transaction.builder()
+                .type(type)
+                .amount(rawAmount.abs())
+                .transactionDate(toDate(attr(el, "date")))
+                .fromAccount(fromAcc)
+                .toAccount(toAcc)
+                .payee(refs.payees.get(attr(el, "payee")))
+                .category(refs.categories.get(attr(el, "category")))
+                .memo(attr(el, "wording"))
+                .tags(tags)
+                .sortOrder(sortOrder)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .build();
+    }
+
+    /** One {@code <fav>} entry as a scheduled transaction. */
+    private ScheduledTransaction toScheduled(Map<String, String> el, References refs, User user) {
+        BigDecimal rawAmount = new BigDecimal(attr(el, "amount"));
+        Account account = refs.accounts.get(attr(el, "account"));
+        Account dstAccount = refs.accounts.get(attr(el, "dst_account"));
+
+        Transaction.TransactionType type;
+        Account fromAcc = null;
+        Account toAcc = null;
+
+        if (dstAccount != null) {
+            type = Transaction.TransactionType.TRANSFER;
+            if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
                 fromAcc = account;
+                toAcc = dstAccount;
             } else {
-                type = Transaction.TransactionType.INCOME;
+                fromAcc = dstAccount;
                 toAcc = account;
             }
+        } else if (rawAmount.compareTo(BigDecimal.ZERO) < 0) {
+            type = Transaction.TransactionType.EXPENSE;
+            fromAcc = account;
+        } else {
+            type = Transaction.TransactionType.INCOME;
+            toAcc = account;
+        }
 
-            // Homebank unit mapping: 1=Day, 2=Month (observed), 3=Year (observed)
-            ScheduledTransaction.RecurrencePattern pattern = ScheduledTransaction.RecurrencePattern.MONTHLY;
-            String unit = el.getAttribute("unit");
-            switch (unit) {
-                case "1": pattern = ScheduledTransaction.RecurrencePattern.DAILY; break;
-                case "2": pattern = ScheduledTransaction.RecurrencePattern.MONTHLY; break;
-                case "3": pattern = ScheduledTransaction.RecurrencePattern.YEARLY; break;
-            }
+        // Homebank unit mapping: 1=Day, 2=Month (observed), 3=Year (observed)
+        ScheduledTransaction.RecurrencePattern pattern = switch (attr(el, "unit")) {
+            case "1" -> ScheduledTransaction.RecurrencePattern.DAILY;
+            case "3" -> ScheduledTransaction.RecurrencePattern.YEARLY;
+            default -> ScheduledTransaction.RecurrencePattern.MONTHLY;
+        };
 
-            String rawTags = el.getAttribute("tags");
-            String tags = convertSpaceTagsToComma(rawTags);
-            importTagsFromString(tags);
+        String tags = convertSpaceTagsToComma(attr(el, "tags"));
+        importTagsFromString(tags, refs, user);
 
-            ScheduledTransaction st = ScheduledTransaction.builder()
-                    .user(user)
-                    .type(type)
-                    .amount(rawAmount.abs())
-                    .nextOccurrence(nextDate)
-                    .fromAccount(fromAcc)
-                    .toAccount(toAcc)
-                    .payee(el.hasAttribute("payee") ? (payeeMap.get(el.getAttribute("payee")) != null ? payeeMap.get(el.getAttribute("payee")).getName() : null) : null)
-                    .category(categoryMap.get(el.getAttribute("category")))
-                    .memo(el.getAttribute("wording"))
-                    .tags(tags)
-                    .recurrencePattern(pattern)
-                    .recurrenceValue(Integer.parseInt(el.getAttribute("every").isEmpty() ? "1" : el.getAttribute("every")))
-                    .enabled(true)
-                    .build();
+        return ScheduledTransaction.builder()
+                .user(user)
+                .type(type)
+                .amount(rawAmount.abs())
+                .nextOccurrence(toDate(attr(el, "nextdate")))
+                .fromAccount(fromAcc)
+                .toAccount(toAcc)
+                .payee(refs.payees.get(attr(el, "payee")))
+                .category(refs.categories.get(attr(el, "category")))
+                .memo(attr(el, "wording"))
+                .tags(tags)
+                .recurrencePattern(pattern)
+                .recurrenceValue(Integer.parseInt(attr(el, "every").isEmpty() ? "1" : attr(el, "every")))
+                .enabled(true)
+                .build();
+    }
 
-            scheduledService.save(st);
-        }
+    private static LocalDateTime toDate(String dayNumber) {
+        return DAY_ONE.plusDays(Long.parseLong(dayNumber) - 1).atStartOfDay();
     }
 
     private String convertSpaceTagsToComma(String tags) {
@@ -341,18 +446,17 @@ public class XhbImportService {
         return tags.trim().replace(" ", ",");
     }
 
-    private void importTagsFromString(String commaSeparatedTags) {
+    private void importTagsFromString(String commaSeparatedTags, References refs, User user) {
         if (commaSeparatedTags == null || commaSeparatedTags.isEmpty()) return;
-        String[] tagNames = commaSeparatedTags.split(",");
-        for (String name : tagNames) {
-            ensureTagExists(name.trim());
+        for (String name : commaSeparatedTags.split(",")) {
+            ensureTagExists(name.trim(), refs, user);
         }
     }
 
-    private void ensureTagExists(String tagName) {
+    private void ensureTagExists(String tagName, References refs, User user) {
         if (tagName == null || tagName.isEmpty()) return;
-        if (tagService.searchTags(tagName).stream().noneMatch(t -> t.getName().equalsIgnoreCase(tagName))) {
-            tagService.saveTag(Tag.builder().name(tagName).build());
+        if (refs.tags.add(tagName.toLowerCase(Locale.ROOT))) {
+            tagRepository.save(Tag.builder().user(user).name(tagName).build());
         }
     }
 }
@@ -0,0 +1,142 @@
+package com.cuenti.app.service;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Quotes and exchange rates from Yahoo Finance. Single symbols use the chart
+ * API; batches use the quote API, which answers up to
+ * {@code cuenti.market-data.yahoo.batch-size} symbols per request. When the
+ * quote API is refused (Yahoo sometimes demands a session cookie for it), this
+ * provider switches to one chart request per symbol for the rest of its life:
+ * the batches already partitioned for the current cycle stay stale, and the
+ * next cycle asks for single symbols, each through the caller's rate limiter.
+ * The base URL is configurable ({@code cuenti.market-data.yahoo.base-url}) so
+ * tests and benchmarks can point it at a local stub server.
+ */
+@Component
+@ConditionalOnProperty(name = "cuenti.market-data.provider", havingValue = "yahoo", matchIfMissing = true)
+@Slf4j
+public class YahooMarketDataProvider implements MarketDataProvider {
+
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    private final String baseUrl;
+    private final int batchSize;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean batchAvailable = true;
+
+    public YahooMarketDataProvider(
+            @Value("${cuenti.market-data.yahoo.base-url:https://query1.finance.yahoo.com}") String baseUrl,
+            @Value("${cuenti.market-data.yahoo.batch-size:50}") int batchSize) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.batchSize = Math.max(1, batchSize);
+
+        // a hanging Yahoo call must not pin request threads (or the fetch pools) forever
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(3));
+        requestFactory.setReadTimeout(Duration.ofSeconds(5));
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public Optional<Quote> quote(String symbol) {
+        return chartMeta(symbol).map(meta -> new Quote(symbol,
+                BigDecimal.valueOf(meta.path("regularMarketPrice").asDouble()),
+                meta.path("currency").asText()));
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return batchAvailable ? batchSize : 1;
+    }
+
+    /**
+     * One quote API request for all symbols. A 429 fails the whole batch with
+     * {@link RateLimitedException}. If the quote API is refused, the batch comes
+     * back empty rather than as one chart request per symbol, which would all
+     * run under the single rate limiter permit the caller took for the batch.
+     */
+    @Override
+    public Map<String, Quote> quotes(Collection<String> symbols) {
+        if (symbols.size() <= 1) {
+            return MarketDataProvider.super.quotes(symbols);
+        }
+        if (!batchAvailable) {
+            return Map.of(); // partitioned before the refusal; re-partitioned next cycle
+        }
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("User-Agent", USER_AGENT);
+            ResponseEntity<String> response = restTemplate.exchange(baseUrl + "/v7/finance/quote?symbols={symbols}",
+                    HttpMethod.GET, new HttpEntity<>(headers), String.class, String.join(",", symbols));
+
+            Map<String, Quote> result = new LinkedHashMap<>();
+            for (JsonNode node : objectMapper.readTree(response.getBody()).path("quoteResponse").path("result")) {
+                String symbol = node.path("symbol").asText();
+                double price = node.path("regularMarketPrice").asDouble();
+                if (symbols.contains(symbol) && price > 0) {
+                    result.put(symbol, new Quote(symbol, BigDecimal.valueOf(price), node.path("currency").asText()));
+                }
+            }
+            return result;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            throw new RateLimitedException("Rate limited (429) fetching " + symbols.size() + " quotes");
+        } catch (HttpClientErrorException e) {
+            log.warn("Yahoo quote API refused ({}); one request per symbol from the next cycle on", e.getStatusCode());
+            batchAvailable = false;
+        } catch (Exception e) {
+            // leave the batch stale until the next cycle rather than fanning out
+            log.error("Error fetching {} quotes from Yahoo: {}", symbols.size(), e.getMessage());
+        }
+        return Map.of();
+    }
+
+    @Override
+    public Optional<BigDecimal> fxRate(String from, String to) {
+        return chartMeta(from + to + "=X").map(meta -> BigDecimal.valueOf(meta.path("regularMarketPrice").asDouble()));
+    }
+
+    /** The {@code meta} node of the chart response, empty when the symbol has no positive price. */
+    private Optional<JsonNode> chartMeta(String symbol) {
+        String url = String.format("%s/v8/finance/chart/%s?interval=1d&range=1d", baseUrl, symbol);
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("User-Agent", USER_AGENT);
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+            JsonNode resultArr = objectMapper.readTree(response.getBody()).path("chart").path("result");
+            if (resultArr.isArray() && !resultArr.isEmpty()) {
+                JsonNode meta = resultArr.get(0).path("meta");
+                if (!meta.isMissingNode() && meta.path("regularMarketPrice").asDouble() > 0) {
+                    return Optional.of(meta);
+                }
+            }
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            throw new RateLimitedException("Rate limited (429) fetching " + symbol);
+        } catch (Exception e) {
+            log.error("Error fetching {} from Yahoo: {}", symbol, e.getMessage());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.cuenti.app.util;
+
+import java.time.Duration;
+
+/**
+ * Token-bucket rate limiter: allows {@code permitsPerSecond} on average with
+ * bursts of up to {@code burst}. Callers that find the bucket empty reserve a
+ * future token and sleep outside the lock until it is due, so waiting threads
+ * (virtual ones included) never hold the monitor.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /** Blocks until a permit is available. */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    /** Takes a token (possibly going into debt) and returns how long the caller must wait for it. */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
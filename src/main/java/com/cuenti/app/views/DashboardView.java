@@ -5,6 +5,7 @@ import com.cuenti.app.security.SecurityUtils;
 import com.cuenti.app.service.AccountService;
 import com.cuenti.app.service.AssetService;
 import com.cuenti.app.service.ExchangeRateService;
+import com.cuenti.app.service.FxRateService;
 import com.cuenti.app.service.TransactionService;
 import com.cuenti.app.service.UserService;
 import com.vaadin.flow.component.html.Div;
@@ -47,6 +48,7 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
     private final TransactionService transactionService;
     private final AssetService assetService;
     private final ExchangeRateService exchangeRateService;
+    private final FxRateService fxRateService;
     private final com.cuenti.app.service.BudgetService budgetService;
     private final User currentUser;
 
@@ -63,12 +65,13 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
     public DashboardView(AccountService accountService, UserService userService,
                          TransactionService transactionService, AssetService assetService,
                          ExchangeRateService exchangeRateService, SecurityUtils securityUtils,
-                         com.cuenti.app.service.BudgetService budgetService) {
+                         com.cuenti.app.service.BudgetService budgetService, FxRateService fxRateService) {
         this.budgetService = budgetService;
         this.accountService = accountService;
         this.transactionService = transactionService;
         this.assetService = assetService;
         this.exchangeRateService = exchangeRateService;
+        this.fxRateService = fxRateService;
 
         String username = securityUtils.getAuthenticatedUsername().orElseThrow();
         this.currentUser = userService.findByUsername(username);
@@ -106,23 +109,29 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
         com.vaadin.flow.component.UI ui = attachEvent.getUI();
         java.util.concurrent.CompletableFuture.runAsync(() -> {
             // heavy reads off the UI thread; entities are join-fetched
+            // the charts reach back at most five calendar years ("yearly" range)
+            LocalDate today = LocalDate.now();
             List<Account> fetchedAccounts = accountService.getAccountsByUser(currentUser);
-            List<Transaction> fetchedTransactions = transactionService.getTransactionsByUser(currentUser);
+            List<Transaction> fetchedTransactions = transactionService.getTransactionsFiltered(currentUser, null, null,
+                    today.minusYears(4).withDayOfYear(1).atStartOfDay(),
+                    today.withDayOfYear(today.lengthOfYear()).atTime(java.time.LocalTime.MAX));
+            Map<Asset, TransactionService.AssetHolding> fetchedHoldings = transactionService.getAssetHoldings(currentUser);
             ui.access(() -> {
                 skeletons.forEach(container::remove);
-                setupUI(fetchedAccounts, fetchedTransactions);
+                setupUI(fetchedAccounts, fetchedTransactions, fetchedHoldings);
             });
         });
     }
 
-    private void setupUI(List<Account> allAccounts, List<Transaction> userTransactions) {
+    private void setupUI(List<Account> allAccounts, List<Transaction> userTransactions,
+                         Map<Asset, TransactionService.AssetHolding> holdings) {
         // Filter out accounts excluded from summary for dashboard display
         List<Account> accounts = allAccounts.stream()
                 .filter(a -> !a.isExcludeFromSummary())
                 .collect(java.util.stream.Collectors.toList());
 
         // Calculate asset performance data first (used by metrics and asset list)
-        calculateAssetPerformance(userTransactions);
+        calculateAssetPerformance(holdings);
 
 
 
@@ -136,28 +145,15 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
     }
 
     /**
-     * Calculate performance data for each asset based on transactions
+     * Calculate performance data for each asset from its summed holdings
      */
-    private void calculateAssetPerformance(List<Transaction> transactions) {
+    private void calculateAssetPerformance(Map<Asset, TransactionService.AssetHolding> holdings) {
         assetPerformanceMap = new LinkedHashMap<>();
 
-        // Group transactions by asset - sum units and total cost
-        Map<Asset, List<Transaction>> assetTransactions = transactions.stream()
-                .filter(t -> t.getAsset() != null && t.getUnits() != null)
-                .filter(t -> t.getToAccount() != null && t.getToAccount().getAccountType() == Account.AccountType.ASSET)
-                .collect(Collectors.groupingBy(Transaction::getAsset));
-
-        for (Map.Entry<Asset, List<Transaction>> entry : assetTransactions.entrySet()) {
+        for (Map.Entry<Asset, TransactionService.AssetHolding> entry : holdings.entrySet()) {
             Asset asset = entry.getKey();
-            List<Transaction> assetTxs = entry.getValue();
-
-            BigDecimal totalUnits = BigDecimal.ZERO;
-            BigDecimal totalCost = BigDecimal.ZERO;
-
-            for (Transaction t : assetTxs) {
-                totalUnits = totalUnits.add(t.getUnits());
-                totalCost = totalCost.add(t.getAmount());
-            }
+            BigDecimal totalUnits = entry.getValue().units();
+            BigDecimal totalCost = entry.getValue().cost();
 
             BigDecimal currentPrice = asset.getCurrentPrice() != null ? asset.getCurrentPrice() : BigDecimal.ZERO;
             BigDecimal currentValue = totalUnits.multiply(currentPrice);
@@ -466,7 +462,7 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
             if (!chartData.containsKey(label)) continue;
             Account acc = t.getType() == Transaction.TransactionType.INCOME ? t.getToAccount() : t.getFromAccount();
             if (acc == null) continue;
-            BigDecimal converted = exchangeRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency());
+            BigDecimal converted = fxRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency(), td);
             BigDecimal[] vals = chartData.get(label);
             if (t.getType() == Transaction.TransactionType.INCOME)       vals[0] = vals[0].add(converted);
             else if (t.getType() == Transaction.TransactionType.EXPENSE)  vals[1] = vals[1].add(converted);
@@ -495,7 +491,8 @@ public class DashboardView extends VerticalLayout implements HasDynamicTitle {
                 })
                 .collect(Collectors.groupingBy(t -> t.getCategory().getName(),
                         Collectors.reducing(BigDecimal.ZERO,
-                                t -> exchangeRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency()),
+                                t -> fxRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(),
+                                        currentUser.getDefaultCurrency(), t.getTransactionDate().toLocalDate()),
                                 BigDecimal::add)));
 
         if (data.isEmpty()) {
@@ -40,15 +40,17 @@ public class MainLayout extends AppLayout {
     private final UserService userService;
     private final AssetService assetService;
     private final com.cuenti.app.views.components.QuickSearchDialog quickSearch;
-    private final com.cuenti.app.service.ScheduledTransactionService scheduledService;
+    private final com.cuenti.app.service.DueSoonService dueSoonService;
+    private final Span dueBadge = new Span();
+    private Runnable dueSoonRegistration;
     private User currentUser;
 
     public MainLayout(SecurityUtils securityUtils, UserService userService, AssetService assetService,
                       com.cuenti.app.service.PayeeService payeeService,
                       com.cuenti.app.service.CategoryService categoryService,
                       com.cuenti.app.service.TagService tagService,
-                      com.cuenti.app.service.ScheduledTransactionService scheduledService) {
-        this.scheduledService = scheduledService;
+                      com.cuenti.app.service.DueSoonService dueSoonService) {
+        this.dueSoonService = dueSoonService;
         this.securityUtils = securityUtils;
         this.userService = userService;
         this.assetService = assetService;
@@ -75,9 +77,36 @@ public class MainLayout extends AppLayout {
             ThemePreference.persistThemeCookie(UI.getCurrent(), currentUser.isDarkMode());
         }
         setPrimarySection(Section.DRAWER);
+        long due = currentUser != null ? dueSoonService.count(currentUser) : 0;
+        updateDueBadge(due);
         createHeader();
         createDrawer();
-        notifyDueScheduled();
+        notifyDueScheduled(due);
+    }
+
+    @Override
+    protected void onAttach(com.vaadin.flow.component.AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        if (currentUser != null && dueSoonRegistration == null) {
+            // badge changes are pushed (@Push) instead of recounted on every layout build
+            UI ui = attachEvent.getUI();
+            dueSoonRegistration = dueSoonService.addListener(currentUser, count -> {
+                try {
+                    ui.access(() -> updateDueBadge(count));
+                } catch (com.vaadin.flow.component.UIDetachedException e) {
+                    // closed in the meantime; onDetach removes the listener
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void onDetach(com.vaadin.flow.component.DetachEvent detachEvent) {
+        if (dueSoonRegistration != null) {
+            dueSoonRegistration.run();
+            dueSoonRegistration = null;
+        }
+        super.onDetach(detachEvent);
     }
 
     // ── Theme ──────────────────────────────────────────────────────────────────
@@ -262,7 +291,7 @@ public class MainLayout extends AppLayout {
     }
 
     /** One reminder toast per session when scheduled transactions are due. */
-    private void notifyDueScheduled() {
+    private void notifyDueScheduled(long due) {
         if (currentUser == null) {
             return;
         }
@@ -271,7 +300,6 @@ public class MainLayout extends AppLayout {
             return;
         }
         session.setAttribute("cuenti.due.notified", Boolean.TRUE);
-        long due = scheduledService.countDueSoon(currentUser);
         if (due > 0) {
             com.cuenti.app.views.components.UiNotifier.infoWithAction(
                     getTranslation("scheduled.due_notification", due),
@@ -286,16 +314,17 @@ public class MainLayout extends AppLayout {
         SideNavItem item = new SideNavItem(getTranslation("nav.scheduled"),
                 ScheduledTransactionsView.class, VaadinIcon.CALENDAR_CLOCK.create());
         if (currentUser != null) {
-            long due = scheduledService.countDueSoon(currentUser);
-            if (due > 0) {
-                Span badge = new Span(String.valueOf(due));
-                badge.addClassName("nav-badge");
-                item.setSuffixComponent(badge);
-            }
+            dueBadge.addClassName("nav-badge");
+            item.setSuffixComponent(dueBadge);
         }
         return item;
     }
 
+    private void updateDueBadge(long due) {
+        dueBadge.setText(String.valueOf(due));
+        dueBadge.setVisible(due > 0);
+    }
+
     private SideNav navSection(String label, boolean expanded, SideNavItem... items) {
         SideNav nav = new SideNav(label);
         nav.setCollapsible(true);
@@ -1,28 +1,33 @@
 package com.cuenti.app.views;
 
 import com.cuenti.app.model.Account;
+import com.cuenti.app.model.ImportJob;
 import com.cuenti.app.security.SecurityUtils;
 import com.cuenti.app.service.*;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.router.HasDynamicTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.streams.DownloadHandler;
-import com.vaadin.flow.server.streams.DownloadResponse;
 import com.vaadin.flow.server.streams.InMemoryUploadHandler;
 import jakarta.annotation.security.PermitAll;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Route(value = "settings/import-export", layout = MainLayout.class)
@@ -30,24 +35,29 @@ import java.util.concurrent.atomic.AtomicReference;
 public class SettingsImportExportView extends BaseSettingsView implements HasDynamicTitle {
 
     private final AccountService accountService;
-    private final XhbImportService xhbImportService;
     private final XhbExportService xhbExportService;
-    private final TradeRepublicImportService tradeRepublicImportService;
     private final JsonExportImportService jsonExportImportService;
+    private final ImportJobService importJobService;
+
+    // the import job started from this view, followed through pushed progress (@Push)
+    private final Div jobPanel = createCard();
+    private final Span jobStatus = new Span();
+    private final ProgressBar jobProgress = new ProgressBar();
+    private final Button jobCancel = new Button(VaadinIcon.CLOSE_SMALL.create());
+    private Long activeJobId;
+    private Runnable jobRegistration;
 
     public SettingsImportExportView(AccountService accountService,
-                                    XhbImportService xhbImportService,
                                     XhbExportService xhbExportService,
-                                    TradeRepublicImportService tradeRepublicImportService,
                                     JsonExportImportService jsonExportImportService,
+                                    ImportJobService importJobService,
                                     UserService userService,
                                     SecurityUtils securityUtils) {
         super(securityUtils, userService);
         this.accountService = accountService;
-        this.xhbImportService = xhbImportService;
         this.xhbExportService = xhbExportService;
-        this.tradeRepublicImportService = tradeRepublicImportService;
         this.jsonExportImportService = jsonExportImportService;
+        this.importJobService = importJobService;
         buildContent();
     }
 
@@ -56,7 +66,46 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
         return getTranslation("settings.title") + " | " + getTranslation("app.name");
     }
 
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        if (jobRegistration == null) {
+            UI ui = attachEvent.getUI();
+            jobRegistration = importJobService.addListener(currentUser, progress -> {
+                try {
+                    ui.access(() -> showJob(progress));
+                } catch (UIDetachedException e) {
+                    // closed in the meantime; onDetach removes the listener
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        if (jobRegistration != null) {
+            jobRegistration.run();
+            jobRegistration = null;
+        }
+        super.onDetach(detachEvent);
+    }
+
     private void buildContent() {
+        // ── Running import ────────────────────────────────────────────
+        jobProgress.setWidthFull();
+        jobCancel.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_ERROR);
+        jobCancel.setText(getTranslation("settings.import_cancel"));
+        jobCancel.addClickListener(e -> {
+            if (activeJobId != null) importJobService.cancel(currentUser, activeJobId);
+        });
+        HorizontalLayout jobHeader = new HorizontalLayout(jobStatus, jobCancel);
+        jobHeader.setWidthFull();
+        jobHeader.setAlignItems(FlexComponent.Alignment.CENTER);
+        jobHeader.setJustifyContentMode(FlexComponent.JustifyContentMode.BETWEEN);
+        jobPanel.add(jobHeader, jobProgress);
+        jobPanel.setVisible(false);
+        container.add(jobPanel);
+
         // ── JSON Backup / Restore ─────────────────────────────────────
         Div jsonCard = createCard();
         jsonCard.add(cardHeader(VaadinIcon.ARCHIVE, getTranslation("settings.json_backup_restore"),
@@ -67,20 +116,26 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
 
         Button jsonExportBtn = new Button(getTranslation("settings.export_json"), VaadinIcon.DOWNLOAD.create());
         jsonExportBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
-        Anchor jsonAnchor = new Anchor(DownloadHandler.fromInputStream(event -> {
-            try {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // written straight into the response, like the XHB export below
+        Anchor jsonAnchor = new Anchor((DownloadHandler) event -> {
+            event.setFileName(filename);
+            event.setContentType("application/json");
+            try (java.io.OutputStream out = event.getOutputStream()) {
                 jsonExportImportService.exportUserData(currentUser, out);
-                byte[] data = out.toByteArray();
-                return new DownloadResponse(new ByteArrayInputStream(data), filename, "application/json", data.length);
+            } catch (java.io.IOException ex) {
+                throw ex;
             } catch (Exception ex) {
-                return DownloadResponse.error(500, ex.getMessage());
+                throw new java.io.IOException(ex);
             }
-        }), "");
+        }, "");
         jsonAnchor.add(jsonExportBtn);
 
         AtomicReference<byte[]> jsonData = new AtomicReference<>();
-        Upload jsonUpload = new Upload(new InMemoryUploadHandler((meta, bytes) -> jsonData.set(bytes)));
+        AtomicReference<String> jsonName = new AtomicReference<>();
+        Upload jsonUpload = new Upload(new InMemoryUploadHandler((meta, bytes) -> {
+            jsonName.set(meta.fileName());
+            jsonData.set(bytes);
+        }));
         jsonUpload.setAcceptedFileTypes("application/json", ".json");
         jsonUpload.setUploadButton(new Button(getTranslation("settings.import_json"), VaadinIcon.UPLOAD.create()));
         jsonUpload.setMaxFiles(1);
@@ -89,9 +144,8 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
             byte[] bytes = jsonData.getAndSet(null);
             if (bytes == null) return;
             try {
-                jsonExportImportService.importUserData(currentUser, new ByteArrayInputStream(bytes));
-                com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.json_import_success"));
-                com.vaadin.flow.component.UI.getCurrent().getPage().executeJs("setTimeout(() => location.reload(), 2000)");
+                showJob(importJobService.submit(currentUser, ImportJob.Type.JSON, jsonName.get(),
+                        new ByteArrayInputStream(bytes)));
             } catch (Exception ex) {
                 com.cuenti.app.views.components.UiNotifier.error(getTranslation("settings.json_import_failed", ex.getMessage()));
             }
@@ -127,7 +181,11 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
         assetAccountCombo.getStyle().set("flex", "1 1 200px");
 
         AtomicReference<byte[]> trData = new AtomicReference<>();
-        Upload trUpload = new Upload(new InMemoryUploadHandler((meta, bytes) -> trData.set(bytes)));
+        AtomicReference<String> trName = new AtomicReference<>();
+        Upload trUpload = new Upload(new InMemoryUploadHandler((meta, bytes) -> {
+            trName.set(meta.fileName());
+            trData.set(bytes);
+        }));
         trUpload.setAcceptedFileTypes(".csv");
         trUpload.setUploadButton(new Button(getTranslation("settings.tr_import_btn"), VaadinIcon.FILE_TEXT.create()));
         trUpload.addAllFinishedListener(e -> {
@@ -138,8 +196,8 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
                 return;
             }
             try {
-                tradeRepublicImportService.importCsv(new ByteArrayInputStream(bytes), cashAccountCombo.getValue(), assetAccountCombo.getValue());
-                com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.tr_success"));
+                showJob(importJobService.submitTradeRepublic(currentUser, trName.get(), new ByteArrayInputStream(bytes),
+                        cashAccountCombo.getValue().getId(), assetAccountCombo.getValue().getId()));
             } catch (Exception ex) {
                 com.cuenti.app.views.components.UiNotifier.error(getTranslation("settings.import_failed", ex.getMessage()));
             }
@@ -154,15 +212,19 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
                 getTranslation("settings.data_desc"), "var(--aura-accent-color)"));
 
         AtomicReference<byte[]> xhbData = new AtomicReference<>();
-        Upload upload = new Upload(new InMemoryUploadHandler((meta, bytes) -> xhbData.set(bytes)));
+        AtomicReference<String> xhbName = new AtomicReference<>();
+        Upload upload = new Upload(new InMemoryUploadHandler((meta, bytes) -> {
+            xhbName.set(meta.fileName());
+            xhbData.set(bytes);
+        }));
         upload.setAcceptedFileTypes(".xhb");
         upload.setUploadButton(new Button(getTranslation("settings.import"), VaadinIcon.UPLOAD.create()));
         upload.addAllFinishedListener(e -> {
             byte[] bytes = xhbData.getAndSet(null);
             if (bytes == null) return;
             try {
-                xhbImportService.importXhb(new ByteArrayInputStream(bytes), currentUser);
-                com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.import_success"));
+                showJob(importJobService.submit(currentUser, ImportJob.Type.XHB, xhbName.get(),
+                        new ByteArrayInputStream(bytes)));
             } catch (Exception ex) {
                 com.cuenti.app.views.components.UiNotifier.error(getTranslation("settings.import_failed", ex.getMessage()));
             }
@@ -170,14 +232,16 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
 
         Button exportBtn = new Button(getTranslation("settings.export"), VaadinIcon.DOWNLOAD.create());
         exportBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
-        Anchor anchor = new Anchor(DownloadHandler.fromInputStream(event -> {
-            try {
-                byte[] data = xhbExportService.exportXhb(currentUser);
-                return new DownloadResponse(new ByteArrayInputStream(data), "export.xhb", "application/xml", data.length);
-            } catch (Exception ex) {
-                return DownloadResponse.error(500, ex.getMessage());
+        // written straight into the response, no in-memory copy of the file
+        Anchor anchor = new Anchor((DownloadHandler) event -> {
+            event.setFileName("export.xhb");
+            event.setContentType("application/xml");
+            try (java.io.OutputStream out = event.getOutputStream()) {
+                xhbExportService.exportXhb(currentUser, out);
+            } catch (javax.xml.stream.XMLStreamException ex) {
+                throw new java.io.IOException(ex);
             }
-        }), "");
+        }, "");
         anchor.add(exportBtn);
 
         HorizontalLayout xhbActions = new HorizontalLayout(upload, anchor);
@@ -187,4 +251,44 @@ public class SettingsImportExportView extends BaseSettingsView implements HasDyn
         card.add(xhbActions);
         container.add(card);
     }
+
+    /** Shows the progress of a job started here; reports its outcome once it ends. */
+    private void showJob(ImportJobService.Progress job) {
+        if (activeJobId == null || !activeJobId.equals(job.id())) {
+            if (job.status() != ImportJob.Status.QUEUED) return; // started elsewhere
+            activeJobId = job.id();
+        }
+        jobPanel.setVisible(true);
+        jobProgress.setValue(job.fraction());
+        switch (job.status()) {
+            case QUEUED -> jobStatus.setText(getTranslation("settings.import_started", job.fileName()));
+            case RUNNING -> jobStatus.setText(getTranslation("settings.import_progress", job.fileName(), job.rows()));
+            case COMPLETED -> {
+                endJob();
+                switch (job.type()) {
+                    case JSON -> {
+                        com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.json_import_success"));
+                        UI.getCurrent().getPage().executeJs("setTimeout(() => location.reload(), 2000)");
+                    }
+                    case TRADE_REPUBLIC -> com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.tr_success"));
+                    case XHB -> com.cuenti.app.views.components.UiNotifier.success(getTranslation("settings.import_success"));
+                }
+            }
+            case CANCELLED -> {
+                endJob();
+                com.cuenti.app.views.components.UiNotifier.error(getTranslation("settings.import_cancelled", job.rows()));
+            }
+            case FAILED -> {
+                endJob();
+                com.cuenti.app.views.components.UiNotifier.error(getTranslation(
+                        job.type() == ImportJob.Type.JSON ? "settings.json_import_failed" : "settings.import_failed",
+                        job.error()));
+            }
+        }
+    }
+
+    private void endJob() {
+        activeJobId = null;
+        jobPanel.setVisible(false);
+    }
 }
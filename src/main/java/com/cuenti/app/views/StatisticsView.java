@@ -24,7 +24,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -41,12 +41,14 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
 
     private final TransactionService transactionService;
     private final AccountService accountService;
-    private final ExchangeRateService exchangeRateService;
+    private final FxRateService fxRateService;
+    private final MonthlyTotalsService monthlyTotalsService;
     private final User currentUser;
 
     private final Div contentContainer = new Div();
-    private List<Transaction> filteredTransactions;
+    private List<MonthlyTotalsService.Bucket> buckets;
     private List<Account> reportableAccounts;
+    private Map<Long, Account> reportableById;
 
     private Select<String> timeRangeSelect;
     private DatePicker startDatePicker;
@@ -59,11 +61,12 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
     private boolean sortAsc = true;
 
     public StatisticsView(TransactionService transactionService, AccountService accountService,
-                         UserService userService, ExchangeRateService exchangeRateService,
-                         SecurityUtils securityUtils) {
+                         UserService userService, FxRateService fxRateService,
+                         MonthlyTotalsService monthlyTotalsService, SecurityUtils securityUtils) {
         this.transactionService = transactionService;
         this.accountService = accountService;
-        this.exchangeRateService = exchangeRateService;
+        this.fxRateService = fxRateService;
+        this.monthlyTotalsService = monthlyTotalsService;
 
         String username = securityUtils.getAuthenticatedUsername().orElseThrow();
         this.currentUser = userService.findByUsername(username);
@@ -76,6 +79,8 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
         reportableAccounts = accountService.getAccountsByUser(currentUser).stream()
                 .filter(a -> !a.isExcludeFromReports())
                 .collect(Collectors.toList());
+        reportableById = reportableAccounts.stream()
+                .collect(Collectors.toMap(Account::getId, a -> a));
 
         endDate = LocalDate.now();
         startDate = endDate.withDayOfMonth(1);
@@ -226,35 +231,40 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
         return tabs;
     }
 
+    /**
+     * Loads income/expense buckets for the range from the monthly aggregate.
+     * Buckets booked against accounts excluded from reports are dropped.
+     */
     private void loadData() {
-        List<Transaction> allTransactions = transactionService.getTransactionsByUser(currentUser);
+        buckets = monthlyTotalsService.getBuckets(currentUser,
+                        startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)).stream()
+                .filter(b -> reportableById.containsKey(b.accountId()))
+                .collect(Collectors.toList());
 
-        Set<Long> reportableAccountIds = reportableAccounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toSet());
+        renderContent();
+    }
 
-        filteredTransactions = allTransactions.stream()
-                .filter(t -> {
-                    LocalDate txDate = t.getTransactionDate().toLocalDate();
-                    return !txDate.isBefore(startDate) && !txDate.isAfter(endDate);
-                })
+    /** Raw transactions of the range; only the By Payee tab needs them. */
+    private List<Transaction> loadRangeTransactions() {
+        return transactionService.getTransactionsFiltered(currentUser, null, null,
+                        startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)).stream()
                 .filter(t -> {
                     Account from = t.getFromAccount();
                     Account to = t.getToAccount();
                     if (t.getType() == Transaction.TransactionType.INCOME) {
-                        return to != null && reportableAccountIds.contains(to.getId());
+                        return to != null && reportableById.containsKey(to.getId());
                     } else if (t.getType() == Transaction.TransactionType.EXPENSE) {
-                        return from != null && reportableAccountIds.contains(from.getId());
-                    } else if (t.getType() == Transaction.TransactionType.TRANSFER) {
-                        boolean fromOk = from != null && reportableAccountIds.contains(from.getId());
-                        boolean toOk = to != null && reportableAccountIds.contains(to.getId());
-                        return fromOk || toOk;
+                        return from != null && reportableById.containsKey(from.getId());
                     }
                     return false;
                 })
                 .collect(Collectors.toList());
+    }
 
-        renderContent();
+    /** Bucket total converted from its account's currency into the user's default currency. */
+    private BigDecimal convert(MonthlyTotalsService.Bucket b) {
+        Account acc = reportableById.get(b.accountId());
+        return fxRateService.convert(b.total(), acc.getCurrency(), currentUser.getDefaultCurrency(), b.month().atEndOfMonth());
     }
 
     private void renderContent() {
@@ -278,21 +288,11 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
         BigDecimal totalIncome = BigDecimal.ZERO;
         BigDecimal totalExpense = BigDecimal.ZERO;
 
-        for (Transaction t : filteredTransactions) {
-            if (t.getType() == Transaction.TransactionType.INCOME) {
-                Account acc = t.getToAccount();
-                if (acc != null) {
-                    totalIncome = totalIncome.add(
-                            exchangeRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency())
-                    );
-                }
-            } else if (t.getType() == Transaction.TransactionType.EXPENSE) {
-                Account acc = t.getFromAccount();
-                if (acc != null) {
-                    totalExpense = totalExpense.add(
-                            exchangeRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency())
-                    );
-                }
+        for (MonthlyTotalsService.Bucket b : buckets) {
+            if (b.type() == Transaction.TransactionType.INCOME) {
+                totalIncome = totalIncome.add(convert(b));
+            } else if (b.type() == Transaction.TransactionType.EXPENSE) {
+                totalExpense = totalExpense.add(convert(b));
             }
         }
 
@@ -326,20 +326,10 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
             accountData.put(acc, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
         }
 
-        for (Transaction t : filteredTransactions) {
-            if (t.getType() == Transaction.TransactionType.INCOME && t.getToAccount() != null) {
-                Account acc = t.getToAccount();
-                if (accountData.containsKey(acc)) {
-                    BigDecimal converted = exchangeRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency());
-                    accountData.get(acc)[0] = accountData.get(acc)[0].add(converted);
-                }
-            } else if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                Account acc = t.getFromAccount();
-                if (accountData.containsKey(acc)) {
-                    BigDecimal converted = exchangeRateService.convert(t.getAmount(), acc.getCurrency(), currentUser.getDefaultCurrency());
-                    accountData.get(acc)[1] = accountData.get(acc)[1].add(converted);
-                }
-            }
+        for (MonthlyTotalsService.Bucket b : buckets) {
+            Account acc = reportableById.get(b.accountId());
+            int slot = b.type() == Transaction.TransactionType.INCOME ? 0 : 1;
+            accountData.get(acc)[slot] = accountData.get(acc)[slot].add(convert(b));
         }
 
         // Build a String-keyed copy for renderBarCharts
@@ -394,30 +384,12 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
         // 1. Collect raw data keyed by "parent:child" or "name" for root categories
         Map<String, BigDecimal[]> rawData = new TreeMap<>();
 
-        for (Transaction t : filteredTransactions) {
-            if (t.getSplits() != null && !t.getSplits().isEmpty()) {
-                for (TransactionSplit split : t.getSplits()) {
-                    String key = getCategoryLabel(split.getCategory());
-                    rawData.putIfAbsent(key, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
-                    if (t.getType() == Transaction.TransactionType.INCOME && t.getToAccount() != null) {
-                        BigDecimal c = exchangeRateService.convert(split.getAmount(), t.getToAccount().getCurrency(), currentUser.getDefaultCurrency());
-                        rawData.get(key)[0] = rawData.get(key)[0].add(c);
-                    } else if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                        BigDecimal c = exchangeRateService.convert(split.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
-                        rawData.get(key)[1] = rawData.get(key)[1].add(c);
-                    }
-                }
-            } else {
-                String key = getCategoryLabel(t.getCategory());
-                rawData.putIfAbsent(key, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
-                if (t.getType() == Transaction.TransactionType.INCOME && t.getToAccount() != null) {
-                    BigDecimal c = exchangeRateService.convert(t.getAmount(), t.getToAccount().getCurrency(), currentUser.getDefaultCurrency());
-                    rawData.get(key)[0] = rawData.get(key)[0].add(c);
-                } else if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                    BigDecimal c = exchangeRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
-                    rawData.get(key)[1] = rawData.get(key)[1].add(c);
-                }
-            }
+        // Buckets are already split-aware: a split transaction contributes one per split category
+        for (MonthlyTotalsService.Bucket b : buckets) {
+            String key = getCategoryLabel(b.category());
+            rawData.putIfAbsent(key, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            int slot = b.type() == Transaction.TransactionType.INCOME ? 0 : 1;
+            rawData.get(key)[slot] = rawData.get(key)[slot].add(convert(b));
         }
 
         // 2. Group into parent totals and per-parent children maps
@@ -624,15 +596,17 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
 
         Map<String, BigDecimal[]> payeeData = new TreeMap<>();
 
-        for (Transaction t : filteredTransactions) {
+        for (Transaction t : loadRangeTransactions()) {
             String payeeName = t.getPayee() != null && !t.getPayee().isEmpty() ? t.getPayee() : getTranslation("statistics.no_payee");
             payeeData.putIfAbsent(payeeName, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
 
             if (t.getType() == Transaction.TransactionType.INCOME && t.getToAccount() != null) {
-                BigDecimal converted = exchangeRateService.convert(t.getAmount(), t.getToAccount().getCurrency(), currentUser.getDefaultCurrency());
+                BigDecimal converted = fxRateService.convert(t.getAmount(), t.getToAccount().getCurrency(), currentUser.getDefaultCurrency(),
+                        t.getTransactionDate().toLocalDate());
                 payeeData.get(payeeName)[0] = payeeData.get(payeeName)[0].add(converted);
             } else if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                BigDecimal converted = exchangeRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
+                BigDecimal converted = fxRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency(),
+                        t.getTransactionDate().toLocalDate());
                 payeeData.get(payeeName)[1] = payeeData.get(payeeName)[1].add(converted);
             }
         }
@@ -673,19 +647,12 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
         Div card = createInnerCard(getTranslation("statistics.monthly_trends"));
 
         Map<String, BigDecimal[]> monthlyData = new TreeMap<>();
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
 
-        for (Transaction t : filteredTransactions) {
-            String monthKey = t.getTransactionDate().format(monthFormatter);
+        for (MonthlyTotalsService.Bucket b : buckets) {
+            String monthKey = b.month().toString();
             monthlyData.putIfAbsent(monthKey, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
-
-            if (t.getType() == Transaction.TransactionType.INCOME && t.getToAccount() != null) {
-                BigDecimal converted = exchangeRateService.convert(t.getAmount(), t.getToAccount().getCurrency(), currentUser.getDefaultCurrency());
-                monthlyData.get(monthKey)[0] = monthlyData.get(monthKey)[0].add(converted);
-            } else if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                BigDecimal converted = exchangeRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
-                monthlyData.get(monthKey)[1] = monthlyData.get(monthKey)[1].add(converted);
-            }
+            int slot = b.type() == Transaction.TransactionType.INCOME ? 0 : 1;
+            monthlyData.get(monthKey)[slot] = monthlyData.get(monthKey)[slot].add(convert(b));
         }
 
         if (!monthlyData.isEmpty()) {
@@ -848,19 +815,9 @@ public class StatisticsView extends VerticalLayout implements HasDynamicTitle {
     private void renderTopCategories(Div container, int limit) {
         Map<String, BigDecimal> categoryExpenses = new HashMap<>();
 
-        for (Transaction t : filteredTransactions) {
-            if (t.getType() == Transaction.TransactionType.EXPENSE && t.getFromAccount() != null) {
-                if (t.getSplits() != null && !t.getSplits().isEmpty()) {
-                    for (TransactionSplit split : t.getSplits()) {
-                        String category = getCategoryLabel(split.getCategory());
-                        BigDecimal converted = exchangeRateService.convert(split.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
-                        categoryExpenses.merge(category, converted, BigDecimal::add);
-                    }
-                } else {
-                    String category = getCategoryLabel(t.getCategory());
-                    BigDecimal converted = exchangeRateService.convert(t.getAmount(), t.getFromAccount().getCurrency(), currentUser.getDefaultCurrency());
-                    categoryExpenses.merge(category, converted, BigDecimal::add);
-                }
+        for (MonthlyTotalsService.Bucket b : buckets) {
+            if (b.type() == Transaction.TransactionType.EXPENSE) {
+                categoryExpenses.merge(getCategoryLabel(b.category()), convert(b), BigDecimal::add);
             }
         }
 
@@ -0,0 +1,3 @@
+-- Price refresh fetches each symbol once and updates all assets holding it by symbol.
+
+create index idx_assets_symbol on assets (symbol);
@@ -0,0 +1,12 @@
+-- Price history per symbol and day, for portfolio value charts.
+
+create table asset_prices (
+    id bigint generated by default as identity,
+    symbol varchar(255) not null,
+    price_date date not null,
+    price numeric(19,8) not null,
+    currency varchar(255),
+    source varchar(20),
+    primary key (id),
+    constraint uk_asset_prices_symbol_date unique (symbol, price_date)
+);
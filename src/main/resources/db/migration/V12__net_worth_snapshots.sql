@@ -0,0 +1,26 @@
+-- Daily net worth per user (cash, portfolio, total) in the user's default currency.
+
+create table net_worth_snapshots (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    snapshot_date date not null,
+    currency varchar(255) not null,
+    cash numeric(19,2) not null,
+    portfolio numeric(19,2) not null,
+    total numeric(19,2) not null,
+    primary key (id),
+    constraint uk_net_worth_snapshots_user_date unique (user_id, snapshot_date)
+);
+
+-- Pending recomputations, written with the balance change that caused them, so
+-- they survive a restart. NetWorthService deletes a user's rows once the
+-- snapshots from their earliest day on are rebuilt.
+
+create table net_worth_dirty (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    from_day date not null,
+    primary key (id)
+);
+
+create index idx_net_worth_dirty_user on net_worth_dirty (user_id);
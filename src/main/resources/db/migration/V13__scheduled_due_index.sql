@@ -0,0 +1,6 @@
+-- The nav badge counts a user's enabled schedules due within a week. Leading with
+-- enabled after user_id lets that count read only the matching index range; the
+-- (user_id, next_occurrence) index it replaces is covered by the new one.
+
+drop index idx_scheduled_transactions_user_next;
+create index idx_scheduled_transactions_user_enabled_next on scheduled_transactions (user_id, enabled, next_occurrence);
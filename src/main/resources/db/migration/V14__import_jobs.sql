@@ -0,0 +1,27 @@
+-- Background file imports: progress, cancellation and the checkpoint a failed
+-- job resumes from (committed rows and the ids of the committed reference data).
+
+create table import_jobs (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    type varchar(20) not null,
+    status varchar(20) not null,
+    file_name varchar(255),
+    spool_path varchar(500) not null,
+    file_size bigint not null,
+    bytes_read bigint not null,
+    committed_rows integer not null,
+    reference_ids text,
+    cash_account_id bigint,
+    asset_account_id bigint,
+    cancel_requested boolean not null,
+    attempts integer not null,
+    error varchar(500),
+    created_at timestamp(6) not null,
+    started_at timestamp(6),
+    finished_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_import_jobs_user on import_jobs (user_id, created_at);
+create index idx_import_jobs_status on import_jobs (status);
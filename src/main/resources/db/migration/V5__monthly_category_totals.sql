@@ -0,0 +1,16 @@
+-- Uncategorized totals use category_id 0 rather than null: nulls are distinct in
+-- uk_monthly_total_key, so they would let two writers insert the same row.
+
+create table monthly_category_totals (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    account_id bigint not null,
+    category_id bigint not null,
+    period integer not null,
+    type varchar(20) not null,
+    total numeric(15,2) not null,
+    primary key (id),
+    constraint uk_monthly_total_key unique (user_id, account_id, category_id, period, type)
+);
+
+create index idx_monthly_total_user_period on monthly_category_totals (user_id, period);
@@ -0,0 +1,11 @@
+create table account_daily_balance (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    account_id bigint not null,
+    balance_date date not null,
+    net_change numeric(15,2) not null,
+    primary key (id),
+    constraint uk_account_daily_balance unique (account_id, balance_date)
+);
+
+create index idx_account_daily_balance_user_date on account_daily_balance (user_id, balance_date);
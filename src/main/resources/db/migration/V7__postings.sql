@@ -0,0 +1,15 @@
+create table postings (
+    id bigint generated by default as identity,
+    transaction_id bigint not null,
+    user_id bigint not null,
+    account_id bigint not null,
+    transaction_date TIMESTAMP not null,
+    sort_order integer not null,
+    type varchar(20) not null,
+    amount numeric(15,2) not null,
+    primary key (id)
+);
+
+create index idx_postings_account_date on postings (account_id, transaction_date);
+create index idx_postings_user_date on postings (user_id, transaction_date);
+create index idx_postings_transaction on postings (transaction_id);
@@ -0,0 +1,18 @@
+-- Indexes for the hot repository queries. Postgres does not index foreign key
+-- columns on its own, so until now every account, category or asset lookup on
+-- transactions and scheduled_transactions was a sequential scan.
+
+create index idx_accounts_user on accounts (user_id);
+
+create index idx_transactions_from_account_date on transactions (from_account_id, transaction_date, sort_order);
+create index idx_transactions_to_account_date on transactions (to_account_id, transaction_date, sort_order);
+create index idx_transactions_category on transactions (category_id);
+create index idx_transactions_asset on transactions (asset_id);
+create index idx_transactions_number on transactions (number);
+
+create index idx_transaction_splits_transaction on transaction_splits (transaction_id);
+
+create index idx_scheduled_transactions_user_next on scheduled_transactions (user_id, next_occurrence);
+create index idx_scheduled_transactions_next on scheduled_transactions (next_occurrence);
+create index idx_scheduled_transactions_category on scheduled_transactions (category_id);
+create index idx_scheduled_transactions_asset on scheduled_transactions (asset_id);
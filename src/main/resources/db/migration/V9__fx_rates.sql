@@ -0,0 +1,10 @@
+create table fx_rates (
+    id bigint generated by default as identity,
+    base_currency varchar(3) not null,
+    quote_currency varchar(3) not null,
+    rate_date date not null,
+    rate numeric(19,10) not null,
+    source varchar(20),
+    primary key (id),
+    constraint uk_fx_rates_pair_date unique (base_currency, quote_currency, rate_date)
+);
@@ -0,0 +1,143 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.User;
+import com.cuenti.app.service.AccountService;
+import com.cuenti.app.service.TransactionService;
+import com.cuenti.app.service.UserService;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class AccountBalanceApiTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired TransactionService transactionService;
+    @Autowired AccountService accountService;
+    @Autowired UserService userService;
+
+    private long accountId;
+    private long otherId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        accountId = createAccount("Checkpoint", 100);
+        otherId = createAccount("Checkpoint other", 0);
+
+        createTransaction("{\"type\":\"INCOME\",\"toAccountId\":" + accountId + ",\"amount\":50,\"transactionDate\":\"2026-01-10T09:00:00\"}");
+        createTransaction("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId + ",\"amount\":20,\"transactionDate\":\"2026-01-10T18:00:00\"}");
+        createTransaction("{\"type\":\"TRANSFER\",\"fromAccountId\":" + accountId + ",\"toAccountId\":" + otherId
+                + ",\"amount\":30,\"transactionDate\":\"2026-02-01T12:00:00\"}");
+        createTransaction("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId + ",\"amount\":5,\"transactionDate\":\"2026-03-15T12:00:00\"}");
+    }
+
+    private long createAccount(String name, int startBalance) throws Exception {
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"" + name + "\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":"
+                                + startBalance + ",\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(acct).get("id").asLong();
+    }
+
+    private long createTransaction(String json) throws Exception {
+        String body = mockMvc.perform(post("/api/transactions")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private BigDecimal balanceAsOf(long id, String date) throws Exception {
+        String body = mockMvc.perform(get("/api/accounts/" + id + "/balance").with(user("demo")).param("date", date))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("balance").decimalValue();
+    }
+
+    @Test
+    void balanceAsOfDateIncludesWholeDay() throws Exception {
+        assertThat(balanceAsOf(accountId, "2026-01-09")).isEqualByComparingTo("100");
+        assertThat(balanceAsOf(accountId, "2026-01-10")).isEqualByComparingTo("130");
+        assertThat(balanceAsOf(accountId, "2026-02-01")).isEqualByComparingTo("100");
+        assertThat(balanceAsOf(otherId, "2026-02-01")).isEqualByComparingTo("30");
+        assertThat(balanceAsOf(accountId, "2026-12-31")).isEqualByComparingTo("95");
+    }
+
+    @Test
+    void updateAndDeleteMoveCheckpoints() throws Exception {
+        long id = createTransaction("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId
+                + ",\"amount\":10,\"transactionDate\":\"2026-01-05T12:00:00\"}");
+        assertThat(balanceAsOf(accountId, "2026-01-05")).isEqualByComparingTo("90");
+
+        mockMvc.perform(put("/api/transactions/" + id)
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId
+                                + ",\"amount\":10,\"transactionDate\":\"2026-02-20T12:00:00\"}"))
+                .andExpect(status().isOk());
+        assertThat(balanceAsOf(accountId, "2026-01-05")).isEqualByComparingTo("100");
+        assertThat(balanceAsOf(accountId, "2026-02-20")).isEqualByComparingTo("90");
+
+        mockMvc.perform(delete("/api/transactions/" + id).with(user("demo")))
+                .andExpect(status().is2xxSuccessful());
+        assertThat(balanceAsOf(accountId, "2026-02-20")).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void windowedRunningBalanceMatchesFullHistory() throws Exception {
+        User demo = userService.findByUsername("demo");
+        Account account = accountService.findById(accountId);
+        LocalDateTime end = LocalDateTime.of(2026, 12, 31, 23, 59, 59);
+
+        Map<Long, BigDecimal> full = transactionService.getRunningBalances(
+                demo, account, null, LocalDateTime.of(1970, 1, 1, 0, 0), end);
+        Map<Long, BigDecimal> window = transactionService.getRunningBalances(
+                demo, account, null, LocalDateTime.of(2026, 1, 10, 12, 0), end);
+
+        assertThat(window).hasSize(3);
+        window.forEach((id, bal) -> assertThat(bal).isEqualByComparingTo(full.get(id)));
+
+        Map<Long, BigDecimal> all = transactionService.getRunningBalances(
+                demo, null, null, LocalDateTime.of(1970, 1, 1, 0, 0), end);
+        Map<Long, BigDecimal> allWindow = transactionService.getRunningBalances(
+                demo, null, null, LocalDateTime.of(2026, 2, 1, 0, 0), end);
+        allWindow.forEach((id, bal) -> assertThat(bal).isEqualByComparingTo(all.get(id)));
+    }
+
+    @Test
+    void rebuildReproducesIncrementalCheckpoints() throws Exception {
+        BigDecimal before = balanceAsOf(accountId, "2026-02-01");
+        mockMvc.perform(post("/api/accounts/balances/rebuild")
+                        .with(user("demo")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").isNumber());
+        assertThat(balanceAsOf(accountId, "2026-02-01")).isEqualByComparingTo(before);
+    }
+}
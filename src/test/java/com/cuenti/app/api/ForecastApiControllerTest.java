@@ -46,4 +46,45 @@ class ForecastApiControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").isNotEmpty());
     }
+
+    @Test
+    void multiYearForecastHasOneEntryPerMonth() throws Exception {
+        mockMvc.perform(get("/api/forecasts").param("year", "2030").param("years", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.start").value("2030-01-01"))
+                .andExpect(jsonPath("$.end").value("2032-12-31"))
+                .andExpect(jsonPath("$.months.length()").value(36))
+                .andExpect(jsonPath("$.months[35].month").value("2032-12"));
+    }
+
+    @Test
+    void rangeForecastCoversTheMonthsItTouches() throws Exception {
+        mockMvc.perform(get("/api/forecasts/range").param("start", "2030-01-15").param("end", "2030-04-10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months.length()").value(4))
+                .andExpect(jsonPath("$.months[0].month").value("2030-01"))
+                .andExpect(jsonPath("$.months[3].month").value("2030-04"));
+    }
+
+    @Test
+    void invertedRangeIs400() throws Exception {
+        mockMvc.perform(get("/api/forecasts/range").param("start", "2030-04-10").param("end", "2030-01-15"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("end must not be before start"));
+    }
+
+    @Test
+    void cashFlowProjectsEveryAccountPerDay() throws Exception {
+        mockMvc.perform(get("/api/forecasts/cash-flow").param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dates.length()").value(30))
+                .andExpect(jsonPath("$.accounts[0].balances.length()").value(30));
+    }
+
+    @Test
+    void cashFlowBeyondTenYearsIs400() throws Exception {
+        mockMvc.perform(get("/api/forecasts/cash-flow").param("days", "5000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("days must be between 1 and 3660"));
+    }
 }
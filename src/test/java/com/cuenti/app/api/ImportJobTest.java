@@ -0,0 +1,195 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.ImportJob;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.repository.ImportJobRepository;
+import com.cuenti.app.service.ImportJobService;
+import com.cuenti.app.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import jobs run on the test thread via {@link ImportJobService#run}: inside the
+ * test transaction {@code submit} never reaches its after-commit start.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "cuenti.import.batch-size=2")
+@Transactional
+@WithMockUser(username = "demo")
+class ImportJobTest {
+
+    private static final String EXPORT = """
+            {"version": "1.0",
+             "categories": [], "payees": [], "tags": [], "assets": [],
+             "accounts": [
+               {"id": "a1", "accountName": "Job checking", "accountNumber": "IMPORT-JOB-%1$s", "accountType": "BANK",
+                "currency": "EUR", "startBalance": 0}
+             ],
+             "transactions": [
+               {"type": "INCOME", "amount": 10, "transactionDate": "2026-04-01T10:00:00", "status": "COMPLETED",
+                "toAccountId": "a1", "memo": "Import job %1$s"},
+               {"type": "INCOME", "amount": 20, "transactionDate": "2026-04-02T10:00:00", "status": "COMPLETED",
+                "toAccountId": "a1", "memo": "Import job %1$s"},
+               {"type": "%2$s", "amount": 30, "transactionDate": "2026-04-03T10:00:00", "status": "COMPLETED",
+                "toAccountId": "a1", "memo": "Import job %1$s"},
+               {"type": "INCOME", "amount": 40, "transactionDate": "2026-04-04T10:00:00", "status": "COMPLETED",
+                "toAccountId": "a1", "memo": "Import job %1$s"}
+             ]}""";
+
+    @Autowired ImportJobService importJobService;
+    @Autowired UserService userService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired ImportJobRepository importJobRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void runsJobToCompletion() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("done", "INCOME"));
+        assertThat(job.status()).isEqualTo(ImportJob.Status.QUEUED);
+
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("COMPLETED");
+        assertThat(committedRows(job.id())).isEqualTo(4);
+        assertThat(balance(demo, "IMPORT-JOB-done")).isEqualByComparingTo("100");
+        assertThat(Files.exists(spoolPath(job.id()))).isFalse();
+    }
+
+    @Test
+    void stopsAfterTheCurrentChunkWhenCancelled() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("cancel", "INCOME"));
+        // as if the user had pressed cancel while the first chunk was written
+        jdbcTemplate.update("UPDATE import_jobs SET cancel_requested = true WHERE id = ?", job.id());
+
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("CANCELLED");
+        assertThat(committedRows(job.id())).isEqualTo(2);
+        assertThat(memoCount("cancel")).isEqualTo(2);
+        assertThat(balance(demo, "IMPORT-JOB-cancel")).isEqualByComparingTo("30");
+    }
+
+    @Test
+    void resumesFailedJobAfterTheLastCommittedChunk() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("resume", "NOT_A_TYPE"));
+
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("FAILED");
+        assertThat(committedRows(job.id())).isEqualTo(2);
+        assertThat(importJobService.find(demo, job.id()).orElseThrow().error()).contains("NOT_A_TYPE");
+
+        // the spooled file is kept for the resume; fix the bad row in place
+        Files.writeString(spoolPath(job.id()), EXPORT.formatted("resume", "INCOME"));
+        assertThat(importJobService.resume(demo, job.id())).isTrue();
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("COMPLETED");
+        assertThat(committedRows(job.id())).isEqualTo(4);
+        // the account from the first run is reused and no row is imported twice
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM accounts WHERE account_number = 'IMPORT-JOB-resume'", Long.class)).isEqualTo(1);
+        assertThat(memoCount("resume")).isEqualTo(4);
+        assertThat(balance(demo, "IMPORT-JOB-resume")).isEqualByComparingTo("100");
+        // the resumed run reports its own rows apart from those carried over
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT details FROM audit_log WHERE action = 'IMPORT_JSON' AND user_id = ?", String.class,
+                demo.getId())).startsWith("2 transactions, ids ").endsWith("resumed after 2 rows committed by earlier attempts");
+    }
+
+    @Test
+    void auditsResumedJobWhoseRowsWereAllCommittedEarlier() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("audit", "INCOME"));
+        // as if an earlier attempt committed every row and failed on the scheduled transactions
+        importJobService.run(job.id());
+        jdbcTemplate.update("DELETE FROM audit_log WHERE action = 'IMPORT_JSON' AND user_id = ?", demo.getId());
+        ImportJob entity = importJobRepository.findById(job.id()).orElseThrow();
+        entity.setStatus(ImportJob.Status.FAILED);
+        importJobRepository.saveAndFlush(entity);
+        Files.writeString(Path.of(entity.getSpoolPath()), EXPORT.formatted("audit", "INCOME"));
+
+        assertThat(importJobService.resume(demo, job.id())).isTrue();
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("COMPLETED");
+        assertThat(memoCount("audit")).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT details FROM audit_log WHERE action = 'IMPORT_JSON' AND user_id = ?", String.class,
+                demo.getId())).isEqualTo("0 transactions, 0 accounts, resumed after 4 rows committed by earlier attempts");
+    }
+
+    @Test
+    void cancelsQueuedJobAndHidesOtherUsersJobs() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("queued", "INCOME"));
+
+        assertThat(importJobService.cancel(demo, job.id())).isTrue();
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("CANCELLED");
+        assertThat(memoCount("queued")).isZero();
+        assertThat(importJobService.recent(demo)).extracting(ImportJobService.Progress::id).contains(job.id());
+        assertThat(importJobService.find(User.builder().id(-1L).build(), job.id())).isEmpty();
+    }
+
+    @Test
+    void failsJobOfDeletedUserAndDropsItsFile() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ImportJobService.Progress job = submit(demo, EXPORT.formatted("orphan", "INCOME"));
+        Path spool = spoolPath(job.id());
+        importJobRepository.findById(job.id()).orElseThrow().setUserId(-1L);
+
+        importJobService.run(job.id());
+
+        assertThat(status(job.id())).isEqualTo("FAILED");
+        assertThat(Files.exists(spool)).isFalse();
+        assertThat(memoCount("orphan")).isZero();
+    }
+
+    private ImportJobService.Progress submit(User user, String json) throws Exception {
+        return importJobService.submit(user, ImportJob.Type.JSON, "export.json",
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String status(Long jobId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM import_jobs WHERE id = ?", String.class, jobId);
+    }
+
+    private int committedRows(Long jobId) {
+        return jdbcTemplate.queryForObject("SELECT committed_rows FROM import_jobs WHERE id = ?", Integer.class, jobId);
+    }
+
+    private Path spoolPath(Long jobId) {
+        return Path.of(jdbcTemplate.queryForObject("SELECT spool_path FROM import_jobs WHERE id = ?", String.class, jobId));
+    }
+
+    private long memoCount(String suffix) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE memo = ?", Long.class,
+                "Import job " + suffix);
+    }
+
+    private java.math.BigDecimal balance(User user, String accountNumber) {
+        return jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE user_id = ? AND account_number = ?",
+                java.math.BigDecimal.class, user.getId(), accountNumber);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.service.JsonExportImportService;
+import com.cuenti.app.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "cuenti.import.batch-size=2")
+@Transactional
+@WithMockUser(username = "demo")
+class JsonImportTest {
+
+    private static final String REFERENCES = """
+            "categories": [{"id": "c1", "name": "JSON import food", "type": "EXPENSE"}],
+            "payees": [],
+            "tags": ["jsonimport"],
+            "assets": [],
+            "accounts": [
+              {"id": "a1", "accountName": "JSON checking", "accountNumber": "JSON-IMPORT-%1$s-1", "accountType": "BANK",
+               "currency": "EUR", "startBalance": 100},
+              {"id": "a2", "accountName": "JSON savings", "accountNumber": "JSON-IMPORT-%1$s-2", "accountType": "BANK",
+               "currency": "EUR", "startBalance": 0}
+            ]""";
+
+    private static final String TRANSACTIONS = """
+            "transactions": [
+              {"type": "EXPENSE", "amount": 30, "transactionDate": "2026-03-01T10:00:00", "status": "COMPLETED",
+               "fromAccountId": "a1", "categoryId": "c1", "memo": "JSON import test"},
+              {"type": "INCOME", "amount": 50, "transactionDate": "2026-03-02T10:00:00", "status": "COMPLETED",
+               "toAccountId": "a1", "memo": "JSON import test"},
+              {"type": "TRANSFER", "amount": 20, "transactionDate": "2026-03-03T10:00:00", "status": "COMPLETED",
+               "fromAccountId": "a1", "toAccountId": "a2", "memo": "JSON import test", "paymentMethod": "TRANSFER"}
+            ]""";
+
+    @Autowired JsonExportImportService jsonExportImportService;
+    @Autowired UserService userService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void streamsTransactionsAfterTheReferenceData() throws Exception {
+        importAndCheck("{\"version\": \"1.0\", " + REFERENCES.formatted("new") + ", " + TRANSACTIONS
+                + ", \"scheduledTransactions\": []}", "new");
+    }
+
+    @Test
+    void readsOlderExportsWithTransactionsFirst() throws Exception {
+        importAndCheck("{\"version\": \"1.0\", " + TRANSACTIONS + ", " + REFERENCES.formatted("old") + "}", "old");
+    }
+
+    @Test
+    void buffersTransactionsWhenAccountsComeAfterThem() throws Exception {
+        String references = REFERENCES.formatted("late");
+        int accounts = references.indexOf("\"accounts\"");
+        importAndCheck("{\"version\": \"1.0\", " + references.substring(0, accounts) + TRANSACTIONS + ", "
+                + references.substring(accounts) + "}", "late");
+    }
+
+    private void importAndCheck(String json, String suffix) throws Exception {
+        User demo = userService.findByUsername("demo");
+
+        jsonExportImportService.importUserData(demo, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(account(demo, "JSON-IMPORT-" + suffix + "-1").getBalance()).isEqualByComparingTo("100");
+        assertThat(account(demo, "JSON-IMPORT-" + suffix + "-2").getBalance()).isEqualByComparingTo("20");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE memo = 'JSON import test' AND category_id IS NOT NULL",
+                Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE memo = 'JSON import test'", Long.class)).isEqualTo(3);
+        // one summary entry for the whole import
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_log WHERE action = 'IMPORT_JSON' AND user_id = ?", Long.class,
+                demo.getId())).isEqualTo(1);
+    }
+
+    private Account account(User user, String number) {
+        return accountRepository.findByUser(user).stream()
+                .filter(a -> number.equals(a.getAccountNumber()))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,136 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.User;
+import com.cuenti.app.service.NetWorthService;
+import com.cuenti.app.service.UserService;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class NetWorthHistoryApiTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired NetWorthService netWorthService;
+    @Autowired UserService userService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private long accountId;
+    private User demo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"Net worth\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":0"
+                                + ",\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        accountId = objectMapper.readTree(acct).get("id").asLong();
+        demo = userService.findByUsername("demo");
+        netWorthService.refresh(demo, LocalDate.MIN);
+    }
+
+    private void createTransaction(String json) throws Exception {
+        mockMvc.perform(post("/api/transactions")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content(json))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode history(String start, String end, String resolution) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get("/api/dashboard/history")
+                        .with(user("demo"))
+                        .param("start", start)
+                        .param("end", end)
+                        .param("resolution", resolution))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private Map<String, BigDecimal> totalByDate(JsonNode history) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (JsonNode p : history.get("points")) {
+            totals.put(p.get("date").asText(), p.get("total").decimalValue());
+        }
+        return totals;
+    }
+
+    @Test
+    void incrementalRefreshPicksUpBackdatedChanges() throws Exception {
+        Map<String, BigDecimal> before = totalByDate(history("2026-03-01", "2026-03-12", "day"));
+        assertThat(before).hasSize(12);
+
+        createTransaction("{\"type\":\"INCOME\",\"toAccountId\":" + accountId + ",\"amount\":500,\"transactionDate\":\"2026-03-02T09:00:00\"}");
+        createTransaction("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId + ",\"amount\":200,\"transactionDate\":\"2026-03-10T09:00:00\"}");
+        netWorthService.refresh(demo, LocalDate.of(2026, 3, 2));
+
+        JsonNode after = history("2026-03-01", "2026-03-12", "day");
+        Map<String, BigDecimal> totals = totalByDate(after);
+        assertThat(totals.get("2026-03-01").subtract(before.get("2026-03-01"))).isEqualByComparingTo("0");
+        assertThat(totals.get("2026-03-05").subtract(before.get("2026-03-05"))).isEqualByComparingTo("500");
+        assertThat(totals.get("2026-03-11").subtract(before.get("2026-03-11"))).isEqualByComparingTo("300");
+        for (JsonNode p : after.get("points")) {
+            assertThat(p.get("cash").decimalValue().add(p.get("portfolio").decimalValue()))
+                    .isEqualByComparingTo(p.get("total").decimalValue());
+        }
+    }
+
+    @Test
+    void backdatedChangeStoresItsDirtyMarkWithTheChange() throws Exception {
+        createTransaction("{\"type\":\"INCOME\",\"toAccountId\":" + accountId + ",\"amount\":50,\"transactionDate\":\"2025-11-20T09:00:00\"}");
+
+        // a restart before the job ran reloads this row instead of losing the mark
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(from_day) FROM net_worth_dirty WHERE user_id = ?",
+                LocalDate.class, demo.getId())).isEqualTo(LocalDate.of(2025, 11, 20));
+    }
+
+    @Test
+    void monthResolutionKeepsTheLastDayOfEachMonth() throws Exception {
+        JsonNode months = history("2026-01-01", "2026-03-31", "month");
+        assertThat(months.get("resolution").asText()).isEqualTo("MONTH");
+        assertThat(months.get("points")).hasSize(3);
+        assertThat(months.get("points").get(0).get("date").asText()).isEqualTo("2026-01-31");
+        assertThat(months.get("points").get(1).get("date").asText()).isEqualTo("2026-02-28");
+        assertThat(months.get("points").get(2).get("date").asText()).isEqualTo("2026-03-31");
+
+        Map<String, BigDecimal> days = totalByDate(history("2026-03-31", "2026-03-31", "day"));
+        assertThat(months.get("points").get(2).get("total").decimalValue())
+                .isEqualByComparingTo(days.get("2026-03-31"));
+    }
+
+    @Test
+    void unknownResolutionIsRejected() throws Exception {
+        mockMvc.perform(get("/api/dashboard/history")
+                        .with(user("demo"))
+                        .param("resolution", "hour"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown resolution 'hour': expected day, week or month"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.cuenti.app.api;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class PortfolioHistoryApiTest {
+
+    private static final String SYMBOL = "HISTTEST.DE";
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+
+    private long assetId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        long bankId = createAccount("History bank", "BANK");
+        long depotId = createAccount("History depot", "ASSET");
+        assetId = objectMapper.readTree(mockMvc.perform(post("/api/assets")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"symbol\":\"" + SYMBOL + "\",\"name\":\"History ETF\",\"type\":\"ETF\",\"currency\":\"EUR\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        buy(bankId, depotId, "10", "1000", "2026-03-02T10:00:00");
+        buy(bankId, depotId, "5", "550", "2026-03-04T10:00:00");
+
+        MockMultipartFile csv = new MockMultipartFile("file", "prices.csv", "text/csv", ("""
+                date,symbol,price,currency
+                2026-03-02,%1$s,100,EUR
+                2026-03-03,%1$s,105,EUR
+                2026-03-05,%1$s,110,EUR
+                """.formatted(SYMBOL)).getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(multipart("/api/assets/prices/import").file(csv).with(user("demo").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+    }
+
+    private long createAccount(String name, String type) throws Exception {
+        String body = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"" + name + "\",\"accountType\":\"" + type + "\",\"currency\":\"EUR\""
+                                + ",\"startBalance\":0,\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private void buy(long fromId, long toId, String units, String amount, String date) throws Exception {
+        mockMvc.perform(post("/api/transactions")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"type\":\"TRANSFER\",\"fromAccountId\":" + fromId + ",\"toAccountId\":" + toId
+                                + ",\"assetId\":" + assetId + ",\"units\":" + units + ",\"amount\":" + amount
+                                + ",\"transactionDate\":\"" + date + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void dailyValueFollowsUnitsAndPrices() throws Exception {
+        JsonNode history = objectMapper.readTree(mockMvc.perform(get("/api/assets/history")
+                        .with(user("demo"))
+                        .param("start", "2026-03-01")
+                        .param("end", "2026-03-06"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(history.get("dates")).hasSize(6);
+        assertThat(history.get("dates").get(0).asText()).isEqualTo("2026-03-01");
+        JsonNode values = null;
+        for (JsonNode asset : history.get("assets")) {
+            if (asset.get("assetId").asLong() == assetId) values = asset.get("values");
+        }
+        assertThat(values).isNotNull();
+        // 03-01 nothing held; 10 units at 100, 105; 15 units at 105 (03-04 carries 03-03), 110, 110
+        assertThat(values.get(0).decimalValue()).isEqualByComparingTo("0");
+        assertThat(values.get(1).decimalValue()).isEqualByComparingTo("1000");
+        assertThat(values.get(2).decimalValue()).isEqualByComparingTo("1050");
+        assertThat(values.get(3).decimalValue()).isEqualByComparingTo("1575");
+        assertThat(values.get(4).decimalValue()).isEqualByComparingTo("1650");
+        assertThat(values.get(5).decimalValue()).isEqualByComparingTo("1650");
+    }
+
+    @Test
+    void invalidRangeIsRejected() throws Exception {
+        mockMvc.perform(get("/api/assets/history")
+                        .with(user("demo"))
+                        .param("start", "2026-03-06")
+                        .param("end", "2026-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void malformedPriceFileIsRejected() throws Exception {
+        MockMultipartFile csv = new MockMultipartFile("file", "prices.csv", "text/csv",
+                "2026-03-02,%s,abc\n".formatted(SYMBOL).getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(multipart("/api/assets/prices/import").file(csv).with(user("demo").roles("ADMIN")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Line 1: invalid price 'abc'"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Posting;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.PostingRepository;
+import com.cuenti.app.repository.TransactionRepository;
+import com.cuenti.app.service.AccountService;
+import com.cuenti.app.service.PostingService;
+import com.cuenti.app.service.UserService;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class PostingReadModelTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 12, 31, 23, 59, 59);
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired PostingRepository postingRepository;
+    @Autowired PostingService postingService;
+    @Autowired TransactionRepository transactionRepository;
+    @Autowired AccountService accountService;
+    @Autowired UserService userService;
+
+    private long checkingId;
+    private long savingsId;
+    private long transferId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        checkingId = createAccount("Postings checking");
+        savingsId = createAccount("Postings savings");
+
+        createTransaction("{\"type\":\"INCOME\",\"toAccountId\":" + checkingId + ",\"amount\":200,\"transactionDate\":\"2026-04-01T09:00:00\"}");
+        createTransaction("{\"type\":\"EXPENSE\",\"fromAccountId\":" + checkingId + ",\"amount\":40,\"transactionDate\":\"2026-04-02T09:00:00\"}");
+        transferId = createTransaction("{\"type\":\"TRANSFER\",\"fromAccountId\":" + checkingId + ",\"toAccountId\":" + savingsId
+                + ",\"amount\":60,\"transactionDate\":\"2026-04-03T09:00:00\"}");
+    }
+
+    private long createAccount(String name) throws Exception {
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"" + name + "\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":0"
+                                + ",\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(acct).get("id").asLong();
+    }
+
+    private long createTransaction(String json) throws Exception {
+        String body = mockMvc.perform(post("/api/transactions")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private List<Posting> postingsOf(long transactionId) {
+        return postingRepository.findAll().stream()
+                .filter(p -> p.getTransactionId() == transactionId)
+                .sorted(Comparator.comparing(Posting::getAccountId))
+                .toList();
+    }
+
+    @Test
+    void transferPostsBothSidesSummingToZero() {
+        List<Posting> postings = postingsOf(transferId);
+        assertThat(postings).hasSize(2);
+        assertThat(postings).extracting(Posting::getAccountId).containsExactlyInAnyOrder(checkingId, savingsId);
+        assertThat(postings.stream().map(Posting::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("0");
+    }
+
+    @Test
+    void accountQueriesReadThroughPostings() {
+        User demo = userService.findByUsername("demo");
+        Account checking = accountService.findById(checkingId);
+        Account savings = accountService.findById(savingsId);
+
+        assertThat(transactionRepository.findByAccount(checking)).hasSize(3);
+        assertThat(transactionRepository.findByAccount(savings)).extracting(Transaction::getId).containsExactly(transferId);
+        assertThat(transactionRepository.findFiltered(demo, checking, Transaction.TransactionType.EXPENSE, FROM, TO))
+                .hasSize(1);
+        assertThat(transactionRepository.findFiltered(demo, null, Transaction.TransactionType.TRANSFER, FROM, TO))
+                .extracting(Transaction::getId).containsExactly(transferId);
+    }
+
+    @Test
+    void updateMovesPostingsAndDeleteRemovesThem() throws Exception {
+        mockMvc.perform(put("/api/transactions/" + transferId)
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"type\":\"EXPENSE\",\"fromAccountId\":" + savingsId
+                                + ",\"amount\":60,\"transactionDate\":\"2026-04-03T09:00:00\"}"))
+                .andExpect(status().isOk());
+        List<Posting> postings = postingsOf(transferId);
+        assertThat(postings).hasSize(1);
+        assertThat(postings.get(0).getAccountId()).isEqualTo(savingsId);
+        assertThat(postings.get(0).getAmount()).isEqualByComparingTo("-60");
+
+        mockMvc.perform(delete("/api/transactions/" + transferId).with(user("demo")))
+                .andExpect(status().is2xxSuccessful());
+        assertThat(postingsOf(transferId)).isEmpty();
+    }
+
+    @Test
+    void rebuildReproducesIncrementalPostings() {
+        User demo = userService.findByUsername("demo");
+        List<Posting> before = postingsOf(transferId);
+
+        postingService.rebuild(demo);
+
+        List<Posting> after = postingsOf(transferId);
+        assertThat(after).hasSameSizeAs(before);
+        for (int i = 0; i < before.size(); i++) {
+            assertThat(after.get(i).getAccountId()).isEqualTo(before.get(i).getAccountId());
+            assertThat(after.get(i).getAmount()).isEqualByComparingTo(before.get(i).getAmount());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.ScheduledTransaction;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.ScheduledTransactionRepository;
+import com.cuenti.app.service.AccountService;
+import com.cuenti.app.service.ScheduledAutoPostService;
+import com.cuenti.app.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ScheduledAutoPostTest {
+
+    private static final String PAYEE = "Auto-post test";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    @Autowired ScheduledAutoPostService autoPostService;
+    @Autowired ScheduledTransactionRepository scheduledRepository;
+    @Autowired AccountService accountService;
+    @Autowired UserService userService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private User demo;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        demo = userService.findByUsername("demo");
+        account = accountService.getAccountsByUser(demo).getFirst();
+    }
+
+    private ScheduledTransaction schedule(LocalDateTime next, boolean enabled) {
+        return scheduledRepository.save(ScheduledTransaction.builder()
+                .user(demo)
+                .type(Transaction.TransactionType.EXPENSE)
+                .fromAccount(account)
+                .amount(new BigDecimal("12.50"))
+                .payee(PAYEE)
+                .recurrencePattern(ScheduledTransaction.RecurrencePattern.DAILY)
+                .recurrenceValue(1)
+                .nextOccurrence(next)
+                .enabled(enabled)
+                .build());
+    }
+
+    private long posted() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE payee = ?", Long.class, PAYEE);
+    }
+
+    @Test
+    void missedOccurrencesArePostedOnce() {
+        ScheduledTransaction st = schedule(LocalDateTime.of(2026, 3, 7, 9, 0), true);
+
+        assertThat(autoPostService.postDue(NOW)).isGreaterThanOrEqualTo(4);
+        // 03-07, 03-08, 03-09 and 03-10 at 09:00
+        assertThat(posted()).isEqualTo(4);
+        assertThat(scheduledRepository.findById(st.getId()).orElseThrow().getNextOccurrence())
+                .isEqualTo(LocalDateTime.of(2026, 3, 11, 9, 0));
+
+        autoPostService.postDue(NOW);
+        assertThat(posted()).isEqualTo(4);
+    }
+
+    @Test
+    void disabledSchedulesAreLeftAlone() {
+        schedule(LocalDateTime.of(2026, 3, 7, 9, 0), false);
+
+        autoPostService.postDue(NOW);
+
+        assertThat(posted()).isZero();
+    }
+
+    @Test
+    void staleClaimIsRejected() {
+        ScheduledTransaction st = schedule(LocalDateTime.of(2026, 3, 7, 9, 0), true);
+
+        assertThat(scheduledRepository.advanceOccurrence(st.getId(),
+                LocalDateTime.of(2026, 3, 6, 9, 0), LocalDateTime.of(2026, 3, 7, 9, 0))).isZero();
+        assertThat(scheduledRepository.advanceOccurrence(st.getId(),
+                LocalDateTime.of(2026, 3, 7, 9, 0), LocalDateTime.of(2026, 3, 8, 9, 0))).isEqualTo(1);
+    }
+}
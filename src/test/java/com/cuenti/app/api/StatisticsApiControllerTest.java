@@ -0,0 +1,164 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Category;
+import com.cuenti.app.service.CategoryService;
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class StatisticsApiControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired CategoryService categoryService;
+    @Autowired EntityManager entityManager;
+
+    private long accountId;
+    private String categoryName;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Category category = new Category();
+        category.setName("Stats-" + System.nanoTime());
+        category.setType(Category.CategoryType.EXPENSE);
+        Category saved = categoryService.saveCategory(category);
+        categoryName = saved.getFullName();
+
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"Stats test\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":0,\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        accountId = objectMapper.readTree(acct).get("id").asLong();
+
+        createExpense(saved.getId(), "40.00", "2026-05-10T12:00:00");
+        createExpense(saved.getId(), "2.50", "2026-06-01T00:00:00");
+    }
+
+    private long createExpense(Long categoryId, String amount, String date) throws Exception {
+        String body = mockMvc.perform(post("/api/transactions")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId
+                                + ",\"categoryId\":" + categoryId
+                                + ",\"amount\":" + amount
+                                + ",\"transactionDate\":\"" + date + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private JsonNode statistics(String start, String end) throws Exception {
+        String body = mockMvc.perform(get("/api/statistics")
+                        .with(user("demo"))
+                        .param("start", start)
+                        .param("end", end)
+                        .param("accountId", String.valueOf(accountId)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private BigDecimal expense(JsonNode stats) {
+        return stats.get("totalExpense").decimalValue();
+    }
+
+    @Test
+    void wholeMonthsComeFromAggregate() throws Exception {
+        JsonNode stats = statistics("2026-05-01", "2026-06-30");
+        assertThat(expense(stats)).isEqualByComparingTo("42.50");
+        assertThat(stats.get("expenseByCategory").get(categoryName).decimalValue()).isEqualByComparingTo("42.50");
+        assertThat(stats.get("monthlyExpense").get("2026-05").decimalValue()).isEqualByComparingTo("40.00");
+        assertThat(stats.get("transactionCount").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void partialEdgeMonthsAreCutAtTheRangeBoundary() throws Exception {
+        assertThat(expense(statistics("2026-05-11", "2026-06-30"))).isEqualByComparingTo("2.50");
+        assertThat(expense(statistics("2026-05-01", "2026-05-31"))).isEqualByComparingTo("40.00");
+        assertThat(expense(statistics("2026-05-10", "2026-06-01"))).isEqualByComparingTo("42.50");
+    }
+
+    @Test
+    void updateAndDeleteKeepAggregateInStep() throws Exception {
+        Category other = new Category();
+        other.setName("Stats-other-" + System.nanoTime());
+        other.setType(Category.CategoryType.EXPENSE);
+        Long otherId = categoryService.saveCategory(other).getId();
+        long id = createExpense(otherId, "10.00", "2026-05-20T08:00:00");
+        assertThat(expense(statistics("2026-05-01", "2026-05-31"))).isEqualByComparingTo("50.00");
+
+        mockMvc.perform(put("/api/transactions/" + id)
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId
+                                + ",\"categoryId\":" + otherId
+                                + ",\"amount\":15.00,\"transactionDate\":\"2026-05-20T08:00:00\"}"))
+                .andExpect(status().isOk());
+        assertThat(expense(statistics("2026-05-01", "2026-05-31"))).isEqualByComparingTo("55.00");
+
+        mockMvc.perform(delete("/api/transactions/" + id).with(user("demo")))
+                .andExpect(status().is2xxSuccessful());
+        assertThat(expense(statistics("2026-05-01", "2026-05-31"))).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void deletedCategoryTotalsMoveToUncategorized() throws Exception {
+        Category doomed = new Category();
+        doomed.setName("Stats-doomed-" + System.nanoTime());
+        doomed.setType(Category.CategoryType.EXPENSE);
+        doomed = categoryService.saveCategory(doomed);
+        createExpense(null, "7.00", "2026-05-15T08:00:00");
+        createExpense(doomed.getId(), "3.00", "2026-05-16T08:00:00");
+        createExpense(doomed.getId(), "4.00", "2026-06-16T08:00:00");
+
+        // as in a new request: the transactions above are no longer managed
+        entityManager.flush();
+        entityManager.clear();
+        categoryService.deleteCategory(categoryService.findById(doomed.getId()).orElseThrow());
+        JsonNode moved = statistics("2026-05-01", "2026-06-30");
+        assertThat(expense(moved)).isEqualByComparingTo("56.50");
+
+        // the same rows a full rebuild produces
+        mockMvc.perform(post("/api/statistics/rebuild").with(user("demo")))
+                .andExpect(status().isOk());
+        JsonNode rebuilt = statistics("2026-05-01", "2026-06-30");
+        assertThat(moved.get("expenseByCategory")).isEqualTo(rebuilt.get("expenseByCategory"));
+        assertThat(moved.get("monthlyExpense")).isEqualTo(rebuilt.get("monthlyExpense"));
+    }
+
+    @Test
+    void rebuildReproducesIncrementalTotals() throws Exception {
+        JsonNode before = statistics("2026-05-01", "2026-06-30");
+
+        mockMvc.perform(post("/api/statistics/rebuild").with(user("demo")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").isNumber());
+
+        JsonNode after = statistics("2026-05-01", "2026-06-30");
+        assertThat(expense(after)).isEqualByComparingTo(expense(before));
+        assertThat(after.get("expenseByCategory")).isEqualTo(before.get("expenseByCategory"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Category;
+import com.cuenti.app.service.CategoryService;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class TransactionBatchApiTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired CategoryService categoryService;
+
+    private long checkingId;
+    private long savingsId;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Category category = new Category();
+        category.setName("Batch-" + System.nanoTime());
+        category.setType(Category.CategoryType.EXPENSE);
+        categoryId = categoryService.saveCategory(category).getId();
+
+        checkingId = createAccount("Batch checking", 1000);
+        savingsId = createAccount("Batch savings", 0);
+    }
+
+    private long createAccount(String name, int startBalance) throws Exception {
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"" + name + "\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":"
+                                + startBalance + ",\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(acct).get("id").asLong();
+    }
+
+    private BigDecimal balance(long accountId) throws Exception {
+        String body = mockMvc.perform(get("/api/accounts/" + accountId).with(user("demo")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("balance").decimalValue();
+    }
+
+    @Test
+    void batchInsertsAllRowsAndAppliesNetBalances() throws Exception {
+        StringBuilder rows = new StringBuilder("[");
+        for (int i = 0; i < 120; i++) {
+            rows.append("{\"type\":\"EXPENSE\",\"fromAccountId\":").append(checkingId)
+                    .append(",\"categoryId\":").append(categoryId)
+                    .append(",\"amount\":1.50,\"transactionDate\":\"2026-03-").append(String.format("%02d", i % 28 + 1))
+                    .append("T10:00:00\",\"payee\":\"Feed ").append(i).append("\"},");
+        }
+        rows.append("{\"type\":\"INCOME\",\"toAccountId\":").append(checkingId)
+                .append(",\"amount\":500,\"transactionDate\":\"2026-03-01T09:00:00\"},");
+        rows.append("{\"type\":\"TRANSFER\",\"fromAccountId\":").append(checkingId)
+                .append(",\"toAccountId\":").append(savingsId)
+                .append(",\"amount\":200,\"transactionDate\":\"2026-03-02T09:00:00\"}]");
+
+        String body = mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content(rows.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(122))
+                .andExpect(jsonPath("$.ids.length()").value(122))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode ids = objectMapper.readTree(body).get("ids");
+        assertThat(ids.get(121).asLong()).isGreaterThan(ids.get(0).asLong());
+
+        // 1000 - 120 * 1.50 + 500 - 200
+        assertThat(balance(checkingId)).isEqualByComparingTo("1120.00");
+        assertThat(balance(savingsId)).isEqualByComparingTo("200.00");
+
+        mockMvc.perform(get("/api/transactions").with(user("demo"))
+                        .param("accountId", String.valueOf(savingsId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        String stats = mockMvc.perform(get("/api/statistics").with(user("demo"))
+                        .param("start", "2026-03-01").param("end", "2026-03-31")
+                        .param("accountId", String.valueOf(checkingId)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode s = objectMapper.readTree(stats);
+        assertThat(s.get("totalExpense").decimalValue()).isEqualByComparingTo("180.00");
+        assertThat(s.get("totalIncome").decimalValue()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    void splitsAreStoredWithTheirParent() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("[{\"type\":\"EXPENSE\",\"fromAccountId\":" + checkingId
+                                + ",\"amount\":30,\"transactionDate\":\"2026-04-01T12:00:00\",\"splits\":["
+                                + "{\"categoryId\":" + categoryId + ",\"amount\":10},"
+                                + "{\"categoryId\":" + categoryId + ",\"amount\":20}]}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1));
+
+        mockMvc.perform(get("/api/transactions").with(user("demo"))
+                        .param("accountId", String.valueOf(checkingId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].splits.length()").value(2));
+        assertThat(balance(checkingId)).isEqualByComparingTo("970.00");
+    }
+
+    @Test
+    void foreignAccountRejectsWholeBatch() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("[{\"type\":\"EXPENSE\",\"fromAccountId\":" + checkingId + ",\"amount\":5},"
+                                + "{\"type\":\"EXPENSE\",\"fromAccountId\":999999,\"amount\":5}]"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value(containsString("Row 1")));
+
+        assertThat(balance(checkingId)).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void malformedRowIs400() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("[{\"type\":\"EXPENSE\",\"fromAccountId\":" + checkingId + ",\"amount\":-1}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
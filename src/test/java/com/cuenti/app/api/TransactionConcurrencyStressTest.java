@@ -0,0 +1,112 @@
+package com.cuenti.app.api;
+
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Many API clients transferring between the same few accounts at once. Every
+ * transfer commits on its own, so a read-modify-write balance update would lose
+ * some of them; the atomic SQL deltas must leave every balance exact.
+ */
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:stressdb;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionConcurrencyStressTest {
+
+    private static final int ACCOUNTS = 6;
+    private static final int TRANSFERS = 2000;
+    private static final int THREADS = 16;
+    private static final BigDecimal START = new BigDecimal("10000.00");
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+
+    private long createAccount(int n) throws Exception {
+        String acct = mockMvc.perform(post("/api/accounts")
+                        .with(user("demo"))
+                        .contentType("application/json")
+                        .content("{\"accountName\":\"Stress " + n + "-" + System.nanoTime()
+                                + "\",\"accountType\":\"BANK\",\"currency\":\"EUR\",\"startBalance\":" + START
+                                + ",\"excludeFromSummary\":false,\"excludeFromReports\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(acct).get("id").asLong();
+    }
+
+    private BigDecimal balance(long accountId) throws Exception {
+        String body = mockMvc.perform(get("/api/accounts/" + accountId).with(user("demo")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("balance").decimalValue();
+    }
+
+    @Test
+    void concurrentTransfersKeepBalancesExact() throws Exception {
+        long[] ids = new long[ACCOUNTS];
+        BigDecimal[] expected = new BigDecimal[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids[i] = createAccount(i);
+            expected[i] = START;
+        }
+
+        // Random pairs in both directions, so opposite transfers race for the same two rows.
+        Random random = new Random(42);
+        List<String> bodies = new ArrayList<>(TRANSFERS);
+        for (int n = 0; n < TRANSFERS; n++) {
+            int from = random.nextInt(ACCOUNTS);
+            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(5000), 2);
+            expected[from] = expected[from].subtract(amount);
+            expected[to] = expected[to].add(amount);
+            bodies.add("{\"type\":\"TRANSFER\",\"fromAccountId\":" + ids[from]
+                    + ",\"toAccountId\":" + ids[to]
+                    + ",\"amount\":" + amount.toPlainString()
+                    + ",\"transactionDate\":\"2026-07-01T12:00:00\"}");
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(TRANSFERS);
+            for (String body : bodies) {
+                futures.add(pool.submit(() -> {
+                    mockMvc.perform(post("/api/transactions")
+                                    .with(user("demo"))
+                                    .contentType("application/json")
+                                    .content(body))
+                            .andExpect(status().isOk());
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BigDecimal actual = balance(ids[i]);
+            assertThat(actual).as("account %d", i).isEqualByComparingTo(expected[i]);
+            total = total.add(actual);
+        }
+        assertThat(total).isEqualByComparingTo(START.multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+}
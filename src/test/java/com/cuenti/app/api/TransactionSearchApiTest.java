@@ -176,4 +176,118 @@ class TransactionSearchApiTest {
                         .with(user("demo")))
                 .andExpect(status().isBadRequest());
     }
+
+    private tools.jackson.databind.JsonNode cursorPage(String cursor, String sort) throws Exception {
+        var request = get("/api/transactions")
+                .param("accountId", String.valueOf(accountId))
+                .param("cursor", cursor)
+                .param("size", "3")
+                .with(user("demo"));
+        if (sort != null) request.param("sort", sort);
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    void cursorWalksWholeHistoryWithoutDuplicates() throws Exception {
+        // Ties on (transactionDate, sortOrder) must be split by id, as with offset paging
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/transactions")
+                            .with(user("demo"))
+                            .contentType("application/json")
+                            .content("{\"type\":\"EXPENSE\",\"fromAccountId\":" + accountId
+                                    + ",\"amount\":7,\"transactionDate\":\"2026-06-01T09:00:00\""
+                                    + ",\"payee\":\"Tie " + i + "\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        java.util.List<Integer> ids = new java.util.ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null && pages++ < 10) {
+            var page = cursorPage(cursor, null);
+            org.assertj.core.api.Assertions.assertThat(page.has("totalElements")).isFalse();
+            for (var t : page.get("content")) ids.add(t.get("id").asInt());
+            cursor = page.has("nextCursor") ? page.get("nextCursor").asString() : null;
+        }
+        org.assertj.core.api.Assertions.assertThat(ids).hasSize(10).doesNotHaveDuplicates();
+        org.assertj.core.api.Assertions.assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void prevCursorReturnsThePreviousPage() throws Exception {
+        var first = cursorPage("", null);
+        org.assertj.core.api.Assertions.assertThat(first.has("prevCursor")).isFalse();
+        org.assertj.core.api.Assertions.assertThat(first.get("content").get(0).get("payee").asString())
+                .isEqualTo("Rewe 5");
+
+        var second = cursorPage(first.get("nextCursor").asString(), null);
+        org.assertj.core.api.Assertions.assertThat(second.get("content").get(0).get("payee").asString())
+                .isEqualTo("Rewe 2");
+
+        var back = cursorPage(second.get("prevCursor").asString(), null);
+        org.assertj.core.api.Assertions.assertThat(back.get("content")).isEqualTo(first.get("content"));
+        org.assertj.core.api.Assertions.assertThat(back.has("prevCursor")).isFalse();
+    }
+
+    @Test
+    void cursorAscendingAndCountOnRequest() throws Exception {
+        mockMvc.perform(get("/api/transactions")
+                        .param("accountId", String.valueOf(accountId))
+                        .param("cursor", "").param("size", "2")
+                        .param("sort", "transactionDate,asc")
+                        .param("count", "true")
+                        .with(user("demo")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].payee").value("Rewe 1"))
+                .andExpect(jsonPath("$.totalElements").value(5))
+                .andExpect(jsonPath("$.totalPages").value(3))
+                .andExpect(jsonPath("$.nextCursor").isString());
+    }
+
+    @Test
+    void malformedCursorOrUnsupportedSortIs400() throws Exception {
+        mockMvc.perform(get("/api/transactions").param("cursor", "not-a-cursor")
+                        .with(user("demo")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/transactions").param("cursor", "").param("sort", "amount,asc")
+                        .with(user("demo")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsNdjsonOldestFirst() throws Exception {
+        String body = mockMvc.perform(get("/api/transactions/export")
+                        .param("accountId", String.valueOf(accountId))
+                        .with(user("demo")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", org.hamcrest.Matchers.startsWith("application/x-ndjson")))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        org.assertj.core.api.Assertions.assertThat(lines).hasSize(5);
+        org.assertj.core.api.Assertions.assertThat(objectMapper.readTree(lines[0]).get("payee").asString())
+                .isEqualTo("Rewe 1");
+    }
+
+    @Test
+    void exportCsvHonoursDateRange() throws Exception {
+        String body = mockMvc.perform(get("/api/transactions/export")
+                        .param("format", "csv")
+                        .param("accountId", String.valueOf(accountId))
+                        .param("start", "2026-02-01").param("end", "2026-03-31")
+                        .with(user("demo")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        org.assertj.core.api.Assertions.assertThat(lines).hasSize(3); // header + Feb + Mar
+        org.assertj.core.api.Assertions.assertThat(lines[0]).startsWith("id,date,type");
+        org.assertj.core.api.Assertions.assertThat(lines[1]).contains("Rewe 2").contains("20");
+
+        mockMvc.perform(get("/api/transactions/export").param("format", "xml").with(user("demo")))
+                .andExpect(status().isBadRequest());
+    }
 }
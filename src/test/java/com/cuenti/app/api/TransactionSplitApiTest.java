@@ -2,6 +2,7 @@ package com.cuenti.app.api;
 
 import com.cuenti.app.model.Category;
 import com.cuenti.app.service.CategoryService;
+import jakarta.persistence.EntityManager;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,7 @@ class TransactionSplitApiTest {
     @Autowired MockMvc mockMvc;
     @Autowired ObjectMapper objectMapper;
     @Autowired CategoryService categoryService;
+    @Autowired EntityManager entityManager;
 
     private long accountId;
     private Long groceriesId;
@@ -85,6 +87,32 @@ class TransactionSplitApiTest {
                 .andExpect(jsonPath("$[0].splits.length()").value(2));
     }
 
+    @Test
+    void exportLoadsSplitsWithTheirTransactions() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/transactions")
+                            .with(user("demo"))
+                            .contentType("application/json")
+                            .content(splitTxJson("50.00", "30.00", "20.00")))
+                    .andExpect(status().isOk());
+        }
+        // read back from the database, not from the persistence context
+        entityManager.flush();
+        entityManager.clear();
+
+        String ndjson = mockMvc.perform(get("/api/transactions/export")
+                        .param("accountId", String.valueOf(accountId))
+                        .with(user("demo")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = ndjson.strip().split("\n");
+        assertThat(lines).hasSize(3);
+        for (String line : lines) {
+            assertThat(objectMapper.readTree(line).get("splits")).hasSize(2);
+        }
+    }
+
     @Test
     void mismatchedSplitSumIs400() throws Exception {
         mockMvc.perform(post("/api/transactions")
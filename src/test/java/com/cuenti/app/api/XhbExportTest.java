@@ -0,0 +1,48 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.User;
+import com.cuenti.app.service.UserService;
+import com.cuenti.app.service.XhbExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class XhbExportTest {
+
+    @Autowired XhbExportService xhbExportService;
+    @Autowired UserService userService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writesOneOperationPerBookedTransaction() throws Exception {
+        User demo = userService.findByUsername("demo");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = xhbExportService.exportXhb(demo, out);
+
+        long expected = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM transactions t
+                JOIN accounts a ON a.id = CASE WHEN t.type = 'INCOME' THEN t.to_account_id ELSE t.from_account_id END
+                WHERE a.user_id = ?""", Long.class, demo.getId());
+        assertThat(written).isEqualTo(expected).isPositive();
+
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(doc.getDocumentElement().getTagName()).isEqualTo("homebank");
+        assertThat((long) doc.getElementsByTagName("ope").getLength()).isEqualTo(written);
+        assertThat(doc.getElementsByTagName("account").getLength()).isPositive();
+    }
+}
@@ -0,0 +1,94 @@
+package com.cuenti.app.api;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.AccountRepository;
+import com.cuenti.app.repository.ScheduledTransactionRepository;
+import com.cuenti.app.repository.TagRepository;
+import com.cuenti.app.service.UserService;
+import com.cuenti.app.service.XhbImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@WithMockUser(username = "demo")
+class XhbImportTest {
+
+    @Autowired XhbImportService xhbImportService;
+    @Autowired UserService userService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired TagRepository tagRepository;
+    @Autowired ScheduledTransactionRepository scheduledRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    /** HomeBank day number of {@code date}. */
+    private static long day(String date) {
+        return ChronoUnit.DAYS.between(LocalDate.of(1, 1, 1), LocalDate.parse(date)) + 1;
+    }
+
+    private static final String FILE = """
+            <?xml version="1.0"?>
+            <homebank v="1.4">
+            <properties title="Test" curr="1"/>
+            <cur key="1" flags="0" iso="EUR" name="Euro" symb="€" syprf="0" dchar="," gchar="." frac="2"/>
+            <grp key="1" name="XHB group"/>
+            <account key="1" pos="1" type="1" curr="1" name="XHB checking" initial="100" grp="1"/>
+            <account key="2" pos="2" type="1" curr="1" name="XHB savings" initial="0"/>
+            <pay key="1" name="XHB grocer"/>
+            <cat key="1" name="XHB food" flags="0"/>
+            <cat key="2" parent="1" name="XHB market" flags="0"/>
+            <tag key="1" name="xhbdefined"/>
+            <fav key="1" amount="-9.99" account="1" unit="2" every="1" nextdate="%5$d" payee="1" wording="XHB test"/>
+            <ope date="%1$d" amount="-30" account="1" payee="1" category="2" wording="XHB test" tags="xhbone xhbtwo"/>
+            <ope date="%2$d" amount="50" account="1" wording="XHB test"/>
+            <ope date="%3$d" amount="-20" account="1" dst_account="2" wording="XHB test"/>
+            <ope date="%4$d" amount="20" account="2" dst_account="1" wording="XHB test"/>
+            </homebank>
+            """.formatted(day("2026-03-01"), day("2026-03-02"), day("2026-03-03"), day("2026-03-03"),
+            day("2026-04-01"));
+
+    @Test
+    void importsReferenceDataOperationsAndBalances() throws Exception {
+        User demo = userService.findByUsername("demo");
+
+        xhbImportService.importXhb(new ByteArrayInputStream(FILE.getBytes(StandardCharsets.UTF_8)), demo);
+
+        Account checking = account(demo, "HB-1");
+        Account savings = account(demo, "HB-2");
+        assertThat(checking.getAccountGroup()).isEqualTo("XHB group");
+        assertThat(checking.getBalance()).isEqualByComparingTo("100");
+        assertThat(savings.getBalance()).isEqualByComparingTo("20");
+
+        // the incoming side of the transfer is not imported a second time
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE memo = 'XHB test'", Long.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT payee FROM transactions WHERE memo = 'XHB test' AND amount = 30", String.class))
+                .isEqualTo("XHB grocer");
+        assertThat(tagRepository.findByUser(demo)).extracting(t -> t.getName())
+                .contains("xhbdefined", "xhbone", "xhbtwo");
+        assertThat(scheduledRepository.findByUser(demo))
+                .anyMatch(st -> "XHB test".equals(st.getMemo())
+                        && st.getNextOccurrence().toLocalDate().equals(LocalDate.parse("2026-04-01")));
+    }
+
+    private Account account(User user, String number) {
+        return accountRepository.findByUser(user).stream()
+                .filter(a -> number.equals(a.getAccountNumber()))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,201 @@
+package com.cuenti.app.repository;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.Asset;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL behind every hot query of TransactionRepository,
+ * ScheduledTransactionRepository and BudgetRepository against the seeded H2
+ * database, and fails when a plan reads one of the transaction tables with a
+ * full table scan. Hibernate hands each generated statement to {@link SqlCapture};
+ * the test then explains exactly that SQL.
+ *
+ * {@code streamForExport} is deliberately not covered: the postings and daily
+ * balance read models are rebuilt from it, so it reads a user's whole history
+ * from the transactions table by design.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plandb;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.cuenti.app.repository.QueryPlanTest$SqlCapture"
+})
+@ActiveProfiles("test")
+@Transactional
+class QueryPlanTest {
+
+    private static final List<String> SCANNED_TABLES =
+            List.of("TRANSACTIONS", "TRANSACTION_SPLITS", "SCHEDULED_TRANSACTIONS", "BUDGETS");
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    /** Collects the SQL Hibernate sends to the database. */
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired TransactionRepository transactionRepository;
+    @Autowired ScheduledTransactionRepository scheduledTransactionRepository;
+    @Autowired BudgetRepository budgetRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager entityManager;
+
+    private User demo;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        demo = userRepository.findByUsername("demo").orElseThrow();
+        account = accountRepository.findByUser(demo).get(0);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /** Runs {@code query} and returns the SQL statements it issued. */
+    private List<String> captured(Runnable query) {
+        entityManager.flush();
+        entityManager.clear();
+        SqlCapture.STATEMENTS.clear();
+        query.run();
+        return new ArrayList<>(SqlCapture.STATEMENTS);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    ps.setNull(i, Types.NULL);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private void assertNoFullScan(String name, Runnable query) {
+        List<String> statements = captured(query);
+        assertThat(statements).as("%s issued no SQL", name).isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            for (String table : SCANNED_TABLES) {
+                assertThat(plan.toUpperCase(Locale.ROOT))
+                        .as("%s scans %s:%n%s", name, table, plan)
+                        .doesNotContain("PUBLIC." + table + ".TABLESCAN");
+            }
+        }
+    }
+
+    @Test
+    void accountAndUserListsUseIndexes() {
+        assertNoFullScan("findByAccount", () -> transactionRepository.findByAccount(account));
+        assertNoFullScan("findFingerprints", () ->
+                transactionRepository.findFingerprints(account.getId(), FROM, TO));
+        assertNoFullScan("findByUser", () -> transactionRepository.findByUser(demo));
+        assertNoFullScan("findFiltered(user)", () ->
+                transactionRepository.findFiltered(demo, null, null, FROM, TO));
+        assertNoFullScan("findFiltered(account)", () ->
+                transactionRepository.findFiltered(demo, account, Transaction.TransactionType.EXPENSE, FROM, TO));
+        assertNoFullScan("findInPeriod", () -> transactionRepository.findInPeriod(demo, FROM, TO));
+        assertNoFullScan("findByFromAccount", () ->
+                transactionRepository.findByFromAccountOrderByTransactionDateDesc(account));
+        assertNoFullScan("findByToAccount", () ->
+                transactionRepository.findByToAccountOrderByTransactionDateDesc(account));
+        assertNoFullScan("findByNumber", () -> transactionRepository.findByNumber("plan-test"));
+        assertNoFullScan("findForExport", () -> transactionRepository.findForExport(List.of(1L, 2L)));
+        assertNoFullScan("findExistingNumbers", () ->
+                transactionRepository.findExistingNumbers(List.of("plan-test", "plan-test-2")));
+    }
+
+    @Test
+    void aggregatesAndCountsUseIndexes() {
+        Transaction.TransactionType expense = Transaction.TransactionType.EXPENSE;
+        assertNoFullScan("sumExpensesByCategory", () ->
+                transactionRepository.sumExpensesByCategory(demo, FROM, TO, expense));
+        assertNoFullScan("monthlyTotalsByFromAccount", () ->
+                transactionRepository.monthlyTotalsByFromAccount(demo, expense));
+        assertNoFullScan("monthlyTotalsByToAccount", () ->
+                transactionRepository.monthlyTotalsByToAccount(demo, Transaction.TransactionType.INCOME));
+        assertNoFullScan("monthlySplitTotalsByFromAccount", () ->
+                transactionRepository.monthlySplitTotalsByFromAccount(demo, expense));
+        assertNoFullScan("monthlySplitTotalsByToAccount", () ->
+                transactionRepository.monthlySplitTotalsByToAccount(demo, Transaction.TransactionType.INCOME));
+        assertNoFullScan("sumAssetHoldings", () ->
+                transactionRepository.sumAssetHoldings(demo, Account.AccountType.ASSET));
+        assertNoFullScan("findAssetUnitMovements", () ->
+                transactionRepository.findAssetUnitMovements(demo, Account.AccountType.ASSET, TO));
+        assertNoFullScan("countReportable", () -> transactionRepository.countReportable(demo, FROM, TO));
+        assertNoFullScan("countForAccount", () ->
+                transactionRepository.countForAccount(demo, account.getId(), FROM, TO));
+        assertNoFullScan("countByAsset", () ->
+                transactionRepository.countByAsset(Asset.builder().id(0L).build()));
+        assertNoFullScan("clearCategoryReferences", () -> transactionRepository.clearCategoryReferences(0L));
+    }
+
+    @Test
+    void runningBalancesUseIndexes() {
+        assertNoFullScan("runningBalancesForUser", () ->
+                transactionRepository.runningBalancesForUser(demo.getId(), FROM, FROM, TO, null));
+        assertNoFullScan("runningBalancesForAccount", () ->
+                transactionRepository.runningBalancesForAccount(account.getId(), FROM, FROM, TO, null));
+    }
+
+    @Test
+    void searchQueriesUseIndexes() {
+        assertNoFullScan("searchByUser", () -> transactionRepository.searchByUser(demo.getId(), null, null, null,
+                null, null, null, null, "coffee", PageRequest.of(0, 20)));
+        assertNoFullScan("countSearch", () -> transactionRepository.countSearch(demo.getId(), account.getId(), null,
+                null, FROM, TO, null, null, null));
+        assertNoFullScan("seekByUserDesc", () -> transactionRepository.seekByUserDesc(demo.getId(), null, null, null,
+                null, null, null, null, null, TO, 0, Long.MAX_VALUE, PageRequest.of(0, 20)));
+        assertNoFullScan("seekByUserAsc", () -> transactionRepository.seekByUserAsc(demo.getId(), null, null, null,
+                null, null, null, null, null, FROM, 0, 0L, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void scheduledAndBudgetQueriesUseIndexes() {
+        assertNoFullScan("scheduled.findByUser", () -> scheduledTransactionRepository.findByUser(demo));
+        assertNoFullScan("scheduled.countDueBefore", () -> scheduledTransactionRepository.countDueBefore(demo, TO));
+        assertNoFullScan("scheduled.findDue", () -> scheduledTransactionRepository.findDue(FROM));
+        assertNoFullScan("scheduled.countByAsset", () ->
+                scheduledTransactionRepository.countByAsset(Asset.builder().id(0L).build()));
+        assertNoFullScan("scheduled.clearCategoryReferences", () ->
+                scheduledTransactionRepository.clearCategoryReferences(0L));
+        assertNoFullScan("budgets.findByUser", () -> budgetRepository.findByUserOrderByMonthlyLimitDesc(demo));
+        assertNoFullScan("budgets.findByUserAndCategoryId", () ->
+                budgetRepository.findByUserAndCategoryId(demo, 0L));
+    }
+}
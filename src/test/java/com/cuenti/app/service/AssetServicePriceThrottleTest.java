@@ -15,7 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 class AssetServicePriceThrottleTest {
 
-    private final AssetService service = new AssetService(null, null, null, null);
+    private final AssetService service = new AssetService(null, null, null, null, null, null, null);
 
     @Test
     @UseCase(id = "UC-103", scenario = "Price refresh throttled per user")
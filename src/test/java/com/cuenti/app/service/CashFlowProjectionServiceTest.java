@@ -0,0 +1,107 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.Account;
+import com.cuenti.app.model.ScheduledTransaction;
+import com.cuenti.app.model.Transaction;
+import com.cuenti.app.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CashFlowProjectionServiceTest {
+
+    private ScheduledTransactionService scheduledService;
+    private CashFlowProjectionService service;
+
+    private final User user = new User();
+    private final Account checking = account(1L, "100");
+    private final Account savings = account(2L, "0");
+    private final LocalDate today = LocalDate.now();
+
+    private static Account account(Long id, String balance) {
+        Account a = new Account();
+        a.setId(id);
+        a.setAccountName("Account " + id);
+        a.setCurrency("EUR");
+        a.setBalance(new BigDecimal(balance));
+        return a;
+    }
+
+    private static ScheduledTransaction schedule(Transaction.TransactionType type, Account from, Account to,
+                                                 String amount, ScheduledTransaction.RecurrencePattern pattern,
+                                                 LocalDate next) {
+        ScheduledTransaction st = new ScheduledTransaction();
+        st.setEnabled(true);
+        st.setType(type);
+        st.setFromAccount(from);
+        st.setToAccount(to);
+        st.setAmount(new BigDecimal(amount));
+        st.setRecurrencePattern(pattern);
+        st.setRecurrenceValue(1);
+        st.setNextOccurrence(next.atTime(10, 0));
+        return st;
+    }
+
+    @BeforeEach
+    void setUp() {
+        scheduledService = mock(ScheduledTransactionService.class);
+        AccountService accountService = mock(AccountService.class);
+        service = new CashFlowProjectionService(scheduledService, accountService);
+        when(accountService.getAccountsByUser(user)).thenReturn(List.of(checking, savings));
+    }
+
+    @Test
+    void transfersMoveMoneyAndTheFirstNegativeDayIsFlagged() {
+        when(scheduledService.getByUser(user)).thenReturn(List.of(
+                schedule(Transaction.TransactionType.EXPENSE, checking, null, "30",
+                        ScheduledTransaction.RecurrencePattern.WEEKLY, today.plusDays(1)),
+                schedule(Transaction.TransactionType.TRANSFER, checking, savings, "5",
+                        ScheduledTransaction.RecurrencePattern.DAILY, today.plusDays(2))));
+
+        CashFlowProjectionService.CashFlowProjection projection = service.project(user, 10);
+
+        assertThat(projection.dates()).hasSize(10).startsWith(today);
+        CashFlowProjectionService.AccountProjection c = projection.accounts().get(0);
+        CashFlowProjectionService.AccountProjection s = projection.accounts().get(1);
+        assertThat(c.balances().get(0)).isEqualByComparingTo("100");
+        assertThat(c.balances().get(1)).isEqualByComparingTo("70");  // weekly expense
+        assertThat(c.balances().get(2)).isEqualByComparingTo("65");  // first transfer
+        assertThat(c.balances().get(8)).isEqualByComparingTo("5");   // 100 - 2 * 30 - 7 * 5
+        assertThat(c.balances().get(9)).isEqualByComparingTo("0");
+        assertThat(c.firstNegativeDay()).isNull();
+        assertThat(s.balances().get(9)).isEqualByComparingTo("40");
+
+        CashFlowProjectionService.CashFlowProjection longer = service.project(user, 12);
+        assertThat(longer.accounts().get(0).firstNegativeDay()).isEqualTo(today.plusDays(10));
+    }
+
+    @Test
+    void overdueOccurrencesLandOnTheFirstDay() {
+        ScheduledTransaction disabled = schedule(Transaction.TransactionType.INCOME, null, checking, "999",
+                ScheduledTransaction.RecurrencePattern.DAILY, today);
+        disabled.setEnabled(false);
+        when(scheduledService.getByUser(user)).thenReturn(List.of(disabled,
+                schedule(Transaction.TransactionType.INCOME, null, savings, "10",
+                        ScheduledTransaction.RecurrencePattern.DAILY, today.minusDays(2))));
+
+        CashFlowProjectionService.CashFlowProjection projection = service.project(user, 2);
+
+        assertThat(projection.accounts().get(0).balances()).allSatisfy(b -> assertThat(b).isEqualByComparingTo("100"));
+        assertThat(projection.accounts().get(1).balances().get(0)).isEqualByComparingTo("30"); // two overdue and today's
+        assertThat(projection.accounts().get(1).balances().get(1)).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void rangeIsCapped() {
+        assertThatThrownBy(() -> service.project(user, CashFlowProjectionService.MAX_DAYS + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
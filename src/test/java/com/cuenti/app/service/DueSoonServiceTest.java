@@ -0,0 +1,58 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.User;
+import com.cuenti.app.repository.ScheduledTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DueSoonServiceTest {
+
+    private ScheduledTransactionRepository repository;
+    private DueSoonService service;
+
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ScheduledTransactionRepository.class);
+        service = new DueSoonService(repository);
+        user.setId(7L);
+    }
+
+    @Test
+    void countIsCachedUntilInvalidated() {
+        when(repository.countDueBefore(eq(user), any(LocalDateTime.class))).thenReturn(3L, 2L);
+
+        assertThat(service.count(user)).isEqualTo(3);
+        assertThat(service.count(user)).isEqualTo(3);
+        verify(repository, times(1)).countDueBefore(eq(user), any(LocalDateTime.class));
+
+        service.invalidate(user);
+        assertThat(service.count(user)).isEqualTo(2);
+    }
+
+    @Test
+    void listenersReceiveTheNewCountUntilRemoved() {
+        when(repository.countDueBefore(eq(user), any(LocalDateTime.class))).thenReturn(1L, 0L);
+        List<Long> pushed = new ArrayList<>();
+        Runnable remove = service.addListener(user, pushed::add);
+
+        service.invalidate(user);
+        remove.run();
+        service.invalidate(user);
+
+        assertThat(pushed).containsExactly(1L);
+    }
+}
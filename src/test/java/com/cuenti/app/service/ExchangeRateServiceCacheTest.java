@@ -0,0 +1,160 @@
+package com.cuenti.app.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for the exchange-rate cache: TTL, stale-while-revalidate,
+ * coalesced fetches and the hit/miss counters. Yahoo is replaced by a
+ * counting stub.
+ */
+class ExchangeRateServiceCacheTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    /** Clock the test moves forward by hand. */
+    private static final class TestClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-05-01T10:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /** Answers every pair with the current {@code rate}, optionally holding each fetch until released. */
+    private static final class StubService extends ExchangeRateService {
+        final AtomicInteger fetches = new AtomicInteger();
+        volatile BigDecimal rate = new BigDecimal("1.10");
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        StubService(ExecutorService executor, MeterRegistry registry, Clock clock) {
+            super(null, executor, registry, event -> { }, TTL, Duration.ofDays(1), Duration.ofMinutes(5), clock);
+        }
+
+        @Override
+        BigDecimal fetchRate(String from, String to) {
+            fetches.incrementAndGet();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rate;
+        }
+    }
+
+    private final ExecutorService fxPool = Executors.newFixedThreadPool(2);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestClock clock = new TestClock();
+    private final StubService service = new StubService(fxPool, registry, clock);
+
+    @AfterEach
+    void tearDown() {
+        fxPool.shutdownNow();
+    }
+
+    private double requests(String result) {
+        return registry.counter("cuenti.fx.cache.requests", "result", result).count();
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        service.gate = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> service.getExchangeRate("USD", "EUR")));
+            }
+            Thread.sleep(200);
+            service.gate.countDown();
+            for (Future<BigDecimal> f : results) {
+                assertEquals(0, new BigDecimal("1.10").compareTo(f.get(5, TimeUnit.SECONDS)));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, service.fetches.get(), "one Yahoo call for eight concurrent misses");
+        assertEquals(1, registry.timer("cuenti.fx.fetch", "outcome", "success").count());
+    }
+
+    @Test
+    void freshRateIsServedFromCache() {
+        service.getExchangeRate("USD", "EUR");
+        clock.advance(TTL.minusMinutes(1));
+        service.getExchangeRate("USD", "EUR");
+
+        assertEquals(1, service.fetches.get());
+        assertEquals(1.0, requests("miss"));
+        assertEquals(1.0, requests("hit"));
+    }
+
+    @Test
+    void staleRateIsServedWhileRefreshingInBackground() throws Exception {
+        service.getExchangeRate("USD", "EUR");
+        clock.advance(TTL.plusMinutes(1));
+        service.rate = new BigDecimal("1.20");
+        service.gate = new CountDownLatch(1);
+
+        // the caller gets the old rate at once, although the refresh is still blocked
+        assertEquals(0, new BigDecimal("1.10").compareTo(service.getExchangeRate("USD", "EUR")));
+        assertEquals(1.0, requests("stale"));
+
+        service.gate.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getExchangeRate("USD", "EUR").compareTo(new BigDecimal("1.20")) != 0) {
+            assertTrue(System.nanoTime() < deadline, "background refresh did not land");
+            Thread.sleep(10);
+        }
+        assertEquals(2, service.fetches.get());
+    }
+
+    @Test
+    void failedPairIsNotRefetchedDuringBackoff() {
+        service.rate = null;
+
+        assertEquals(0, BigDecimal.ONE.compareTo(service.getExchangeRate("USD", "XYZ")));
+        int afterFirst = service.fetches.get();
+        assertEquals(0, BigDecimal.ONE.compareTo(service.getExchangeRate("USD", "XYZ")));
+        assertEquals(afterFirst, service.fetches.get(), "no Yahoo call inside the backoff window");
+
+        clock.advance(Duration.ofMinutes(6));
+        service.rate = new BigDecimal("3.00");
+        assertEquals(0, new BigDecimal("3.00").compareTo(service.getExchangeRate("USD", "XYZ")));
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,7 +23,7 @@ class ForecastServiceTest {
 
     private ScheduledTransactionService scheduledService;
     private AccountService accountService;
-    private ExchangeRateService exchangeRateService;
+    private FxRateService fxRateService;
     private ForecastService forecastService;
 
     private final User user = new User();
@@ -32,8 +33,8 @@ class ForecastServiceTest {
     void setUp() {
         scheduledService = mock(ScheduledTransactionService.class);
         accountService = mock(AccountService.class);
-        exchangeRateService = mock(ExchangeRateService.class);
-        forecastService = new ForecastService(scheduledService, accountService, exchangeRateService);
+        fxRateService = mock(FxRateService.class);
+        forecastService = new ForecastService(scheduledService, accountService, fxRateService);
 
         user.setId(1L);
         user.setDefaultCurrency("EUR");
@@ -41,7 +42,7 @@ class ForecastServiceTest {
         account.setCurrency("EUR");
         account.setExcludeFromReports(false);
         // identity conversion
-        when(exchangeRateService.convert(any(BigDecimal.class), anyString(), anyString()))
+        when(fxRateService.convert(any(BigDecimal.class), anyString(), anyString(), any(LocalDate.class)))
                 .thenAnswer(inv -> inv.getArgument(0));
         when(accountService.getAccountsByUser(user)).thenReturn(List.of(account));
     }
@@ -97,4 +98,18 @@ class ForecastServiceTest {
         ForecastDTO forecast = forecastService.getForecast(user, 2026);
         assertThat(forecast.getTotalExpense()).isEqualByComparingTo("0");
     }
+
+    @Test
+    void rangeForecastStartsYearsAfterTheNextOccurrence() {
+        ScheduledTransaction daily = monthlyExpense(new BigDecimal("1"), LocalDateTime.of(2026, 1, 1, 7, 0));
+        daily.setRecurrencePattern(ScheduledTransaction.RecurrencePattern.DAILY);
+        when(scheduledService.getByUser(user)).thenReturn(List.of(daily));
+
+        ForecastDTO forecast = forecastService.getForecast(user, LocalDate.of(2035, 1, 1), LocalDate.of(2036, 12, 31));
+
+        assertThat(forecast.getMonths()).hasSize(24);
+        assertThat(forecast.getMonths().get(1).getExpense()).isEqualByComparingTo("28"); // February 2035
+        assertThat(forecast.getMonths().get(13).getExpense()).isEqualByComparingTo("29"); // February 2036
+        assertThat(forecast.getTotalExpense()).isEqualByComparingTo("731");
+    }
 }
@@ -0,0 +1,97 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.repository.FxRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for the historical rate store: file parsing, lookup by date and
+ * derived pairs. The database is mocked; the in-memory index answers every lookup.
+ */
+class FxRateServiceTest {
+
+    private static final String ECB = """
+            Date,USD,JPY,GBP,
+            2024-01-03,1.0919,155.41,0.8631,
+            2024-01-02,1.0956,155.09,N/A,
+            """;
+
+    private ExchangeRateService exchangeRateService;
+    private FxRateService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exchangeRateService = mock(ExchangeRateService.class);
+        service = new FxRateService(mock(FxRateRepository.class), exchangeRateService, mock(JdbcTemplate.class));
+        service.importCsv(new StringReader(ECB), "ECB");
+    }
+
+    @Test
+    void ecbFileIsReadPerEuro() {
+        assertThat(service.rateOn("EUR", "USD", LocalDate.of(2024, 1, 2))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("1.0956"));
+        assertThat(service.rateOn("EUR", "USD", LocalDate.of(2024, 1, 3))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("1.0919"));
+    }
+
+    @Test
+    void missingDayUsesLatestEarlierRate() {
+        // weekends have no rates; GBP starts on 2024-01-03, so earlier days use its first rate
+        assertThat(service.rateOn("EUR", "USD", LocalDate.of(2024, 1, 6))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("1.0919"));
+        assertThat(service.rateOn("EUR", "GBP", LocalDate.of(2024, 1, 2))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("0.8631"));
+    }
+
+    @Test
+    void inverseAndCrossRatesAreDerived() {
+        LocalDate day = LocalDate.of(2024, 1, 3);
+        assertThat(service.rateOn("USD", "EUR", day)).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo(BigDecimal.ONE.divide(new BigDecimal("1.0919"), 10, RoundingMode.HALF_UP)));
+        // USD -> JPY through EUR: 155.41 / 1.0919
+        assertThat(service.convert(new BigDecimal("100"), "USD", "JPY", day)).isEqualByComparingTo("14232.99");
+        verify(exchangeRateService, never()).getExchangeRate(anyString(), anyString());
+    }
+
+    @Test
+    void longFormatIsAccepted() throws Exception {
+        service.importCsv(new StringReader("""
+                date,base,quote,rate
+                2023-06-30,chf,EUR,1.0241
+                """), "IMPORT");
+        assertThat(service.rateOn("CHF", "EUR", LocalDate.of(2023, 7, 1))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("1.0241"));
+    }
+
+    @Test
+    void repeatedPairAndDayIsWrittenOnceWithItsLastRate() throws Exception {
+        int written = service.importCsv(new StringReader("""
+                date,base,quote,rate
+                2023-06-30,CHF,EUR,1.0200
+                2023-06-30,CHF,EUR,1.0241
+                """), "IMPORT");
+        assertThat(written).isEqualTo(1);
+        assertThat(service.rateOn("CHF", "EUR", LocalDate.of(2023, 6, 30))).hasValueSatisfying(
+                r -> assertThat(r).isEqualByComparingTo("1.0241"));
+    }
+
+    @Test
+    void malformedRowIsRejectedWithLineNumber() {
+        assertThatThrownBy(() -> service.importCsv(new StringReader("date,base,quote,rate\n2023-06-30,CHF,EUR,abc\n"), "IMPORT"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Line 2:");
+    }
+}
@@ -0,0 +1,76 @@
+package com.cuenti.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for both market data providers: Yahoo against the local stub
+ * server, and the file provider against a temporary directory.
+ */
+class MarketDataProviderTest {
+
+    private final YahooStubServer stub;
+    private final YahooMarketDataProvider yahoo;
+
+    MarketDataProviderTest() throws Exception {
+        stub = new YahooStubServer()
+                .quote("AAPL", "187.44", "USD")
+                .quote("USDEUR=X", "0.92", "EUR")
+                .rateLimit("MSFT");
+        yahoo = new YahooMarketDataProvider(stub.baseUrl(), 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void yahooReadsQuotesAndRatesFromChartMeta() {
+        assertThat(yahoo.quote("AAPL")).hasValueSatisfying(q -> {
+            assertThat(q.price()).isEqualByComparingTo("187.44");
+            assertThat(q.currency()).isEqualTo("USD");
+        });
+        assertThat(yahoo.fxRate("USD", "EUR")).hasValueSatisfying(r -> assertThat(r).isEqualByComparingTo("0.92"));
+        assertThat(yahoo.quote("NOPE")).isEmpty();
+        assertThat(stub.requests()).isEqualTo(3);
+    }
+
+    @Test
+    void yahoo429IsReportedAsRateLimited() {
+        assertThatThrownBy(() -> yahoo.quote("MSFT")).isInstanceOf(MarketDataProvider.RateLimitedException.class);
+    }
+
+    @Test
+    void fileProviderReadsCsvAndPicksUpChanges(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("quotes.csv"), "symbol,price,currency\n# comment\nAAPL,187.44,USD\n");
+        Files.writeString(dir.resolve("fx.csv"), "from,to,rate\nEUR,USD,1.25\n");
+        FileMarketDataProvider file = new FileMarketDataProvider(dir.toString());
+
+        assertThat(file.quote("aapl")).hasValueSatisfying(q -> assertThat(q.price()).isEqualByComparingTo("187.44"));
+        assertThat(file.quote("MSFT")).isEmpty();
+        assertThat(file.fxRate("EUR", "USD")).hasValueSatisfying(r -> assertThat(r).isEqualByComparingTo("1.25"));
+        assertThat(file.fxRate("USD", "EUR")).hasValueSatisfying(r -> assertThat(r).isEqualByComparingTo("0.8"));
+
+        Path quotes = dir.resolve("quotes.csv");
+        Files.writeString(quotes, "AAPL,190.00,USD\n");
+        Files.setLastModifiedTime(quotes, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertThat(file.quote("AAPL")).hasValueSatisfying(q -> assertThat(q.price()).isEqualByComparingTo(new BigDecimal("190.00")));
+    }
+
+    @Test
+    void fileProviderWithoutFilesHasNoData(@TempDir Path dir) {
+        FileMarketDataProvider file = new FileMarketDataProvider(dir.resolve("missing").toString());
+        assertThat(file.quote("AAPL")).isEmpty();
+        assertThat(file.fxRate("EUR", "USD")).isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.repository.AssetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for the price refresh cycle against the Yahoo stub server: one
+ * fetch per symbol, batching and its fallback, parallel fetching, and the
+ * cycle stopping on 429.
+ */
+class PriceRefreshServiceTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(200);
+
+    private final YahooStubServer stub;
+    private final AssetRepository assetRepository = mock(AssetRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    PriceRefreshServiceTest() throws Exception {
+        stub = new YahooStubServer()
+                .quote("AAPL", "187.44", "USD")
+                .quote("MSFT", "402.10", "USD")
+                .quote("VWCE.DE", "112.30", "EUR")
+                .quote("SAP.DE", "180.00", "EUR")
+                .latency(LATENCY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    private PriceRefreshService service(int batchSize, int maxConcurrency, double requestsPerSecond) {
+        return new PriceRefreshService(new YahooMarketDataProvider(stub.baseUrl(), batchSize), assetRepository,
+                mock(AssetPriceService.class),
+                mock(PlatformTransactionManager.class), registry, maxConcurrency, requestsPerSecond);
+    }
+
+    @Test
+    void symbolsAreDeduplicatedAndFetchedInOneBatch() {
+        PriceRefreshService service = service(50, 4, 100);
+
+        // AAPL held by three users
+        PriceRefreshService.RefreshResult result =
+                service.refresh(List.of("AAPL", "MSFT", "AAPL", "VWCE.DE", "SAP.DE", "AAPL", "UNKNOWN"));
+
+        assertThat(result.symbols()).isEqualTo(5);
+        assertThat(result.batches()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(4);
+        assertThat(result.missing()).isEqualTo(1);
+        assertThat(stub.requests()).isEqualTo(1);
+        verify(assetRepository, times(1)).updatePriceBySymbol(eq("AAPL"), eq(new BigDecimal("187.44")), eq("USD"),
+                any(LocalDateTime.class));
+        verify(assetRepository, never()).updatePriceBySymbol(eq("UNKNOWN"), any(), anyString(), any());
+        assertThat(registry.counter("cuenti.prices.refresh.symbols", "outcome", "updated").count()).isEqualTo(4.0);
+        assertThat(registry.timer("cuenti.prices.refresh.cycle").count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchesRunInParallel() {
+        PriceRefreshService service = service(1, 4, 100);
+
+        PriceRefreshService.RefreshResult result =
+                service.refresh(List.of("AAPL", "MSFT", "VWCE.DE", "SAP.DE", "UNKNOWN"));
+
+        assertThat(result.batches()).isEqualTo(5);
+        assertThat(result.updated()).isEqualTo(4);
+        assertThat(stub.requests()).isEqualTo(5);
+        assertThat(stub.batchRequests()).isZero();
+        // five 200 ms fetches, four at a time: two rounds, not five
+        assertThat(result.took()).isLessThan(LATENCY.multipliedBy(4));
+    }
+
+    @Test
+    void refusedBatchSwitchesToSingleSymbolsNextCycle() {
+        stub.refuseBatch();
+        PriceRefreshService service = service(2, 4, 100);
+
+        // the refused batch and the one partitioned with it stay stale: no fan-out under one permit
+        PriceRefreshService.RefreshResult first = service.refresh(List.of("AAPL", "MSFT", "VWCE.DE", "SAP.DE"));
+        assertThat(first.batches()).isEqualTo(2);
+        assertThat(first.updated()).isZero();
+        assertThat(first.missing()).isEqualTo(4);
+        assertThat(stub.requests()).isEqualTo(stub.batchRequests());
+        int batchRequests = stub.batchRequests();
+
+        // the next cycle is partitioned into single symbols, each through the limiter
+        PriceRefreshService.RefreshResult second = service.refresh(List.of("VWCE.DE", "SAP.DE"));
+        assertThat(second.batches()).isEqualTo(2);
+        assertThat(second.updated()).isEqualTo(2);
+        assertThat(stub.batchRequests()).isEqualTo(batchRequests);
+    }
+
+    @Test
+    void requestRateIsLimited() {
+        stub.latency(Duration.ZERO);
+        PriceRefreshService service = service(1, 1, 10);
+
+        // burst of one, then 10 per second: the remaining three wait ~300 ms
+        PriceRefreshService.RefreshResult result = service.refresh(List.of("AAPL", "MSFT", "VWCE.DE", "SAP.DE"));
+
+        assertThat(result.updated()).isEqualTo(4);
+        assertThat(result.took()).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void rateLimitedSymbolBacksOffTheWholeBatch() {
+        stub.rateLimit("MSFT");
+        PriceRefreshService service = service(50, 1, 100);
+
+        PriceRefreshService.RefreshResult result = service.refresh(List.of("AAPL", "MSFT", "VWCE.DE"));
+
+        assertThat(result.skipped()).isEqualTo(3);
+        assertThat(result.updated()).isZero();
+        assertThat(stub.requests()).isEqualTo(1);
+        verify(assetRepository, never()).updatePriceBySymbol(anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void rateLimitSkipsTheRestOfTheCycle() {
+        stub.rateLimit("AAPL").rateLimit("MSFT").rateLimit("VWCE.DE");
+        PriceRefreshService service = service(1, 1, 100);
+
+        PriceRefreshService.RefreshResult result = service.refresh(List.of("AAPL", "MSFT", "VWCE.DE"));
+
+        assertThat(result.skipped()).isEqualTo(3);
+        assertThat(result.updated()).isZero();
+        // whichever symbol went first hit the 429; the others were never requested
+        assertThat(stub.requests()).isEqualTo(1);
+    }
+}
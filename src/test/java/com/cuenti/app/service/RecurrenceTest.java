@@ -0,0 +1,86 @@
+package com.cuenti.app.service;
+
+import com.cuenti.app.model.ScheduledTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecurrenceTest {
+
+    private static final LocalDate[] STARTS = {
+            LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29), LocalDate.of(2025, 8, 30),
+            LocalDate.of(2026, 3, 6), LocalDate.of(2026, 3, 7), LocalDate.of(2026, 3, 8)};
+
+    private ScheduledTransaction scheduled(ScheduledTransaction.RecurrencePattern pattern, Integer value,
+                                           LocalDate start) {
+        ScheduledTransaction st = new ScheduledTransaction();
+        st.setRecurrencePattern(pattern);
+        st.setRecurrenceValue(value);
+        st.setNextOccurrence(start.atTime(9, 30));
+        return st;
+    }
+
+    private static List<LocalDate> collect(Iterator<LocalDate> occurrences) {
+        List<LocalDate> dates = new ArrayList<>();
+        occurrences.forEachRemaining(dates::add);
+        return dates;
+    }
+
+    /** The previous forecast loop: advance one occurrence at a time from the next occurrence. */
+    private static List<LocalDate> stepped(ScheduledTransaction st, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDateTime occurrence = st.getNextOccurrence();
+        while (!occurrence.toLocalDate().isAfter(to)) {
+            if (!occurrence.toLocalDate().isBefore(from)) dates.add(occurrence.toLocalDate());
+            occurrence = ScheduledTransactionService.advanceOccurrence(occurrence, st);
+        }
+        return dates;
+    }
+
+    @Test
+    void matchesSteppingForEveryPattern() {
+        for (ScheduledTransaction.RecurrencePattern pattern : ScheduledTransaction.RecurrencePattern.values()) {
+            for (Integer value : new Integer[]{null, 1, 2, 5}) {
+                for (LocalDate start : STARTS) {
+                    ScheduledTransaction st = scheduled(pattern, value, start);
+                    LocalDate[][] ranges = {
+                            {start.minusDays(40), start.plusYears(3)},
+                            {start.plusDays(400), start.plusDays(800)},
+                            {start.plusYears(10).plusDays(3), start.plusYears(10).plusDays(70)}};
+                    for (LocalDate[] range : ranges) {
+                        assertThat(collect(Recurrence.occurrences(st, range[0], range[1])))
+                                .as("%s every %s from %s in %s..%s", pattern, value, start, range[0], range[1])
+                                .isEqualTo(stepped(st, range[0], range[1]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void monthEndClampSticksAcrossTheJump() {
+        ScheduledTransaction st = scheduled(ScheduledTransaction.RecurrencePattern.MONTHLY, 1, LocalDate.of(2026, 1, 31));
+        assertThat(collect(Recurrence.occurrences(st, LocalDate.of(2030, 5, 1), LocalDate.of(2030, 7, 31))))
+                .containsExactly(LocalDate.of(2030, 5, 28), LocalDate.of(2030, 6, 28), LocalDate.of(2030, 7, 28));
+    }
+
+    @Test
+    void dailyScheduleJumpsYearsAhead() {
+        ScheduledTransaction st = scheduled(ScheduledTransaction.RecurrencePattern.DAILY, 3, LocalDate.of(2026, 1, 1));
+        assertThat(collect(Recurrence.occurrences(st, LocalDate.of(2036, 3, 1), LocalDate.of(2036, 3, 7))))
+                .isEqualTo(stepped(st, LocalDate.of(2036, 3, 1), LocalDate.of(2036, 3, 7)))
+                .hasSize(2);
+    }
+
+    @Test
+    void nothingBeforeTheNextOccurrence() {
+        ScheduledTransaction st = scheduled(ScheduledTransaction.RecurrencePattern.WEEKLY, 1, LocalDate.of(2026, 6, 1));
+        assertThat(Recurrence.occurrences(st, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 5, 31)).hasNext()).isFalse();
+    }
+}
@@ -15,16 +15,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,18 +50,7 @@ class TradeRepublicImportServiceTest {
 
     @Test
     void importsTransactionExportAndSkipsDuplicateTransactionId() throws Exception {
-        Set<String> seenTxIds = new HashSet<>();
-        when(transactionRepository.findByNumber(anyString())).thenAnswer(invocation -> {
-            String txId = invocation.getArgument(0, String.class);
-            return seenTxIds.contains(txId) ? Optional.of(new Transaction()) : Optional.empty();
-        });
-        doAnswer(invocation -> {
-            Transaction saved = invocation.getArgument(0, Transaction.class);
-            if (saved.getNumber() != null) {
-                seenTxIds.add(saved.getNumber());
-            }
-            return null;
-        }).when(transactionService).saveTransaction(any(Transaction.class));
+        when(transactionRepository.findExistingNumbers(any())).thenReturn(List.of());
 
         String csv = "\"datetime\",\"date\",\"account_type\",\"category\",\"type\",\"asset_class\",\"name\",\"symbol\",\"shares\",\"price\",\"amount\",\"fee\",\"tax\",\"currency\",\"original_amount\",\"original_currency\",\"fx_rate\",\"description\",\"transaction_id\",\"counterparty_name\",\"counterparty_iban\",\"payment_reference\",\"mcc_code\"\n"
                 + "\"2026-01-13T12:39:48.855274Z\",\"2026-01-13\",\"DEFAULT\",\"CASH\",\"CARD_TRANSACTION\",\"\",\"PUR SUEDTIROL MERAN\",\"\",\"\",\"\",\"-1.920000\",\"\",\"\",\"EUR\",\"\",\"\",\"\",\"PUR SUEDTIROL MERANnull\",\"duplicate-id\",\"\",\"\",\"\",\"5499\"\n"
@@ -72,6 +58,8 @@ class TradeRepublicImportServiceTest {
 
         service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), new Account(), new Account());
 
+        // the ids are looked up once for the statement; the repeated one is skipped in memory
+        verify(transactionRepository, times(1)).findExistingNumbers(List.of("duplicate-id"));
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
         verify(transactionService, times(1)).saveTransaction(captor.capture());
 
@@ -85,7 +73,7 @@ class TradeRepublicImportServiceTest {
 
     @Test
     void importsBuyAsTransferAndAppliesFeeToNetAmount() throws Exception {
-        when(transactionRepository.findByNumber(anyString())).thenReturn(Optional.empty());
+        when(transactionRepository.findExistingNumbers(any())).thenReturn(List.of());
 
         Asset asset = new Asset();
         asset.setSymbol("VWCE.DE");
@@ -113,5 +101,30 @@ class TradeRepublicImportServiceTest {
         assertEquals("Vanguard FTSE All-World UCITS ETF", saved.getPayee());
         assertEquals(0, saved.getUnits().compareTo(new BigDecimal("1.6828210000")));
     }
-}
 
+    @Test
+    void deduplicatesRowsWithoutIdAgainstCountedFingerprints() throws Exception {
+        Account cash = new Account();
+        cash.setId(7L);
+        List<Object[]> booked = List.<Object[]>of(
+                new Object[]{LocalDateTime.of(2026, 1, 13, 9, 30), new BigDecimal("1.92"), "coffee   BAR"});
+        when(transactionRepository.findFingerprints(eq(7L), eq(LocalDateTime.of(2026, 1, 13, 0, 0)),
+                eq(LocalDateTime.of(2026, 1, 15, 0, 0)))).thenReturn(booked);
+
+        String header = "\"datetime\",\"date\",\"type\",\"name\",\"amount\",\"fee\",\"tax\",\"description\",\"transaction_id\"\n";
+        String csv = header
+                + "\"\",\"2026-01-13\",\"CARD_TRANSACTION\",\"Coffee Bar\",\"-1.920000\",\"\",\"\",\"Coffee Bar\",\"\"\n"
+                + "\"\",\"2026-01-13\",\"CARD_TRANSACTION\",\"Coffee Bar\",\"-1.920000\",\"\",\"\",\"Coffee Bar\",\"\"\n"
+                + "\"\",\"2026-01-13\",\"CARD_TRANSACTION\",\"Bakery\",\"-1.920000\",\"\",\"\",\"Bakery\",\"\"\n"
+                + "\"\",\"2026-01-14\",\"CARD_TRANSACTION\",\"Coffee Bar\",\"-1.920000\",\"\",\"\",\"Coffee Bar\",\"\"\n";
+
+        service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), cash, new Account());
+
+        // one of the two identical rows is already booked; the other rows differ in description or day
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionService, times(3)).saveTransaction(captor.capture());
+        assertEquals(List.of("Coffee Bar", "Bakery", "Coffee Bar"),
+                captor.getAllValues().stream().map(Transaction::getMemo).toList());
+        verify(transactionRepository, times(1)).findFingerprints(any(), any(), any());
+    }
+}
@@ -0,0 +1,151 @@
+package com.cuenti.app.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for the Yahoo chart and quote APIs, for tests and benchmarks
+ * of the price and rate fetch paths. Serves {@code /v8/finance/chart/{symbol}}
+ * and {@code /v7/finance/quote?symbols=a,b} on a random loopback port from the
+ * prices registered with {@link #quote}; unknown symbols are left out. Symbols
+ * can be made to answer 429 (a batch containing one answers 429 as a whole),
+ * the quote API can be refused with 401, and every response can be delayed to
+ * simulate upstream latency.
+ */
+public final class YahooStubServer implements AutoCloseable {
+
+    private record Price(BigDecimal price, String currency) {
+    }
+
+    private final HttpServer server;
+    private final Map<String, Price> prices = new ConcurrentHashMap<>();
+    private final Set<String> rateLimited = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile boolean batchRefused;
+
+    public YahooStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v8/finance/chart/", this::handleChart);
+        server.createContext("/v7/finance/quote", this::handleQuote);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /** Base URL to configure as {@code cuenti.market-data.yahoo.base-url}. */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public YahooStubServer quote(String symbol, String price, String currency) {
+        prices.put(symbol, new Price(new BigDecimal(price), currency));
+        return this;
+    }
+
+    public YahooStubServer rateLimit(String symbol) {
+        rateLimited.add(symbol);
+        return this;
+    }
+
+    public YahooStubServer latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /** Makes the quote API answer 401, as Yahoo does without a session cookie. */
+    public YahooStubServer refuseBatch() {
+        this.batchRefused = true;
+        return this;
+    }
+
+    /** All requests served, chart and quote API. */
+    public int requests() {
+        return requests.get();
+    }
+
+    /** Quote API (multi-symbol) requests served. */
+    public int batchRequests() {
+        return batchRequests.get();
+    }
+
+    private void delay() {
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        batchRequests.incrementAndGet();
+        delay();
+        if (batchRefused) {
+            respond(exchange, 401, "{\"finance\":{\"result\":null,\"error\":{\"code\":\"Unauthorized\"}}}");
+            return;
+        }
+        String query = exchange.getRequestURI().getQuery();
+        List<String> symbols = query == null ? List.of()
+                : Arrays.stream(query.replaceFirst("^symbols=", "").split(",")).filter(s -> !s.isBlank()).toList();
+        if (symbols.stream().anyMatch(rateLimited::contains)) {
+            respond(exchange, 429, "Too Many Requests");
+            return;
+        }
+        String results = symbols.stream()
+                .filter(prices::containsKey)
+                .map(symbol -> "{\"symbol\":\"" + symbol + "\",\"currency\":\"" + prices.get(symbol).currency()
+                        + "\",\"regularMarketPrice\":" + prices.get(symbol).price().toPlainString() + "}")
+                .collect(Collectors.joining(","));
+        respond(exchange, 200, "{\"quoteResponse\":{\"result\":[" + results + "],\"error\":null}}");
+    }
+
+    private void handleChart(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String symbol = path.substring(path.lastIndexOf('/') + 1);
+        delay();
+
+        if (rateLimited.contains(symbol)) {
+            respond(exchange, 429, "Too Many Requests");
+            return;
+        }
+        Price p = prices.get(symbol);
+        String body = p == null
+                ? "{\"chart\":{\"result\":null,\"error\":{\"code\":\"Not Found\"}}}"
+                : "{\"chart\":{\"result\":[{\"meta\":{\"symbol\":\"" + symbol + "\",\"currency\":\"" + p.currency()
+                        + "\",\"regularMarketPrice\":" + p.price().toPlainString() + "}}],\"error\":null}}";
+        respond(exchange, p == null ? 404 : 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}